@@ -0,0 +1,34 @@
+package com.override.benchmarks;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Заменяет внедрение зависимостей Spring в бенчмарках: сервисы создаются напрямую,
+ * а их {@code @Autowired} поля заполняются заглушками.
+ */
+public final class BenchmarkUtils {
+
+    private BenchmarkUtils() {
+    }
+
+    public static void setField(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Поле " + fieldName + " не найдено в " + target.getClass());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    public static Method getMethod(Class<?> type, String methodName, Class<?>... parameterTypes) {
+        Method method = ReflectionUtils.findMethod(type, methodName, parameterTypes);
+        if (method == null) {
+            throw new IllegalArgumentException("Метод " + methodName + " не найден в " + type);
+        }
+        ReflectionUtils.makeAccessible(method);
+        return method;
+    }
+}
@@ -0,0 +1,92 @@
+package com.override.benchmarks.mask_log;
+
+import com.override.benchmarks.BenchmarkUtils;
+import com.override.mask_log.config.MaskLogProperties;
+import com.override.mask_log.impl.formatter.MaskLogFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpMessage;
+import org.zalando.logbook.Origin;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маскирование тела запроса в {@link MaskLogFormatter#prepareBody(HttpMessage)}
+ * для небольшого JSON с одним секретным полем и для крупного ответа со списком транзакций.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MaskLogFormatterBenchmark {
+
+    @Param({"1", "500"})
+    private int transactionsCount;
+
+    private final MaskLogFormatter maskLogFormatter = new MaskLogFormatter();
+
+    private HttpMessage httpMessage;
+
+    @Setup
+    public void setUp() {
+        MaskLogProperties maskLogProperties = new MaskLogProperties();
+        maskLogProperties.setMaskedFields(List.of("token", "accessToken", "refreshToken"));
+        BenchmarkUtils.setField(maskLogFormatter, "maskLogProperties", maskLogProperties);
+
+        StringBuilder body = new StringBuilder("{\"accessToken\": \"eyJhbGciOiJIUzUxMiJ9.eyJzdWIiOiIxMjMifQ\", ")
+                .append("\"transactions\": [");
+        for (int i = 0; i < transactionsCount; i++) {
+            if (i > 0) {
+                body.append(", ");
+            }
+            body.append("{\"id\": \"6f1c2d3e-0000-4000-8000-").append(String.format("%012d", i))
+                    .append("\", \"message\": \"пиво теплое\", \"amount\": \"").append(100 + i)
+                    .append("\", \"categoryName\": \"Продукты\"}");
+        }
+        body.append("]}");
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        httpMessage = new HttpMessage() {
+            @Override
+            public Origin getOrigin() {
+                return Origin.REMOTE;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return HttpHeaders.empty();
+            }
+
+            @Override
+            public Charset getCharset() {
+                return StandardCharsets.UTF_8;
+            }
+
+            @Override
+            public byte[] getBody() {
+                return bytes;
+            }
+        };
+    }
+
+    @Benchmark
+    public Optional<Object> prepareBody() throws IOException {
+        return maskLogFormatter.prepareBody(httpMessage);
+    }
+}
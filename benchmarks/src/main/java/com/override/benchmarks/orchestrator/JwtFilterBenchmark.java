@@ -0,0 +1,114 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.benchmarks.BenchmarkUtils;
+import com.override.orchestrator_service.config.jwt.JwtFilter;
+import com.override.orchestrator_service.config.jwt.JwtProvider;
+import com.override.orchestrator_service.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы аутентификации на один запрос: проверка подписи и разбор токена при каждом обращении,
+ * как было до кэша (проверка и повторный разбор новым парсером), одна проверка подписи
+ * и полный проход {@link JwtFilter} с токеном, уже проверенным в предыдущих запросах.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String ACCESS_SECRET = "qBTmv4oXFFR2GwjexDJ4t6fsIUIUhhXqlktXjXdkcyygs8nPVEwMfo29VDRRepYDVV5IkIxBMzr7OEHXEHd37w==";
+
+    private static final String REFRESH_SECRET = "zL1HB3Pch05Avfynovxrf/kpF9O2m4NCWKJUjEp27s9J2jEG3ifiKCGylaZ8fDeoONSTJP/wAzKawB8F9rOMNg==";
+
+    private final FilterChain filterChain = (request, response) -> SecurityContextHolder.clearContext();
+
+    private SecretKey accessKey;
+
+    private JwtProvider jwtProvider;
+
+    private JwtFilter jwtFilter;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        accessKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(ACCESS_SECRET));
+        jwtProvider = new JwtProvider(ACCESS_SECRET, REFRESH_SECRET);
+        BenchmarkUtils.setField(jwtProvider, "tokenLifeTimeInHours", 1);
+        jwtFilter = new JwtFilter();
+        BenchmarkUtils.setField(jwtFilter, "jwtProvider", jwtProvider);
+        token = jwtProvider.generateAccessToken(User.builder()
+                .id(1L)
+                .firstName("Иван")
+                .username("ivan")
+                .build());
+    }
+
+    @Benchmark
+    public Claims parseTwiceWithNewParsers() {
+        Jwts.parserBuilder().setSigningKey(accessKey).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(accessKey).build().parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims verifyOnce() {
+        return jwtProvider.getAccessClaims(token);
+    }
+
+    @Benchmark
+    public HttpServletRequest filterRequest() throws IOException, ServletException {
+        HttpServletRequest request = createRequest(token);
+        jwtFilter.doFilter(request, null, filterChain);
+        return request;
+    }
+
+    /**
+     * Минимальный запрос с cookie токена и атрибутами, без зависимости от тестовых заглушек servlet API
+     */
+    private static HttpServletRequest createRequest(String token) {
+        Cookie[] cookies = {new Cookie("accessToken", token)};
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(JwtFilterBenchmark.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCookies":
+                            return cookies;
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,51 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.dto.constants.Type;
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.KeywordId;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Данные для бенчмарков оркестратора: аккаунт с заданным количеством категорий и ключевых слов,
+ * собранный без обращения к БД.
+ */
+public final class OrchestratorFixtures {
+
+    public static final long ACCOUNT_ID = 1L;
+
+    public static final long CHAT_ID = 404723191L;
+
+    private OrchestratorFixtures() {
+    }
+
+    /**
+     * Ключевые слова имеют вид "keyword-{категория}-{номер}", названия категорий - "category-{номер}"
+     */
+    public static OverMoneyAccount createAccount(int categoriesCount, int keywordsPerCategory) {
+        OverMoneyAccount account = OverMoneyAccount.builder()
+                .id(ACCOUNT_ID)
+                .chatId(CHAT_ID)
+                .build();
+        Set<Category> categories = new HashSet<>();
+        for (int i = 0; i < categoriesCount; i++) {
+            Category category = Category.builder()
+                    .id((long) i)
+                    .name("category-" + i)
+                    .type(i % 5 == 0 ? Type.INCOME : Type.EXPENSE)
+                    .account(account)
+                    .build();
+            Set<Keyword> keywords = new HashSet<>();
+            for (int j = 0; j < keywordsPerCategory; j++) {
+                keywords.add(new Keyword(new KeywordId("keyword-" + i + "-" + j, ACCOUNT_ID), category));
+            }
+            category.setKeywords(keywords);
+            categories.add(category);
+        }
+        account.setCategories(categories);
+        return account;
+    }
+}
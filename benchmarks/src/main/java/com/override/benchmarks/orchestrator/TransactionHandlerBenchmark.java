@@ -0,0 +1,80 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.dto.TransactionAmountAndCommentDTO;
+import com.override.orchestrator_service.service.calc.TransactionHandler;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSingleAmountAtEnd;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSingleAmountAtFront;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSumAmountAtEnd;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSumAmountAtFront;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Стоимость отдельных реализаций {@link TransactionHandler}: проверка формата по предкомпилированному
+ * регулярному выражению, вычисление суммы и выделение комментария для подходящего сообщения.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHandlerBenchmark {
+
+    @Param({"SUM_AMOUNT_AT_FRONT", "SINGLE_AMOUNT_AT_FRONT", "SUM_AMOUNT_AT_END", "SINGLE_AMOUNT_AT_END"})
+    private String handlerType;
+
+    private TransactionHandler transactionHandler;
+
+    private Pattern pattern;
+
+    private String message;
+
+    @Setup
+    public void setUp() {
+        switch (handlerType) {
+            case "SUM_AMOUNT_AT_FRONT":
+                transactionHandler = new TransactionHandlerImplSumAmountAtFront();
+                message = "200+200,1+200.1+200 пиво теплое! 1.5";
+                break;
+            case "SINGLE_AMOUNT_AT_FRONT":
+                transactionHandler = new TransactionHandlerImplSingleAmountAtFront();
+                message = "500 пиво теплое! 1.5";
+                break;
+            case "SUM_AMOUNT_AT_END":
+                transactionHandler = new TransactionHandlerImplSumAmountAtEnd();
+                message = "пиво теплое! 1.5 200  + 200,1+200.1+200";
+                break;
+            case "SINGLE_AMOUNT_AT_END":
+                transactionHandler = new TransactionHandlerImplSingleAmountAtEnd();
+                message = "пиво теплое! 1.5 500,23";
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная стратегия " + handlerType);
+        }
+        pattern = Pattern.compile(transactionHandler.getRegExp());
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return pattern.matcher(message).find();
+    }
+
+    @Benchmark
+    public TransactionAmountAndCommentDTO calculateAmountAndComment() {
+        return new TransactionAmountAndCommentDTO(transactionHandler.calculateAmount(message),
+                transactionHandler.getTransactionComment(message));
+    }
+}
@@ -0,0 +1,66 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.dto.TransactionDTO;
+import com.override.orchestrator_service.mapper.TransactionMapper;
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionMapperBenchmark {
+
+    private final TransactionMapper transactionMapper = new TransactionMapper();
+
+    private Transaction categorizedTransaction;
+
+    private Transaction uncategorizedTransaction;
+
+    @Setup
+    public void setUp() {
+        OverMoneyAccount account = OrchestratorFixtures.createAccount(1, 1);
+        Category category = account.getCategories().iterator().next();
+        categorizedTransaction = createTransaction(account, category);
+        uncategorizedTransaction = createTransaction(account, null);
+    }
+
+    @Benchmark
+    public TransactionDTO mapCategorizedTransaction() {
+        return transactionMapper.mapTransactionToDTO(categorizedTransaction);
+    }
+
+    @Benchmark
+    public TransactionDTO mapUncategorizedTransaction() {
+        return transactionMapper.mapTransactionToDTO(uncategorizedTransaction);
+    }
+
+    private Transaction createTransaction(OverMoneyAccount account, Category category) {
+        return Transaction.builder()
+                .id(UUID.randomUUID())
+                .account(account)
+                .category(category)
+                .amount(1234.5678d)
+                .message("пиво теплое")
+                .date(LocalDateTime.now())
+                .telegramUserId(123L)
+                .build();
+    }
+}
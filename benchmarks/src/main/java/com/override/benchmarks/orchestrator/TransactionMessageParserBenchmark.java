@@ -0,0 +1,82 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.dto.TransactionAmountAndCommentDTO;
+import com.override.orchestrator_service.service.calc.TransactionHandler;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplInvalidTransaction;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSingleAmountAtEnd;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSingleAmountAtFront;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSumAmountAtEnd;
+import com.override.orchestrator_service.service.calc.TransactionHandlerImplSumAmountAtFront;
+import com.override.orchestrator_service.service.calc.TransactionMessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сравнение однопроходного {@link TransactionMessageParser} с цепочкой стратегий на регулярных выражениях,
+ * которую {@code TransactionProcessingService} применял к каждому сообщению.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionMessageParserBenchmark {
+
+    @Param({
+            "пиво 200",
+            "200 пиво",
+            "пиво теплое! 1.5 500,23",
+            "200+200,1+200.1+200 пиво теплое! 1.5",
+            "пиво теплое! 1.5 200  + 200,1+200.1+200"
+    })
+    private String message;
+
+    private final List<TransactionHandler> transactionHandlers = new LinkedList<>();
+
+    private final TransactionMessageParser transactionMessageParser = new TransactionMessageParser();
+
+    @Setup
+    public void setUp() {
+        transactionHandlers.add(new TransactionHandlerImplSumAmountAtFront());
+        transactionHandlers.add(new TransactionHandlerImplSingleAmountAtFront());
+        transactionHandlers.add(new TransactionHandlerImplSumAmountAtEnd());
+        transactionHandlers.add(new TransactionHandlerImplSingleAmountAtEnd());
+        transactionHandlers.add(new TransactionHandlerImplInvalidTransaction());
+    }
+
+    @Benchmark
+    public TransactionAmountAndCommentDTO handlerChain() {
+        TransactionAmountAndCommentDTO transactionDetails = new TransactionAmountAndCommentDTO();
+        for (TransactionHandler t : transactionHandlers) {
+            Pattern pattern = Pattern.compile(t.getRegExp());
+            Matcher matcher = pattern.matcher(message);
+            if (matcher.find()) {
+                transactionDetails.setAmount(t.calculateAmount(message));
+                transactionDetails.setComment(t.getTransactionComment(message));
+                break;
+            }
+        }
+        return transactionDetails;
+    }
+
+    @Benchmark
+    public TransactionAmountAndCommentDTO singlePassParser() {
+        return transactionMessageParser.parse(message);
+    }
+}
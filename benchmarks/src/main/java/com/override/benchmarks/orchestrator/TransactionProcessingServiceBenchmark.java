@@ -0,0 +1,69 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.benchmarks.BenchmarkUtils;
+import com.override.dto.TransactionMessageDTO;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.service.CategorizationIndexService;
+import com.override.orchestrator_service.service.TransactionProcessingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionProcessingService#processTransaction(TransactionMessageDTO, OverMoneyAccount)}
+ * на заглушке аккаунта: разбор сообщения и поиск категории по названию или ключевому слову.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionProcessingServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int categoriesCount;
+
+    @Param({"10", "100"})
+    private int keywordsPerCategory;
+
+    @Param({"keyword-3-7 250", "category-5 1000", "неизвестный расход 300"})
+    private String message;
+
+    private TransactionProcessingService transactionProcessingService;
+
+    private OverMoneyAccount account;
+
+    private TransactionMessageDTO transactionMessageDTO;
+
+    @Setup
+    public void setUp() {
+        transactionProcessingService = new TransactionProcessingService();
+        BenchmarkUtils.setField(transactionProcessingService, "categorizationIndexService",
+                new CategorizationIndexService());
+        account = OrchestratorFixtures.createAccount(categoriesCount, keywordsPerCategory);
+        transactionMessageDTO = TransactionMessageDTO.builder()
+                .message(message)
+                .chatId(OrchestratorFixtures.CHAT_ID)
+                .userId(123L)
+                .date(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public Transaction processTransaction() {
+        return transactionProcessingService.processTransaction(transactionMessageDTO, account);
+    }
+}
@@ -0,0 +1,69 @@
+package com.override.benchmarks.orchestrator;
+
+import com.override.benchmarks.BenchmarkUtils;
+import com.override.dto.AnalyticsAnnualAndMonthlyExpenseForCategoryDTO;
+import com.override.orchestrator_service.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование строк годового отчета (категория, месяц, сумма) в {@code AnalyticsAnnualAndMonthlyReportDTO}
+ * в {@code TransactionService}. Метод закрытый, поэтому вызывается через reflection,
+ * накладные расходы на вызов пренебрежимо малы по сравнению с самим преобразованием.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionServiceAnalyticsBenchmark {
+
+    @Param({"10", "50"})
+    private int categoriesCount;
+
+    @Param({"1", "30"})
+    private int rowsPerCategoryAndMonth;
+
+    private final TransactionService transactionService = new TransactionService();
+
+    private Method mapMethod;
+
+    private List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> rows;
+
+    @Setup
+    public void setUp() {
+        mapMethod = BenchmarkUtils.getMethod(TransactionService.class,
+                "mapObjectToAnalyticsAnnualAndMonthlyReportDTO", List.class);
+        Random random = new Random(42);
+        rows = new ArrayList<>();
+        for (int category = 0; category < categoriesCount; category++) {
+            for (int month = 1; month <= 12; month++) {
+                for (int i = 0; i < rowsPerCategoryAndMonth; i++) {
+                    rows.add(new AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(random.nextInt(100_000) / 100d,
+                            "category-" + category, category, month));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Object mapObjectToAnalyticsAnnualAndMonthlyReportDTO() throws Exception {
+        return mapMethod.invoke(transactionService, rows);
+    }
+}
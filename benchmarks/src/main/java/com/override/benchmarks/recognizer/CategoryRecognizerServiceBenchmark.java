@@ -0,0 +1,76 @@
+package com.override.benchmarks.recognizer;
+
+import com.override.dto.CategoryDTO;
+import com.override.dto.KeywordIdDTO;
+import com.override.dto.constants.Type;
+import com.override.recognizer_service.service.CategoryRecognizerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CategoryRecognizerService#recognizeCategory(String, List)} для аккаунтов с типичным
+ * (десятки категорий, единицы ключевых слов) и большим (групповой чат, сотни и тысячи ключевых слов) словарем.
+ * Сервис не изменяет переданные категории, поэтому все вызовы получают один список, индекс ключевых слов
+ * строится при первом вызове и дальше берется из кэша сервиса.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CategoryRecognizerServiceBenchmark {
+
+    private final String[] WORDS = {"продукты", "пиво", "такси", "кофе", "бензин", "аптека", "кино", "обед",
+            "подарок", "ремонт", "одежда", "связь", "интернет", "спортзал", "книги", "зарплата"};
+
+    @Param({"15", "40"})
+    private int categoriesCount;
+
+    @Param({"5", "100", "1000"})
+    private int keywordsPerCategory;
+
+    @Param({"пиво теплое", "абонемент в спортзал"})
+    private String message;
+
+    private final CategoryRecognizerService categoryRecognizerService = new CategoryRecognizerService();
+
+    private List<CategoryDTO> categories;
+
+    @Setup
+    public void setUp() {
+        categories = new ArrayList<>();
+        for (int i = 0; i < categoriesCount; i++) {
+            List<KeywordIdDTO> keywords = new ArrayList<>();
+            for (int j = 0; j < keywordsPerCategory; j++) {
+                keywords.add(KeywordIdDTO.builder()
+                        .name(WORDS[(i + j) % WORDS.length] + " " + WORDS[(i * 7 + j * 3) % WORDS.length] + j)
+                        .build());
+            }
+            categories.add(CategoryDTO.builder()
+                    .id((long) i)
+                    .name(WORDS[i % WORDS.length] + i)
+                    .type(Type.EXPENSE)
+                    .keywords(keywords)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public CategoryDTO recognizeCategory() {
+        return categoryRecognizerService.recognizeCategory(message, categories);
+    }
+}
@@ -0,0 +1,150 @@
+package com.override.benchmarks.recognizer;
+
+import com.override.recognizer_service.service.WordsToNumbersService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод суммы прописью в число: прежний разбор регулярным выражением, split и поиском каждого слова
+ * в {@link HashMap} после toLowerCase в сравнении с однопроходным разбором по префиксному дереву.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordsToNumbersServiceBenchmark {
+
+    @Param({
+            "пиво сто рублей",
+            "такси триста двадцать пять",
+            "ремонт два миллиона триста сорок пять тысяч шестьсот семьдесят восемь рублей",
+            "кофе косарь",
+            "пиво, двести рублей пятьдесят копеек!"
+    })
+    private String words;
+
+    private static final List<String> LEGACY_CURRENCIES = List.of("рубль", "рублей", "рубля");
+
+    private final WordsToNumbersService wordsToNumbersService = new WordsToNumbersService();
+
+    private final Map<String, Long> legacyVocabulary = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        wordsToNumbersService.fillCurrencies();
+        wordsToNumbersService.fillFractions();
+        wordsToNumbersService.fillVocabulary();
+        wordsToNumbersService.fillSlangVocabulary();
+        fillLegacyVocabulary();
+    }
+
+    @Benchmark
+    public String wordsToNumbers() {
+        return wordsToNumbersService.wordsToNumbers(words);
+    }
+
+    @Benchmark
+    public String legacyWordsToNumbers() {
+        int number = 0;
+        int prevNumber = 0;
+        String[] splitWords = words.replaceAll("[^a-zA-Zа-яА-Я\\s]", "").split("\\s+");
+        StringBuilder message = new StringBuilder();
+        for (String word : splitWords) {
+            if (legacyVocabulary.containsKey(word.toLowerCase())) {
+                long value = legacyVocabulary.get(word.toLowerCase());
+                if (value >= 1000) {
+                    if (prevNumber == 0) {
+                        prevNumber = 1;
+                    }
+                    number += prevNumber * value;
+                    prevNumber = 0;
+                } else {
+                    prevNumber += value;
+                }
+            } else if (!LEGACY_CURRENCIES.contains(word.toLowerCase())) {
+                message.append(word).append(" ");
+            }
+        }
+        number += prevNumber;
+        message.append(number);
+        return message.toString();
+    }
+
+    private void fillLegacyVocabulary() {
+        legacyVocabulary.put("ноль", 0L);
+        legacyVocabulary.put("один", 1L);
+        legacyVocabulary.put("одна", 1L);
+        legacyVocabulary.put("два", 2L);
+        legacyVocabulary.put("две", 2L);
+        legacyVocabulary.put("три", 3L);
+        legacyVocabulary.put("четыре", 4L);
+        legacyVocabulary.put("пять", 5L);
+        legacyVocabulary.put("шесть", 6L);
+        legacyVocabulary.put("семь", 7L);
+        legacyVocabulary.put("восемь", 8L);
+        legacyVocabulary.put("девять", 9L);
+        legacyVocabulary.put("десять", 10L);
+        legacyVocabulary.put("одиннадцать", 11L);
+        legacyVocabulary.put("двенадцать", 12L);
+        legacyVocabulary.put("тринадцать", 13L);
+        legacyVocabulary.put("четырнадцать", 14L);
+        legacyVocabulary.put("пятнадцать", 15L);
+        legacyVocabulary.put("шестнадцать", 16L);
+        legacyVocabulary.put("семнадцать", 17L);
+        legacyVocabulary.put("восемнадцать", 18L);
+        legacyVocabulary.put("девятнадцать", 19L);
+        legacyVocabulary.put("двадцать", 20L);
+        legacyVocabulary.put("тридцать", 30L);
+        legacyVocabulary.put("сорок", 40L);
+        legacyVocabulary.put("пятьдесят", 50L);
+        legacyVocabulary.put("шестьдесят", 60L);
+        legacyVocabulary.put("семьдесят", 70L);
+        legacyVocabulary.put("восемьдесят", 80L);
+        legacyVocabulary.put("девяносто", 90L);
+        legacyVocabulary.put("сто", 100L);
+        legacyVocabulary.put("двести", 200L);
+        legacyVocabulary.put("триста", 300L);
+        legacyVocabulary.put("четыреста", 400L);
+        legacyVocabulary.put("пятьсот", 500L);
+        legacyVocabulary.put("шестьсот", 600L);
+        legacyVocabulary.put("семьсот", 700L);
+        legacyVocabulary.put("восемьсот", 800L);
+        legacyVocabulary.put("девятьсот", 900L);
+        legacyVocabulary.put("тысяча", 1000L);
+        legacyVocabulary.put("тысячи", 1000L);
+        legacyVocabulary.put("тыща", 1000L);
+        legacyVocabulary.put("тыщу", 1000L);
+        legacyVocabulary.put("тыщи", 1000L);
+        legacyVocabulary.put("тысяч", 1000L);
+        legacyVocabulary.put("миллион", 1000000L);
+        legacyVocabulary.put("миллиона", 1000000L);
+        legacyVocabulary.put("миллионов", 1000000L);
+        legacyVocabulary.put("миллиард", 1000000000L);
+        legacyVocabulary.put("миллиарда", 1000000000L);
+        legacyVocabulary.put("миллиардов", 1000000000L);
+        legacyVocabulary.put("чирик", 10L);
+        legacyVocabulary.put("полтос", 50L);
+        legacyVocabulary.put("сотыга", 100L);
+        legacyVocabulary.put("соточка", 100L);
+        legacyVocabulary.put("пятиха", 500L);
+        legacyVocabulary.put("пятихатка", 500L);
+        legacyVocabulary.put("косарь", 1000L);
+        legacyVocabulary.put("кaсарь", 1000L);
+    }
+}
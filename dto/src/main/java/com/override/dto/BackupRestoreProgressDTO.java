@@ -0,0 +1,25 @@
+package com.override.dto;
+
+import com.override.dto.constants.BackupRestoreStage;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Ход восстановления данных из бэкапа")
+public class BackupRestoreProgressDTO {
+
+    @Schema(description = "Текущий этап восстановления")
+    private BackupRestoreStage stage;
+
+    @Schema(description = "Количество транзакций в бэкапе")
+    private Integer totalTransactions;
+
+    @Schema(description = "Количество уже записанных транзакций")
+    private Integer restoredTransactions;
+}
@@ -0,0 +1,30 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Пакет транзакций одного аккаунта для подбора категорий")
+public class CategorySuggestionBatchDTO {
+
+    @Schema(description = "ID аккаунта")
+    private Long accountId;
+
+    @Schema(description = "Версия категорий аккаунта, меняется при каждом изменении категорий и ключевых слов. "
+            + "Если не задана, индекс категорий строится заново при каждом запросе")
+    private String categoriesVersion;
+
+    @Schema(description = "Транзакции пакета")
+    private List<CategorySuggestionRequestDTO> transactions;
+
+    @Schema(description = "Категории аккаунта с ключевыми словами, общие для всех транзакций пакета")
+    private List<CategoryDTO> categories;
+}
@@ -0,0 +1,23 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Транзакция, для которой нужно предложить категорию")
+public class CategorySuggestionRequestDTO {
+
+    @Schema(description = "ID транзакции")
+    private UUID transactionId;
+
+    @Schema(description = "Текст транзакции", example = "пиво")
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Результат обработки транзакции из пакета")
+public class TransactionBatchResultDTO {
+
+    @Schema(description = "Порядковый номер транзакции в пакете")
+    private Integer index;
+
+    @Schema(description = "Сохраненная транзакция, если обработка прошла успешно")
+    private TransactionResponseDTO transaction;
+
+    @Schema(description = "Ошибка обработки транзакции")
+    private CommonErrorDTO error;
+}
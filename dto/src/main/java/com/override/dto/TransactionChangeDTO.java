@@ -0,0 +1,33 @@
+package com.override.dto;
+
+import com.override.dto.constants.TransactionChangeType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Изменение транзакций аккаунта для ленты событий")
+public class TransactionChangeDTO {
+
+    @Schema(description = "Тип изменения")
+    private TransactionChangeType type;
+
+    @Schema(description = "ID измененной транзакции")
+    private UUID transactionId;
+
+    @Schema(description = "Транзакция после создания или изменения")
+    private TransactionDTO transaction;
+
+    @Schema(description = "Сообщение, транзакциям с которым назначена или с которых снята категория")
+    private String message;
+
+    @Schema(description = "ID назначенной категории")
+    private Long categoryId;
+}
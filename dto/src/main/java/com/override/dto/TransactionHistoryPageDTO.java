@@ -0,0 +1,23 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Страница истории транзакций")
+public class TransactionHistoryPageDTO {
+
+    @Schema(description = "Транзакции страницы, от новых к старым")
+    private List<TransactionDTO> transactions;
+
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней странице")
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Результат загрузки транзакций из XLSX")
+public class TransactionXLSXImportResultDTO {
+
+    @Schema(description = "Количество прочитанных строк файла")
+    private Integer processedRows;
+
+    @Schema(description = "Количество сохраненных транзакций")
+    private Integer importedTransactions;
+
+    @Schema(description = "Количество строк, не загруженных из-за ошибок")
+    private Integer failedRows;
+
+    @Schema(description = "Количество созданных категорий")
+    private Integer createdCategories;
+
+    @Schema(description = "Ошибки строк файла, возвращаются только первые из них")
+    private List<TransactionXLSXRowErrorDTO> errors;
+}
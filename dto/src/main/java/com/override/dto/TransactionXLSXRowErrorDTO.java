@@ -0,0 +1,21 @@
+package com.override.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Ошибка загрузки строки XLSX файла")
+public class TransactionXLSXRowErrorDTO {
+
+    @Schema(description = "Номер строки в файле, начиная с единицы")
+    private Integer row;
+
+    @Schema(description = "Ошибка обработки строки")
+    private CommonErrorDTO error;
+}
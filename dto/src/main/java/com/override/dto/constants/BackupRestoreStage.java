@@ -0,0 +1,10 @@
+package com.override.dto.constants;
+
+public enum BackupRestoreStage {
+    CLEARING,
+    CATEGORIES,
+    KEYWORDS,
+    TRANSACTIONS,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,10 @@
+package com.override.dto.constants;
+
+public enum TransactionChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    CATEGORIZED,
+    UNCATEGORIZED,
+    RELOAD
+}
@@ -0,0 +1,28 @@
+package com.override.invest_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "tinkoff.invest-api-pool")
+@Getter
+@Setter
+public class InvestApiPoolProperties {
+
+    /**
+     * Максимальное число одновременно открытых подключений, по одному на токен
+     */
+    private int maxChannels = 100;
+
+    /**
+     * Время простоя, после которого подключение закрывается
+     */
+    private long idleTimeoutSeconds = 600;
+
+    /**
+     * Интервал проверки простаивающих подключений
+     */
+    private long healthCheckIntervalSeconds = 60;
+}
@@ -22,19 +22,18 @@ public class MarketTQBRData {
     private final Map<String, Share> tickerShareMap;
     private final Map<String, Quotation> figiPriceMap;
 
-    public MarketTQBRData(String token, String tinkoffAccountId) {
+    /**
+     * @param api подключение к tinkoffAPI, закрывается вызывающим кодом
+     */
+    public MarketTQBRData(InvestApi api, String token, String tinkoffAccountId) {
         this.tinkoffAccountId = tinkoffAccountId;
         this.token = token;
 
-        InvestApi api = InvestApi.createReadonly(token);
-
         try {
             this.tickerShareMap = buildTickerSharesMap(api);
             this.figiPriceMap = buildFigiesPricesMap(api);
         } catch (RuntimeException ex) {
             throw new RuntimeException("Ошибка сборки данных из tinkoffAPI в хэшмапы", ex);
-        } finally {
-            api.destroy(0);
         }
     }
 
@@ -0,0 +1,219 @@
+package com.override.invest_service.service;
+
+import com.override.invest_service.config.InvestApiPoolProperties;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Пул долгоживущих подключений к Tinkoff Invest API. Каждое подключение держит свой gRPC канал,
+ * открытие которого требует TLS рукопожатия, поэтому канал создается один раз на токен и переиспользуется
+ * запросами. Подключения хранятся по хэшу токена, число подключений ограничено, простаивающие дольше
+ * заданного времени закрываются, а остальные простаивающие периодически проверяются запросом списка счетов
+ */
+@Service
+@Slf4j
+public class InvestApiPool {
+
+    private final String DIGEST_ALGORITHM = "SHA-256";
+    private final int DESTROY_TIMEOUT_SECONDS = 0;
+
+    @Autowired
+    private InvestApiPoolProperties investApiPoolProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Изменяется только под блокировкой пула, потокобезопасная карта нужна для чтения размера метрикой
+     */
+    private final Map<String, PooledInvestApi> channels = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService maintenance;
+
+    @PostConstruct
+    public void init() {
+        long interval = investApiPoolProperties.getHealthCheckIntervalSeconds();
+        maintenance = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("invest-api-pool-"));
+        maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.SECONDS);
+        meterRegistry.gaugeMapSize("invest.api.pool.channels", List.of(), channels);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        maintenance.shutdownNow();
+        channels.values().forEach(pooled -> pooled.api.destroy(DESTROY_TIMEOUT_SECONDS));
+        channels.clear();
+    }
+
+    /**
+     * Выполняет запросы через подключение пула. Если пул заполнен занятыми подключениями,
+     * для запроса открывается временное подключение
+     */
+    public <T> T execute(String token, Function<InvestApi, T> requests) {
+        PooledInvestApi pooled = borrow(token);
+        if (pooled == null) {
+            log.warn("Пул подключений к Tinkoff Invest API заполнен, открыто временное подключение");
+            InvestApi api = InvestApi.createReadonly(token);
+            try {
+                return requests.apply(api);
+            } finally {
+                api.destroy(DESTROY_TIMEOUT_SECONDS);
+            }
+        }
+        boolean broken = false;
+        try {
+            return requests.apply(pooled.api);
+        } catch (RuntimeException e) {
+            broken = isChannelFailure(e);
+            throw e;
+        } finally {
+            release(pooled, broken, true);
+        }
+    }
+
+    /**
+     * Закрывает подключения, простаивающие дольше допустимого, и проверяет остальные простаивающие
+     */
+    void maintain() {
+        List<PooledInvestApi> checked = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            long idleTimeout = TimeUnit.SECONDS.toNanos(investApiPoolProperties.getIdleTimeoutSeconds());
+            long checkInterval = TimeUnit.SECONDS.toNanos(investApiPoolProperties.getHealthCheckIntervalSeconds());
+            for (Iterator<PooledInvestApi> iterator = channels.values().iterator(); iterator.hasNext(); ) {
+                PooledInvestApi pooled = iterator.next();
+                if (pooled.borrowers > 0) {
+                    continue;
+                }
+                if (now - pooled.lastUsedAt >= idleTimeout) {
+                    iterator.remove();
+                    pooled.api.destroy(DESTROY_TIMEOUT_SECONDS);
+                } else if (now - Math.max(pooled.lastUsedAt, pooled.lastCheckedAt) >= checkInterval) {
+                    pooled.borrowers++;
+                    pooled.lastCheckedAt = now;
+                    checked.add(pooled);
+                }
+            }
+        }
+        for (PooledInvestApi pooled : checked) {
+            boolean broken = false;
+            try {
+                pooled.api.getUserService().getAccountsSync();
+            } catch (RuntimeException e) {
+                log.warn("Подключение к Tinkoff Invest API не прошло проверку и будет закрыто: " + e.getMessage());
+                broken = true;
+            } finally {
+                release(pooled, broken, false);
+            }
+        }
+    }
+
+    private synchronized PooledInvestApi borrow(String token) {
+        String key = hash(token);
+        PooledInvestApi pooled = channels.get(key);
+        if (pooled == null) {
+            if (channels.size() >= investApiPoolProperties.getMaxChannels() && !evictLeastRecentlyUsed()) {
+                return null;
+            }
+            pooled = new PooledInvestApi(key, InvestApi.createReadonly(token));
+            channels.put(key, pooled);
+        }
+        pooled.borrowers++;
+        return pooled;
+    }
+
+    /**
+     * @param broken подключение неработоспособно и удаляется из пула
+     * @param used   подключение использовалось запросом, а не проверкой, и время простоя отсчитывается заново
+     */
+    private synchronized void release(PooledInvestApi pooled, boolean broken, boolean used) {
+        pooled.borrowers--;
+        if (used) {
+            pooled.lastUsedAt = System.nanoTime();
+        }
+        if (broken) {
+            channels.remove(pooled.key, pooled);
+        }
+        if (pooled.borrowers == 0 && channels.get(pooled.key) != pooled) {
+            pooled.api.destroy(DESTROY_TIMEOUT_SECONDS);
+        }
+    }
+
+    /**
+     * @return false, если все подключения заняты
+     */
+    private boolean evictLeastRecentlyUsed() {
+        PooledInvestApi leastRecentlyUsed = null;
+        for (PooledInvestApi pooled : channels.values()) {
+            if (pooled.borrowers == 0
+                    && (leastRecentlyUsed == null || pooled.lastUsedAt - leastRecentlyUsed.lastUsedAt < 0)) {
+                leastRecentlyUsed = pooled;
+            }
+        }
+        if (leastRecentlyUsed == null) {
+            return false;
+        }
+        channels.remove(leastRecentlyUsed.key);
+        leastRecentlyUsed.api.destroy(DESTROY_TIMEOUT_SECONDS);
+        return true;
+    }
+
+    /**
+     * Канал закрывается, если сервер недоступен или токен больше не действует,
+     * ошибки отдельных запросов, например неверный id счета, канал не затрагивают
+     */
+    private boolean isChannelFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StatusRuntimeException) {
+                Status.Code code = ((StatusRuntimeException) cause).getStatus().getCode();
+                return code == Status.Code.UNAVAILABLE || code == Status.Code.UNAUTHENTICATED;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ключом пула служит хэш, чтобы токен не выводился при логировании и отладке содержимого пула
+     */
+    @SneakyThrows
+    private String hash(String token) {
+        byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static class PooledInvestApi {
+
+        private final String key;
+        private final InvestApi api;
+        private int borrowers;
+        private long lastUsedAt = System.nanoTime();
+        private long lastCheckedAt = lastUsedAt;
+
+        PooledInvestApi(String key, InvestApi api) {
+            this.key = key;
+            this.api = api;
+        }
+    }
+}
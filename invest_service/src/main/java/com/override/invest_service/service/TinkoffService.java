@@ -32,115 +32,116 @@ public class TinkoffService {
     @Autowired
     private MOEXService moexService;
 
-    @SneakyThrows
+    @Autowired
+    private InvestApiPool investApiPool;
+
     public List<TinkoffActiveDTO> getActives(String token, String tinkoffAccountId) {
-        InvestApi api = InvestApi.createReadonly(token);
-
-        try {
-            Portfolio portfolio = api.getOperationsService().getPortfolioSync(tinkoffAccountId);
-            List<Position> positions = portfolio.getPositions();
-
-            return positions.stream()
-                    .map(position -> {
-                        Instrument instrument = api.getInstrumentsService().getInstrumentByFigiSync(position.getFigi()); //todo OV-236 тут надо подумать в какую сторону оптимизировать, пока нет однозначного решения
-                        return TinkoffActiveDTO.builder()
-                                .name(instrument.getName())
-                                .ticker(instrument.getTicker())
-                                .figi(position.getFigi())
-                                .quantity(position.getQuantity().intValue())
-                                .quantityLots(position.getQuantityLots().intValue())
-                                .currentPrice(position.getCurrentPrice().getValue().setScale(2, RoundingMode.HALF_UP))
-                                .averagePositionPrice(position.getAveragePositionPrice().getValue().setScale(2, RoundingMode.HALF_UP))
-                                .expectedYield(position.getExpectedYield().setScale(2, RoundingMode.HALF_UP))
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-        } finally {
-            api.destroy(0);
-        }
+        return investApiPool.execute(token, api -> getActives(api, tinkoffAccountId));
     }
 
     public List<TinkoffActiveMOEXDTO> getActivesWithMOEXWeight(String token, String tinkoffAccountId, Double userTargetInvestAmount) {
-        InvestApi api = InvestApi.createReadonly(token);
-
-        Map<String, MarketTQBRDataDTO> marketTQBRDataDTOMap = buildMarketTQBRDataDTO(token, tinkoffAccountId);
-
-        try {
-            Map<String, Double> tickerToWeight =
-                    rebalanceIndexByAmount(moexService.getTickerToWeight(), marketTQBRDataDTOMap, userTargetInvestAmount);
-
-            Map<String, TinkoffActiveDTO> actives = getActives(token, tinkoffAccountId).stream()
-                    .collect(Collectors.toMap(TinkoffActiveDTO::getTicker, Function.identity(), (prev, next) -> next, HashMap::new));
-
-            return tickerToWeight
-                    .entrySet()
-                    .stream()
-                    .map(tickerWeightPair -> {
-                        TinkoffActiveDTO active = actives.get(tickerWeightPair.getKey());
-                        MarketTQBRDataDTO marketTQBRDataDTO = marketTQBRDataDTOMap.get(tickerWeightPair.getKey());
-
-                        if (marketTQBRDataDTO == null) {
-                            log.info("Рыночные данные для: " + tickerWeightPair.getKey() + " отсутствуют.");
-                            return TinkoffActiveMOEXDTO.builder()
-                                    .tinkoffActiveDTO(TinkoffActiveDTO.builder().ticker(tickerWeightPair.getKey()).build())
-                                    .moexWeight(tickerWeightPair.getValue())
-                                    .currentWeight(0d)
-                                    .percentFollowage(0d)
-                                    .currentTotalPrice(0d)
-                                    .correctQuantity(0)
-                                    .quantityToBuy(0)
-                                    .lot(0)
-                                    .build();
-                        }
+        return investApiPool.execute(token,
+                api -> getActivesWithMOEXWeight(api, token, tinkoffAccountId, userTargetInvestAmount));
+    }
 
-                        if (active == null) {
-                            double priceForOne = marketTQBRDataDTO.getPrice();
-                            double correctPrice = userTargetInvestAmount * tickerWeightPair.getValue() / TOTAL_WEIGHT;
-                            int correctQuantity = (int) (correctPrice / priceForOne);
-                            int lots = marketTQBRDataDTO.getLots();
-                            if (lots > 1) {
-                                correctQuantity = correctQuantity - (correctQuantity % lots);
-                            }
-                            return TinkoffActiveMOEXDTO.builder()
-                                    .tinkoffActiveDTO(TinkoffActiveDTO.builder().ticker(tickerWeightPair.getKey()).build())
-                                    .moexWeight(tickerWeightPair.getValue())
-                                    .currentWeight(0d)
-                                    .percentFollowage(0d)
-                                    .currentTotalPrice(priceForOne * correctQuantity)
-                                    .correctQuantity(correctQuantity)//todo
-                                    .quantityToBuy(correctQuantity)//todo same
-                                    .lot(lots)
-                                    .build();
-                        }
-                        Double currentTotalPrice = active.getQuantity() * active.getCurrentPrice().doubleValue();
-                        Double currentWeight = currentTotalPrice / userTargetInvestAmount * TOTAL_WEIGHT;
-                        int lots = active.getQuantity() / active.getQuantityLots();
+    @SneakyThrows
+    private List<TinkoffActiveDTO> getActives(InvestApi api, String tinkoffAccountId) {
+        Portfolio portfolio = api.getOperationsService().getPortfolioSync(tinkoffAccountId);
+        List<Position> positions = portfolio.getPositions();
+
+        return positions.stream()
+                .map(position -> {
+                    Instrument instrument = api.getInstrumentsService().getInstrumentByFigiSync(position.getFigi()); //todo OV-236 тут надо подумать в какую сторону оптимизировать, пока нет однозначного решения
+                    return TinkoffActiveDTO.builder()
+                            .name(instrument.getName())
+                            .ticker(instrument.getTicker())
+                            .figi(position.getFigi())
+                            .quantity(position.getQuantity().intValue())
+                            .quantityLots(position.getQuantityLots().intValue())
+                            .currentPrice(position.getCurrentPrice().getValue().setScale(2, RoundingMode.HALF_UP))
+                            .averagePositionPrice(position.getAveragePositionPrice().getValue().setScale(2, RoundingMode.HALF_UP))
+                            .expectedYield(position.getExpectedYield().setScale(2, RoundingMode.HALF_UP))
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
 
-                        double correctPriceToBuy = userTargetInvestAmount * tickerWeightPair.getValue() / TOTAL_WEIGHT;
-                        int correctQuantity = (int) (correctPriceToBuy / active.getCurrentPrice().doubleValue());
+    private List<TinkoffActiveMOEXDTO> getActivesWithMOEXWeight(InvestApi api, String token, String tinkoffAccountId,
+                                                                Double userTargetInvestAmount) {
+        Map<String, MarketTQBRDataDTO> marketTQBRDataDTOMap = buildMarketTQBRDataDTO(api, token, tinkoffAccountId);
+
+        Map<String, Double> tickerToWeight =
+                rebalanceIndexByAmount(moexService.getTickerToWeight(), marketTQBRDataDTOMap, userTargetInvestAmount);
+
+        Map<String, TinkoffActiveDTO> actives = getActives(api, tinkoffAccountId).stream()
+                .collect(Collectors.toMap(TinkoffActiveDTO::getTicker, Function.identity(), (prev, next) -> next, HashMap::new));
+
+        return tickerToWeight
+                .entrySet()
+                .stream()
+                .map(tickerWeightPair -> {
+                    TinkoffActiveDTO active = actives.get(tickerWeightPair.getKey());
+                    MarketTQBRDataDTO marketTQBRDataDTO = marketTQBRDataDTOMap.get(tickerWeightPair.getKey());
+
+                    if (marketTQBRDataDTO == null) {
+                        log.info("Рыночные данные для: " + tickerWeightPair.getKey() + " отсутствуют.");
+                        return TinkoffActiveMOEXDTO.builder()
+                                .tinkoffActiveDTO(TinkoffActiveDTO.builder().ticker(tickerWeightPair.getKey()).build())
+                                .moexWeight(tickerWeightPair.getValue())
+                                .currentWeight(0d)
+                                .percentFollowage(0d)
+                                .currentTotalPrice(0d)
+                                .correctQuantity(0)
+                                .quantityToBuy(0)
+                                .lot(0)
+                                .build();
+                    }
+
+                    if (active == null) {
+                        double priceForOne = marketTQBRDataDTO.getPrice();
+                        double correctPrice = userTargetInvestAmount * tickerWeightPair.getValue() / TOTAL_WEIGHT;
+                        int correctQuantity = (int) (correctPrice / priceForOne);
+                        int lots = marketTQBRDataDTO.getLots();
                         if (lots > 1) {
                             correctQuantity = correctQuantity - (correctQuantity % lots);
                         }
                         return TinkoffActiveMOEXDTO.builder()
-                                .currentTotalPrice(roundToTwoPlaces(currentTotalPrice))
-                                .tinkoffActiveDTO(active)
-                                .moexWeight(roundToTwoPlaces(tickerWeightPair.getValue()))
-                                .currentWeight(roundToTwoPlaces(currentWeight))
-                                .percentFollowage(roundToTwoPlaces(TOTAL_WEIGHT * active.getQuantity() / correctQuantity))
-                                .correctQuantity(correctQuantity)
-                                .quantityToBuy(correctQuantity - active.getQuantity())
+                                .tinkoffActiveDTO(TinkoffActiveDTO.builder().ticker(tickerWeightPair.getKey()).build())
+                                .moexWeight(tickerWeightPair.getValue())
+                                .currentWeight(0d)
+                                .percentFollowage(0d)
+                                .currentTotalPrice(priceForOne * correctQuantity)
+                                .correctQuantity(correctQuantity)//todo
+                                .quantityToBuy(correctQuantity)//todo same
                                 .lot(lots)
                                 .build();
-                    })
-                    .sorted((Comparator.comparing(TinkoffActiveMOEXDTO::getPercentFollowage).reversed()))
-                    .collect(Collectors.toList());
-        } finally {
-            api.destroy(0);
-        }
+                    }
+                    Double currentTotalPrice = active.getQuantity() * active.getCurrentPrice().doubleValue();
+                    Double currentWeight = currentTotalPrice / userTargetInvestAmount * TOTAL_WEIGHT;
+                    int lots = active.getQuantity() / active.getQuantityLots();
+
+                    double correctPriceToBuy = userTargetInvestAmount * tickerWeightPair.getValue() / TOTAL_WEIGHT;
+                    int correctQuantity = (int) (correctPriceToBuy / active.getCurrentPrice().doubleValue());
+                    if (lots > 1) {
+                        correctQuantity = correctQuantity - (correctQuantity % lots);
+                    }
+                    return TinkoffActiveMOEXDTO.builder()
+                            .currentTotalPrice(roundToTwoPlaces(currentTotalPrice))
+                            .tinkoffActiveDTO(active)
+                            .moexWeight(roundToTwoPlaces(tickerWeightPair.getValue()))
+                            .currentWeight(roundToTwoPlaces(currentWeight))
+                            .percentFollowage(roundToTwoPlaces(TOTAL_WEIGHT * active.getQuantity() / correctQuantity))
+                            .correctQuantity(correctQuantity)
+                            .quantityToBuy(correctQuantity - active.getQuantity())
+                            .lot(lots)
+                            .build();
+                })
+                .sorted((Comparator.comparing(TinkoffActiveMOEXDTO::getPercentFollowage).reversed()))
+                .collect(Collectors.toList());
     }
 
-    private Map<String, MarketTQBRDataDTO> buildMarketTQBRDataDTO(String token, String tinkoffAccountId) {
-        MarketTQBRData marketTQBRData = new MarketTQBRData(token, tinkoffAccountId);
+    private Map<String, MarketTQBRDataDTO> buildMarketTQBRDataDTO(InvestApi api, String token, String tinkoffAccountId) {
+        MarketTQBRData marketTQBRData = new MarketTQBRData(api, token, tinkoffAccountId);
         Map<String, Quotation> figiPriceMap = marketTQBRData.getFigiPriceMap();
 
         return marketTQBRData.getTickerShareMap()
@@ -237,19 +238,13 @@ public class TinkoffService {
     }
 
     public List<TinkoffAccountDTO> getAccounts(String token) {
-        InvestApi api = InvestApi.createReadonly(token);
-
-        try {
-            return api.getUserService().getAccountsSync().stream()
-                    .filter(account -> account.getStatus() != ACCOUNT_STATUS_CLOSED && account.getStatus() != UNRECOGNIZED)
-                    .map(account -> TinkoffAccountDTO.builder()
-                            .investAccountId(account.getId())
-                            .investAccountName(account.getName())
-                            .build())
-                    .collect(Collectors.toList());
-        } finally {
-            api.destroy(0);
-        }
+        return investApiPool.execute(token, api -> api.getUserService().getAccountsSync().stream()
+                .filter(account -> account.getStatus() != ACCOUNT_STATUS_CLOSED && account.getStatus() != UNRECOGNIZED)
+                .map(account -> TinkoffAccountDTO.builder()
+                        .investAccountId(account.getId())
+                        .investAccountName(account.getName())
+                        .build())
+                .collect(Collectors.toList()));
     }
 
     private Double roundToTwoPlaces(Double value) {
@@ -24,7 +24,9 @@ public class MaskLogConfiguration {
                         requestTo("/actuator/**"),
                         requestTo("/scripts/**"),
                         requestTo("/css/**"),
-                        contentType("text/html;charset=UTF-8")))
+                        contentType("text/html;charset=UTF-8"),
+                        // бинарные тела передаются потоком, логирование буферизовало бы их целиком
+                        contentType("application/octet-stream")))
 //                ниже вариация вместо полного отсечения логов по html
 //                .responseFilter(ResponseFilters.replaceBody(message -> contentType("text/html;charset=UTF-8").test(message) ? "some HTML code" : null))
                 .sink(new DefaultSink(maskLogFormatter, new DefaultHttpLogWriter()))
@@ -1,7 +1,6 @@
 package com.override.orchestrator_service.config.filter;
 
 import com.override.orchestrator_service.config.jwt.JwtFilter;
-import com.override.orchestrator_service.config.jwt.JwtProvider;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,19 +22,16 @@ public class AdminPageFilter extends OncePerRequestFilter {
     private String[] allowedUsers;
     @Autowired
     private JwtFilter jwtFilter;
-    @Autowired
-    private JwtProvider jwtProvider;
     private final String ADMIN_PATH = "/admin";
     private final String SWAGGER_PATH = "/swagger";
     private final String USERNAME_CLAIM = "username";
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        final String token = jwtFilter.getTokenFromRequest(request);
-        final Claims claims = jwtProvider.getAccessClaims(token);
-        final String username = claims.get(USERNAME_CLAIM, String.class);
+        final Claims claims = jwtFilter.getClaimsFromRequest(request);
+        final String username = claims != null ? claims.get(USERNAME_CLAIM, String.class) : null;
         for (String allowedUsername : allowedUsers) {
-            if (username.equals(allowedUsername)) {
+            if (allowedUsername.equals(username)) {
                 filterChain.doFilter(request, response);
                 return;
             }
@@ -22,14 +22,18 @@ public class JwtFilter extends GenericFilterBean {
 
     private static final String ACCESS_TOKEN = "accessToken";
 
+    /**
+     * Атрибут запроса с claims проверенного access токена, чтобы токен проверялся один раз за запрос
+     */
+    public static final String ACCESS_CLAIMS_ATTRIBUTE = JwtFilter.class.getName() + ".ACCESS_CLAIMS";
+
     @Autowired
     private JwtProvider jwtProvider;
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
-        final String token = getTokenFromRequest((HttpServletRequest) servletRequest);
-        if (token != null && jwtProvider.validateAccessToken(token)) {
-            final Claims claims = jwtProvider.getAccessClaims(token);
+        final Claims claims = getClaimsFromRequest((HttpServletRequest) servletRequest);
+        if (claims != null) {
             final JwtAuthentication jwtInfoToken = JwtUtils.generate(claims);
             jwtInfoToken.setAuthenticated(true);
             SecurityContextHolder.getContext().setAuthentication(jwtInfoToken);
@@ -37,6 +41,28 @@ public class JwtFilter extends GenericFilterBean {
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
+    /**
+     * Возвращает claims access токена из cookie запроса. Токен проверяется при первом вызове за запрос,
+     * результат сохраняется в атрибут {@link #ACCESS_CLAIMS_ATTRIBUTE}
+     *
+     * @return claims или null, если токена нет или он недействителен
+     */
+    public Claims getClaimsFromRequest(HttpServletRequest request) {
+        Object attribute = request.getAttribute(ACCESS_CLAIMS_ATTRIBUTE);
+        if (attribute instanceof Claims) {
+            return (Claims) attribute;
+        }
+        final String token = getTokenFromRequest(request);
+        if (token == null) {
+            return null;
+        }
+        final Claims claims = jwtProvider.getVerifiedAccessClaims(token);
+        if (claims != null) {
+            request.setAttribute(ACCESS_CLAIMS_ATTRIBUTE, claims);
+        }
+        return claims;
+    }
+
     public String getTokenFromRequest(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
         String token = null;
@@ -1,36 +1,76 @@
 package com.override.orchestrator_service.config.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.override.orchestrator_service.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
 
+/**
+ * Выпуск и проверка JWT. Проверенные access токены кэшируются по SHA-256 токена вместе с их claims,
+ * поэтому повторные запросы с тем же токеном не проверяют подпись и не разбирают токен заново.
+ * Запись кэша живет не дольше {@link #VERIFIED_TOKENS_CACHE_TTL} и не дольше срока действия токена
+ */
 @Component
 @Slf4j
 public class JwtProvider {
 
+    public static final int VERIFIED_TOKENS_CACHE_MAX_SIZE = 10000;
+
+    public static final Duration VERIFIED_TOKENS_CACHE_TTL = Duration.ofMinutes(10);
+
     @Value("${jwt.token.lifetime-in-hours}")
     private int tokenLifeTimeInHours;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     private final SecretKey jwtAccessSecret;
     private final SecretKey jwtRefreshSecret;
+    private final JwtParser accessParser;
+    private final JwtParser refreshParser;
+
+    private final Cache<String, Claims> verifiedAccessTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKENS_CACHE_MAX_SIZE)
+            .expireAfter(new ClaimsExpiry())
+            .recordStats()
+            .build();
 
     public JwtProvider(@Value("${jwt.secret.access}") String jwtAccessSecret,
                        @Value("${jwt.secret.refresh}") String jwtRefreshSecret) {
         this.jwtAccessSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtAccessSecret));
         this.jwtRefreshSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtRefreshSecret));
+        this.accessParser = Jwts.parserBuilder().setSigningKey(this.jwtAccessSecret).build();
+        this.refreshParser = Jwts.parserBuilder().setSigningKey(this.jwtRefreshSecret).build();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedAccessTokens, "jwt.verified.access.tokens");
+        }
     }
 
     public String generateAccessToken(@NonNull User user) {
@@ -59,20 +99,38 @@ public class JwtProvider {
     }
 
     public boolean validateAccessToken(@NonNull String accessToken) {
-        return validateToken(accessToken, jwtAccessSecret);
+        return getVerifiedAccessClaims(accessToken) != null;
     }
 
     public boolean validateRefreshToken(@NonNull String refreshToken) {
-        return validateToken(refreshToken, jwtRefreshSecret);
+        return verifyToken(refreshToken, refreshParser) != null;
+    }
+
+    /**
+     * Проверяет access токен и возвращает его claims. Токен проверяется один раз,
+     * повторные вызовы с тем же токеном берут claims из кэша
+     *
+     * @return claims или null, если токен недействителен
+     */
+    public Claims getVerifiedAccessClaims(@NonNull String accessToken) {
+        String digest = digest(accessToken);
+        Claims claims = verifiedAccessTokens.getIfPresent(digest);
+        if (claims != null) {
+            if (claims.getExpiration() == null || claims.getExpiration().after(new Date())) {
+                return claims;
+            }
+            verifiedAccessTokens.invalidate(digest);
+        }
+        claims = verifyToken(accessToken, accessParser);
+        if (claims != null) {
+            verifiedAccessTokens.put(digest, claims);
+        }
+        return claims;
     }
 
-    private boolean validateToken(@NonNull String token, @NonNull Key secret) {
+    private Claims verifyToken(@NonNull String token, @NonNull JwtParser parser) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException expEx) {
             log.error("Token expired", expEx);
         } catch (UnsupportedJwtException unsEx) {
@@ -84,22 +142,50 @@ public class JwtProvider {
         } catch (Exception e) {
             log.error("invalid token", e);
         }
-        return false;
+        return null;
     }
 
     public Claims getAccessClaims(@NonNull String token) {
-        return getClaims(token, jwtAccessSecret);
+        return accessParser.parseClaimsJws(token).getBody();
     }
 
     public Claims getRefreshClaims(@NonNull String token) {
-        return getClaims(token, jwtRefreshSecret);
+        return refreshParser.parseClaimsJws(token).getBody();
     }
 
-    private Claims getClaims(@NonNull String token, @NonNull Key secret) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Время жизни записи - до истечения токена, но не больше {@link #VERIFIED_TOKENS_CACHE_TTL}
+     */
+    private static class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            long ttl = VERIFIED_TOKENS_CACHE_TTL.toNanos();
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return ttl;
+            }
+            long untilExpiration = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttl, untilExpiration));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -5,6 +5,7 @@ import com.override.dto.MailDTO;
 import com.override.orchestrator_service.service.BugReportService;
 import com.override.orchestrator_service.service.OverMoneyAccountService;
 import com.override.orchestrator_service.service.TelegramBotRequestService;
+import com.override.orchestrator_service.service.TransactionMonthlyRollupService;
 import com.override.orchestrator_service.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +28,9 @@ public class AdminController {
     @Autowired
     private OverMoneyAccountService accountService;
 
+    @Autowired
+    private TransactionMonthlyRollupService transactionMonthlyRollupService;
+
     @PostMapping("/announce")
     public void sendAnnounce(@RequestBody String text) {
         telegramBotRequestService.sendAnnounce(text);
@@ -61,4 +65,14 @@ public class AdminController {
     public int getActiveUsersCount(@PathVariable("numberDays") int numberDays) {
         return accountService.getActiveAccountCount(numberDays);
     }
+
+    @PostMapping("/analytics/rollups/rebuild")
+    public int rebuildAnalyticsRollups() {
+        return transactionMonthlyRollupService.rebuildRollups();
+    }
+
+    @PostMapping("/analytics/rollups/rebuild/{accountId}")
+    public int rebuildAnalyticsRollupsForAccount(@PathVariable("accountId") Long accountId) {
+        return transactionMonthlyRollupService.rebuildRollupsForAccount(accountId);
+    }
 }
@@ -28,14 +28,14 @@ public class InvestTinkoffInfoController {
     @GetMapping
     public TinkoffInfoDTO getUserInfo(Principal principal) {
         Long overMoneyAccountId = overMoneyAccountService
-                .getOverMoneyAccountByChatId(telegramUtils.getTelegramId(principal)).getId();
+                .getAccountIdByChatId(telegramUtils.getTelegramId(principal));
         return investTinkoffInfoService.findTinkoffInfo(overMoneyAccountId);
     }
 
     @PostMapping
     public void saveTinkoffToken(Principal principal, @RequestBody TinkoffInfoDTO tinkoffInfoDTO) {
         Long overMoneyAccountId = overMoneyAccountService
-                .getOverMoneyAccountByChatId(telegramUtils.getTelegramId(principal)).getId();
+                .getAccountIdByChatId(telegramUtils.getTelegramId(principal));
         tinkoffInfoDTO.setTinkoffAccountId(overMoneyAccountId);
         investTinkoffInfoService.saveTinkoffinfo(tinkoffInfoDTO);
     }
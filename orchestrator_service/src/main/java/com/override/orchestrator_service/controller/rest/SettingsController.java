@@ -1,6 +1,7 @@
 package com.override.orchestrator_service.controller.rest;
 
 
+import com.override.dto.BackupRestoreProgressDTO;
 import com.override.dto.BackupUserDataDTO;
 import com.override.orchestrator_service.annotations.OnlyServiceUse;
 import com.override.orchestrator_service.service.BackupUserDataService;
@@ -8,13 +9,16 @@ import com.override.orchestrator_service.service.ExportUserDataService;
 import com.override.orchestrator_service.util.TelegramUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.management.InstanceNotFoundException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 
 @RestController
@@ -32,19 +36,25 @@ public class SettingsController {
     private ExportUserDataService exportUserDataService;
 
     @GetMapping("/backup")
-    public BackupUserDataDTO getUserBackupData(Principal principal) throws InstanceNotFoundException {
-        return backupUserDataService.createBackupUserData(telegramUtils.getTelegramId(principal));
+    public void getUserBackupData(Principal principal, HttpServletResponse response) throws InstanceNotFoundException, IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        backupUserDataService.writeBackupUserData(telegramUtils.getTelegramId(principal), response.getOutputStream());
     }
 
     @GetMapping("/export/excel")
-    public ResponseEntity<InputStreamResource> getUserBackupDataExcel(Principal principal) throws IOException, InstanceNotFoundException {
-        return exportUserDataService.downloadExelFile(telegramUtils.getTelegramId(principal));
+    public void getUserBackupDataExcel(Principal principal, HttpServletResponse response) throws IOException, InstanceNotFoundException {
+        response.setContentType(ExportUserDataService.EXCEL_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ExportUserDataService.EXCEL_CONTENT_DISPOSITION);
+        exportUserDataService.writeExcelExport(telegramUtils.getTelegramId(principal), response.getOutputStream());
     }
 
     @OnlyServiceUse
     @GetMapping("/backup/{id}")
-    public BackupUserDataDTO getBackupDataFromRemoveUser(@PathVariable Long id) {
-        return backupUserDataService.createBackupRemovedUserData(id);
+    public void getBackupDataFromRemoveUser(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        backupUserDataService.writeBackupRemovedUserData(id, response.getOutputStream());
     }
 
     @PostMapping("/backup/read")
@@ -52,4 +62,9 @@ public class SettingsController {
         backupUserDataService.writingDataFromBackupFile(backupUserDataDTO, telegramUtils.getTelegramId(principal));
         return ResponseEntity.ok(HttpStatus.ACCEPTED);
     }
+
+    @GetMapping("/backup/read/progress")
+    public BackupRestoreProgressDTO getRestoreProgress(Principal principal) throws InstanceNotFoundException {
+        return backupUserDataService.getRestoreProgress(telegramUtils.getTelegramId(principal));
+    }
 }
@@ -1,14 +1,20 @@
 package com.override.orchestrator_service.controller.rest;
 
+import com.override.dto.CategorySuggestionDTO;
+import com.override.dto.TransactionBatchResultDTO;
 import com.override.dto.TransactionDTO;
 import com.override.dto.TransactionDefineDTO;
+import com.override.dto.TransactionHistoryPageDTO;
 import com.override.dto.TransactionMessageDTO;
 import com.override.dto.TransactionResponseDTO;
 import com.override.orchestrator_service.mapper.TransactionMapper;
 import com.override.orchestrator_service.model.Transaction;
 import com.override.orchestrator_service.service.DefineService;
+import com.override.orchestrator_service.service.TransactionBatchService;
+import com.override.orchestrator_service.service.TransactionChangeFeedService;
 import com.override.orchestrator_service.service.TransactionProcessingService;
 import com.override.orchestrator_service.service.TransactionService;
+import com.override.orchestrator_service.service.UserService;
 import com.override.orchestrator_service.util.TelegramUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,8 +23,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.management.InstanceNotFoundException;
 import java.security.Principal;
@@ -46,6 +54,15 @@ public class TransactionController {
     @Autowired
     private DefineService defineService;
 
+    @Autowired
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private TransactionChangeFeedService transactionChangeFeedService;
+
+    @Autowired
+    private UserService userService;
+
     @GetMapping("/transactions/count")
     @Operation(summary = "Получить количество транзакций", description = "Возвращает общее количество транзакций")
     @ApiResponses(value = {
@@ -68,8 +85,22 @@ public class TransactionController {
             Principal principal) throws InstanceNotFoundException {
         Transaction transaction = transactionProcessingService.validateAndProcessTransaction(transactionMessage, principal);
         transactionService.saveTransaction(transaction);
-        transactionProcessingService.suggestCategoryToProcessedTransaction(transactionMessage, transaction.getId());
-        return transactionMapper.mapTransactionToTelegramResponse(transaction);
+        transactionProcessingService.suggestCategoryToProcessedTransaction(transaction);
+        return transactionMapper.mapTransactionToTelegramResponse(transaction, transactionMessage.getChatId());
+    }
+
+    @PostMapping("/transactions/batch")
+    @Operation(summary = "Обработать пакет транзакций",
+            description = "Обрабатывает и сохраняет пакет транзакций одного аккаунта, возвращает результат по каждой транзакции")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+            @ApiResponse(responseCode = "400", description = "Пакет слишком большой")
+    })
+    public List<TransactionBatchResultDTO> processTransactions(
+            @Parameter(description = "Данные транзакций") @RequestBody List<TransactionMessageDTO> transactionMessages,
+            Principal principal) throws InstanceNotFoundException {
+        return transactionBatchService.processTransactions(transactionMessages, principal);
     }
 
     @GetMapping("/transactions")
@@ -88,6 +119,21 @@ public class TransactionController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(value = "/transactions/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Подписаться на изменения транзакций",
+            description = "Открывает поток Server-Sent Events с изменениями транзакций аккаунта пользователя")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Подписка открыта"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    })
+    public SseEmitter subscribeToTransactionChanges(Principal principal) throws InstanceNotFoundException {
+        Long accountId = userService.getAccountIdByUserId(telegramUtils.getTelegramId(principal));
+        if (accountId == null) {
+            throw new InstanceNotFoundException("Аккаунт пользователя не найден");
+        }
+        return transactionChangeFeedService.subscribe(accountId);
+    }
+
     @GetMapping("/transactions/info")
     @Operation(summary = "Получить список транзакций по периоду и категории", description = "Возвращает список транзакций за указанный период")
     @ApiResponses(value = {
@@ -115,6 +161,22 @@ public class TransactionController {
                 .findTransactionsByUserIdLimited(telegramUtils.getTelegramId(principal), pageSize, pageNumber);
     }
 
+    @GetMapping("/transactions/history/cursor")
+    @Operation(summary = "Получить страницу истории транзакций по курсору",
+            description = "Возвращает транзакции от новых к старым и курсор следующей страницы")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница истории транзакций получена"),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    })
+    public TransactionHistoryPageDTO getTransactionsHistoryPage(Principal principal,
+                                                                @Parameter(description = "Количество транзакций на странице") @RequestParam(defaultValue = "50") Integer pageSize,
+                                                                @Parameter(description = "Курсор из предыдущей страницы") @RequestParam(required = false) String cursor)
+            throws InstanceNotFoundException {
+        return transactionService
+                .findTransactionsHistoryPage(telegramUtils.getTelegramId(principal), pageSize, cursor);
+    }
+
     @PostMapping("/transaction/define")
     @Operation(summary = "Установить категорию транзакции", description = "Устанавливает категорию для указанной транзакции по её ID")
     @ApiResponses(value = {
@@ -152,6 +214,19 @@ public class TransactionController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @PutMapping("/transactions/suggested-categories")
+    @Operation(summary = "Записать предложенные категории",
+            description = "Записывает предложенные категории пакету транзакций одним обновлением")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Предложенные категории записаны"),
+            @ApiResponse(responseCode = "413", description = "Пакет слишком большой")
+    })
+    public ResponseEntity<String> editSuggestedCategories(
+            @Parameter(description = "Предложенные категории транзакций") @RequestBody List<CategorySuggestionDTO> suggestions) {
+        transactionService.updateSuggestedCategories(suggestions);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
     @GetMapping("/history/{id}")
     @Operation(summary = "Получить транзакцию по ID", description = "Возвращает транзакцию по указанному ID")
     @ApiResponses(value = {
@@ -1,5 +1,6 @@
 package com.override.orchestrator_service.controller.rest;
 
+import com.override.dto.TransactionXLSXImportResultDTO;
 import com.override.orchestrator_service.service.TransactionXLSXService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,12 +27,12 @@ public class TransactionFromXLSXController {
     @GetMapping("/loading/transactions")
     @Operation(summary = "Загрузка транзакций из XLSX", description = "Загружает транзакции из данного XLSX файла")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Транзакции загружены"),
+            @ApiResponse(responseCode = "200", description = "Транзакции загружены, в ответе количество загруженных строк и ошибки строк"),
             @ApiResponse(responseCode = "400", description = "Некорректный формат файла"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
-    public ResponseEntity<String> loadingTransactionsFromXLSX(Principal principal,
-                                                              @Parameter(description = "XLSX файл с транзакциями") @RequestPart("data") MultipartFile file) {
+    public ResponseEntity<TransactionXLSXImportResultDTO> loadingTransactionsFromXLSX(Principal principal,
+                                                                                      @Parameter(description = "XLSX файл с транзакциями") @RequestPart("data") MultipartFile file) {
         return transactionXLSXService.loadingTransactionsFromXLSX(principal, file);
     }
 }
@@ -0,0 +1,24 @@
+package com.override.orchestrator_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidHistoryCursorException extends BaseException {
+
+    public InvalidHistoryCursorException() {
+        super();
+    }
+
+    public InvalidHistoryCursorException(String message) {
+        super(message);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return HttpStatus.BAD_REQUEST.value();
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "ORCHESTRA_INVALID_HISTORY_CURSOR";
+    }
+}
@@ -0,0 +1,24 @@
+package com.override.orchestrator_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidPageSizeException extends BaseException {
+
+    public InvalidPageSizeException() {
+        super();
+    }
+
+    public InvalidPageSizeException(String message) {
+        super(message);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return HttpStatus.BAD_REQUEST.value();
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "ORCHESTRA_INVALID_PAGE_SIZE";
+    }
+}
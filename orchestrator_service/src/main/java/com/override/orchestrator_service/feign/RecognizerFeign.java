@@ -1,6 +1,8 @@
 package com.override.orchestrator_service.feign;
 
 import com.override.dto.CategoryDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,4 +18,7 @@ public interface RecognizerFeign {
     CategoryDTO recognizeCategory(@RequestParam String message,
                                                   @RequestParam UUID transactionId,
                                                   @RequestBody List<CategoryDTO> categories);
+
+    @PostMapping("/recognizer/category/suggested/batch")
+    List<CategorySuggestionDTO> recognizeCategories(@RequestBody CategorySuggestionBatchDTO batch);
 }
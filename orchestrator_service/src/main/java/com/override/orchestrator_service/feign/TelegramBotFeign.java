@@ -12,8 +12,14 @@ import java.util.UUID;
 @FeignClient(value = "telegram-bot", url = "${integration.internal.host.telegram-bot}")
 public interface TelegramBotFeign {
 
-    @PostMapping("/announce")
-    void sendAnnounce(AnnounceDTO announceDTO);
+    @PostMapping("/announces")
+    Long createAnnounce(AnnounceDTO announceDTO);
+
+    @PostMapping("/announces/{id}/recipients")
+    void addAnnounceRecipients(@PathVariable("id") Long announceId, List<Long> userIds);
+
+    @PostMapping("/announces/{id}/start")
+    void startAnnounce(@PathVariable("id") Long announceId);
 
     @PostMapping("/merge")
     void sendMergeRequest(@RequestParam Long userId);
@@ -17,12 +17,21 @@ public class TransactionMapper {
     private final String CATEGORY_UNDEFINED = "Нераспознанное";
 
     public TransactionResponseDTO mapTransactionToTelegramResponse(Transaction transaction) throws InstanceNotFoundException {
+        return mapTransactionToTelegramResponse(transaction, transaction.getAccount().getChatId());
+    }
+
+    /**
+     * Для транзакций, ссылающихся на незагруженный аккаунт: id чата известен вызывающему,
+     * и аккаунт не загружается ради него из БД
+     */
+    public TransactionResponseDTO mapTransactionToTelegramResponse(Transaction transaction, Long chatId)
+            throws InstanceNotFoundException {
         return TransactionResponseDTO.builder()
                 .id(transaction.getId())
                 .type(getTransactionType(transaction))
                 .category(getTransactionCategory(transaction))
                 .amount(NumericalUtils.roundAmount(transaction.getAmount()).toString())
-                .chatId(transaction.getAccount().getChatId())
+                .chatId(chatId)
                 .comment(transaction.getMessage())
                 .build();
     }
@@ -0,0 +1,49 @@
+package com.override.orchestrator_service.model;
+
+import com.override.dto.constants.Type;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * Сумма и количество транзакций аккаунта за месяц в разрезе категории.
+ * Строки поддерживаются триггерами БД на таблицах transactions и categories,
+ * из кода таблица только читается и при необходимости перестраивается целиком
+ * (см. TransactionMonthlyRollupService)
+ */
+@Entity
+@Immutable
+@Table(name = "transaction_monthly_rollups")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionMonthlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Category category;
+
+    @Column
+    private Type type;
+
+    @Column(name = "amount_sum", nullable = false)
+    private Double amountSum;
+
+    @Column(name = "transactions_count", nullable = false)
+    private Long transactionsCount;
+}
@@ -0,0 +1,95 @@
+package com.override.orchestrator_service.repository;
+
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запись данных аккаунта при восстановлении из бэкапа пачками JDBC в обход контекста персистентности.
+ * Методы должны вызываться внутри транзакции, сущности после записи остаются неуправляемыми
+ */
+@Repository
+public class BackupRestoreRepository {
+
+    private final String DELETE_KEYWORDS = "DELETE FROM keywords WHERE account_id = ?";
+    private final String DELETE_TRANSACTIONS = "DELETE FROM transactions WHERE account_id = ?";
+    private final String DELETE_CATEGORIES = "DELETE FROM categories WHERE account_id = ?";
+    private final String INSERT_CATEGORY = "INSERT INTO categories (name, type, account_id) VALUES (?, ?, ?)";
+    private final String INSERT_KEYWORD = "INSERT INTO keywords (account_id, name, category_id) VALUES (?, ?, ?)";
+    private final String INSERT_TRANSACTION = "INSERT INTO transactions " +
+            "(id, message, category_id, amount, date, account_id, telegram_user_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void deleteAccountData(Long accountId) {
+        jdbcTemplate.update(DELETE_KEYWORDS, accountId);
+        jdbcTemplate.update(DELETE_TRANSACTIONS, accountId);
+        jdbcTemplate.update(DELETE_CATEGORIES, accountId);
+    }
+
+    /**
+     * Записывает категории одной пачкой и проставляет им id, выданные БД
+     */
+    public void insertCategories(List<Category> categories) {
+        if (categories.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CATEGORY, new String[]{"id"})) {
+                for (Category category : categories) {
+                    statement.setString(1, category.getName());
+                    statement.setObject(2, category.getType() != null ? category.getType().ordinal() : null, Types.INTEGER);
+                    statement.setLong(3, category.getAccount().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    for (Category category : categories) {
+                        generatedKeys.next();
+                        category.setId(generatedKeys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    public void insertKeywords(List<Keyword> keywords) {
+        jdbcTemplate.batchUpdate(INSERT_KEYWORD, keywords, keywords.size(), (statement, keyword) -> {
+            statement.setLong(1, keyword.getKeywordId().getAccountId());
+            statement.setString(2, keyword.getKeywordId().getName());
+            statement.setLong(3, keyword.getCategory().getId());
+        });
+    }
+
+    /**
+     * Записывает транзакции одной пачкой, транзакциям без id он генерируется
+     */
+    public void insertTransactions(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, transactions.size(), (statement, transaction) -> {
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            statement.setObject(1, transaction.getId());
+            statement.setString(2, transaction.getMessage());
+            statement.setObject(3, transaction.getCategory() != null ? transaction.getCategory().getId() : null,
+                    Types.BIGINT);
+            statement.setObject(4, transaction.getAmount(), Types.DOUBLE);
+            statement.setTimestamp(5, transaction.getDate() != null ? Timestamp.valueOf(transaction.getDate()) : null);
+            statement.setLong(6, transaction.getAccount().getId());
+            statement.setObject(7, transaction.getTelegramUserId(), Types.BIGINT);
+        });
+    }
+}
@@ -18,19 +18,24 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Set<Category> findAllByAccount_Id(Long id);
 
+    /**
+     * Категории аккаунта с ключевыми словами одним запросом, ключевые слова доступны вне сессии
+     */
+    @Query("SELECT DISTINCT c FROM Category c LEFT JOIN FETCH c.keywords WHERE c.account.id = :accountId")
+    Set<Category> findAllWithKeywordsByAccountId(@Param("accountId") Long accountId);
+
     @Query("SELECT c FROM Category c WHERE c.account.id = :id")
     List<Category> findAllByUserId(@Param("id") String accountId);
 
     @Query("SELECT c FROM Category c WHERE c.account.id = :id AND c.type = :type")
     List<Category> findAllByTypeAndAccId(@Param("id") Long accountId, @Param("type") Type type);
 
-    @Query("SELECT new com.override.dto.AnalyticsDataDTO(c.id, c.name, (SUM(t.amount)) / " +
-            "(EXTRACT(MONTH FROM MAX(t.date)) - EXTRACT(MONTH FROM MIN(t.date)) + " +
-            "(((EXTRACT(YEAR FROM MAX(t.date)) - EXTRACT(YEAR FROM MIN(t.date)))) * 12) + 1))\n" +
-            "FROM Category c \n" +
-            "LEFT JOIN Transaction t ON t.category.id = c.id\n" +
-            "WHERE c.account.id = :accId\n" +
-            "AND c.type = :type\n" +
+    @Query("SELECT new com.override.dto.AnalyticsDataDTO(c.id, c.name, SUM(r.amountSum) / " +
+            "(MAX(r.year * 12 + r.month) - MIN(r.year * 12 + r.month) + 1)) " +
+            "FROM Category c " +
+            "LEFT JOIN TransactionMonthlyRollup r ON r.category.id = c.id " +
+            "WHERE c.account.id = :accId " +
+            "AND c.type = :type " +
             "GROUP BY c.id")
     List<AnalyticsDataDTO> findMediumAmountOfAllCategoriesByAccIdAndType(@Param("accId") Long accId, @Param("type") Type type);
 
@@ -1,8 +1,8 @@
 package com.override.orchestrator_service.repository;
 
 import com.override.orchestrator_service.model.OverMoneyAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface OverMoneyAccountRepository extends CrudRepository<OverMoneyAccount, Long> {
+public interface OverMoneyAccountRepository extends JpaRepository<OverMoneyAccount, Long> {
 
     OverMoneyAccount findByChatId(Long chatId);
 
@@ -0,0 +1,75 @@
+package com.override.orchestrator_service.repository;
+
+import com.override.dto.AnalyticsAnnualAndMonthlyExpenseForCategoryDTO;
+import com.override.dto.AnalyticsMonthlyIncomeForCategoryDTO;
+import com.override.orchestrator_service.model.TransactionMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransactionMonthlyRollupRepository extends JpaRepository<TransactionMonthlyRollup, Long> {
+
+    String INSERT_ROLLUPS_FROM_TRANSACTIONS = "INSERT INTO transaction_monthly_rollups " +
+            "(account_id, year, month, category_id, type, amount_sum, transactions_count) " +
+            "SELECT t.account_id, CAST(EXTRACT(YEAR FROM t.date) AS INTEGER), CAST(EXTRACT(MONTH FROM t.date) AS INTEGER), " +
+            "t.category_id, c.type, COALESCE(SUM(t.amount), 0), COUNT(*) " +
+            "FROM transactions t LEFT JOIN categories c ON c.id = t.category_id " +
+            "WHERE t.account_id IS NOT NULL AND t.date IS NOT NULL ";
+
+    String GROUP_ROLLUPS = "GROUP BY t.account_id, EXTRACT(YEAR FROM t.date), EXTRACT(MONTH FROM t.date), " +
+            "t.category_id, c.type";
+
+    @Query("SELECT DISTINCT r.year FROM TransactionMonthlyRollup r WHERE r.accountId = :accountId")
+    List<Integer> findAvailableYearsByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT new com.override.dto.AnalyticsMonthlyIncomeForCategoryDTO(r.amountSum, c.name, r.month) " +
+            "FROM TransactionMonthlyRollup r JOIN r.category c " +
+            "WHERE r.accountId = :accountId AND r.year = :year AND r.type = 0")
+    List<AnalyticsMonthlyIncomeForCategoryDTO> findMonthlyIncomeStatisticsByYearAndAccountId(@Param("accountId") Long accountId,
+                                                                                             @Param("year") Integer year);
+
+    @Query("SELECT new com.override.dto.AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(r.amountSum, c.name, " +
+            "cast(c.id as int), r.month) " +
+            "FROM TransactionMonthlyRollup r JOIN r.category c " +
+            "WHERE r.accountId = :accountId AND r.year = :year AND r.type = 1")
+    List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> findAnnualAndMonthlyTotalStatisticsByAccountId(@Param("accountId") Long accountId,
+                                                                                                        @Param("year") Integer year);
+
+    @Query(value = "SELECT to_char(make_date(r.year, r.month, 1), 'Month') AS month, " +
+            "SUM(CASE WHEN r.type = 0 THEN r.amount_sum ELSE 0 END) AS totalIncome, " +
+            "SUM(CASE WHEN r.type = 1 THEN r.amount_sum ELSE 0 END) AS totalExpense " +
+            "FROM transaction_monthly_rollups r " +
+            "WHERE r.account_id = :accountId AND r.year = :year AND r.category_id IS NOT NULL " +
+            "GROUP BY r.year, r.month ORDER BY month", nativeQuery = true)
+    List<Object[]> findTotalIncomeOutcomePerMonth(@Param("accountId") Long accountId, @Param("year") Integer year);
+
+    /**
+     * Блокирует изменение транзакций до конца текущей транзакции БД,
+     * чтобы триггеры не изменяли итоги во время их пересчета
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE transactions IN SHARE MODE", nativeQuery = true)
+    void lockTransactions();
+
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_rollups", nativeQuery = true)
+    void deleteAllRollups();
+
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_rollups WHERE account_id = :accountId", nativeQuery = true)
+    void deleteRollupsByAccountId(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query(value = INSERT_ROLLUPS_FROM_TRANSACTIONS + GROUP_ROLLUPS, nativeQuery = true)
+    int insertAllRollupsFromTransactions();
+
+    @Modifying
+    @Query(value = INSERT_ROLLUPS_FROM_TRANSACTIONS + "AND t.account_id = :accountId " + GROUP_ROLLUPS,
+            nativeQuery = true)
+    int insertRollupsFromTransactionsByAccountId(@Param("accountId") Long accountId);
+}
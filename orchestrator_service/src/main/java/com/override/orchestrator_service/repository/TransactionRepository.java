@@ -1,20 +1,21 @@
 package com.override.orchestrator_service.repository;
 
-import com.override.dto.AnalyticsAnnualAndMonthlyExpenseForCategoryDTO;
-import com.override.dto.AnalyticsMonthlyIncomeForCategoryDTO;
 import com.override.orchestrator_service.model.Transaction;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends PagingAndSortingRepository<Transaction, UUID> {
@@ -31,7 +32,18 @@ public interface TransactionRepository extends PagingAndSortingRepository<Transa
     void updateCategoryId(@Param("oldCategory") Long oldCategoryId, @Param("newCategory") Long newCategoryId);
 
     @Query("SELECT t FROM Transaction t WHERE t.account.id = :id")
-    Page<Transaction> findAllByAccountId(@Param("id") Long id, Pageable pageable);
+    Slice<Transaction> findAllByAccountId(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId ORDER BY t.date DESC, t.id")
+    List<Transaction> findHistoryFirstPage(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.account.id = :accountId " +
+            "AND (t.date < :date OR (t.date = :date AND t.id > :id)) " +
+            "ORDER BY t.date DESC, t.id")
+    List<Transaction> findHistoryPageAfter(@Param("accountId") Long accountId,
+                                           @Param("date") LocalDateTime date,
+                                           @Param("id") UUID id,
+                                           Pageable pageable);
 
     @Modifying
     @Query("UPDATE Transaction t SET t.category.id = :newCategory " +
@@ -53,31 +65,42 @@ public interface TransactionRepository extends PagingAndSortingRepository<Transa
     void removeCategoryIdFromTransactionsWithSameMessage(@Param("message") String message,
                                                          @Param("accountId") Long accountId);
 
-    @Query("SELECT DISTINCT EXTRACT(year from t.date) from Transaction t WHERE t.account.id = :accountId")
-    List<Integer> findAvailableYearsForAccountByAccountId(@Param("accountId") Long accountId);
-
-    @Query(value = "select new com.override.dto.AnalyticsMonthlyIncomeForCategoryDTO(SUM(t.amount), c.name, cast(MONTH(t.date) as int)) " +
-            "from Transaction t join Category c on t.category.id = c.id " +
-            "where t.account.id = :accountId and YEAR(t.date) = :year and c.type = 0 " +
-            "group by c.id, MONTH(t.date), c.name")
-    List<AnalyticsMonthlyIncomeForCategoryDTO> findMonthlyIncomeStatisticsByYearAndAccountId(@Param("accountId") Long accountId,
-                                                                                             @Param("year") Integer year);
-
     @Transactional
     void deleteAllByAccountId(Long accountId);
 
-    @Query(value = "SELECT new com.override.dto.AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(cast(t.amount as double), c.name, cast(t.category.id as int), cast(MONTH(t.date) as int)) " +
-            "FROM Transaction t JOIN Category c ON t.category.id = c.id " +
-            "WHERE t.account.id = :accountId AND YEAR(t.date) = :year AND c.type = 1 " +
-            "GROUP BY c.id, t.category.id, MONTH(t.date), c.name, t.amount")
-    List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> findAnnualAndMonthlyTotalStatisticsByAccountId(Long accountId, Integer year);
-
-    @Query(value = "SELECT t FROM Transaction t WHERE MONTH(t.date) = :month AND YEAR(t.date) = :year " +
-            "AND t.category.id = :categoryId ORDER BY t.date")
-    List<Transaction> findTransactionsBetweenDatesAndCategory(@Param("year") Integer year,
-                                                              @Param("month") Integer month,
+    /**
+     * Транзакции категории с датой в полуинтервале [from, to). Условие по диапазону, а не по частям даты,
+     * использует индекс transactions(category_id, date)
+     */
+    @Query(value = "SELECT t FROM Transaction t WHERE t.category.id = :categoryId " +
+            "AND t.date >= :from AND t.date < :to ORDER BY t.date")
+    List<Transaction> findTransactionsBetweenDatesAndCategory(@Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to,
                                                               @Param("categoryId") long categoryId);
 
+    /**
+     * Транзакции аккаунта с категорией для выгрузки, читаются курсором БД порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     *
+     * @return строки [название категории, тип категории, сумма, сообщение, дата, telegram id пользователя]
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.name, c.type, t.amount, t.message, t.date, t.telegramUserId " +
+            "FROM Transaction t JOIN t.category c WHERE t.account.id = :accountId ORDER BY t.date DESC, t.id")
+    Stream<Object[]> streamExportRowsByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * Все транзакции аккаунта вместе с категориями, читаются курсором БД порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM Transaction t LEFT JOIN FETCH t.category WHERE t.account.id = :accountId")
+    Stream<Transaction> streamAllByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT DISTINCT t.telegramUserId FROM Transaction t " +
+            "WHERE t.account.id = :accountId AND t.telegramUserId IS NOT NULL")
+    List<Long> findTelegramUserIdsByAccountId(@Param("accountId") Long accountId);
+
     @Query(value = "SELECT COUNT(t) FROM Transaction t WHERE t.date >= :date")
     int findCountTransactionsLastDays(@Param("date") LocalDateTime date);
 }
\ No newline at end of file
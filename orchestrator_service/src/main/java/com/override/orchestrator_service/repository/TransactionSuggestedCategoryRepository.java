@@ -0,0 +1,70 @@
+package com.override.orchestrator_service.repository;
+
+import com.override.dto.CategorySuggestionDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запись предложенных категорий транзакций одним UPDATE на весь пакет: пары (id транзакции, id категории)
+ * передаются массивами и разворачиваются в БД через unnest, без загрузки сущностей транзакций.
+ * Предложенная категория записывается, только если она принадлежит аккаунту транзакции
+ */
+@Repository
+public class TransactionSuggestedCategoryRepository {
+
+    private final String UPDATE_SUGGESTED_CATEGORIES = "UPDATE transactions t " +
+            "SET suggested_category_id = s.suggested_category_id " +
+            "FROM unnest(?, ?) AS s(id, suggested_category_id) " +
+            "WHERE t.id = s.id AND (s.suggested_category_id IS NULL OR EXISTS (SELECT 1 FROM categories c " +
+            "WHERE c.id = s.suggested_category_id AND c.account_id = t.account_id))";
+    private final String UPDATE_ACCOUNT_SUGGESTED_CATEGORIES = UPDATE_SUGGESTED_CATEGORIES + " AND t.account_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Обновляет предложенные категории транзакций любых аккаунтов
+     *
+     * @return количество обновленных транзакций
+     */
+    public int updateSuggestedCategoryIds(List<CategorySuggestionDTO> suggestions) {
+        return update(UPDATE_SUGGESTED_CATEGORIES, null, suggestions);
+    }
+
+    /**
+     * Обновляет предложенные категории транзакций аккаунта, транзакции других аккаунтов не изменяются
+     *
+     * @return количество обновленных транзакций
+     */
+    public int updateSuggestedCategoryIds(Long accountId, List<CategorySuggestionDTO> suggestions) {
+        return update(UPDATE_ACCOUNT_SUGGESTED_CATEGORIES, accountId, suggestions);
+    }
+
+    private int update(String sql, Long accountId, List<CategorySuggestionDTO> suggestions) {
+        if (suggestions.isEmpty()) {
+            return 0;
+        }
+        UUID[] transactionIds = new UUID[suggestions.size()];
+        Long[] categoryIds = new Long[suggestions.size()];
+        for (int i = 0; i < suggestions.size(); i++) {
+            transactionIds[i] = suggestions.get(i).getTransactionId();
+            categoryIds[i] = suggestions.get(i).getSuggestedCategoryId();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, connection.createArrayOf("uuid", transactionIds));
+                statement.setArray(2, connection.createArrayOf("bigint", categoryIds));
+                if (accountId != null) {
+                    statement.setLong(3, accountId);
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.override.orchestrator_service.repository;
 
 import com.override.orchestrator_service.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,7 +9,6 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -19,8 +19,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("select u from User u where u.username = :username")
     User findByUsername(@Param("username") String username);
 
-    @Query("select u.id from User u")
-    Set<Long> getAllUserIds();
+    @Query("select u.id from User u where u.id > :lastId order by u.id")
+    List<Long> findUserIdsAfter(@Param("lastId") Long lastId, Pageable pageable);
 
     @Query("select u from User u where u.id in (:ids)")
     List<User> findAllUsersByIds(@Param("ids") List<Long> ids);
@@ -1,89 +1,233 @@
 package com.override.orchestrator_service.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.override.dto.BackupRestoreProgressDTO;
 import com.override.dto.BackupUserDataDTO;
 import com.override.dto.CategoryDTO;
+import com.override.dto.KeywordIdDTO;
 import com.override.dto.TransactionDTO;
+import com.override.dto.constants.BackupRestoreStage;
 import com.override.orchestrator_service.mapper.CategoryMapper;
+import com.override.orchestrator_service.mapper.TransactionMapper;
 import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.KeywordId;
 import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.repository.BackupRestoreRepository;
+import com.override.orchestrator_service.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.management.InstanceNotFoundException;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
+@Slf4j
 public class BackupUserDataService {
+    private final int RESTORE_BATCH_SIZE = 1000;
+    private final String UNDEFINED_CATEGORY_NAME = "Нераспознанное";
+    private final Duration RESTORE_PROGRESS_TTL = Duration.ofHours(1);
+
+    /**
+     * Ход восстановления публикуется неизменяемыми снимками, запись хранится час после последнего изменения
+     */
+    private final Cache<Long, BackupRestoreProgressDTO> restoreProgress = Caffeine.newBuilder()
+            .expireAfterWrite(RESTORE_PROGRESS_TTL)
+            .build();
     @Autowired
     private CategoryService categoryService;
     @Autowired
-    private TransactionService transactionService;
-    @Autowired
     private CategoryMapper categoryMapper;
     @Autowired
-    private KeywordService keywordService;
-    @Autowired
     private OverMoneyAccountService overMoneyAccountService;
     @Autowired
-    TransactionProcessingService transactionProcessingService;
+    private CategorizationIndexService categorizationIndexService;
+    @Autowired
+    private BackupRestoreRepository backupRestoreRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private TransactionMapper transactionMapper;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public BackupUserDataDTO createBackupUserData(Long telegramId) throws InstanceNotFoundException {
+    @Transactional(readOnly = true)
+    public void writeBackupUserData(Long telegramId, OutputStream out) throws InstanceNotFoundException, IOException {
         Long chatId = overMoneyAccountService.getAccountByUserId(telegramId).getChatId();
-        return createBackup(chatId);
+        writeBackup(chatId, out);
     }
 
-    public BackupUserDataDTO createBackupRemovedUserData(Long telegramId) {
-        return createBackup(telegramId);
+    @Transactional(readOnly = true)
+    public void writeBackupRemovedUserData(Long telegramId, OutputStream out) throws IOException {
+        writeBackup(telegramId, out);
     }
 
-    public BackupUserDataDTO createBackup(Long id) {
-        List<CategoryDTO> categoryDTOList = categoryService.findCategoriesListByChatId(id);
-        List<TransactionDTO> transactionDTOList = transactionService.findAlltransactionDTOForAcountByChatId(id);
+    /**
+     * Пишет бэкап в формате {@link BackupUserDataDTO} в поток, не собирая его в памяти: транзакции читаются
+     * курсором БД и сериализуются по одной, после записи транзакция отсоединяется от контекста персистентности.
+     * Должен вызываться внутри транзакции, поток не закрывается
+     */
+    public void writeBackup(Long chatId, OutputStream out) throws IOException {
+        Long accountId = overMoneyAccountService.getAccountIdByChatId(chatId);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
-        return BackupUserDataDTO.builder()
-                .categoryDTOList(categoryDTOList)
-                .transactionDTOList(transactionDTOList).build();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("transactionDTOList");
+            try (Stream<Transaction> transactions = transactionRepository.streamAllByAccountId(accountId)) {
+                for (Transaction transaction : (Iterable<Transaction>) transactions::iterator) {
+                    writer.writeValue(generator, transactionMapper.mapTransactionToDTO(transaction));
+                    entityManager.detach(transaction);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeFieldName("categoryDTOList");
+            writer.writeValue(generator, categoryService.findCategoriesListByChatId(chatId));
+            generator.writeEndObject();
+        }
     }
 
+    /**
+     * Заменяет данные аккаунта пользователя данными бэкапа в одной транзакции БД.
+     * Категории и ключевые слова разбираются по словарям один раз, после чего категории, ключевые слова
+     * и транзакции записываются пачками JDBC. Ход восстановления доступен через {@link #getRestoreProgress(Long)}
+     */
+    @Transactional
     public void writingDataFromBackupFile(BackupUserDataDTO backupUserDataDTO, Long telegramId) {
-        List<Transaction> transactionList = createTransactionsFromBackupFile(backupUserDataDTO, telegramId);
-        transactionService.saveAllTransactions(transactionList);
+        List<TransactionDTO> transactionDTOList = backupUserDataDTO.getTransactionDTOList();
+        int total = transactionDTOList.size();
+        int restored = 0;
+        publishProgress(telegramId, BackupRestoreStage.CLEARING, total, restored);
+        try {
+            OverMoneyAccount overMoneyAccount = overMoneyAccountService.getNewAccount(telegramId);
+            backupRestoreRepository.deleteAccountData(overMoneyAccount.getId());
+
+            publishProgress(telegramId, BackupRestoreStage.CATEGORIES, total, restored);
+            Map<String, Category> categories = restoreCategories(backupUserDataDTO.getCategoryDTOList(), overMoneyAccount);
+
+            publishProgress(telegramId, BackupRestoreStage.KEYWORDS, total, restored);
+            restoreKeywords(backupUserDataDTO.getCategoryDTOList(), categories, overMoneyAccount.getId());
+
+            publishProgress(telegramId, BackupRestoreStage.TRANSACTIONS, total, restored);
+            List<Transaction> batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+            for (TransactionDTO transactionDTO : transactionDTOList) {
+                batch.add(createTransactionFromBackup(transactionDTO, categories, overMoneyAccount, telegramId));
+                if (batch.size() == RESTORE_BATCH_SIZE) {
+                    restored += restoreTransactions(batch);
+                    publishProgress(telegramId, BackupRestoreStage.TRANSACTIONS, total, restored);
+                    batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+                }
+            }
+            restored += restoreTransactions(batch);
+
+            categorizationIndexService.invalidateAccount(overMoneyAccount.getId());
+            publishProgress(telegramId, BackupRestoreStage.COMPLETED, total, restored);
+            log.info("Восстановлены данные из бэкапа для пользователя " + telegramId + ": категорий "
+                    + categories.size() + ", транзакций " + restored);
+        } catch (RuntimeException e) {
+            publishProgress(telegramId, BackupRestoreStage.FAILED, total, restored);
+            throw e;
+        }
     }
 
-    public List<Transaction> createTransactionsFromBackupFile(BackupUserDataDTO backupUserDataDTO, Long telegramId) {
-        List<TransactionDTO> transactionDTOList = backupUserDataDTO.getTransactionDTOList();
-        List<CategoryDTO> categoryDTOList = backupUserDataDTO.getCategoryDTOList();
-        List<Transaction> transactionList = new ArrayList<>();
-        OverMoneyAccount overMoneyAccount = overMoneyAccountService.getNewAccount(telegramId);
-        Long accountId = overMoneyAccount.getId();
-        transactionDTOList.stream()
-                .filter(transactionDTO -> transactionDTO.getCategoryName() == null)
-                .forEach(transactionDTO -> transactionDTO.setCategoryName("Нераспознанное"));
-        Set<Category> categorySet = new HashSet<>();
-        categoryDTOList.forEach(categoryDTO -> categorySet.add(categoryMapper.mapCategoryDTOToCategory(categoryDTO,
-                overMoneyAccount)));
-
-        overMoneyAccountService.deletingAllTransactionsCategoriesKeywordsByAccountId(accountId);
-        categoryService.saveAllCategories(categorySet);
-
-        for (TransactionDTO transactionDTO : transactionDTOList) {
-            Transaction transaction = new Transaction();
-            transaction.setAmount(transactionDTO.getAmount());
-            transaction.setMessage(transactionDTO.getMessage());
-            Optional<CategoryDTO> categoryDTO = categoryService.findCategoryDTOByNameFromList(categoryDTOList,
-                    transactionDTO.getCategoryName());
-            Category category = transactionProcessingService.getMatchingCategory(categorySet, transactionDTO.getCategoryName());
-            categoryDTO.ifPresent(dto -> keywordService.setKeywordsFromCategoryDTO(dto, category, accountId));
-            transaction.setCategory(category);
-            transaction.setAccount(overMoneyAccount);
-            transaction.setDate(transactionDTO.getDate());
-            transaction.setTelegramUserId(telegramId);
-
-            transactionList.add(transaction);
+    /**
+     * @return ход последнего восстановления пользователя
+     * @throws InstanceNotFoundException если пользователь не запускал восстановление
+     */
+    public BackupRestoreProgressDTO getRestoreProgress(Long telegramId) throws InstanceNotFoundException {
+        BackupRestoreProgressDTO progress = restoreProgress.getIfPresent(telegramId);
+        if (progress == null) {
+            throw new InstanceNotFoundException("Восстановление из бэкапа для пользователя " + telegramId + " не запускалось");
         }
-        return transactionList;
+        return progress;
+    }
+
+    /**
+     * @return категории бэкапа с id из БД по названию без учета регистра
+     */
+    private Map<String, Category> restoreCategories(List<CategoryDTO> categoryDTOList, OverMoneyAccount overMoneyAccount) {
+        Map<String, Category> categoriesByName = new LinkedHashMap<>();
+        for (CategoryDTO categoryDTO : categoryDTOList) {
+            Category category = categoryMapper.mapCategoryDTOToCategory(categoryDTO, overMoneyAccount);
+            categoriesByName.putIfAbsent(category.getName().toLowerCase(), category);
+        }
+        backupRestoreRepository.insertCategories(new ArrayList<>(categoriesByName.values()));
+        return categoriesByName;
+    }
+
+    /**
+     * Ключевое слово уникально в аккаунте, при повторе в нескольких категориях остается последнее, как при сохранении по одному
+     */
+    private void restoreKeywords(List<CategoryDTO> categoryDTOList, Map<String, Category> categories, Long accountId) {
+        Map<String, Keyword> keywordsByName = new LinkedHashMap<>();
+        for (CategoryDTO categoryDTO : categoryDTOList) {
+            Category category = categories.get(categoryDTO.getName().toLowerCase());
+            if (categoryDTO.getKeywords() == null) {
+                continue;
+            }
+            for (KeywordIdDTO keywordIdDTO : categoryDTO.getKeywords()) {
+                if (keywordIdDTO.getName() != null) {
+                    keywordsByName.put(keywordIdDTO.getName(), Keyword.builder()
+                            .keywordId(new KeywordId(keywordIdDTO.getName(), accountId))
+                            .category(category)
+                            .build());
+                }
+            }
+        }
+        backupRestoreRepository.insertKeywords(new ArrayList<>(keywordsByName.values()));
     }
-}
 
+    /**
+     * Снимок хода не изменяется после публикации, поэтому читается другими потоками без синхронизации
+     */
+    private void publishProgress(Long telegramId, BackupRestoreStage stage, int total, int restored) {
+        restoreProgress.put(telegramId, BackupRestoreProgressDTO.builder()
+                .stage(stage)
+                .totalTransactions(total)
+                .restoredTransactions(restored)
+                .build());
+    }
 
+    /**
+     * @return количество записанных транзакций
+     */
+    private int restoreTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        backupRestoreRepository.insertTransactions(transactions);
+        return transactions.size();
+    }
+
+    private Transaction createTransactionFromBackup(TransactionDTO transactionDTO, Map<String, Category> categories,
+                                                    OverMoneyAccount overMoneyAccount, Long telegramId) {
+        String categoryName = transactionDTO.getCategoryName() != null
+                ? transactionDTO.getCategoryName()
+                : UNDEFINED_CATEGORY_NAME;
+        return Transaction.builder()
+                .amount(transactionDTO.getAmount())
+                .message(transactionDTO.getMessage())
+                .category(categories.get(categoryName.toLowerCase()))
+                .account(overMoneyAccount)
+                .date(transactionDTO.getDate())
+                .telegramUserId(telegramId)
+                .build();
+    }
+}
@@ -4,11 +4,11 @@ import com.override.dto.BugReportDTO;
 import com.override.orchestrator_service.mapper.BugReportMapper;
 import com.override.orchestrator_service.model.BugReport;
 import com.override.orchestrator_service.repository.BugReportRepository;
-import com.override.orchestrator_service.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,7 +20,7 @@ public class BugReportService {
     private BugReportMapper bugReportMapper;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
 
     public void saveBugReport(BugReportDTO bugReportDTO, Long userid) {
         bugReportDTO.setUserId(userid);
@@ -28,10 +28,14 @@ public class BugReportService {
     }
 
     public List<BugReportDTO> getBugReportDTOList() {
-        return bugReportRepository.findAllOrderedByIdDesc().stream()
+        List<BugReportDTO> bugReports = bugReportRepository.findAllOrderedByIdDesc().stream()
                 .map(BugReportMapper::mapBugReportToDTO)
-                .peek(x -> x.setUsername(userRepository.findById(x.getUserId()).get().getUsername()))
                 .collect(Collectors.toList());
+        Map<Long, String> displayNames = userService.getDisplayNamesByIds(bugReports.stream()
+                .map(BugReportDTO::getUserId)
+                .collect(Collectors.toList()));
+        bugReports.forEach(bugReport -> bugReport.setUsername(displayNames.get(bugReport.getUserId())));
+        return bugReports;
     }
 
     public void deleteBugReport(Long id) {
@@ -0,0 +1,287 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.constants.Type;
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.repository.CategoryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.override.orchestrator_service.util.AfterCommitUtils.runAfterCommit;
+
+/**
+ * Индекс для распознавания категории транзакции по комментарию без обращения к Hibernate.
+ * Для каждого аккаунта хранит соответствие названий категорий и ключевых слов (без учета регистра)
+ * идентификатору категории. Индекс аккаунта строится один раз при первой транзакции по категориям,
+ * загруженным вместе с ключевыми словами одним запросом, после чего поддерживается сервисами, изменяющими категории и ключевые слова.
+ * Изменения применяются после коммита транзакции БД, чтобы откат не оставлял индекс в несогласованном виде.
+ * Каждое изменение увеличивает номер поколения аккаунта, даже если индекс еще не построен, и индекс,
+ * во время построения которого поколение изменилось, используется только для текущего распознавания.
+ * Через индекс проходят все изменения категорий и ключевых слов, поэтому о них после коммита
+ * уведомляются и другие кэши категорий, см. {@link #addChangeListener(CategoriesChangeListener)}
+ */
+@Service
+public class CategorizationIndexService {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private final Map<Long, AccountIndex> accountIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Поколения аккаунтов и поколение изменений категорий с неизвестным аккаунтом,
+     * изменяются и сравниваются под блокировкой карты поколений
+     */
+    private final Map<Long, Long> accountGenerations = new HashMap<>();
+    private long categoryGeneration;
+
+    private final List<CategoriesChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    public void addChangeListener(CategoriesChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Ищет категорию, название которой или одно из ключевых слов которой совпадает с комментарием
+     * без учета регистра. Совпадение с названием категории приоритетнее совпадения с ключевым словом.
+     * Если индекс аккаунта не построен, категории аккаунта читаются после запоминания поколения
+     *
+     * @return отсоединенная от сессии категория с заполненными id, name и type,
+     * либо null, если совпадений нет
+     */
+    public Category findCategory(Long accountId, String words) {
+        AccountIndex accountIndex = accountIndexes.get(accountId);
+        if (accountIndex == null) {
+            long generation = getGeneration(accountId);
+            accountIndex = buildAccountIndex(categoryRepository.findAllWithKeywordsByAccountId(accountId));
+            cacheAccountIndex(accountId, accountIndex, generation);
+        }
+        CategorySnapshot snapshot = accountIndex.find(fold(words));
+        if (snapshot == null) {
+            return null;
+        }
+        return Category.builder()
+                .id(snapshot.getId())
+                .name(snapshot.getName())
+                .type(snapshot.getType())
+                .build();
+    }
+
+    public void putKeyword(Keyword keyword) {
+        Long accountId = keyword.getKeywordId().getAccountId();
+        String name = keyword.getKeywordId().getName();
+        Category category = keyword.getCategory();
+        if (category == null || category.getId() == null) {
+            removeKeyword(accountId, name);
+            return;
+        }
+        CategorySnapshot snapshot = new CategorySnapshot(category.getId(), category.getName(), category.getType());
+        runAfterCommit(() -> {
+            nextGeneration(accountId);
+            accountIndexes.computeIfPresent(accountId, (id, accountIndex) -> {
+                accountIndex.putKeyword(fold(name), name, snapshot);
+                return accountIndex;
+            });
+            notifyAccountChanged(accountId);
+        });
+    }
+
+    public void removeKeyword(Long accountId, String name) {
+        runAfterCommit(() -> {
+            nextGeneration(accountId);
+            accountIndexes.computeIfPresent(accountId, (id, accountIndex) -> {
+                accountIndex.removeKeyword(fold(name), name);
+                return accountIndex;
+            });
+            notifyAccountChanged(accountId);
+        });
+    }
+
+    /**
+     * Сбрасывает индекс аккаунта, он будет построен заново при следующем распознавании.
+     * Используется при изменениях, затрагивающих названия категорий или их принадлежность аккаунту
+     */
+    public void invalidateAccount(Long accountId) {
+        runAfterCommit(() -> {
+            nextGeneration(accountId);
+            accountIndexes.remove(accountId);
+            notifyAccountChanged(accountId);
+        });
+    }
+
+    /**
+     * Сбрасывает индекс аккаунта, которому принадлежит категория
+     */
+    public void invalidateAccountByCategoryId(Long categoryId) {
+        runAfterCommit(() -> {
+            synchronized (accountGenerations) {
+                categoryGeneration++;
+            }
+            accountIndexes.values().removeIf(accountIndex -> accountIndex.containsCategory(categoryId));
+            changeListeners.forEach(listener -> listener.categoryChanged(categoryId));
+            synchronized (accountGenerations) {
+                categoryGeneration++;
+            }
+        });
+    }
+
+    /**
+     * Версия категорий и ключевых слов аккаунта, увеличивается при каждом их изменении в пределах
+     * работы сервиса. Прочитанная до загрузки категорий версия не новее загруженных категорий
+     */
+    public long getCategoriesGeneration(Long accountId) {
+        return getGeneration(accountId);
+    }
+
+    /**
+     * Поколение увеличивается и после уведомления слушателей, чтобы версия, прочитанная до сброса их кэшей,
+     * не совпала с версией после сброса
+     */
+    private void notifyAccountChanged(Long accountId) {
+        changeListeners.forEach(listener -> listener.accountChanged(accountId));
+        nextGeneration(accountId);
+    }
+
+    private long getGeneration(Long accountId) {
+        synchronized (accountGenerations) {
+            return categoryGeneration + accountGenerations.getOrDefault(accountId, 0L);
+        }
+    }
+
+    /**
+     * Увеличивается до применения изменения к индексу, поэтому индекс, сохраненный до увеличения,
+     * получит изменение, а построенный по данным до изменения не будет сохранен
+     */
+    private void nextGeneration(Long accountId) {
+        synchronized (accountGenerations) {
+            accountGenerations.merge(accountId, 1L, Long::sum);
+        }
+    }
+
+    private void cacheAccountIndex(Long accountId, AccountIndex accountIndex, long generation) {
+        synchronized (accountGenerations) {
+            if (getGeneration(accountId) == generation) {
+                accountIndexes.putIfAbsent(accountId, accountIndex);
+            }
+        }
+    }
+
+    private AccountIndex buildAccountIndex(Set<Category> categories) {
+        AccountIndex accountIndex = new AccountIndex();
+        if (categories == null) {
+            return accountIndex;
+        }
+        for (Category category : categories) {
+            CategorySnapshot snapshot = new CategorySnapshot(category.getId(), category.getName(), category.getType());
+            accountIndex.putCategory(fold(category.getName()), snapshot);
+            if (category.getKeywords() != null) {
+                category.getKeywords().forEach(keyword -> {
+                    String name = keyword.getKeywordId().getName();
+                    accountIndex.putKeyword(fold(name), name, snapshot);
+                });
+            }
+        }
+        return accountIndex;
+    }
+
+    /**
+     * Приводит строку к ключу, два ключа равны тогда и только тогда,
+     * когда исходные строки равны по {@link String#equalsIgnoreCase(String)}
+     */
+    private String fold(String value) {
+        if (value == null) {
+            return null;
+        }
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Ключевые слова хранятся с точностью до исходного написания: в аккаунте могут быть слова,
+     * отличающиеся только регистром, и удаление одного из них не должно терять остальные
+     */
+    private static class AccountIndex {
+        private final Map<String, CategorySnapshot> categoriesByName = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, CategorySnapshot>> categoriesByKeyword = new ConcurrentHashMap<>();
+
+        CategorySnapshot find(String key) {
+            if (key == null) {
+                return null;
+            }
+            CategorySnapshot snapshot = categoriesByName.get(key);
+            if (snapshot != null) {
+                return snapshot;
+            }
+            Map<String, CategorySnapshot> keywords = categoriesByKeyword.get(key);
+            if (keywords == null) {
+                return null;
+            }
+            return keywords.values().stream().findFirst().orElse(null);
+        }
+
+        void putCategory(String key, CategorySnapshot snapshot) {
+            if (key != null) {
+                categoriesByName.putIfAbsent(key, snapshot);
+            }
+        }
+
+        void putKeyword(String key, String name, CategorySnapshot snapshot) {
+            if (key != null) {
+                categoriesByKeyword.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(name, snapshot);
+            }
+        }
+
+        void removeKeyword(String key, String name) {
+            if (key != null) {
+                categoriesByKeyword.computeIfPresent(key, (k, keywords) -> {
+                    keywords.remove(name);
+                    return keywords.isEmpty() ? null : keywords;
+                });
+            }
+        }
+
+        boolean containsCategory(Long categoryId) {
+            return categoriesByName.values().stream().anyMatch(snapshot -> Objects.equals(snapshot.getId(), categoryId))
+                    || categoriesByKeyword.values().stream()
+                    .flatMap(keywords -> keywords.values().stream())
+                    .anyMatch(snapshot -> Objects.equals(snapshot.getId(), categoryId));
+        }
+    }
+
+    /**
+     * Получает уведомления об изменениях категорий и ключевых слов после коммита транзакции БД
+     */
+    public interface CategoriesChangeListener {
+
+        /**
+         * Изменились категории или ключевые слова аккаунта
+         */
+        void accountChanged(Long accountId);
+
+        /**
+         * Изменилась категория, аккаунт которой при изменении не известен
+         */
+        void categoryChanged(Long categoryId);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CategorySnapshot {
+        private final Long id;
+        private final String name;
+        private final Type type;
+    }
+}
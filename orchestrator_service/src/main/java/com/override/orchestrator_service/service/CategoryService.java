@@ -1,12 +1,13 @@
 package com.override.orchestrator_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.override.dto.CategoryDTO;
 import com.override.dto.MergeCategoryDTO;
 import com.override.dto.constants.Type;
 import com.override.orchestrator_service.config.DefaultCategoryProperties;
 import com.override.orchestrator_service.exception.CategoryNameIsNotUniqueException;
 import com.override.orchestrator_service.exception.CategoryNotFoundException;
-import com.override.orchestrator_service.mapper.AccountMapper;
 import com.override.orchestrator_service.mapper.CategoryMapper;
 import com.override.orchestrator_service.model.Category;
 import com.override.orchestrator_service.model.KeywordId;
@@ -14,18 +15,35 @@ import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.repository.CategoryRepository;
 import com.override.orchestrator_service.repository.KeywordRepository;
 import com.override.orchestrator_service.repository.TransactionRepository;
+import com.override.orchestrator_service.service.CategorizationIndexService.CategoriesChangeListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import javax.management.InstanceNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+/**
+ * Категории аккаунтов с ключевыми словами кэшируются неизменяемыми списками DTO.
+ * Все изменения категорий и ключевых слов проходят через {@link CategorizationIndexService},
+ * который после коммита сообщает о них, и запись кэша сбрасывается
+ */
 @Service
 public class CategoryService {
+
+    public static final int CATEGORIES_CACHE_MAX_SIZE = 1000;
+
+    public static final Duration CATEGORIES_CACHE_TTL = Duration.ofMinutes(10);
+
     @Autowired
     private CategoryRepository categoryRepository;
     @Autowired
@@ -37,20 +55,71 @@ public class CategoryService {
     @Autowired
     private KeywordRepository keywordRepository;
     @Autowired
-    private AccountMapper accountMapper;
-    @Autowired
     private DefaultCategoryProperties defaultCategoryProperties;
     @Autowired
     private UserService userService;
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Cache<Long, List<CategoryDTO>> categoriesByAccountId = Caffeine.newBuilder()
+            .maximumSize(CATEGORIES_CACHE_MAX_SIZE)
+            .expireAfterWrite(CATEGORIES_CACHE_TTL)
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, categoriesByAccountId, "categories.by.account");
+        categorizationIndexService.addChangeListener(new CategoriesChangeListener() {
+            @Override
+            public void accountChanged(Long accountId) {
+                evictCategories(accountId);
+            }
+
+            @Override
+            public void categoryChanged(Long categoryId) {
+                evictCategoriesByCategoryId(categoryId);
+            }
+        });
+    }
 
     public List<CategoryDTO> findCategoriesListByUserId(Long id) throws InstanceNotFoundException {
-        OverMoneyAccount account = accountService.getAccountByUserId(id);
-        return categoryMapper.mapCategoriesListToJsonResponse(accountMapper.mapAccountToCategoryList(account));
+        return findCategoriesListByAccountId(accountService.getAccountIdByUserId(id));
+    }
+
+    /**
+     * Категории аккаунта с ключевыми словами. Категории и ключевые слова загружаются одним запросом,
+     * поэтому метод может вызываться вне запроса и транзакции
+     *
+     * @return неизменяемый список из кэша, пустой для аккаунта без категорий или если аккаунт не задан
+     */
+    public List<CategoryDTO> findCategoriesListByAccountId(Long accountId) {
+        if (accountId == null) {
+            return Collections.emptyList();
+        }
+        return categoriesByAccountId.get(accountId, id -> Collections.unmodifiableList(categoryMapper
+                .mapCategoriesListToJsonResponse(new ArrayList<>(categoryRepository.findAllWithKeywordsByAccountId(id)))));
     }
 
     public List<CategoryDTO> findCategoriesListByChatId(Long id) {
-        OverMoneyAccount account = accountService.getOverMoneyAccountByChatId(id);
-        return categoryMapper.mapCategoriesListToJsonResponse(accountMapper.mapAccountToCategoryList(account));
+        return findCategoriesListByAccountId(accountService.getAccountIdByChatId(id));
+    }
+
+    /**
+     * Сбрасывает кэшированные категории аккаунта
+     */
+    public void evictCategories(Long accountId) {
+        categoriesByAccountId.invalidate(accountId);
+    }
+
+    /**
+     * Сбрасывает кэшированные категории аккаунтов, в которых есть категория
+     */
+    public void evictCategoriesByCategoryId(Long categoryId) {
+        categoriesByAccountId.asMap().values().removeIf(categories -> categories.stream()
+                .anyMatch(category -> categoryId.equals(category.getId())));
     }
 
     public Set<Category> getCategoriesByUserId(Long id) {
@@ -58,7 +127,7 @@ public class CategoryService {
     }
 
     public List<CategoryDTO> findCategoriesListByType(Long id, Type type) throws InstanceNotFoundException {
-        Long accId = accountService.getAccountByUserId(id).getId();
+        Long accId = accountService.getAccountIdByUserId(id);
         return categoryMapper.mapCategoriesListToJsonResponse(categoryRepository.findAllByTypeAndAccId(accId, type));
     }
 
@@ -79,17 +148,20 @@ public class CategoryService {
                         category.getType(),
                         account
                 )));
+        categorizationIndexService.invalidateAccount(account.getId());
     }
 
     public void saveCategoryForAcc(Long id, CategoryDTO categoryDTO) throws InstanceNotFoundException {
         OverMoneyAccount account = accountService.getAccountByUserId(id);
 
+        Category category = categoryMapper.mapCategoryDTOToCategory(categoryDTO, account);
         try {
-            categoryRepository.save(categoryMapper.mapCategoryDTOToCategory(categoryDTO, account));
+            categoryRepository.save(category);
         } catch (DataIntegrityViolationException e) {
             throw new CategoryNameIsNotUniqueException("Наименование категории \""
                     + categoryDTO.getName() + "\" не уникально!");
         }
+        categorizationIndexService.invalidateAccount(category.getAccount().getId());
     }
 
     public void updateCategoryForAcc(Long id, CategoryDTO categoryDTO) throws InstanceNotFoundException {
@@ -97,10 +169,15 @@ public class CategoryService {
         Category updatedCategory = categoryMapper.mapCategoryDTOToCategory(categoryDTO, account);
         updatedCategory.setId(categoryDTO.getId());
         categoryRepository.save(updatedCategory);
+        categorizationIndexService.invalidateAccount(updatedCategory.getAccount().getId());
     }
 
     public void saveAllCategories(Set<Category> categories) {
         categoryRepository.saveAll(categories);
+        categories.stream()
+                .map(category -> category.getAccount().getId())
+                .distinct()
+                .forEach(categorizationIndexService::invalidateAccount);
     }
 
     @Transactional
@@ -110,11 +187,13 @@ public class CategoryService {
         keywordRepository.updateCategoryId(categoryToMergeId, categoryToChangeId);
         transactionRepository.updateCategoryId(categoryToMergeId, categoryToChangeId);
         categoryRepository.deleteById(categoryToMergeId);
+        categorizationIndexService.invalidateAccountByCategoryId(categoryToMergeId);
     }
 
     @Transactional
     public void deleteKeyword(KeywordId keywordId) {
         keywordRepository.deleteByKeywordId(keywordId);
+        categorizationIndexService.removeKeyword(keywordId.getAccountId(), keywordId.getName());
     }
 
     public Optional<CategoryDTO> findCategoryDTOByNameFromList(List<CategoryDTO> categoryDTOList, String categoryDTOName) {
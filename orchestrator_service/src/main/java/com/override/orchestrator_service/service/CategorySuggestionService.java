@@ -0,0 +1,173 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.CategoryDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
+import com.override.dto.CategorySuggestionRequestDTO;
+import com.override.orchestrator_service.feign.RecognizerFeign;
+import com.override.orchestrator_service.repository.TransactionSuggestedCategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвейер предложения категорий сохраненным транзакциям вне потока запроса.
+ * Транзакции попадают в ограниченную очередь и раз в {@link #COALESCE_WINDOW_MILLIS} мс выбираются из нее,
+ * группируются по аккаунтам и отправляются в распознаватель одним запросом на аккаунт,
+ * результат записывается одним UPDATE на аккаунт.
+ * Вместе с категориями отправляется их версия, по которой распознаватель переиспользует построенный индекс.
+ * Версия включает id экземпляра сервиса, так как поколения категорий начинаются заново после перезапуска.
+ * При заполненной очереди новые транзакции отбрасываются: предложение категории не обязательно,
+ * и пользователь может выбрать категорию сам
+ */
+@Service
+@Slf4j
+public class CategorySuggestionService {
+
+    public static final int QUEUE_CAPACITY = 10000;
+
+    public static final long COALESCE_WINDOW_MILLIS = 200;
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
+
+    @Autowired
+    private RecognizerFeign recognizerFeign;
+
+    @Autowired
+    private TransactionSuggestedCategoryRepository transactionSuggestedCategoryRepository;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final BlockingQueue<SuggestionRequest> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private Counter submittedCounter;
+    private Counter droppedCounter;
+    private Counter suggestedCounter;
+    private Counter failedCounter;
+    private Timer latencyTimer;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("category.suggestion.queue.size", queue, BlockingQueue::size);
+        submittedCounter = meterRegistry.counter("category.suggestion.submitted");
+        droppedCounter = meterRegistry.counter("category.suggestion.dropped");
+        suggestedCounter = meterRegistry.counter("category.suggestion.suggested");
+        failedCounter = meterRegistry.counter("category.suggestion.failed");
+        latencyTimer = meterRegistry.timer("category.suggestion.latency");
+        batchTimer = meterRegistry.timer("category.suggestion.batch.duration");
+        scheduledExecutorService.scheduleWithFixedDelay(this::processPendingSuggestions,
+                COALESCE_WINDOW_MILLIS, COALESCE_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ставит транзакцию в очередь на предложение категории, не блокируя вызывающий поток
+     *
+     * @return false, если очередь заполнена и транзакция отброшена
+     */
+    public boolean submit(Long accountId, UUID transactionId, String message) {
+        if (accountId == null || transactionId == null || message == null) {
+            return false;
+        }
+        if (!queue.offer(new SuggestionRequest(accountId, transactionId, message, System.nanoTime()))) {
+            droppedCounter.increment();
+            log.warn("Очередь предложения категорий заполнена, транзакция " + transactionId + " пропущена");
+            return false;
+        }
+        submittedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Выбирает накопленные транзакции и обрабатывает их пачками по аккаунтам.
+     * Ошибка одного аккаунта не мешает обработке остальных
+     */
+    public void processPendingSuggestions() {
+        List<SuggestionRequest> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<UUID, SuggestionRequest>> requestsByAccount = new LinkedHashMap<>();
+        for (SuggestionRequest request : pending) {
+            requestsByAccount.computeIfAbsent(request.accountId, accountId -> new LinkedHashMap<>())
+                    .put(request.transactionId, request);
+        }
+        requestsByAccount.forEach((accountId, requests) -> {
+            List<SuggestionRequest> accountRequests = new ArrayList<>(requests.values());
+            for (int from = 0; from < accountRequests.size(); from += MAX_BATCH_SIZE) {
+                List<SuggestionRequest> batch =
+                        accountRequests.subList(from, Math.min(from + MAX_BATCH_SIZE, accountRequests.size()));
+                try {
+                    batchTimer.record(() -> suggestCategories(accountId, batch));
+                } catch (RuntimeException e) {
+                    failedCounter.increment(batch.size());
+                    log.warn("Не удалось предложить категории транзакциям аккаунта " + accountId, e);
+                }
+            }
+        });
+    }
+
+    private void suggestCategories(Long accountId, List<SuggestionRequest> batch) {
+        long generation = categorizationIndexService.getCategoriesGeneration(accountId);
+        List<CategoryDTO> categories = categoryService.findCategoriesListByAccountId(accountId);
+        if (!categories.isEmpty()) {
+            List<CategorySuggestionRequestDTO> transactions = new ArrayList<>(batch.size());
+            for (SuggestionRequest request : batch) {
+                transactions.add(new CategorySuggestionRequestDTO(request.transactionId, request.message));
+            }
+            List<CategorySuggestionDTO> suggestions = recognizerFeign.recognizeCategories(
+                    CategorySuggestionBatchDTO.builder()
+                            .accountId(accountId)
+                            .categoriesVersion(instanceId + ":" + generation)
+                            .transactions(transactions)
+                            .categories(categories)
+                            .build());
+            transactionSuggestedCategoryRepository.updateSuggestedCategoryIds(accountId, suggestions);
+            suggestedCounter.increment(suggestions.size());
+        }
+        long now = System.nanoTime();
+        for (SuggestionRequest request : batch) {
+            latencyTimer.record(now - request.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @AllArgsConstructor
+    private static class SuggestionRequest {
+        private final Long accountId;
+        private final UUID transactionId;
+        private final String message;
+        private final long enqueuedAt;
+    }
+}
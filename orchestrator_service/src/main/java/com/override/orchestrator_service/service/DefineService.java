@@ -1,5 +1,8 @@
 package com.override.orchestrator_service.service;
 
+import com.override.dto.TransactionChangeDTO;
+import com.override.dto.constants.TransactionChangeType;
+import com.override.orchestrator_service.model.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,15 +17,33 @@ public class DefineService {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionChangeFeedService transactionChangeFeedService;
+
     @Transactional
     public void defineTransactionCategoryByTransactionIdAndCategoryId(UUID transactionId, Long categoryId) {
         transactionService.setCategoryForAllUndefinedTransactionsWithSameKeywords(transactionId, categoryId);
         keywordService.associateTransactionsKeywordWithCategory(transactionId, categoryId);
+        publishCategoryChange(TransactionChangeType.CATEGORIZED, transactionId, categoryId);
     }
 
     @Transactional
     public void undefineTransactionCategoryAndKeywordCategory(UUID transactionId) {
         transactionService.removeCategoryFromTransactionsWithSameMessage(transactionId);
         keywordService.removeCategoryFromKeywordByTransactionId(transactionId);
+        publishCategoryChange(TransactionChangeType.UNCATEGORIZED, transactionId, null);
+    }
+
+    /**
+     * Категория меняется у всех транзакций аккаунта с тем же сообщением, поэтому в событии передается сообщение
+     */
+    private void publishCategoryChange(TransactionChangeType type, UUID transactionId, Long categoryId) {
+        Transaction transaction = transactionService.getTransactionById(transactionId);
+        transactionChangeFeedService.publish(transaction.getAccount().getId(), TransactionChangeDTO.builder()
+                .type(type)
+                .transactionId(transactionId)
+                .message(transaction.getMessage())
+                .categoryId(categoryId)
+                .build());
     }
 }
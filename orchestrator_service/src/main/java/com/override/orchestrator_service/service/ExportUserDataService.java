@@ -2,56 +2,59 @@ package com.override.orchestrator_service.service;
 
 import com.override.dto.CategoryDTO;
 import com.override.dto.KeywordIdDTO;
-import com.override.dto.TransactionDTO;
 import com.override.dto.constants.Type;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.repository.TransactionRepository;
+import com.override.orchestrator_service.util.NumericalUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.management.InstanceNotFoundException;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Выгрузка данных аккаунта в Excel. Книга пишется потоково: в памяти держится только окно из последних
+ * {@link #EXCEL_ROW_WINDOW_SIZE} строк листа, остальные сбрасываются во временный файл, а транзакции
+ * читаются курсором БД, поэтому расход памяти не зависит от количества транзакций аккаунта
+ */
 @Service
 public class ExportUserDataService {
     @Autowired
     private CategoryService categoryService;
     @Autowired
-    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserService userService;
     @Autowired
     private OverMoneyAccountService overMoneyAccountService;
     static final int EXCEL_CELL_WIDTH = 5837;
-
-    public ResponseEntity<InputStreamResource> downloadExelFile(Long telegramId) throws IOException, InstanceNotFoundException {
-        ByteArrayInputStream in = createExcelExport(telegramId);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add("Content-Disposition", "attachment; filename=export.xlsx");
-
-        return ResponseEntity
-                .ok()
-                .headers(headers)
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(new InputStreamResource(in));
-    }
-
-    private ByteArrayInputStream createExcelExport(Long telegramId) throws IOException, InstanceNotFoundException {
-        Long chatId = overMoneyAccountService.getAccountByUserId(telegramId).getChatId();
-        List<CategoryDTO> categoryDTOList = categoryService.findCategoriesListByChatId(chatId);
-        List<TransactionDTO> transactionDTOList = transactionService.findAlltransactionDTOForAcountByChatId(chatId);
-
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    static final int EXCEL_ROW_WINDOW_SIZE = 100;
+    public static final String EXCEL_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    public static final String EXCEL_CONTENT_DISPOSITION = "attachment; filename=export.xlsx";
+
+    /**
+     * Пишет выгрузку аккаунта пользователя в поток ответа, поток не закрывается
+     */
+    @Transactional(readOnly = true)
+    public void writeExcelExport(Long telegramId, OutputStream out) throws IOException, InstanceNotFoundException {
+        OverMoneyAccount account = overMoneyAccountService.getAccountByUserId(telegramId);
+        List<CategoryDTO> categoryDTOList = categoryService.findCategoriesListByChatId(account.getChatId());
+        Map<Long, String> userNames = userService.getDisplayNamesByIds(
+                transactionRepository.findTelegramUserIdsByAccountId(account.getId()));
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheetCategories = workbook.createSheet("Категории");
             Sheet sheetTransactionsIncome = workbook.createSheet("Доходы");
             Sheet sheetTransactionsExpense = workbook.createSheet("Расходы");
@@ -59,13 +62,13 @@ public class ExportUserDataService {
             // Создание заголовка для столбцов
             String[] columnsCategories = {"ID категории", "Название категории", "Ключевые слова"};
             String[] columnsTransactions = {"Категория", "Сумма", "Сообщение", "Дата", "Пользователь"};
-            Row headerRowCategories = sheetCategories.createRow(0);
-            for (int i = 0; i < columnsCategories.length; i++) {
-                Cell cell = headerRowCategories.createCell(i);
-                cell.setCellValue(columnsCategories[i]);
-            }
+            fillTitle(sheetCategories, columnsCategories);
             fillTitle(sheetTransactionsIncome, columnsTransactions);
             fillTitle(sheetTransactionsExpense, columnsTransactions);
+            // ширина задается до записи строк: сброшенные на диск строки SXSSF уже недоступны
+            setWidth(columnsCategories, sheetCategories);
+            setWidth(columnsTransactions, sheetTransactionsIncome);
+            setWidth(columnsTransactions, sheetTransactionsExpense);
 
             // Заполнение листа данными
             int rowNumCategories = 1;
@@ -80,38 +83,50 @@ public class ExportUserDataService {
                 row.createCell(1).setCellValue(category.getName());
                 row.createCell(2).setCellValue(keywords);
             }
-            fillDataTransactions(Type.INCOME, transactionDTOList, sheetTransactionsIncome);
-            fillDataTransactions(Type.EXPENSE, transactionDTOList, sheetTransactionsExpense);
-
-            setWidth(columnsCategories, sheetCategories);
-            setWidth(columnsTransactions, sheetTransactionsIncome);
-            setWidth(columnsTransactions, sheetTransactionsExpense);
+            fillDataTransactions(account.getId(), userNames, sheetTransactionsIncome, sheetTransactionsExpense);
 
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private void fillTitle(Sheet sheet, String[] columnsCategories) {
-        Row headerRowCategories = sheet.createRow(0);
-        for (int i = 0; i < columnsCategories.length; i++) {
-            Cell cell = headerRowCategories.createCell(i);
-            cell.setCellValue(columnsCategories[i]);
+    private void fillTitle(Sheet sheet, String[] columns) {
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columns.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columns[i]);
         }
     }
 
-    private void fillDataTransactions(Type type, List<TransactionDTO> transactionDTOList, Sheet sheet) {
-        int rowNumTransactions = 1;
-        transactionDTOList = transactionService.enrichTransactionsWithTgUsernames(transactionDTOList);
-        for (TransactionDTO transaction : transactionDTOList) {
-            if (transaction.getType() != null && transaction.getType() == type) {
-                Row rowExpense = sheet.createRow(rowNumTransactions++);
-
-                rowExpense.createCell(0).setCellValue(transaction.getCategoryName());
-                rowExpense.createCell(1).setCellValue(transaction.getAmount());
-                rowExpense.createCell(2).setCellValue(transaction.getMessage());
-                rowExpense.createCell(3).setCellValue(transaction.getDate().toString());
-                rowExpense.createCell(4).setCellValue(transaction.getTelegramUserName());
+    /**
+     * Раскладывает транзакции по листам доходов и расходов за один проход курсора
+     */
+    private void fillDataTransactions(Long accountId, Map<Long, String> userNames,
+                                      Sheet sheetIncome, Sheet sheetExpense) {
+        int rowNumIncome = 1;
+        int rowNumExpense = 1;
+        try (Stream<Object[]> rows = transactionRepository.streamExportRowsByAccountId(accountId)) {
+            for (Object[] transaction : (Iterable<Object[]>) rows::iterator) {
+                Row row;
+                if (transaction[1] == Type.INCOME) {
+                    row = sheetIncome.createRow(rowNumIncome++);
+                } else if (transaction[1] == Type.EXPENSE) {
+                    row = sheetExpense.createRow(rowNumExpense++);
+                } else {
+                    continue;
+                }
+
+                row.createCell(0).setCellValue((String) transaction[0]);
+                Double amount = (Double) transaction[2];
+                if (amount != null) {
+                    row.createCell(1).setCellValue(NumericalUtils.roundAmount(amount));
+                }
+                row.createCell(2).setCellValue((String) transaction[3]);
+                row.createCell(3).setCellValue(String.valueOf(transaction[4]));
+                row.createCell(4).setCellValue(userNames.get((Long) transaction[5]));
             }
         }
     }
@@ -19,17 +19,22 @@ public class KeywordService {
     private TransactionService transactionService;
     @Autowired
     private CategoryService categoryService;
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
 
     public void saveKeyword(Keyword keyword) {
         keywordRepository.save(keyword);
+        categorizationIndexService.putKeyword(keyword);
     }
 
     public void saveKeywordsList(List<Keyword> keywordList) {
         keywordRepository.saveAll(keywordList);
+        keywordList.forEach(categorizationIndexService::putKeyword);
     }
 
     public void updateCategory(Long categoryToMergeId, Long categoryToChangeId) {
         keywordRepository.updateCategoryId(categoryToMergeId, categoryToChangeId);
+        categorizationIndexService.invalidateAccountByCategoryId(categoryToMergeId);
     }
 
     public void associateTransactionsKeywordWithCategory(UUID transactionId, Long categoryId) {
@@ -46,6 +51,7 @@ public class KeywordService {
         KeywordId keywordId = new KeywordId(transaction.getMessage(),
                 transaction.getAccount().getId());
         keywordRepository.removeCategoryId(keywordId);
+        categorizationIndexService.removeKeyword(keywordId.getAccountId(), keywordId.getName());
     }
 
     public List<Keyword> findAllByOverMoneyAccount(OverMoneyAccount overMoneyAccount) {
@@ -66,5 +72,6 @@ public class KeywordService {
             keywordList.add(keyword);
         }
         keywordRepository.saveAll(keywordList);
+        keywordList.forEach(categorizationIndexService::putKeyword);
     }
 }
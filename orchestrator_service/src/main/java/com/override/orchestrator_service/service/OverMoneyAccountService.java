@@ -1,5 +1,7 @@
 package com.override.orchestrator_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.override.dto.AccountDataDTO;
 import com.override.dto.ChatMemberDTO;
 import com.override.orchestrator_service.config.RecentActivityProperties;
@@ -11,19 +13,34 @@ import com.override.orchestrator_service.repository.KeywordRepository;
 import com.override.orchestrator_service.repository.OverMoneyAccountRepository;
 import com.override.orchestrator_service.repository.TransactionRepository;
 import com.override.orchestrator_service.util.TelegramUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import javax.management.InstanceNotFoundException;
 import java.security.Principal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static com.override.orchestrator_service.util.AfterCommitUtils.runAfterCommit;
+
+/**
+ * Соответствие id чата и id аккаунта кэшируется в обе стороны: оно меняется только при создании и удалении
+ * аккаунта, после коммита которых записи кэша сбрасываются
+ */
 @Service
 public class OverMoneyAccountService {
+
+    public static final int ACCOUNTS_CACHE_MAX_SIZE = 10000;
+
+    public static final Duration ACCOUNT_IDS_CACHE_TTL = Duration.ofMinutes(10);
+
     @Autowired
     private OverMoneyAccountRepository overMoneyAccountRepository;
     @Autowired
@@ -38,10 +55,33 @@ public class OverMoneyAccountService {
     private UserMapper userMapper;
     @Autowired
     private KeywordRepository keywordRepository;
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
 
     @Autowired
     private TelegramUtils telegramUtils;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Cache<Long, Long> accountIdsByChatId = Caffeine.newBuilder()
+            .maximumSize(ACCOUNTS_CACHE_MAX_SIZE)
+            .expireAfterWrite(ACCOUNT_IDS_CACHE_TTL)
+            .recordStats()
+            .build();
+
+    private final Cache<Long, Long> chatIdsByAccountId = Caffeine.newBuilder()
+            .maximumSize(ACCOUNTS_CACHE_MAX_SIZE)
+            .expireAfterWrite(ACCOUNT_IDS_CACHE_TTL)
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, accountIdsByChatId, "accounts.ids.by.chat");
+        CaffeineCacheMetrics.monitor(meterRegistry, chatIdsByAccountId, "accounts.chat.ids");
+    }
+
     public List<OverMoneyAccount> getAllAccounts() {
         return (List<OverMoneyAccount>) overMoneyAccountRepository.findAll();
     }
@@ -87,6 +127,8 @@ public class OverMoneyAccountService {
 
     public void updateAccountCategories(OverMoneyAccount oldAccount, OverMoneyAccount newAccount) {
         categoryRepository.updateAccountId(oldAccount.getId(), newAccount.getId());
+        categorizationIndexService.invalidateAccount(oldAccount.getId());
+        categorizationIndexService.invalidateAccount(newAccount.getId());
     }
 
     public void updateAccountTransactions(OverMoneyAccount oldAccount, OverMoneyAccount newAccount) {
@@ -167,28 +209,89 @@ public class OverMoneyAccountService {
 
     public void saveOverMoneyAccount(OverMoneyAccount overMoneyAccount) {
         overMoneyAccountRepository.save(overMoneyAccount);
+        Long chatId = overMoneyAccount.getChatId();
+        if (chatId != null) {
+            runAfterCommit(() -> accountIdsByChatId.invalidate(chatId));
+        }
+        if (overMoneyAccount.getUsers() != null) {
+            overMoneyAccount.getUsers().forEach(user -> userService.evictUser(user.getId()));
+        }
     }
 
     public OverMoneyAccount getOverMoneyAccountByChatId(Long chatId) {
         return overMoneyAccountRepository.findByChatId(chatId);
     }
 
+    /**
+     * Id загружается под блокировкой записи кэша, поэтому сброс кэша после коммита не может быть
+     * перезаписан значением, прочитанным до коммита. Отсутствие аккаунта не кэшируется
+     *
+     * @return id аккаунта чата или null, если аккаунта нет
+     */
+    public Long getAccountIdByChatId(Long chatId) {
+        return accountIdsByChatId.get(chatId, key -> {
+            OverMoneyAccount overMoneyAccount = overMoneyAccountRepository.findByChatId(key);
+            if (overMoneyAccount == null) {
+                return null;
+            }
+            chatIdsByAccountId.put(overMoneyAccount.getId(), key);
+            return overMoneyAccount.getId();
+        });
+    }
+
+    /**
+     * @return id чата аккаунта или null, если аккаунта нет
+     */
+    public Long getChatIdByAccountId(Long accountId) {
+        return chatIdsByAccountId.get(accountId, key -> overMoneyAccountRepository.findById(key)
+                .map(OverMoneyAccount::getChatId)
+                .orElse(null));
+    }
+
+    /**
+     * Ссылка на аккаунт для связей сохраняемых сущностей, аккаунт не загружается из БД,
+     * пока не запрошено одно из его полей кроме id
+     */
+    public OverMoneyAccount getAccountReference(Long accountId) {
+        return overMoneyAccountRepository.getReferenceById(accountId);
+    }
+
     public OverMoneyAccount getAccountByUserId(Long id) throws InstanceNotFoundException {
         return userService.getUserById(id).getAccount();
     }
 
+    /**
+     * @return id аккаунта пользователя или null, если пользователь не привязан к аккаунту
+     */
+    public Long getAccountIdByUserId(Long id) throws InstanceNotFoundException {
+        return userService.getAccountIdByUserId(id);
+    }
+
     public OverMoneyAccount getOverMoneyAccountById(Long id) throws InstanceNotFoundException {
         return overMoneyAccountRepository.findById(id).orElseThrow(() -> new InstanceNotFoundException("OverMoneyAccount with id " + id + " does not exist"));
     }
 
     public void deleteOverMoneyAccountById(Long id) {
         overMoneyAccountRepository.deleteById(id);
+        evictAccount(id);
+    }
+
+    /**
+     * Сбрасывает кэшированные ссылки на аккаунт после коммита текущей транзакции БД
+     */
+    public void evictAccount(Long accountId) {
+        runAfterCommit(() -> {
+            accountIdsByChatId.asMap().values().removeIf(accountId::equals);
+            chatIdsByAccountId.invalidate(accountId);
+        });
+        userService.evictAccount(accountId);
     }
 
     public void deletingAllTransactionsCategoriesKeywordsByAccountId(Long accountId) {
         keywordRepository.deleteAllByKeywordId_AccountId(accountId);
         transactionRepository.deleteAllByAccountId(accountId);
         categoryRepository.deleteAllByAccountId(accountId);
+        categorizationIndexService.invalidateAccount(accountId);
     }
 
     public int getActiveAccountCount(int numberDays) {
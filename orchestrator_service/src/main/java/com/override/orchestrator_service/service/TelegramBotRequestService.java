@@ -11,16 +11,26 @@ import java.util.List;
 @Service
 public class TelegramBotRequestService {
 
+    public static final int ANNOUNCE_RECIPIENTS_CHUNK_SIZE = 1000;
+
     @Autowired
     private TelegramBotFeign telegramBotFeign;
     @Autowired
     private UserService userService;
 
+    /**
+     * Создает рассылку в боте, передает ему id пользователей частями по мере чтения из БД и запускает отправку
+     */
     public void sendAnnounce(String announceText) {
-        telegramBotFeign.sendAnnounce(AnnounceDTO.builder()
-                        .announceText(announceText.replaceAll("\"", ""))
-                        .userIds(userService.getAllUserIds())
-                        .build());
+        Long announceId = telegramBotFeign.createAnnounce(AnnounceDTO.builder()
+                .announceText(announceText.replaceAll("\"", ""))
+                .build());
+        List<Long> userIds = userService.getUserIdsAfter(0L, ANNOUNCE_RECIPIENTS_CHUNK_SIZE);
+        while (!userIds.isEmpty()) {
+            telegramBotFeign.addAnnounceRecipients(announceId, userIds);
+            userIds = userService.getUserIdsAfter(userIds.get(userIds.size() - 1), ANNOUNCE_RECIPIENTS_CHUNK_SIZE);
+        }
+        telegramBotFeign.startAnnounce(announceId);
     }
 
     public List<MailDTO> getStatusOfMails() {
@@ -0,0 +1,154 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.CommonErrorDTO;
+import com.override.dto.TransactionBatchResultDTO;
+import com.override.dto.TransactionMessageDTO;
+import com.override.orchestrator_service.exception.TransactionProcessingException;
+import com.override.orchestrator_service.mapper.TransactionMapper;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.util.TelegramUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.management.InstanceNotFoundException;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Пакетная обработка транзакций: догрузка истории, повторная отправка с клиента,
+ * всплески сообщений в групповых чатах.
+ * Все транзакции пакета разбираются и распознаются для одного аккаунта, найденного один раз по кэшу id аккаунтов,
+ * транзакции ссылаются на аккаунт по id без его загрузки из БД. Транзакции сохраняются одним вызовом saveAll, который Hibernate отправляет в БД пачками
+ * (см. hibernate.jdbc.batch_size в application.yml).
+ */
+@Service
+@Slf4j
+public class TransactionBatchService {
+
+    private final int MAX_BATCH_SIZE = 1000;
+
+    private final ZoneOffset MOSCOW_OFFSET = ZoneOffset.ofHours(3);
+
+    @Autowired
+    private TransactionProcessingService transactionProcessingService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OverMoneyAccountService overMoneyAccountService;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private CategorySuggestionService categorySuggestionService;
+
+    @Autowired
+    private TelegramUtils telegramUtils;
+
+    /**
+     * Обрабатывает и сохраняет пакет транзакций одного аккаунта.
+     * Транзакции с неподдерживаемым форматом или из другого чата не сохраняются,
+     * для них в ответе возвращается ошибка, остальные транзакции сохраняются одной транзакцией БД
+     *
+     * @param transactionMessageDTOList транзакции пакета. Для веб-транзакций chatId и userId
+     *                                  заполняются по пользователю, дата - текущим временем, если не задана
+     * @param principal                 текущий пользователь, присутствует только в веб-запросах
+     * @return результат по каждой транзакции в порядке пакета
+     */
+    public List<TransactionBatchResultDTO> processTransactions(List<TransactionMessageDTO> transactionMessageDTOList,
+                                                               Principal principal) throws InstanceNotFoundException {
+        if (transactionMessageDTOList.size() > MAX_BATCH_SIZE) {
+            throw new TransactionProcessingException("Пакет не может содержать больше "
+                    + MAX_BATCH_SIZE + " транзакций");
+        }
+        List<TransactionBatchResultDTO> results = new ArrayList<>(transactionMessageDTOList.size());
+        if (transactionMessageDTOList.isEmpty()) {
+            return results;
+        }
+        Long accountId = getAccountId(transactionMessageDTOList, principal);
+        Long chatId = principal != null ? overMoneyAccountService.getChatIdByAccountId(accountId)
+                : transactionMessageDTOList.get(0).getChatId();
+        OverMoneyAccount overMoneyAccount = overMoneyAccountService.getAccountReference(accountId);
+        List<Transaction> transactions = new ArrayList<>(transactionMessageDTOList.size());
+        List<TransactionBatchResultDTO> processedResults = new ArrayList<>(transactionMessageDTOList.size());
+
+        for (int i = 0; i < transactionMessageDTOList.size(); i++) {
+            TransactionMessageDTO transactionMessageDTO = transactionMessageDTOList.get(i);
+            TransactionBatchResultDTO result = TransactionBatchResultDTO.builder().index(i).build();
+            results.add(result);
+            try {
+                transactions.add(processTransaction(transactionMessageDTO, overMoneyAccount, chatId, principal));
+                processedResults.add(result);
+            } catch (TransactionProcessingException e) {
+                result.setError(createError(e));
+            }
+        }
+
+        transactionService.saveAllTransactions(transactions);
+        for (int i = 0; i < transactions.size(); i++) {
+            processedResults.get(i).setTransaction(
+                    transactionMapper.mapTransactionToTelegramResponse(transactions.get(i), chatId));
+        }
+        suggestCategoriesToProcessedTransactions(transactions, overMoneyAccount);
+        return results;
+    }
+
+    private Transaction processTransaction(TransactionMessageDTO transactionMessageDTO,
+                                           OverMoneyAccount overMoneyAccount, Long chatId, Principal principal) {
+        if (transactionMessageDTO.getMessage() == null) {
+            throw new TransactionProcessingException("Текст транзакции не задан");
+        }
+        if (principal != null) {
+            transactionMessageDTO.setChatId(chatId);
+            transactionMessageDTO.setUserId(telegramUtils.getTelegramId(principal));
+            if (transactionMessageDTO.getDate() == null) {
+                transactionMessageDTO.setDate(LocalDateTime.now(ZoneId.ofOffset("UTC", MOSCOW_OFFSET)));
+            }
+        } else if (!Objects.equals(transactionMessageDTO.getChatId(), chatId)) {
+            throw new TransactionProcessingException("Транзакция относится к другому чату");
+        }
+        return transactionProcessingService.processTransaction(transactionMessageDTO, overMoneyAccount);
+    }
+
+    private Long getAccountId(List<TransactionMessageDTO> transactionMessageDTOList,
+                              Principal principal) throws InstanceNotFoundException {
+        if (principal != null) {
+            Long telegramId = telegramUtils.getTelegramId(principal);
+            Long accountId = overMoneyAccountService.getAccountIdByUserId(telegramId);
+            if (accountId == null) {
+                throw new InstanceNotFoundException("Аккаунт пользователя " + telegramId + " не найден");
+            }
+            return accountId;
+        }
+        Long chatId = transactionMessageDTOList.get(0).getChatId();
+        Long accountId = overMoneyAccountService.getAccountIdByChatId(chatId);
+        if (accountId == null) {
+            throw new InstanceNotFoundException("Аккаунт для чата " + chatId + " не найден");
+        }
+        return accountId;
+    }
+
+    private void suggestCategoriesToProcessedTransactions(List<Transaction> transactions,
+                                                          OverMoneyAccount overMoneyAccount) {
+        transactions.forEach(transaction -> categorySuggestionService
+                .submit(overMoneyAccount.getId(), transaction.getId(), transaction.getMessage()));
+    }
+
+    private CommonErrorDTO createError(TransactionProcessingException e) {
+        return CommonErrorDTO.builder()
+                .code(e.getErrorCode())
+                .message(e.getMessage())
+                .timestamp(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.TransactionChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.override.orchestrator_service.util.AfterCommitUtils.runAfterCommit;
+
+/**
+ * Лента изменений транзакций аккаунта для открытых страниц через Server-Sent Events.
+ * Изменения отправляются после коммита транзакции БД, поэтому страница не увидит отмененных изменений.
+ * Подписки живут {@link #EMITTER_TIMEOUT_MILLIS}, после чего браузер переподключается сам,
+ * пока соединение открыто, раз в {@link #HEARTBEAT_PERIOD_SECONDS} секунд отправляется комментарий,
+ * чтобы прокси не закрывали простаивающее соединение, а отвалившиеся подписки удалялись.
+ * Изменения и heartbeat отправляются в собственном потоке ленты, поэтому медленный клиент не задерживает
+ * поток, закоммитивший транзакцию, и общий планировщик сервиса
+ */
+@Service
+@Slf4j
+public class TransactionChangeFeedService {
+
+    public static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    public static final long HEARTBEAT_PERIOD_SECONDS = 25;
+
+    public static final int MAX_SUBSCRIPTIONS_PER_ACCOUNT = 10;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, List<SseEmitter>> subscriptions = new ConcurrentHashMap<>();
+
+    private Counter sentCounter;
+    private Counter failedCounter;
+
+    private ScheduledExecutorService feedExecutor;
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("transactions.change.feed.subscriptions", subscriptions,
+                map -> map.values().stream().mapToInt(List::size).sum());
+        sentCounter = meterRegistry.counter("transactions.change.feed.sent");
+        failedCounter = meterRegistry.counter("transactions.change.feed.failed");
+        feedExecutor = createFeedExecutor();
+        feedExecutor.scheduleWithFixedDelay(this::sendHeartbeats,
+                HEARTBEAT_PERIOD_SECONDS, HEARTBEAT_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        feedExecutor.shutdownNow();
+    }
+
+    /**
+     * Подписывает на изменения транзакций аккаунта. Если у аккаунта уже {@link #MAX_SUBSCRIPTIONS_PER_ACCOUNT}
+     * подписок, самая старая закрывается
+     */
+    public SseEmitter subscribe(Long accountId) {
+        SseEmitter emitter = createEmitter();
+        List<SseEmitter> evicted = new ArrayList<>();
+        subscriptions.compute(accountId, (id, emitters) -> {
+            List<SseEmitter> accountEmitters = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            accountEmitters.add(emitter);
+            while (accountEmitters.size() > MAX_SUBSCRIPTIONS_PER_ACCOUNT) {
+                evicted.add(accountEmitters.remove(0));
+            }
+            return accountEmitters;
+        });
+        evicted.forEach(SseEmitter::complete);
+        emitter.onCompletion(() -> unsubscribe(accountId, emitter));
+        emitter.onTimeout(() -> unsubscribe(accountId, emitter));
+        emitter.onError(e -> unsubscribe(accountId, emitter));
+        try {
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            unsubscribe(accountId, emitter);
+        }
+        return emitter;
+    }
+
+    /**
+     * Отправляет изменение подписчикам аккаунта после коммита текущей транзакции БД
+     */
+    public void publish(Long accountId, TransactionChangeDTO change) {
+        if (accountId == null) {
+            return;
+        }
+        runAfterCommit(() -> feedExecutor.execute(() -> send(accountId, change)));
+    }
+
+    public int getSubscriptionsCount(Long accountId) {
+        return subscriptions.getOrDefault(accountId, Collections.emptyList()).size();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+    }
+
+    ScheduledExecutorService createFeedExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("transaction-change-feed-"));
+    }
+
+    private void send(Long accountId, TransactionChangeDTO change) {
+        List<SseEmitter> emitters = subscriptions.get(accountId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(change.getType().name())
+                        .data(change, MediaType.APPLICATION_JSON));
+                sentCounter.increment();
+            } catch (IOException | IllegalStateException e) {
+                failedCounter.increment();
+                log.debug("Не удалось отправить изменение транзакций аккаунта " + accountId, e);
+                unsubscribe(accountId, emitter);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        subscriptions.forEach((accountId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(accountId, emitter);
+                }
+            }
+        });
+    }
+
+    private void unsubscribe(Long accountId, SseEmitter emitter) {
+        subscriptions.computeIfPresent(accountId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.override.orchestrator_service.service;
+
+import com.override.orchestrator_service.repository.TransactionMonthlyRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Пересчет месячных итогов транзакций, на которых построена аналитика.
+ * В обычной работе итоги поддерживаются триггерами БД при каждом изменении транзакций и категорий,
+ * пересчет нужен для восстановления итогов после ручных правок данных или загрузки дампа с отключенными триггерами.
+ * На время пересчета изменение транзакций блокируется, чтобы итоги совпадали с данными на момент коммита
+ */
+@Service
+@Slf4j
+public class TransactionMonthlyRollupService {
+
+    @Autowired
+    private TransactionMonthlyRollupRepository transactionMonthlyRollupRepository;
+
+    /**
+     * @return количество строк итогов после пересчета
+     */
+    @Transactional
+    public int rebuildRollups() {
+        transactionMonthlyRollupRepository.lockTransactions();
+        transactionMonthlyRollupRepository.deleteAllRollups();
+        int rollupsCount = transactionMonthlyRollupRepository.insertAllRollupsFromTransactions();
+        log.info("Пересчитаны месячные итоги транзакций: " + rollupsCount);
+        return rollupsCount;
+    }
+
+    /**
+     * @return количество строк итогов аккаунта после пересчета
+     */
+    @Transactional
+    public int rebuildRollupsForAccount(Long accountId) {
+        transactionMonthlyRollupRepository.lockTransactions();
+        transactionMonthlyRollupRepository.deleteRollupsByAccountId(accountId);
+        int rollupsCount = transactionMonthlyRollupRepository.insertRollupsFromTransactionsByAccountId(accountId);
+        log.info("Пересчитаны месячные итоги транзакций аккаунта " + accountId + ": " + rollupsCount);
+        return rollupsCount;
+    }
+}
@@ -1,100 +1,79 @@
 package com.override.orchestrator_service.service;
 
-import com.override.dto.CategoryDTO;
 import com.override.dto.TransactionAmountAndCommentDTO;
-import com.override.orchestrator_service.feign.RecognizerFeign;
 import com.override.orchestrator_service.model.*;
-import com.override.orchestrator_service.service.calc.*;
+import com.override.orchestrator_service.service.calc.TransactionMessageParser;
 import com.override.orchestrator_service.util.TelegramUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.override.dto.TransactionMessageDTO;
 
-import javax.annotation.PostConstruct;
 import javax.management.InstanceNotFoundException;
 import java.security.Principal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 public class TransactionProcessingService {
 
     private final ZoneOffset MOSCOW_OFFSET = ZoneOffset.ofHours(3);
 
-    @Autowired
-    private OverMoneyAccountService overMoneyAccountService;
+    private final TransactionMessageParser transactionMessageParser = new TransactionMessageParser();
 
     @Autowired
-    private CategoryService categoryService;
-
-    @Autowired
-    private RecognizerFeign recognizerFeign;
+    private OverMoneyAccountService overMoneyAccountService;
 
     @Autowired
-    private ExecutorService executorService;
+    private CategorySuggestionService categorySuggestionService;
 
     @Autowired
     private TelegramUtils telegramUtils;
 
-    private final List<TransactionHandler> transactionHandlers = new LinkedList<>();
-
-    /**
-     * Метод создает связанный список стратегий обработки транзакции; очередность стратегии соответствует ее приоритету.
-     * Последней в списке должна следовать стратегия, выбрасывающая исключения.
-     *
-     * @see TransactionProcessingService#processTransaction(TransactionMessageDTO)
-     * @see com.override.orchestrator_service.service.calc.TransactionHandler
-     * @see com.override.orchestrator_service.service.calc.TransactionHandlerImplInvalidTransaction
-     */
-    @PostConstruct
-    public void init() {
-        transactionHandlers.add(new TransactionHandlerImplSumAmountAtFront());
-        transactionHandlers.add(new TransactionHandlerImplSingleAmountAtFront());
-        transactionHandlers.add(new TransactionHandlerImplSumAmountAtEnd());
-        transactionHandlers.add(new TransactionHandlerImplSingleAmountAtEnd());
-        transactionHandlers.add(new TransactionHandlerImplInvalidTransaction());
-    }
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
 
     /**
      * Метод обрабатывает транзакцию, пришедшую в виде соответствующего объекта ДТО
-     * Обработка реализована с использованием паттерна стратегия
-     * Если транзакцию не удастся обработать в соответствии с заложенными стратегиями,
-     * последняя применяемая стратегия должна выбросить runtime exception
+     * Сумма и комментарий выделяются однопроходным разборщиком, повторяющим форматы цепочки стратегий
+     * Если формат транзакции не поддерживается, разборщик выбрасывает runtime exception
+     * Категория определяется по индексу названий категорий и ключевых слов аккаунта.
+     * Аккаунт чата находится по кэшу id аккаунтов и не загружается из БД, транзакция ссылается на него по id
      *
      * @param transactionMessageDTO Объект, содержащий информацию о транзакции. Если транзакция
      *                              отправлена из веб-приложения, информация о chatId и userId может
      *                              отсутствовать. Этот метод заполняет эти поля.
      * @throws com.override.orchestrator_service.exception.TransactionProcessingException
-     * @see TransactionProcessingService#init()
+     * @throws InstanceNotFoundException если у чата нет аккаунта
+     * @see com.override.orchestrator_service.service.calc.TransactionMessageParser
      * @see com.override.orchestrator_service.service.calc.TransactionHandler
-     * @see com.override.orchestrator_service.service.calc.TransactionHandlerImplInvalidTransaction
+     * @see CategorizationIndexService
      */
-    public Transaction processTransaction(TransactionMessageDTO transactionMessageDTO) {
-        OverMoneyAccount overMoneyAccount = overMoneyAccountService
-                .getOverMoneyAccountByChatId(transactionMessageDTO.getChatId());
-        String transactionMessage = transactionMessageDTO.getMessage();
-        TransactionAmountAndCommentDTO transactionDetails = new TransactionAmountAndCommentDTO();
-
-        for (TransactionHandler t : transactionHandlers) {
-            Pattern pattern = Pattern.compile(t.getRegExp());
-            Matcher matcher = pattern.matcher(transactionMessage);
-            if (matcher.find()) {
-                transactionDetails.setAmount(t.calculateAmount(transactionMessage));
-                transactionDetails.setComment(t.getTransactionComment(transactionMessage));
-                break;
-            }
+    public Transaction processTransaction(TransactionMessageDTO transactionMessageDTO) throws InstanceNotFoundException {
+        Long chatId = transactionMessageDTO.getChatId();
+        Long accountId = overMoneyAccountService.getAccountIdByChatId(chatId);
+        if (accountId == null) {
+            throw new InstanceNotFoundException("Аккаунт для чата " + chatId + " не найден");
         }
+        return processTransaction(transactionMessageDTO, overMoneyAccountService.getAccountReference(accountId));
+    }
+
+    /**
+     * Обрабатывает транзакцию для уже найденного аккаунта, без повторного поиска аккаунта по chatId.
+     * Из аккаунта используется только id, поэтому можно передать ссылку на аккаунт
+     *
+     * @throws com.override.orchestrator_service.exception.TransactionProcessingException
+     */
+    public Transaction processTransaction(TransactionMessageDTO transactionMessageDTO, OverMoneyAccount overMoneyAccount) {
+        TransactionAmountAndCommentDTO transactionDetails =
+                transactionMessageParser.parse(transactionMessageDTO.getMessage());
 
         return Transaction.builder()
                 .account(overMoneyAccount)
                 .amount(transactionDetails.getAmount())
                 .message(transactionDetails.getComment())
-                .category(getTransactionCategory(transactionDetails.getComment(), overMoneyAccount))
+                .category(categorizationIndexService.findCategory(overMoneyAccount.getId(), transactionDetails.getComment()))
                 .date(transactionMessageDTO.getDate())
                 .telegramUserId(transactionMessageDTO.getUserId())
                 .build();
@@ -109,49 +88,34 @@ public class TransactionProcessingService {
      * @param principal             Объект, представляющий текущего пользователя. Присутствует только в
      *                              веб-транзакциях.
      * @return Объект транзакции с заполненными необходимыми полями.
+     * @throws InstanceNotFoundException если у пользователя или чата нет аккаунта
      */
     public Transaction validateAndProcessTransaction(TransactionMessageDTO transactionMessageDTO, Principal principal) throws InstanceNotFoundException {
 
         LocalDateTime moscowTime = LocalDateTime.now(ZoneId.ofOffset("UTC", MOSCOW_OFFSET));
 
-        if (principal != null) {
-            OverMoneyAccount overMoneyAccount = overMoneyAccountService.getAccountByUserId(telegramUtils.getTelegramId(principal));
-
-            transactionMessageDTO.setChatId(overMoneyAccount.getChatId());
-            transactionMessageDTO.setUserId(telegramUtils.getTelegramId(principal));
-            transactionMessageDTO.setDate(moscowTime);
+        if (principal == null) {
+            return processTransaction(transactionMessageDTO);
         }
+        Long telegramId = telegramUtils.getTelegramId(principal);
+        Long accountId = overMoneyAccountService.getAccountIdByUserId(telegramId);
+        if (accountId == null) {
+            throw new InstanceNotFoundException("Аккаунт пользователя " + telegramId + " не найден");
+        }
+        transactionMessageDTO.setChatId(overMoneyAccountService.getChatIdByAccountId(accountId));
+        transactionMessageDTO.setUserId(telegramId);
+        transactionMessageDTO.setDate(moscowTime);
 
-        return processTransaction(transactionMessageDTO);
-    }
-
-    public void suggestCategoryToProcessedTransaction(TransactionMessageDTO transactionMessageDTO, UUID transactionId) throws InstanceNotFoundException {
-        Transaction transaction = processTransaction(transactionMessageDTO);
-        List<CategoryDTO> categories = categoryService.findCategoriesListByUserId(transactionMessageDTO.getUserId());
-        executorService.execute(() -> {
-            if (!categories.isEmpty()) {
-                recognizerFeign.recognizeCategory(transaction.getMessage(), transactionId, categories);
-            }
-        });
+        return processTransaction(transactionMessageDTO, overMoneyAccountService.getAccountReference(accountId));
     }
 
-    private Category getTransactionCategory(String transactionMessage,
-                                            OverMoneyAccount overMoneyAccount) {
-        if (Objects.isNull(overMoneyAccount.getCategories()) ||
-                Objects.isNull(getMatchingCategory(overMoneyAccount.getCategories(),
-                        transactionMessage)) &&
-                        Objects.isNull(getMatchingKeyword(overMoneyAccount.getCategories(),
-                                transactionMessage))) {
-            return null;
-        }
-        Category matchingCategory = getMatchingCategory(overMoneyAccount.getCategories(),
-                transactionMessage);
-        if (matchingCategory != null) {
-            return matchingCategory;
-        }
-        Keyword matchingKeyword = getMatchingKeyword(overMoneyAccount.getCategories(),
-                transactionMessage);
-        return matchingKeyword.getCategory();
+    /**
+     * Ставит сохраненную транзакцию в очередь на предложение категории, распознавание выполняется вне потока запроса
+     *
+     * @see CategorySuggestionService
+     */
+    public void suggestCategoryToProcessedTransaction(Transaction transaction) {
+        categorySuggestionService.submit(transaction.getAccount().getId(), transaction.getId(), transaction.getMessage());
     }
 
     public Category getMatchingCategory(Set<Category> categories, String words) {
@@ -164,19 +128,4 @@ public class TransactionProcessingService {
         }
         return matchingCategory;
     }
-
-    private Keyword getMatchingKeyword(Set<Category> categories, String words) {
-        Keyword matchingKeyword = null;
-        outer:
-        for (Category category : categories) {
-            Set<Keyword> keywordsSet = category.getKeywords();
-            for (Keyword keyword : keywordsSet) {
-                if (words.equalsIgnoreCase(keyword.getKeywordId().getName())) {
-                    matchingKeyword = keyword;
-                    break outer;
-                }
-            }
-        }
-        return matchingKeyword;
-    }
 }
\ No newline at end of file
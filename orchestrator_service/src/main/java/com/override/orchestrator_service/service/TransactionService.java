@@ -1,13 +1,20 @@
 package com.override.orchestrator_service.service;
 
 import com.override.dto.*;
+import com.override.dto.constants.TransactionChangeType;
+import com.override.orchestrator_service.exception.InvalidHistoryCursorException;
+import com.override.orchestrator_service.exception.InvalidPageSizeException;
+import com.override.orchestrator_service.exception.RequestSizeException;
 import com.override.orchestrator_service.exception.TransactionNotFoundException;
 import com.override.orchestrator_service.feign.TelegramBotFeign;
 import com.override.orchestrator_service.mapper.TransactionMapper;
 import com.override.orchestrator_service.model.*;
 import com.override.orchestrator_service.repository.CategoryRepository;
 import com.override.orchestrator_service.repository.KeywordRepository;
+import com.override.orchestrator_service.repository.TransactionMonthlyRollupRepository;
 import com.override.orchestrator_service.repository.TransactionRepository;
+import com.override.orchestrator_service.repository.TransactionSuggestedCategoryRepository;
+import com.override.orchestrator_service.util.MonthlyAmountsAggregator;
 import com.override.orchestrator_service.util.NumericalUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -17,16 +24,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.management.InstanceNotFoundException;
+import java.nio.charset.StandardCharsets;
 import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
 
+    public static final int MAX_SUGGESTIONS_BATCH_SIZE = 1000;
+
+    /**
+     * При сохранении большего числа транзакций подписчикам отправляется одно событие перезагрузки списка
+     */
+    public static final int MAX_CREATED_CHANGES_PER_SAVE = 100;
+
+    private final String HISTORY_CURSOR_SEPARATOR = "|";
+    private final int MAX_HISTORY_PAGE_SIZE = 500;
+
     @Autowired
     private TransactionRepository transactionRepository;
     @Autowired
@@ -43,27 +61,27 @@ public class TransactionService {
     private TelegramBotFeign telegramBotFeign;
     @Autowired
     private TransactionProcessingService transactionProcessingService;
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
+    @Autowired
+    private TransactionMonthlyRollupRepository transactionMonthlyRollupRepository;
+    @Autowired
+    private TransactionSuggestedCategoryRepository transactionSuggestedCategoryRepository;
+    @Autowired
+    private TransactionChangeFeedService transactionChangeFeedService;
 
     public int getTransactionsCount() {
         return transactionRepository.getTransactionsCount();
     }
 
-    public List<TransactionDTO> findAlltransactionDTOForAcountByChatId(Long telegramId) {
-        OverMoneyAccount overMoneyAccount = overMoneyAccountService.getOverMoneyAccountByChatId(telegramId);
-        List<Transaction> transactionList = transactionRepository.findAllByAccountId(overMoneyAccount.getId());
-        List<TransactionDTO> transactionDTOS = new ArrayList<>();
-
-        transactionList.forEach(transaction -> transactionDTOS.add(transactionMapper.mapTransactionToDTO(transaction)));
-
-        return transactionDTOS;
-    }
-
     public void saveTransaction(Transaction transaction) {
+        boolean created = transaction.getId() == null;
         transactionRepository.save(transaction);
+        publishTransactionChange(created ? TransactionChangeType.CREATED : TransactionChangeType.UPDATED, transaction);
     }
 
     public List<Transaction> findTransactionsListByUserIdWithoutCategories(Long id) throws InstanceNotFoundException {
-        Long accID = userService.getUserById(id).getAccount().getId();
+        Long accID = userService.getAccountIdByUserId(id);
         return transactionRepository.findAllWithoutCategoriesByAccountId(accID)
                 .stream()
                 .peek(tr -> tr.setAmount(NumericalUtils.roundAmount(tr.getAmount())))
@@ -86,7 +104,7 @@ public class TransactionService {
     }
 
     public List<TransactionDTO> findTransactionsByUserIdLimited(Long id, Integer pageSize, Integer pageNumber) throws InstanceNotFoundException {
-        Long accID = userService.getUserById(id).getAccount().getId();
+        Long accID = userService.getAccountIdByUserId(id);
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by("date").descending());
 
         List<TransactionDTO> transactionList = transactionRepository.findAllByAccountId(accID, pageable).getContent().stream()
@@ -95,22 +113,72 @@ public class TransactionService {
         return enrichTransactionsWithTgUsernames(transactionList);
     }
 
+    /**
+     * Страница истории транзакций аккаунта пользователя от новых к старым с постраничным переходом по курсору.
+     * Курсор хранит дату и id последней транзакции страницы, следующая страница выбирается условием
+     * по индексу transactions(account_id, date DESC, id), поэтому время выборки не зависит от глубины страницы,
+     * и, в отличие от {@link #findTransactionsByUserIdLimited}, общее количество транзакций не подсчитывается
+     *
+     * @param pageSize размер страницы от 1 до 500
+     * @param cursor   курсор из предыдущей страницы, для первой страницы не задается
+     */
+    public TransactionHistoryPageDTO findTransactionsHistoryPage(Long id, Integer pageSize, String cursor)
+            throws InstanceNotFoundException {
+        if (pageSize == null || pageSize < 1 || pageSize > MAX_HISTORY_PAGE_SIZE) {
+            throw new InvalidPageSizeException("Размер страницы должен быть от 1 до " + MAX_HISTORY_PAGE_SIZE);
+        }
+        Long accountId = userService.getAccountIdByUserId(id);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Transaction> transactions;
+        if (cursor == null || cursor.isEmpty()) {
+            transactions = transactionRepository.findHistoryFirstPage(accountId, pageable);
+        } else {
+            Transaction lastTransaction = decodeHistoryCursor(cursor);
+            transactions = transactionRepository.findHistoryPageAfter(accountId, lastTransaction.getDate(),
+                    lastTransaction.getId(), pageable);
+        }
+
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            nextCursor = encodeHistoryCursor(transactions.get(pageSize - 1));
+        }
+        List<TransactionDTO> transactionList = transactions.stream()
+                .map(transactionMapper::mapTransactionToDTO)
+                .collect(Collectors.toList());
+        return TransactionHistoryPageDTO.builder()
+                .transactions(enrichTransactionsWithTgUsernames(transactionList))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private String encodeHistoryCursor(Transaction transaction) {
+        String value = transaction.getDate() + HISTORY_CURSOR_SEPARATOR + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Transaction decodeHistoryCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(HISTORY_CURSOR_SEPARATOR);
+            return Transaction.builder()
+                    .date(LocalDateTime.parse(value.substring(0, separatorIndex)))
+                    .id(UUID.fromString(value.substring(separatorIndex + 1)))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new InvalidHistoryCursorException("Некорректный курсор истории транзакций");
+        }
+    }
+
     public List<TransactionDTO> enrichTransactionsWithTgUsernames(List<TransactionDTO> transactionList) {
-        Map<Long, User> userMap = userService.getUsersByIds(transactionList.stream()
-                        .map(TransactionDTO::getTelegramUserId)
-                        .distinct()
-                        .collect(Collectors.toList()))
-                .stream()
-                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, String> displayNames = userService.getDisplayNamesByIds(transactionList.stream()
+                .map(TransactionDTO::getTelegramUserId)
+                .collect(Collectors.toList()));
 
         transactionList.forEach(transactionDTO -> {
-            User user = userMap.get(transactionDTO.getTelegramUserId());
-            if (user != null) {
-                if (user.getUsername() != null) {
-                    transactionDTO.setTelegramUserName(user.getUsername());
-                } else {
-                    transactionDTO.setTelegramUserName(user.getFirstName());
-                }
+            String displayName = displayNames.get(transactionDTO.getTelegramUserId());
+            if (displayName != null) {
+                transactionDTO.setTelegramUserName(displayName);
             }
         });
 
@@ -124,6 +192,20 @@ public class TransactionService {
         transactionRepository.removeCategoryIdFromTransactionsWithSameMessage(transactionMessage, accountId);
     }
 
+    /**
+     * Записывает предложенные распознавателем категории одним UPDATE, без загрузки транзакций
+     *
+     * @return количество обновленных транзакций
+     * @throws RequestSizeException если в пакете больше {@link #MAX_SUGGESTIONS_BATCH_SIZE} транзакций
+     */
+    public int updateSuggestedCategories(List<CategorySuggestionDTO> suggestions) {
+        if (suggestions.size() > MAX_SUGGESTIONS_BATCH_SIZE) {
+            throw new RequestSizeException("Пакет не может содержать больше "
+                    + MAX_SUGGESTIONS_BATCH_SIZE + " транзакций");
+        }
+        return transactionSuggestedCategoryRepository.updateSuggestedCategoryIds(suggestions);
+    }
+
     public Transaction enrichTransactionWithSuggestedCategory(TransactionDTO transactionDTO) {
         Transaction transaction = getTransactionById(transactionDTO.getId());
         transaction.setSuggestedCategoryId(transactionDTO.getSuggestedCategoryId());
@@ -131,34 +213,20 @@ public class TransactionService {
     }
 
     public List<Integer> findAvailableYears(Long accountId) {
-        return transactionRepository.findAvailableYearsForAccountByAccountId(accountId);
+        return transactionMonthlyRollupRepository.findAvailableYearsByAccountId(accountId);
     }
 
     public List<AnalyticsMonthlyReportForYearDTO> findMonthlyIncomeStatisticsForYearByAccountId(Long accountId, Integer year) {
-        List<AnalyticsMonthlyIncomeForCategoryDTO> list = transactionRepository.findMonthlyIncomeStatisticsByYearAndAccountId(accountId, year);
+        List<AnalyticsMonthlyIncomeForCategoryDTO> list = transactionMonthlyRollupRepository.findMonthlyIncomeStatisticsByYearAndAccountId(accountId, year);
         return mapObjectToAnalyticsMonthIncomeDTO(list);
     }
 
     private List<AnalyticsMonthlyReportForYearDTO> mapObjectToAnalyticsMonthIncomeDTO(List<AnalyticsMonthlyIncomeForCategoryDTO> objects) {
-        Set<String> setOfCategoryNames = new HashSet<>();
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+        objects.forEach(object -> aggregator.add(object.getCategoryName(), null, object.getMonth(), object.getAmount()));
         List<AnalyticsMonthlyReportForYearDTO> result = new ArrayList<>();
-        objects.forEach(object -> {
-            setOfCategoryNames.add(object.getCategoryName());
-        });
-        setOfCategoryNames.forEach(categoryName -> {
-            Map<Integer, Double> monthlyAnalytics = new HashMap<>();
-            objects.forEach(object -> {
-                if (Objects.equals(categoryName, object.getCategoryName())) {
-                    monthlyAnalytics.put(object.getMonth(), object.getAmount());
-                }
-            });
-            for (Integer monthCounter = 1; monthCounter <= 12; monthCounter++) {
-                if (!monthlyAnalytics.containsKey(monthCounter)) {
-                    monthlyAnalytics.put(monthCounter, 0d);
-                }
-            }
-            result.add(new AnalyticsMonthlyReportForYearDTO(categoryName, monthlyAnalytics));
-        });
+        aggregator.getCategories().forEach(category -> result.add(new AnalyticsMonthlyReportForYearDTO(
+                category.getCategoryName(), MonthlyAmountsAggregator.toMonthMap(category.getAmounts()))));
         return result;
     }
 
@@ -168,7 +236,7 @@ public class TransactionService {
         transactionUpdate.setAmount(transactionDTO.getAmount());
         Optional<Keyword> keyword = getKeywordByTransaction(transactionUpdate);
         if (!transactionUpdate.getMessage().equals(transactionDTO.getMessage())) {
-            keyword.ifPresent(k -> keywordRepository.delete(k));
+            keyword.ifPresent(this::deleteKeyword);
         }
         transactionUpdate.setMessage(transactionDTO.getMessage());
 
@@ -177,7 +245,7 @@ public class TransactionService {
         if (transactionUpdate.getCategory() != null) {
             if (!transactionUpdate.getCategory().getName().equals(transactionDTO.getCategoryName())) {
                 transactionUpdate.setCategory(category);
-                keyword.ifPresent(k -> keywordRepository.delete(k));
+                keyword.ifPresent(this::deleteKeyword);
             }
         } else if (!transactionDTO.getCategoryName().equals("Нераспознанное")) {
             if (transactionDTO.getMessage() != null) {
@@ -188,26 +256,63 @@ public class TransactionService {
                 newKeyword.setKeywordId(newKeywordId);
                 newKeyword.setCategory(category);
                 keywordRepository.save(newKeyword);
+                categorizationIndexService.putKeyword(newKeyword);
             }
             transactionUpdate.setCategory(category);
         }
         transactionRepository.save(transactionUpdate);
+        publishTransactionChange(TransactionChangeType.UPDATED, transactionUpdate);
     }
 
     public void saveAllTransactions(List<Transaction> transactionList) {
         transactionRepository.saveAll(transactionList);
+        if (transactionList.size() > MAX_CREATED_CHANGES_PER_SAVE) {
+            transactionList.stream()
+                    .map(this::getAccountId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(accountId -> transactionChangeFeedService.publish(accountId,
+                            TransactionChangeDTO.builder().type(TransactionChangeType.RELOAD).build()));
+            return;
+        }
+        transactionList.forEach(transaction -> publishTransactionChange(TransactionChangeType.CREATED, transaction));
     }
 
     @Transactional
     public void deleteTransactionById(UUID id) {
         Optional<Transaction> transactionToDelete = transactionRepository.findById(id);
         if (transactionToDelete.isPresent()) {
-            getKeywordByTransaction(transactionToDelete.get()).ifPresent(k -> keywordRepository.delete(k));
+            getKeywordByTransaction(transactionToDelete.get()).ifPresent(this::deleteKeyword);
             transactionRepository.deleteById(id);
             telegramBotFeign.deleteTelegramMessageById(id);
+            transactionChangeFeedService.publish(getAccountId(transactionToDelete.get()), TransactionChangeDTO.builder()
+                    .type(TransactionChangeType.DELETED)
+                    .transactionId(id)
+                    .build());
         }
     }
 
+    /**
+     * Отправляет подписчикам аккаунта транзакции ее состояние после коммита, см. {@link TransactionChangeFeedService}
+     */
+    private void publishTransactionChange(TransactionChangeType type, Transaction transaction) {
+        transactionChangeFeedService.publish(getAccountId(transaction), TransactionChangeDTO.builder()
+                .type(type)
+                .transactionId(transaction.getId())
+                .transaction(transactionMapper.mapTransactionToDTO(transaction))
+                .build());
+    }
+
+    private Long getAccountId(Transaction transaction) {
+        return transaction.getAccount() != null ? transaction.getAccount().getId() : null;
+    }
+
+    private void deleteKeyword(Keyword keyword) {
+        keywordRepository.delete(keyword);
+        categorizationIndexService.removeKeyword(keyword.getKeywordId().getAccountId(),
+                keyword.getKeywordId().getName());
+    }
+
     public Optional<Keyword> getKeywordByTransaction(Transaction transaction) {
         KeywordId keywordId = new KeywordId();
         keywordId.setAccountId(transaction.getAccount().getId());
@@ -216,84 +321,30 @@ public class TransactionService {
     }
 
     public List<AnalyticsAnnualAndMonthlyReportDTO> findAnnualAndMonthlyTotalStatisticsByAccountId(Long accountId, Integer year) {
-        List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> list = transactionRepository.findAnnualAndMonthlyTotalStatisticsByAccountId(accountId, year);
+        List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> list = transactionMonthlyRollupRepository.findAnnualAndMonthlyTotalStatisticsByAccountId(accountId, year);
         return mapObjectToAnalyticsAnnualAndMonthlyReportDTO(list);
     }
 
+    /**
+     * Строки отчета агрегированы в БД по категории и месяцу, здесь они раскладываются по месяцам категорий
+     * за один проход, после чего по итогам месяцев считаются доли категорий в расходах
+     */
     private List<AnalyticsAnnualAndMonthlyReportDTO> mapObjectToAnalyticsAnnualAndMonthlyReportDTO(List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> objects) {
-        Set<String> setOfCategoryNames = new HashSet<>();
-        List<AnalyticsAnnualAndMonthlyReportDTO> result = new ArrayList<>();
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+        objects.forEach(object -> aggregator.add(object.getCategoryName(), object.getCategoryId(),
+                object.getMonth(), object.getAmount()));
+        aggregator.roundAmounts();
+        double[] monthTotals = aggregator.getMonthTotals();
 
-        objects.forEach(object -> setOfCategoryNames.add(object.getCategoryName()));
-
-        setOfCategoryNames.forEach(categoryName -> {
-            final int[] categoryId = new int[1];
-            Map<Integer, Double> monthlyAnalytics = new HashMap<>();
-            Map<Integer, Double> shareOfMonthlyExpenses = new HashMap<>();
-            objects.forEach(object -> {
-                if (Objects.equals(categoryName, object.getCategoryName())) {
-                    categoryId[0] = object.getCategoryId();
-                    if (monthlyAnalytics.containsKey(object.getMonth()) &&
-                            shareOfMonthlyExpenses.containsKey(object.getMonth())) {
-                        monthlyAnalytics.replace(object.getMonth(),
-                                NumericalUtils.roundAmount(monthlyAnalytics.get(object.getMonth()) + object.getAmount()));
-                        shareOfMonthlyExpenses.replace(object.getMonth(),
-                                NumericalUtils.roundAmount(shareOfMonthlyExpenses.get(object.getMonth()) + object.getAmount()));
-                    } else {
-                        monthlyAnalytics.put(object.getMonth(), NumericalUtils.roundAmount(object.getAmount()));
-                        shareOfMonthlyExpenses.put(object.getMonth(), NumericalUtils.roundAmount(object.getAmount()));
-                    }
-                }
-            });
-            for (Integer monthCounter = 1; monthCounter <= 12; monthCounter++) {
-                if (!monthlyAnalytics.containsKey(monthCounter)) {
-                    monthlyAnalytics.put(monthCounter, 0d);
-                    shareOfMonthlyExpenses.put(monthCounter, 0d);
-                }
-            }
-            result.add(new AnalyticsAnnualAndMonthlyReportDTO(categoryName, categoryId[0], monthlyAnalytics, shareOfMonthlyExpenses));
-        });
-        return replaceShareOfMonthlyExpenses(objects, result);
-    }
-
-    private List<AnalyticsAnnualAndMonthlyReportDTO> replaceShareOfMonthlyExpenses(List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> objects,
-                                                                                   List<AnalyticsAnnualAndMonthlyReportDTO> result) {
-        List<Integer> months = getListOfMonthNumbers(objects);
-        Map<Integer, Double> total = getTotalExpenseByYearAndMonths(objects, result);
-
-        months.forEach(month -> result.forEach(dto -> {
-            Double amount = dto.getMonthlyAnalytics().get(month);
-            if (amount != 0) {
-                Double totalAmount = total.get(month);
-                dto.getShareOfMonthlyExpenses().replace(month, 1 - ((totalAmount - amount) / totalAmount));
-            }
-        }));
+        List<AnalyticsAnnualAndMonthlyReportDTO> result = new ArrayList<>();
+        aggregator.getCategories().forEach(category -> result.add(new AnalyticsAnnualAndMonthlyReportDTO(
+                category.getCategoryName(),
+                category.getCategoryId(),
+                MonthlyAmountsAggregator.toMonthMap(category.getAmounts()),
+                MonthlyAmountsAggregator.toMonthMap(MonthlyAmountsAggregator.getShares(category.getAmounts(), monthTotals)))));
         return result;
     }
 
-    private Map<Integer, Double> getTotalExpenseByYearAndMonths(List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> objects,
-                                                                List<AnalyticsAnnualAndMonthlyReportDTO> result) {
-        Map<Integer, Double> totalMonthlyAnalytics = new HashMap<>();
-        List<Integer> monthNumberList = getListOfMonthNumbers(objects);
-
-        monthNumberList.forEach(month -> {
-            List<Double> miniTotalMonthlyAnalytics = new ArrayList<>();
-            result.forEach(dto -> miniTotalMonthlyAnalytics.add(dto.getMonthlyAnalytics().get(month)));
-            totalMonthlyAnalytics.put(month, miniTotalMonthlyAnalytics.stream().reduce(0d, Double::sum));
-        });
-        return totalMonthlyAnalytics;
-    }
-
-    private List<Integer> getListOfMonthNumbers(List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> objects) {
-        Set<Integer> months = objects.stream()
-                .map(AnalyticsAnnualAndMonthlyExpenseForCategoryDTO::getMonth)
-                .collect(Collectors.toSet());
-        for (int monthCounter = 1; monthCounter <= 12; monthCounter++) {
-            months.add(monthCounter);
-        }
-        return months.stream().sorted().collect(Collectors.toList());
-    }
-
     @Transactional
     public TransactionResponseDTO patchTransaction(TransactionMessageDTO transactionMessage,
                                                    UUID id) throws InstanceNotFoundException {
@@ -315,6 +366,7 @@ public class TransactionService {
                     .forEach(transaction -> transaction.setAmount(receivedTransactionFromReply.getAmount()));
 
             transactionRepository.save(transactionToUpdate);
+            publishTransactionChange(TransactionChangeType.UPDATED, transactionToUpdate);
             return transactionMapper.mapTransactionToTelegramResponse(transactionToUpdate);
         } else {
             throw new DateTimeException("Даты транзакций не совпадают");
@@ -322,7 +374,12 @@ public class TransactionService {
     }
 
     public List<TransactionDTO> getTransactionsListByPeriodAndCategory(Integer year, Integer month, long categoryId) {
-        return transactionRepository.findTransactionsBetweenDatesAndCategory(year, month, categoryId).stream()
+        if (month < 1 || month > MonthlyAmountsAggregator.MONTHS_COUNT) {
+            return new ArrayList<>();
+        }
+        LocalDateTime monthStart = LocalDate.of(year, month, 1).atStartOfDay();
+        return transactionRepository.findTransactionsBetweenDatesAndCategory(monthStart, monthStart.plusMonths(1), categoryId)
+                .stream()
                 .map(transaction -> transactionMapper.mapTransactionToDTO(transaction))
                 .collect(Collectors.toList());
     }
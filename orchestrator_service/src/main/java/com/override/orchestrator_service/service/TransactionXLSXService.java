@@ -1,6 +1,9 @@
 package com.override.orchestrator_service.service;
 
+import com.override.dto.CommonErrorDTO;
 import com.override.dto.TransactionDTO;
+import com.override.dto.TransactionXLSXImportResultDTO;
+import com.override.dto.TransactionXLSXRowErrorDTO;
 import com.override.dto.constants.Type;
 import com.override.orchestrator_service.exception.XLSXProcessingException;
 import com.override.orchestrator_service.model.Category;
@@ -8,27 +11,76 @@ import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.Transaction;
 import com.override.orchestrator_service.util.TelegramUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.thymeleaf.util.StringUtils;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Загрузка транзакций из XLSX. Первый лист файла читается потоково через SAX, без построения модели книги:
+ * в строке ожидаются категория, сумма, сообщение и дата в столбцах A, B, C и E.
+ * Категории ищутся по названию без учета регистра в хеш-таблице, недостающие создаются при первой встрече,
+ * транзакции сохраняются пачками по {@link #SAVE_BATCH_SIZE}, поэтому память не зависит от размера файла.
+ * Ошибочные строки пропускаются и возвращаются в результате загрузки
+ */
 @Slf4j
 @Service
 public class TransactionXLSXService {
 
+    private final int SAVE_BATCH_SIZE = 500;
+
+    private final int MAX_REPORTED_ERRORS = 100;
+
+    private final int CATEGORY_COLUMN = 0;
+    private final int AMOUNT_COLUMN = 1;
+    private final int MESSAGE_COLUMN = 2;
+    private final int DATE_COLUMN = 4;
+
+    /**
+     * Отдает числовые ячейки без форматирования, чтобы суммы и даты разбирались из исходного значения
+     */
+    private final DataFormatter RAW_VALUE_FORMATTER = new DataFormatter() {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return NumberToTextConverter.toText(value);
+        }
+    };
+
     @Autowired
     private TelegramUtils telegramUtils;
 
@@ -38,49 +90,71 @@ public class TransactionXLSXService {
     @Autowired
     private CategoryService categoryService;
 
-    @Autowired
-    private TransactionProcessingService transactionProcessingService;
-
     @Autowired
     private OverMoneyAccountService overMoneyAccountService;
 
-    public ResponseEntity<String> loadingTransactionsFromXLSX(Principal principal, MultipartFile file) {
-        List<TransactionDTO> transactionDTOS;
-        transactionDTOS = getTransactionDTOFromXLSXFile(file);
+    public ResponseEntity<TransactionXLSXImportResultDTO> loadingTransactionsFromXLSX(Principal principal, MultipartFile file) {
         OverMoneyAccount overMoneyAccount = overMoneyAccountService
                 .getOverMoneyAccountByChatId(telegramUtils.getTelegramId(principal));
-
-        saveAllCategoriesFromXLSX(transactionDTOS, overMoneyAccount);
-        saveAllTransactionFromXLSX(transactionDTOS, overMoneyAccount);
-        log.info("Произведена загрузка транзакций");
-        return new ResponseEntity<>(HttpStatus.OK);
+        TransactionXLSXImportResultDTO result = importTransactionsFromXLSX(file, overMoneyAccount);
+        log.info("Произведена загрузка транзакций: сохранено " + result.getImportedTransactions()
+                + ", с ошибками " + result.getFailedRows());
+        return ResponseEntity.ok(result);
     }
 
-    public List<TransactionDTO> getTransactionDTOFromXLSXFile(MultipartFile file) {
-        List<TransactionDTO> transactionDTOS = new ArrayList<>();
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            for (Row row : sheet) {
-                Number amount = row.getCell(1).getNumericCellValue();
-                TransactionDTO transactionDTO = TransactionDTO.builder()
-                        .categoryName(StringUtils.capitalize(row.getCell(0).getStringCellValue()))
-                        .message(row.getCell(2).getStringCellValue())
-                        .amount(amount.doubleValue())
-                        .date(row.getCell(4).getLocalDateTimeCellValue())
-                        .build();
-                if (!transactionDTO.getCategoryName().isEmpty()) {
-                    transactionDTOS.add(transactionDTO);
-                }
+    /**
+     * Загружает транзакции из файла в аккаунт. Пачки сохраняются по мере чтения, поэтому при ошибке
+     * разбора самого файла уже сохраненные транзакции остаются в аккаунте
+     */
+    public TransactionXLSXImportResultDTO importTransactionsFromXLSX(MultipartFile file, OverMoneyAccount overMoneyAccount) {
+        File tempFile = null;
+        try {
+            // OPCPackage читает архив с диска по требованию, а из потока загрузил бы его в память целиком
+            tempFile = Files.createTempFile("transactions", ".xlsx").toFile();
+            file.transferTo(tempFile);
+            XLSXImport xlsxImport = new XLSXImport(overMoneyAccount);
+            try (OPCPackage opcPackage = OPCPackage.open(tempFile, PackageAccess.READ)) {
+                parseFirstSheet(opcPackage, xlsxImport);
             }
-        } catch (Exception e) {
+            xlsxImport.saveBatch();
+            return xlsxImport.getResult();
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException | XmlException
+                | UnsupportedFileFormatException | POIXMLException e) {
+            log.warn("Не удалось прочитать XLSX файл", e);
             throw new XLSXProcessingException("Не удалось распознать транзакции из XLSX");
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void parseFirstSheet(OPCPackage opcPackage, XLSXImport xlsxImport)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException, XmlException {
+        XSSFReader reader = new XSSFReader(opcPackage);
+        xlsxImport.date1904 = isDate1904(reader);
+        ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            throw new XLSXProcessingException("В XLSX файле нет листов");
+        }
+        try (InputStream sheet = sheets.next()) {
+            XMLReader xmlReader = SAXHelper.newXMLReader();
+            xmlReader.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, sharedStrings,
+                    xlsxImport, RAW_VALUE_FORMATTER, false));
+            xmlReader.parse(new InputSource(sheet));
+        }
+    }
+
+    private boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XmlException {
+        try (InputStream workbookData = reader.getWorkbookData()) {
+            CTWorkbookPr workbookPr = WorkbookDocument.Factory.parse(workbookData).getWorkbook().getWorkbookPr();
+            return workbookPr != null && workbookPr.getDate1904();
         }
-        return transactionDTOS;
     }
 
     public Transaction createTransaction(TransactionDTO transactionDTO,
-                                         OverMoneyAccount overMoneyAccount, Set<Category> categories) {
-        Category category = transactionProcessingService.getMatchingCategory(categories, transactionDTO.getCategoryName());
+                                         OverMoneyAccount overMoneyAccount, Category category) {
         return Transaction.builder()
                 .message(transactionDTO.getMessage())
                 .category(category)
@@ -99,25 +173,134 @@ public class TransactionXLSXService {
                 .build();
     }
 
-    public void saveAllTransactionFromXLSX(List<TransactionDTO> transactionDTOS, OverMoneyAccount overMoneyAccount) {
-        Set<Category> categories = categoryService.getCategoriesByUserId(overMoneyAccount.getId());
-        List<Transaction> transactions = new ArrayList<>();
-        transactionDTOS.forEach(tr -> transactions.add(createTransaction(tr, overMoneyAccount, categories)));
-        transactionService.saveAllTransactions(transactions);
-    }
+    /**
+     * Состояние одной загрузки: принимает строки листа от SAX-обработчика и копит текущую пачку транзакций
+     */
+    private class XLSXImport implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final OverMoneyAccount overMoneyAccount;
+        private final Map<String, Category> categoriesByName = new HashMap<>();
+        private final String[] cells = new String[DATE_COLUMN + 1];
+        private List<Transaction> batch = new ArrayList<>(SAVE_BATCH_SIZE);
+        private final List<TransactionXLSXRowErrorDTO> errors = new ArrayList<>();
+        private boolean date1904;
+        private int processedRows;
+        private int importedTransactions;
+        private int failedRows;
+        private int createdCategories;
 
-    public void saveAllCategoriesFromXLSX(List<TransactionDTO> transactionDTOS, OverMoneyAccount overMoneyAccount) {
-        Set<Category> categories = new HashSet<>();
-        Set<Category> existingCategories = overMoneyAccount.getCategories();
-        List<String> existingCategoriesName = new ArrayList<>();
-        if (!existingCategories.isEmpty()) {
-            existingCategories.forEach(category -> existingCategoriesName.add(category.getName()));
+        XLSXImport(OverMoneyAccount overMoneyAccount) {
+            this.overMoneyAccount = overMoneyAccount;
+            Set<Category> categories = categoryService.getCategoriesByUserId(overMoneyAccount.getId());
+            categories.forEach(category -> categoriesByName.putIfAbsent(category.getName().toLowerCase(), category));
         }
-        for (TransactionDTO transactionDTO : transactionDTOS) {
-            if (!existingCategoriesName.contains(transactionDTO.getCategoryName())) {
-                categories.add(createCategory(transactionDTO, overMoneyAccount));
+
+        @Override
+        public void startRow(int rowNum) {
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = null;
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null) {
+                return;
+            }
+            int column = new CellReference(cellReference).getCol();
+            if (column < cells.length) {
+                cells[column] = formattedValue;
             }
         }
-        categoryService.saveAllCategories(categories);
+
+        @Override
+        public void endRow(int rowNum) {
+            String categoryName = StringUtils.capitalize(cells[CATEGORY_COLUMN]);
+            if (categoryName == null || categoryName.isEmpty()) {
+                return;
+            }
+            processedRows++;
+            try {
+                TransactionDTO transactionDTO = TransactionDTO.builder()
+                        .categoryName(categoryName)
+                        .message(cells[MESSAGE_COLUMN])
+                        .amount(parseNumber(cells[AMOUNT_COLUMN], "Некорректная сумма"))
+                        .date(parseDate(cells[DATE_COLUMN]))
+                        .build();
+                batch.add(createTransaction(transactionDTO, overMoneyAccount, getOrCreateCategory(transactionDTO)));
+            } catch (XLSXProcessingException e) {
+                addError(rowNum, e);
+                return;
+            }
+            if (batch.size() >= SAVE_BATCH_SIZE) {
+                saveBatch();
+            }
+        }
+
+        private Category getOrCreateCategory(TransactionDTO transactionDTO) {
+            String key = transactionDTO.getCategoryName().toLowerCase();
+            Category category = categoriesByName.get(key);
+            if (category == null) {
+                category = createCategory(transactionDTO, overMoneyAccount);
+                categoryService.saveAllCategories(Set.of(category));
+                categoriesByName.put(key, category);
+                createdCategories++;
+            }
+            return category;
+        }
+
+        private Double parseNumber(String value, String errorMessage) {
+            if (value == null) {
+                throw new XLSXProcessingException(errorMessage);
+            }
+            try {
+                return Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new XLSXProcessingException(errorMessage);
+            }
+        }
+
+        private LocalDateTime parseDate(String value) {
+            double excelDate = parseNumber(value, "Некорректная дата");
+            if (!DateUtil.isValidExcelDate(excelDate)) {
+                throw new XLSXProcessingException("Некорректная дата");
+            }
+            return DateUtil.getLocalDateTime(excelDate, date1904);
+        }
+
+        private void addError(int rowNum, XLSXProcessingException e) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(TransactionXLSXRowErrorDTO.builder()
+                        .row(rowNum + 1)
+                        .error(CommonErrorDTO.builder()
+                                .code(e.getErrorCode())
+                                .message(e.getMessage())
+                                .timestamp(Instant.now())
+                                .build())
+                        .build());
+            }
+        }
+
+        void saveBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            transactionService.saveAllTransactions(batch);
+            importedTransactions += batch.size();
+            batch = new ArrayList<>(SAVE_BATCH_SIZE);
+            log.info("Загрузка транзакций из XLSX для аккаунта " + overMoneyAccount.getId()
+                    + ": прочитано строк " + processedRows + ", сохранено транзакций " + importedTransactions
+                    + ", с ошибками " + failedRows);
+        }
+
+        TransactionXLSXImportResultDTO getResult() {
+            return TransactionXLSXImportResultDTO.builder()
+                    .processedRows(processedRows)
+                    .importedTransactions(importedTransactions)
+                    .failedRows(failedRows)
+                    .createdCategories(createdCategories)
+                    .errors(errors)
+                    .build();
+        }
     }
 }
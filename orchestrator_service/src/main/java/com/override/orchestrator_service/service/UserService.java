@@ -1,30 +1,83 @@
 package com.override.orchestrator_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.override.dto.AccountDataDTO;
 import com.override.orchestrator_service.mapper.UserMapper;
 import com.override.orchestrator_service.model.TelegramAuthRequest;
 import com.override.orchestrator_service.model.User;
 import com.override.orchestrator_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import javax.management.InstanceNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+import static com.override.orchestrator_service.util.AfterCommitUtils.runAfterCommit;
+
+/**
+ * Идентификаторы аккаунтов пользователей и отображаемые имена пользователей кэшируются.
+ * Записи кэшей сбрасываются после коммита изменений пользователя, удаления аккаунта
+ * ({@link #evictAccount(Long)}) и по истечении времени жизни, если пользователь изменен в обход сервиса
+ */
 @Service
 @Slf4j
 public class UserService {
 
+    public static final int USERS_CACHE_MAX_SIZE = 10000;
+
+    public static final Duration ACCOUNT_IDS_CACHE_TTL = Duration.ofMinutes(10);
+
+    public static final Duration DISPLAY_NAMES_CACHE_TTL = Duration.ofMinutes(30);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Cache<Long, Long> accountIdsByUserId = Caffeine.newBuilder()
+            .maximumSize(USERS_CACHE_MAX_SIZE)
+            .expireAfterWrite(ACCOUNT_IDS_CACHE_TTL)
+            .recordStats()
+            .build();
+
+    private final Cache<Long, String> displayNamesByUserId = Caffeine.newBuilder()
+            .maximumSize(USERS_CACHE_MAX_SIZE)
+            .expireAfterWrite(DISPLAY_NAMES_CACHE_TTL)
+            .recordStats()
+            .build();
+
+    /**
+     * Увеличивается при сбросе привязок к аккаунту. Такой сброс удаляет записи по значению и не видит
+     * загружаемую запись, поэтому загрузка, во время которой был сброс, повторяется
+     */
+    private final AtomicLong accountEvictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, accountIdsByUserId, "users.account.ids");
+        CaffeineCacheMetrics.monitor(meterRegistry, displayNamesByUserId, "users.display.names");
+    }
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -35,6 +88,7 @@ public class UserService {
 
     public void saveUser(User user) {
         userRepository.save(user);
+        evictUser(user.getId());
     }
 
     public void saveUser(AccountDataDTO accountDataDTO) {
@@ -45,6 +99,7 @@ public class UserService {
             user.setId(accountDataDTO.getUserId());
             user.setUsername("Anonymous");
             userRepository.save(user);
+            evictUser(user.getId());
         }
     }
 
@@ -66,12 +121,87 @@ public class UserService {
         } catch (InstanceNotFoundException e) {
             userRepository.save(userMapper.mapTelegramAuthToUser(telegramAuthRequest));
         }
+        evictUser(telegramAuthRequest.getId());
     }
 
     public User getUserById(Long id) throws InstanceNotFoundException {
         return userRepository.findById(id).orElseThrow(() -> new InstanceNotFoundException("User with id " + id + " does not exist"));
     }
 
+    /**
+     * Id загружается под блокировкой записи кэша, поэтому сброс кэша после коммита не может быть
+     * перезаписан значением, прочитанным до коммита. Отсутствие аккаунта не кэшируется
+     *
+     * @return id аккаунта пользователя или null, если пользователь не привязан к аккаунту
+     */
+    public Long getAccountIdByUserId(Long id) throws InstanceNotFoundException {
+        return accountIdsByUserId.get(id, this::loadAccountIdByUserId);
+    }
+
+    @SneakyThrows(InstanceNotFoundException.class)
+    private Long loadAccountIdByUserId(Long id) {
+        long evictions;
+        User user;
+        do {
+            evictions = accountEvictions.get();
+            user = getUserById(id);
+        } while (evictions != accountEvictions.get());
+        return user.getAccount() == null ? null : user.getAccount().getId();
+    }
+
+    /**
+     * Отображаемое имя пользователя - username, а если он не задан, то имя. Отсутствующие в кэше имена
+     * загружаются одним запросом
+     *
+     * @return id пользователя - имя, пользователи без имени и несуществующие пользователи не включаются
+     */
+    public Map<Long, String> getDisplayNamesByIds(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return displayNamesByUserId.getAll(ids, this::loadDisplayNames);
+    }
+
+    private Map<Long, String> loadDisplayNames(Iterable<? extends Long> userIds) {
+        List<Long> ids = new ArrayList<>();
+        userIds.forEach(ids::add);
+        Map<Long, String> displayNames = new HashMap<>();
+        for (User user : userRepository.findAllUsersByIds(ids)) {
+            String displayName = user.getUsername() != null ? user.getUsername() : user.getFirstName();
+            if (displayName != null) {
+                displayNames.put(user.getId(), displayName);
+            }
+        }
+        return displayNames;
+    }
+
+    /**
+     * Сбрасывает кэшированные данные пользователя после коммита текущей транзакции БД
+     */
+    public void evictUser(Long id) {
+        if (id == null) {
+            return;
+        }
+        runAfterCommit(() -> {
+            accountIdsByUserId.invalidate(id);
+            displayNamesByUserId.invalidate(id);
+        });
+    }
+
+    /**
+     * Сбрасывает кэшированные привязки пользователей к аккаунту после коммита текущей транзакции БД
+     */
+    public void evictAccount(Long accountId) {
+        runAfterCommit(() -> {
+            accountEvictions.incrementAndGet();
+            accountIdsByUserId.asMap().values().removeIf(accountId::equals);
+        });
+    }
+
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -84,14 +214,19 @@ public class UserService {
         foundUser.setPhotoUrl(user.getPhotoUrl());
         foundUser.setAuthDate(user.getAuthDate());
         userRepository.save(foundUser);
+        evictUser(id);
     }
 
-    public Set<Long> getAllUserIds() {
-        return userRepository.getAllUserIds();
+    /**
+     * @return до limit id пользователей больше lastId по возрастанию, для постраничного обхода всех пользователей
+     */
+    public List<Long> getUserIdsAfter(Long lastId, int limit) {
+        return userRepository.findUserIdsAfter(lastId, PageRequest.of(0, limit));
     }
 
     public void deleteUserById(Long id) {
         userRepository.deleteById(id);
+        evictUser(id);
     }
 
     public List<User> getUsersByIds(List<Long> userIds) {
@@ -1,5 +1,9 @@
 package com.override.orchestrator_service.service.calc;
 
+/**
+ * Стратегия разбора транзакции на регулярных выражениях. Цепочка стратегий служит эталоном
+ * форматов для {@link TransactionMessageParser}, который и используется при обработке транзакций.
+ */
 public interface TransactionHandler {
     double calculateAmount(String transaction);
 
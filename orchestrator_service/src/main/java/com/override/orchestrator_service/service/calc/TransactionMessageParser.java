@@ -0,0 +1,338 @@
+package com.override.orchestrator_service.service.calc;
+
+import com.override.dto.TransactionAmountAndCommentDTO;
+import com.override.orchestrator_service.exception.TransactionProcessingException;
+
+import java.util.Arrays;
+
+/**
+ * Однопроходный разборщик текста транзакции. Сообщение один раз разбивается на токены
+ * (пробельные промежутки, знаки "+", числа и прочие слова), после чего сумма и комментарий
+ * определяются по токенам без компиляции регулярных выражений.
+ * <p>
+ * Результат совпадает с цепочкой стратегий {@link TransactionHandler} в порядке их приоритета:
+ * <ol>
+ *     <li>{@link TransactionHandlerImplSumAmountAtFront} - "200+300 пиво"</li>
+ *     <li>{@link TransactionHandlerImplSingleAmountAtFront} - "200 пиво"</li>
+ *     <li>{@link TransactionHandlerImplSumAmountAtEnd} - "пиво 200+300" и "пиво 200"</li>
+ *     <li>{@link TransactionHandlerImplInvalidTransaction} - все остальное</li>
+ * </ol>
+ * {@link TransactionHandlerImplSingleAmountAtEnd} отдельно не проверяется: все сообщения,
+ * подходящие под его шаблон, принимает стратегия суммы в конце сообщения, стоящая раньше в цепочке.
+ */
+public class TransactionMessageParser {
+    private final String UNSUPPORTED_FORMAT = "Неподдерживаемый формат транзакции";
+    private final char RU_DECIMAL_DELIMITER = ',';
+    private final char EN_DECIMAL_DELIMITER = '.';
+    private final char PLUS = '+';
+    private final char SPACE = ' ';
+    private final char CYRILLIC_FIRST = 'А';
+    private final char CYRILLIC_LAST = 'я';
+
+    private static final byte WHITESPACE = 0;
+    private static final byte PLUS_SIGN = 1;
+    private static final byte NUMBER = 2;
+    private static final byte WORD = 3;
+
+    /**
+     * Выделяет из текста транзакции сумму и комментарий.
+     *
+     * @param transaction текст транзакции
+     * @return сумма и комментарий транзакции
+     * @throws TransactionProcessingException если формат транзакции не поддерживается
+     */
+    public TransactionAmountAndCommentDTO parse(String transaction) {
+        Tokens tokens = tokenize(transaction, transaction.length());
+        TransactionAmountAndCommentDTO result = parseAmountAtFront(transaction, tokens);
+        if (result != null) {
+            return result;
+        }
+        int end = getEndBeforeFinalLineTerminator(transaction);
+        if (end != transaction.length()) {
+            tokens = tokenize(transaction, end);
+        }
+        result = parseAmountAtEnd(transaction, tokens, end);
+        if (result != null) {
+            return result;
+        }
+        throw new TransactionProcessingException(UNSUPPORTED_FORMAT);
+    }
+
+    /**
+     * Разбирает сообщения с суммой (или суммой слагаемых) в начале: "200 пиво", "200 + 300,5 пиво".
+     * Слагаемые должны быть отделены от комментария пробельным промежутком, за которым следует
+     * хотя бы один допустимый символ комментария.
+     */
+    private TransactionAmountAndCommentDTO parseAmountAtFront(String transaction, Tokens tokens) {
+        if (tokens.size == 0 || tokens.type[0] != NUMBER) {
+            return null;
+        }
+        int[] numbers = new int[4];
+        int numbersCount = 0;
+        int sumLength = -1;
+        boolean sumAccepted = false;
+        int current = 0;
+        while (true) {
+            numbers = ensureCapacity(numbers, numbersCount);
+            numbers[numbersCount++] = current;
+            int next = current + 1;
+            if (numbersCount > 1 && tokens.isType(next, WHITESPACE)) {
+                sumLength = numbersCount;
+                sumAccepted |= isFollowedByComment(transaction, tokens, next);
+            }
+            int candidate = skip(tokens, next, WHITESPACE);
+            if (!tokens.isType(candidate, PLUS_SIGN)) {
+                break;
+            }
+            candidate = skip(tokens, candidate + 1, WHITESPACE);
+            if (!tokens.isType(candidate, NUMBER)) {
+                break;
+            }
+            current = candidate;
+        }
+
+        if (sumAccepted) {
+            int whitespace = numbers[sumLength - 1] + 1;
+            return new TransactionAmountAndCommentDTO(sumNumbers(transaction, tokens, numbers, sumLength),
+                    transaction.substring(tokens.end[whitespace]).trim());
+        }
+        if (tokens.isType(1, WHITESPACE) && isFollowedByComment(transaction, tokens, 1)) {
+            return new TransactionAmountAndCommentDTO(parseNumber(transaction, tokens, 0),
+                    transaction.substring(getCommentSeparator(transaction, tokens.start[1]) + 1));
+        }
+        return null;
+    }
+
+    /**
+     * Разбирает сообщения с суммой (или суммой слагаемых) в конце: "пиво 200", "пиво 200 + 300,5".
+     * Перед первым слагаемым должен стоять пробельный промежуток, а перед ним - допустимый символ комментария.
+     * Если подходит несколько вариантов, берется самая длинная цепочка слагаемых.
+     */
+    private TransactionAmountAndCommentDTO parseAmountAtEnd(String transaction, Tokens tokens, int end) {
+        int last = tokens.size - 1;
+        if (last < 0 || tokens.type[last] != NUMBER) {
+            return null;
+        }
+        boolean accepted = false;
+        int firstNumber = -1;
+        int current = last;
+        while (true) {
+            int previous = current - 1;
+            if (tokens.isType(previous, WHITESPACE)) {
+                firstNumber = current;
+                accepted |= isPrecededByComment(transaction, tokens, previous);
+            }
+            int candidate = skipBack(tokens, previous, WHITESPACE);
+            if (!tokens.isType(candidate, PLUS_SIGN)) {
+                break;
+            }
+            candidate = skipBack(tokens, candidate - 1, WHITESPACE);
+            if (!tokens.isType(candidate, NUMBER)) {
+                break;
+            }
+            current = candidate;
+        }
+        if (!accepted) {
+            return null;
+        }
+
+        double sum = 0;
+        for (int i = firstNumber; i <= last; i++) {
+            if (tokens.type[i] == NUMBER) {
+                sum += parseNumber(transaction, tokens, i);
+            }
+        }
+        int commentEnd = tokens.start[firstNumber - 1];
+        String comment = end == transaction.length()
+                ? transaction.substring(0, commentEnd)
+                : transaction.substring(0, commentEnd) + transaction.substring(end);
+        return new TransactionAmountAndCommentDTO(sum, comment.trim());
+    }
+
+    /**
+     * Комментарий к единственной сумме в начале отделяется первым пробелом, перед которым
+     * могут стоять только управляющие символы; иначе - первым пробельным символом.
+     */
+    private int getCommentSeparator(String transaction, int from) {
+        int position = from;
+        while (position < transaction.length() && transaction.charAt(position) < SPACE) {
+            position++;
+        }
+        return position < transaction.length() && transaction.charAt(position) == SPACE ? position : from;
+    }
+
+    private boolean isFollowedByComment(String transaction, Tokens tokens, int whitespace) {
+        if (tokens.length(whitespace) > 1) {
+            return true;
+        }
+        int next = whitespace + 1;
+        if (next >= tokens.size || tokens.type[next] == PLUS_SIGN) {
+            return false;
+        }
+        return tokens.type[next] == NUMBER || isCommentCodePoint(transaction.codePointAt(tokens.start[next]));
+    }
+
+    private boolean isPrecededByComment(String transaction, Tokens tokens, int whitespace) {
+        if (tokens.length(whitespace) > 1) {
+            return true;
+        }
+        int previous = whitespace - 1;
+        if (previous < 0 || tokens.type[previous] == PLUS_SIGN) {
+            return false;
+        }
+        return tokens.type[previous] == NUMBER || isCommentCodePoint(transaction.codePointBefore(tokens.end[previous]));
+    }
+
+    private double sumNumbers(String transaction, Tokens tokens, int[] numbers, int count) {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += parseNumber(transaction, tokens, numbers[i]);
+        }
+        return sum;
+    }
+
+    private double parseNumber(String transaction, Tokens tokens, int token) {
+        return Double.parseDouble(transaction.substring(tokens.start[token], tokens.end[token])
+                .replace(RU_DECIMAL_DELIMITER, EN_DECIMAL_DELIMITER));
+    }
+
+    private int skip(Tokens tokens, int token, byte type) {
+        return tokens.isType(token, type) ? token + 1 : token;
+    }
+
+    private int skipBack(Tokens tokens, int token, byte type) {
+        return tokens.isType(token, type) ? token - 1 : token;
+    }
+
+    private int[] ensureCapacity(int[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+
+    /**
+     * Символ конца строки в самом конце сообщения не мешает сумме считаться последней
+     * (так же, как якорь "$" в регулярных выражениях).
+     */
+    private int getEndBeforeFinalLineTerminator(String transaction) {
+        int length = transaction.length();
+        if (length == 0) {
+            return length;
+        }
+        char last = transaction.charAt(length - 1);
+        if (last == '\n') {
+            return length > 1 && transaction.charAt(length - 2) == '\r' ? length - 2 : length - 1;
+        }
+        if (last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029') {
+            return length - 1;
+        }
+        return length;
+    }
+
+    private Tokens tokenize(String transaction, int length) {
+        Tokens tokens = new Tokens(length);
+        int position = 0;
+        while (position < length) {
+            char c = transaction.charAt(position);
+            int tokenEnd = position + 1;
+            if (isWhitespace(c)) {
+                while (tokenEnd < length && isWhitespace(transaction.charAt(tokenEnd))) {
+                    tokenEnd++;
+                }
+                tokens.add(WHITESPACE, position, tokenEnd);
+            } else if (c == PLUS) {
+                tokens.add(PLUS_SIGN, position, tokenEnd);
+            } else {
+                while (tokenEnd < length && !isWhitespace(transaction.charAt(tokenEnd))
+                        && transaction.charAt(tokenEnd) != PLUS) {
+                    tokenEnd++;
+                }
+                tokens.add(isNumber(transaction, position, tokenEnd) ? NUMBER : WORD, position, tokenEnd);
+            }
+            position = tokenEnd;
+        }
+        return tokens;
+    }
+
+    /**
+     * Число в формате "200", "200.5", "200,5", ".5" или ",5".
+     */
+    private boolean isNumber(String transaction, int start, int end) {
+        boolean hasDelimiter = false;
+        for (int i = start; i < end; i++) {
+            char c = transaction.charAt(i);
+            if (c == RU_DECIMAL_DELIMITER || c == EN_DECIMAL_DELIMITER) {
+                if (hasDelimiter) {
+                    return false;
+                }
+                hasDelimiter = true;
+            } else if (!isDigit(c)) {
+                return false;
+            }
+        }
+        return isDigit(transaction.charAt(end - 1));
+    }
+
+    private boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Допустимые символы комментария: латиница, кириллица (без "ё"), цифры, знаки препинания и пробельные символы.
+     */
+    private boolean isCommentCodePoint(int codePoint) {
+        if (codePoint >= 'a' && codePoint <= 'z' || codePoint >= 'A' && codePoint <= 'Z'
+                || codePoint >= CYRILLIC_FIRST && codePoint <= CYRILLIC_LAST
+                || isDigit(codePoint) || isWhitespace(codePoint)) {
+            return true;
+        }
+        switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static class Tokens {
+        private byte[] type;
+        private int[] start;
+        private int[] end;
+        private int size;
+
+        Tokens(int length) {
+            int capacity = Math.max(4, Math.min(length, 16));
+            type = new byte[capacity];
+            start = new int[capacity];
+            end = new int[capacity];
+        }
+
+        void add(byte tokenType, int tokenStart, int tokenEnd) {
+            if (size == type.length) {
+                type = Arrays.copyOf(type, size * 2);
+                start = Arrays.copyOf(start, size * 2);
+                end = Arrays.copyOf(end, size * 2);
+            }
+            type[size] = tokenType;
+            start[size] = tokenStart;
+            end[size] = tokenEnd;
+            size++;
+        }
+
+        boolean isType(int token, byte tokenType) {
+            return token >= 0 && token < size && type[token] == tokenType;
+        }
+
+        int length(int token) {
+            return end[token] - start[token];
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.override.orchestrator_service.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class AfterCommitUtils {
+
+    /**
+     * Выполняет действие после коммита текущей транзакции БД, а вне транзакции - сразу.
+     * При откате транзакции действие не выполняется
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.override.orchestrator_service.util;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Накапливает суммы по категориям и месяцам года за один проход по строкам отчета.
+ * Суммы категории хранятся в массиве из 12 элементов (индекс - номер месяца минус один),
+ * итоги по месяцам и доли категорий считаются по этим массивам без повторных проходов по строкам.
+ * Категории различаются по названию, порядок их обхода совпадает с порядком обхода {@link HashMap}
+ */
+public class MonthlyAmountsAggregator {
+
+    public static final int MONTHS_COUNT = 12;
+
+    private final Map<String, CategoryAmounts> categories = new HashMap<>();
+
+    /**
+     * Добавляет сумму к месяцу категории. Строки без суммы или с номером месяца вне 1..12 пропускаются
+     *
+     * @param categoryId идентификатор категории, при нескольких строках категории сохраняется последний
+     */
+    public void add(String categoryName, Integer categoryId, Integer month, Double amount) {
+        CategoryAmounts categoryAmounts = categories.get(categoryName);
+        if (categoryAmounts == null) {
+            // не computeIfAbsent: он добавляет ключ в начало корзины, и порядок обхода отличался бы от HashSet
+            categoryAmounts = new CategoryAmounts(categoryName);
+            categories.put(categoryName, categoryAmounts);
+        }
+        categoryAmounts.categoryId = categoryId;
+        if (amount == null || month == null || month < 1 || month > MONTHS_COUNT) {
+            return;
+        }
+        categoryAmounts.amounts[month - 1] += amount;
+    }
+
+    /**
+     * Округляет накопленные суммы до копеек, см. {@link NumericalUtils#roundAmount(Double)}
+     */
+    public void roundAmounts() {
+        for (CategoryAmounts categoryAmounts : categories.values()) {
+            double[] amounts = categoryAmounts.amounts;
+            for (int i = 0; i < MONTHS_COUNT; i++) {
+                amounts[i] = NumericalUtils.roundAmount(amounts[i]);
+            }
+        }
+    }
+
+    public Collection<CategoryAmounts> getCategories() {
+        return categories.values();
+    }
+
+    /**
+     * @return сумма всех категорий по каждому месяцу
+     */
+    public double[] getMonthTotals() {
+        double[] totals = new double[MONTHS_COUNT];
+        for (CategoryAmounts categoryAmounts : categories.values()) {
+            for (int i = 0; i < MONTHS_COUNT; i++) {
+                totals[i] += categoryAmounts.amounts[i];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Доля категории в расходах каждого месяца. Для месяцев без расходов категории доля равна сумме, то есть нулю
+     *
+     * @param monthTotals итоги по месяцам, см. {@link #getMonthTotals()}
+     */
+    public static double[] getShares(double[] amounts, double[] monthTotals) {
+        double[] shares = new double[MONTHS_COUNT];
+        for (int i = 0; i < MONTHS_COUNT; i++) {
+            double amount = amounts[i];
+            shares[i] = amount != 0 ? 1 - ((monthTotals[i] - amount) / monthTotals[i]) : amount;
+        }
+        return shares;
+    }
+
+    /**
+     * @return номер месяца (с единицы) - значение, по ключу на каждый месяц года
+     */
+    public static Map<Integer, Double> toMonthMap(double[] values) {
+        Map<Integer, Double> monthMap = new HashMap<>();
+        for (int i = 0; i < MONTHS_COUNT; i++) {
+            monthMap.put(i + 1, values[i]);
+        }
+        return monthMap;
+    }
+
+    @Getter
+    public static class CategoryAmounts {
+        private final String categoryName;
+        private Integer categoryId;
+        private final double[] amounts = new double[MONTHS_COUNT];
+
+        private CategoryAmounts(String categoryName) {
+            this.categoryName = categoryName;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 let pageSize = 50;
-let pageNumber = 0;
+let nextCursor = null;
+let lastPageLoaded = false;
 let working = false;
 let options = [];
 let categoryNow;
@@ -10,7 +11,7 @@ $(document).ready(function () {
 
 $(window).scroll(function () {
     if ($(window).scrollTop() >= $(document).height() - $(window).height() - 10) {
-        if (working === false) {
+        if (working === false && lastPageLoaded === false) {
             working = true;
             getTransactions();
         }
@@ -20,11 +21,14 @@ $(window).scroll(function () {
 function getTransactions() {
     $.ajax({
         type: "GET",
-        url: "./transactions/history?pageSize=" + pageSize + "&pageNumber=" + pageNumber,
+        url: "./transactions/history/cursor?pageSize=" + pageSize
+            + (nextCursor === null ? "" : "&cursor=" + encodeURIComponent(nextCursor)),
         contentType: "application/json; charset=utf8",
         async: false,
         success: function (data) {
-            prepareAndDraw(data);
+            nextCursor = data.nextCursor === undefined ? null : data.nextCursor;
+            lastPageLoaded = nextCursor === null;
+            prepareAndDraw(data.transactions);
             working = false;
         },
         error: function () {
@@ -47,7 +51,6 @@ function prepareAndDraw(data) {
     }
 
     drawTable(transactionsData)
-    pageNumber++;
 }
 
 function drawTable(data) {
@@ -5,7 +5,7 @@ window.onload = function () {
     getUndefinedTransactionsData();
     getCategoriesData();
     drawEmptyCircleForModal();
-    setInterval(checkUserIsActive, timeout / 2);
+    subscribeToTransactionChanges();
     let toast = toastr["success"]("Загрузка нераспознанных транзакций");
     toastr.options = {
         "closeButton": false,
@@ -38,95 +38,80 @@ function setMaxSingleTransactionAmount(value) {
 function getMaxSingleTransactionAmount() {
     return maxSingleTransactionAmount;
 }
-// ---- НАЧАЛО РАБОТЫ С LONG POLLING ----
+// ---- НАЧАЛО РАБОТЫ С ЛЕНТОЙ ИЗМЕНЕНИЙ ТРАНЗАКЦИЙ ----
 
-let fibonacciCounter = fibonacci();
-let getNewUndefinedTransactions = false;
-let timer;
-let timeout = getPeriodOfInactivity();
-let lastActiveTimestamp = 0;
-let userIsActive = false;
+let transactionChangesConnected = false;
 
-window.addEventListener('mousemove', active, true);
-window.addEventListener('keypress', active, true);
-window.addEventListener('click', active, true);
-window.addEventListener('ontouchstart', active, true);
-window.addEventListener('ontouchmove', active, true);
-window.addEventListener('scroll', active, true);
-
-
-function fibonacci() {
-    let fibonacciInner = [1, 1];
-
-    return {
-        getNext: function() {
-            let lastNumber = fibonacciInner[1];
-            fibonacciInner[1] = fibonacciInner[0] + fibonacciInner[1];
-            fibonacciInner[0] = lastNumber;
-            return fibonacciInner[1];
-        },
-        get: function() {
-            return fibonacciInner[1];
-        },
-        set: function (array) {
-            if (array.length === 2) {
-                fibonacciInner = array;
-            } else {
-                console.log('некорректноей длины передали массив ы fibonacci.set(array)');
-            }
-        },
-        reset: function() {
-            fibonacciInner = [1, 1];
+function subscribeToTransactionChanges() {
+    if (!window.EventSource) {
+        console.log('Браузер не поддерживает EventSource, нераспознанные транзакции не будут обновляться');
+        return;
+    }
+    let transactionChanges = new EventSource('./transactions/events');
+    transactionChanges.onopen = function () {
+        if (transactionChangesConnected) {
+            // пока соединения не было, часть изменений могла быть пропущена
+            getUndefinedTransactionsData();
         }
+        transactionChangesConnected = true;
     };
-}
-
-function checkUserIsActive() {
-    if (userIsActive && new Date().getTime() - lastActiveTimestamp > timeout){
-        userIsActive = false;
-        fibonacciCounter.reset();
+    transactionChanges.addEventListener('CREATED', event => applyTransactionChange(JSON.parse(event.data)));
+    transactionChanges.addEventListener('UPDATED', event => applyTransactionChange(JSON.parse(event.data)));
+    transactionChanges.addEventListener('DELETED', event => removeUndefinedCircle(JSON.parse(event.data).transactionId));
+    transactionChanges.addEventListener('CATEGORIZED', event => removeUndefinedCirclesByComment(JSON.parse(event.data).message));
+    transactionChanges.addEventListener('UNCATEGORIZED', () => getUndefinedTransactionsData());
+    transactionChanges.addEventListener('RELOAD', () => getUndefinedTransactionsData());
+}
+
+function applyTransactionChange(change) {
+    let transaction = change.transaction;
+    if (transaction.categoryName) {
+        removeUndefinedCircle(transaction.id);
+        return;
     }
-}
-
-function active() {
-    lastActiveTimestamp = new Date().getTime();
-    if (!userIsActive) {
-        userIsActive = true;
+    let circle = document.getElementById(transaction.id);
+    if (circle) {
+        circle.dataset.comment = transaction.message;
+        circle.dataset.amount = transaction.amount;
+        circle.dataset.suggestedCategoryId = transaction.suggestedCategoryId;
+        circle.innerText = transaction.message + '\n' + transaction.amount;
+        setCircleDimensions(circle, transaction.amount, getMaxSingleTransactionAmount());
+        return;
     }
-    idleLongPolling();
+    if (!(getMaxSingleTransactionAmount() >= transaction.amount)) {
+        setMaxSingleTransactionAmount(transaction.amount);
+    }
+    drawCircle({
+        "id": transaction.id,
+        "comment": transaction.message,
+        "amount": transaction.amount,
+        "suggestedCategoryId": transaction.suggestedCategoryId
+    });
+    let newCircle = document.getElementById(transaction.id);
+    newCircle.addEventListener('dragstart', handleDragStart);
+    newCircle.addEventListener('dragend', handleDragEnd);
 }
 
-function idleLongPolling() {
-    if (!getNewUndefinedTransactions) {
-        clearTimeout(timer);
-        let timeDelay = fibonacciCounter.getNext() * 1000;
-        timer = setTimeout(getUndefinedTransactionsData, timeDelay);
-        getNewUndefinedTransactions = true;
+function removeUndefinedCircle(transactionId) {
+    let circle = document.getElementById(transactionId);
+    if (circle && circle.classList.contains('undefined-circle')) {
+        circle.remove();
     }
 }
 
-function getPeriodOfInactivity() {
-    let periodOfInactivity;
-    $.ajax({
-        method: 'GET',
-        url: './properties/longPolling',
-        contentType: "application/json; charset=utf8",
-        async: false,
-        success: function (data) {
-            periodOfInactivity = data;
-        },
-        error: function () {
-            console.log("Ошибка получения данных для long polling");
+function removeUndefinedCirclesByComment(comment) {
+    document.querySelectorAll('.undefined-circle').forEach(circle => {
+        if (circle.dataset.comment === comment) {
+            circle.remove();
         }
-    })
-    return periodOfInactivity;
+    });
 }
 
 function checkAvailability(arr, val) {
     return arr.some(arrVal => val === arrVal);
 }
 
-// ---- КОНЕЦ РАБОТЫ С LONG POLLING ----
+// ---- КОНЕЦ РАБОТЫ С ЛЕНТОЙ ИЗМЕНЕНИЙ ТРАНЗАКЦИЙ ----
 
 function getUndefinedTransactionsData() {
     $.ajax({
@@ -173,7 +158,6 @@ function getUndefinedTransactionsData() {
                     circle.addEventListener('dragend', handleDragEnd);
                 });
             }
-            getNewUndefinedTransactions = false;
         },
         error: function () {
             registerAccount()
@@ -0,0 +1,134 @@
+package com.override.orchestrator_service;
+
+import com.opentable.db.postgres.embedded.EmbeddedPostgres;
+import com.override.dto.CategoryDTO;
+import com.override.dto.constants.Type;
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.KeywordId;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.repository.CategoryRepository;
+import com.override.orchestrator_service.repository.KeywordRepository;
+import com.override.orchestrator_service.repository.OverMoneyAccountRepository;
+import com.override.orchestrator_service.service.CategorizationIndexService;
+import com.override.orchestrator_service.service.CategoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@SpringBootTest(classes = OrchestratorServiceApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestPropertySource(locations = "classpath:application-test.yml")
+@Slf4j
+public class CategoryQueryCountTest {
+    private static int pgPort = 8123;
+    private static EmbeddedPostgres pg = null;
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private CategorizationIndexService categorizationIndexService;
+    @Autowired
+    private OverMoneyAccountRepository overMoneyAccountRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private KeywordRepository keywordRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeAll
+    public static void initPostgresDatabase() {
+        try {
+            pg = EmbeddedPostgres.builder()
+                    .setPort(pgPort)
+                    .start();
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void deleteAccounts() {
+        accountIds.forEach(accountId -> {
+            keywordRepository.deleteAllByKeywordId_AccountId(accountId);
+            categoryRepository.deleteAllByAccountId(accountId);
+            overMoneyAccountRepository.deleteById(accountId);
+        });
+    }
+
+    @Test
+    @DisplayName("Категории с ключевыми словами загружаются числом запросов, не зависящим от числа категорий")
+    void findCategoriesListByAccountIdExecutesConstantNumberOfQueries() {
+        long smallAccountQueries = countCategoriesQueries(createAccount(1, 1), 1, 1);
+        long largeAccountQueries = countCategoriesQueries(createAccount(20, 5), 20, 5);
+
+        assertEquals(1, smallAccountQueries);
+        assertEquals(smallAccountQueries, largeAccountQueries);
+    }
+
+    @Test
+    @DisplayName("Индекс распознавания категорий строится числом запросов, не зависящим от числа категорий")
+    void findCategoryBuildsIndexWithConstantNumberOfQueries() {
+        long smallAccountQueries = countIndexQueries(createAccount(1, 1));
+        long largeAccountQueries = countIndexQueries(createAccount(20, 5));
+
+        assertEquals(1, smallAccountQueries);
+        assertEquals(smallAccountQueries, largeAccountQueries);
+    }
+
+    private long countIndexQueries(Long accountId) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Category category = categorizationIndexService.findCategory(accountId, "слово 0 0");
+
+        long queries = statistics.getPrepareStatementCount();
+        assertEquals("категория 0", category.getName());
+        return queries;
+    }
+
+    private long countCategoriesQueries(Long accountId, int categoriesCount, int keywordsPerCategory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<CategoryDTO> categories = categoryService.findCategoriesListByAccountId(accountId);
+
+        long queries = statistics.getPrepareStatementCount();
+        assertEquals(categoriesCount, categories.size());
+        categories.forEach(category -> assertEquals(keywordsPerCategory, category.getKeywords().size()));
+        return queries;
+    }
+
+    private Long createAccount(int categoriesCount, int keywordsPerCategory) {
+        OverMoneyAccount account = overMoneyAccountRepository.save(OverMoneyAccount.builder()
+                .chatId(-ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE))
+                .build());
+        accountIds.add(account.getId());
+        for (int i = 0; i < categoriesCount; i++) {
+            Category category = categoryRepository.save(new Category("категория " + i, Type.EXPENSE, account));
+            for (int j = 0; j < keywordsPerCategory; j++) {
+                keywordRepository.save(new Keyword(new KeywordId("слово " + i + " " + j, account.getId()), category));
+            }
+        }
+        return account.getId();
+    }
+}
@@ -0,0 +1,129 @@
+package com.override.orchestrator_service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opentable.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что частые запросы к транзакциям, категориям и ключевым словам могут выполняться по индексам.
+ * Планы строятся с отключенными последовательным и обычным индексным сканированием: на маленькой тестовой БД
+ * планировщик выбрал бы их и при наличии подходящего индекса, а выбор между ними зависит от статистики,
+ * оставшейся после других тестов. Bitmap сканирование возможно только по условию на индекс, поэтому без подходящего
+ * индекса в плане остается последовательное сканирование, оно считается ошибкой, как и узел сканирования индекса
+ * без Index Cond.
+ * SQL повторяет запросы репозиториев, при их изменении запрос здесь нужно обновить
+ */
+@ActiveProfiles("test")
+@SpringBootTest(classes = OrchestratorServiceApplication.class)
+@TestPropertySource(locations = "classpath:application-test.yml")
+@Slf4j
+public class QueryPlanTest {
+    private static int pgPort = 8123;
+    private static EmbeddedPostgres pg = null;
+
+    private static final Set<String> INDEX_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    public static void initPostgresDatabase() {
+        try {
+            pg = EmbeddedPostgres.builder()
+                    .setPort(pgPort)
+                    .start();
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideHotQueries")
+    @DisplayName("Частые запросы не выполняются последовательным сканированием таблиц")
+    void hotQueryDoesNotUseSequentialScan(String name, String sql) throws IOException {
+        String plan = explain(sql);
+        List<String> fullScans = new ArrayList<>();
+        collectFullScans(objectMapper.readTree(plan).get(0).get("Plan"), fullScans);
+        assertTrue(fullScans.isEmpty(), name + " читает таблицы целиком " + fullScans + ":\n" + plan);
+    }
+
+    private void collectFullScans(JsonNode node, List<String> fullScans) {
+        String nodeType = node.path("Node Type").asText();
+        if (nodeType.equals("Seq Scan") || INDEX_SCANS.contains(nodeType) && !node.has("Index Cond")) {
+            fullScans.add(nodeType + " " + node.path("Relation Name").asText(node.path("Index Name").asText()));
+        }
+        node.path("Plans").forEach(child -> collectFullScans(child, fullScans));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                statement.execute("SET enable_indexscan = off");
+                statement.execute("SET enable_indexonlyscan = off");
+                try (ResultSet resultSet = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                    statement.execute("RESET enable_indexscan");
+                    statement.execute("RESET enable_indexonlyscan");
+                }
+            }
+        });
+    }
+
+    private static Stream<Arguments> provideHotQueries() {
+        return Stream.of(
+                Arguments.of("TransactionRepository.findTransactionsBetweenDatesAndCategory",
+                        "SELECT * FROM transactions t WHERE t.category_id = 1 " +
+                                "AND t.date >= '2024-01-01' AND t.date < '2024-02-01' ORDER BY t.date"),
+                Arguments.of("TransactionRepository.findAllWithoutCategoriesByAccountId",
+                        "SELECT * FROM transactions t WHERE t.account_id = 1 AND t.category_id IS NULL"),
+                Arguments.of("TransactionRepository.updateCategoryIdWhereCategoryIsNull",
+                        "UPDATE transactions SET category_id = 2 " +
+                                "WHERE account_id = 1 AND category_id IS NULL AND message = 'пиво'"),
+                Arguments.of("TransactionRepository.updateCategoryId",
+                        "UPDATE transactions SET category_id = 2 WHERE category_id = 1"),
+                Arguments.of("TransactionRepository.findHistoryFirstPage",
+                        "SELECT * FROM transactions t WHERE t.account_id = 1 ORDER BY t.date DESC, t.id LIMIT 51"),
+                Arguments.of("OverMoneyAccountRepository.findActiveAccountCount",
+                        "SELECT COUNT(DISTINCT a.id) FROM accounts a WHERE a.id IN " +
+                                "(SELECT DISTINCT t.account_id FROM transactions t WHERE t.date >= '2024-01-01')"),
+                Arguments.of("CategoryRepository.findAllWithKeywordsByAccountId",
+                        "SELECT DISTINCT c.*, k.* FROM categories c LEFT JOIN keywords k ON k.category_id = c.id " +
+                                "WHERE c.account_id = 1"),
+                Arguments.of("KeywordRepository.updateCategoryId",
+                        "UPDATE keywords SET category_id = 2 WHERE category_id = 1"),
+                Arguments.of("KeywordRepository.findAllByOverMoneyAccount",
+                        "SELECT * FROM keywords k WHERE k.account_id = 1"),
+                Arguments.of("UserRepository: пользователи аккаунта",
+                        "SELECT * FROM users u WHERE u.account_id = 1")
+        );
+    }
+}
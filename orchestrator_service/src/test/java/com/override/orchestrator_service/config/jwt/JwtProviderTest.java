@@ -0,0 +1,77 @@
+package com.override.orchestrator_service.config.jwt;
+
+import com.override.orchestrator_service.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtProviderTest {
+
+    private final String accessSecret = Base64.getEncoder()
+            .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    private final String refreshSecret = Base64.getEncoder()
+            .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+
+    private JwtProvider jwtProvider;
+
+    @BeforeEach
+    public void init() {
+        jwtProvider = new JwtProvider(accessSecret, refreshSecret);
+        ReflectionTestUtils.setField(jwtProvider, "tokenLifeTimeInHours", 1);
+    }
+
+    @Test
+    public void getVerifiedAccessClaimsReturnsCachedClaimsForSameToken() {
+        String token = jwtProvider.generateAccessToken(createUser());
+
+        Claims claims = jwtProvider.getVerifiedAccessClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("1", claims.getSubject());
+        assertEquals("username", claims.get("username", String.class));
+        assertSame(claims, jwtProvider.getVerifiedAccessClaims(token));
+        assertTrue(jwtProvider.validateAccessToken(token));
+    }
+
+    @Test
+    public void getVerifiedAccessClaimsReturnsNullForInvalidToken() {
+        String token = jwtProvider.generateAccessToken(createUser());
+        String refreshToken = jwtProvider.generateRefreshToken(createUser());
+        String tamperedToken = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(jwtProvider.getVerifiedAccessClaims(tamperedToken));
+        assertNull(jwtProvider.getVerifiedAccessClaims(refreshToken));
+        assertNull(jwtProvider.getVerifiedAccessClaims("token"));
+        assertFalse(jwtProvider.validateAccessToken(tamperedToken));
+        assertTrue(jwtProvider.validateRefreshToken(refreshToken));
+    }
+
+    @Test
+    public void getVerifiedAccessClaimsReturnsNullForExpiredToken() {
+        String token = Jwts.builder()
+                .setSubject("1")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(accessSecret)))
+                .compact();
+
+        assertNull(jwtProvider.getVerifiedAccessClaims(token));
+        assertNull(jwtProvider.getVerifiedAccessClaims(token));
+    }
+
+    private User createUser() {
+        return User.builder()
+                .id(1L)
+                .firstName("firstName")
+                .username("username")
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.override.orchestrator_service.repository;
+
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.KeywordId;
+import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BackupRestoreRepositoryTest {
+
+    @InjectMocks
+    private BackupRestoreRepository backupRestoreRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void deleteAccountDataDeletesKeywordsTransactionsAndCategoriesTest() {
+        backupRestoreRepository.deleteAccountData(1L);
+
+        verify(jdbcTemplate).update("DELETE FROM keywords WHERE account_id = ?", 1L);
+        verify(jdbcTemplate).update("DELETE FROM transactions WHERE account_id = ?", 1L);
+        verify(jdbcTemplate).update("DELETE FROM categories WHERE account_id = ?", 1L);
+    }
+
+    @Test
+    public void insertCategoriesSetsGeneratedIdsTest() throws SQLException {
+        Category first = TestFieldsUtil.generateTestCategory();
+        Category second = TestFieldsUtil.generateTestCategory();
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet generatedKeys = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString(), any(String[].class))).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(generatedKeys);
+        when(generatedKeys.next()).thenReturn(true);
+        when(generatedKeys.getLong(1)).thenReturn(10L, 11L);
+
+        backupRestoreRepository.insertCategories(List.of(first, second));
+
+        ArgumentCaptor<ConnectionCallback<Void>> callbackCaptor = ArgumentCaptor.forClass(ConnectionCallback.class);
+        verify(jdbcTemplate).execute(callbackCaptor.capture());
+        callbackCaptor.getValue().doInConnection(connection);
+        verify(statement, times(2)).addBatch();
+        verify(statement, times(2)).setObject(2, 1, Types.INTEGER);
+        verify(statement).executeBatch();
+        Assertions.assertEquals(10L, first.getId());
+        Assertions.assertEquals(11L, second.getId());
+    }
+
+    @Test
+    public void insertCategoriesSkipsEmptyListTest() {
+        backupRestoreRepository.insertCategories(List.of());
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    public void insertKeywordsWritesKeywordInBatchTest() throws SQLException {
+        Category category = TestFieldsUtil.generateTestCategory();
+        Keyword keyword = Keyword.builder().keywordId(new KeywordId("пиво", 1L)).category(category).build();
+        PreparedStatement statement = mock(PreparedStatement.class);
+
+        backupRestoreRepository.insertKeywords(List.of(keyword));
+
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Keyword>> setterCaptor =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of(keyword)), eq(1), setterCaptor.capture());
+        setterCaptor.getValue().setValues(statement, keyword);
+        verify(statement).setLong(1, 1L);
+        verify(statement).setString(2, "пиво");
+        verify(statement).setLong(3, category.getId());
+    }
+
+    @Test
+    public void insertTransactionsGeneratesIdsAndWritesNullableColumnsTest() throws SQLException {
+        LocalDateTime date = LocalDateTime.of(2023, 1, 1, 10, 0);
+        Transaction transaction = Transaction.builder()
+                .message("пиво")
+                .amount(100d)
+                .date(date)
+                .account(TestFieldsUtil.generateTestAccount())
+                .build();
+        PreparedStatement statement = mock(PreparedStatement.class);
+
+        backupRestoreRepository.insertTransactions(List.of(transaction));
+
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Transaction>> setterCaptor =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of(transaction)), eq(1), setterCaptor.capture());
+        setterCaptor.getValue().setValues(statement, transaction);
+        Assertions.assertNotNull(transaction.getId());
+        verify(statement).setObject(1, transaction.getId());
+        verify(statement).setObject(3, null, Types.BIGINT);
+        verify(statement).setTimestamp(5, Timestamp.valueOf(date));
+        verify(statement).setObject(7, null, Types.BIGINT);
+    }
+}
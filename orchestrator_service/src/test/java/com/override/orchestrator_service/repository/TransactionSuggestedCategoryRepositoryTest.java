@@ -0,0 +1,97 @@
+package com.override.orchestrator_service.repository;
+
+import com.override.dto.CategorySuggestionDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionSuggestedCategoryRepositoryTest {
+
+    @InjectMocks
+    private TransactionSuggestedCategoryRepository transactionSuggestedCategoryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void updateSuggestedCategoryIdsUpdatesAllTransactionsWithOneStatementTest() throws SQLException {
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Array transactionIds = mock(Array.class);
+        Array categoryIds = mock(Array.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(eq("uuid"), any())).thenReturn(transactionIds);
+        when(connection.createArrayOf(eq("bigint"), any())).thenReturn(categoryIds);
+        when(statement.executeUpdate()).thenReturn(2);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Integer>>getArgument(0)
+                        .doInConnection(connection));
+
+        int updated = transactionSuggestedCategoryRepository.updateSuggestedCategoryIds(1L, List.of(
+                new CategorySuggestionDTO(firstId, 10L), new CategorySuggestionDTO(secondId, 11L)));
+
+        Assertions.assertEquals(2, updated);
+        ArgumentCaptor<Object[]> idsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(connection).createArrayOf(eq("uuid"), idsCaptor.capture());
+        Assertions.assertArrayEquals(new UUID[]{firstId, secondId}, idsCaptor.getValue());
+        verify(statement).setArray(1, transactionIds);
+        verify(statement).setArray(2, categoryIds);
+        verify(statement).setLong(3, 1L);
+    }
+
+    @Test
+    public void updateSuggestedCategoryIdsSkipsEmptyListTest() {
+        Assertions.assertEquals(0, transactionSuggestedCategoryRepository
+                .updateSuggestedCategoryIds(1L, Collections.emptyList()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void updateSuggestedCategoryIdsWithoutAccountChecksOnlyCategoryOwnerTest() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Integer>>getArgument(0)
+                        .doInConnection(connection));
+
+        int updated = transactionSuggestedCategoryRepository.updateSuggestedCategoryIds(
+                List.of(new CategorySuggestionDTO(UUID.randomUUID(), 10L)));
+
+        Assertions.assertEquals(1, updated);
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sqlCaptor.capture());
+        Assertions.assertTrue(sqlCaptor.getValue().contains("c.account_id = t.account_id"));
+        Assertions.assertFalse(sqlCaptor.getValue().contains("t.account_id = ?"));
+        verify(statement, never()).setLong(anyInt(), anyLong());
+    }
+}
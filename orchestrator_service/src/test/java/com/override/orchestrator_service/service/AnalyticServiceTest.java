@@ -1,12 +1,13 @@
 package com.override.orchestrator_service.service;
 
 import com.override.dto.AnalyticsDataDTO;
+import com.override.dto.AnalyticsDataMonthDTO;
 import com.override.dto.AnalyticsMonthlyReportForYearDTO;
 import com.override.dto.constants.Type;
 import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.User;
 import com.override.orchestrator_service.repository.CategoryRepository;
-import com.override.orchestrator_service.repository.TransactionRepository;
+import com.override.orchestrator_service.repository.TransactionMonthlyRollupRepository;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -42,7 +43,7 @@ public class AnalyticServiceTest {
     private TransactionService transactionService;
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private TransactionMonthlyRollupRepository transactionMonthlyRollupRepository;
 
     @Mock
     private UserService userService;
@@ -68,7 +69,7 @@ public class AnalyticServiceTest {
         when(categoryRepository.findMediumAmountOfAllCategoriesByAccIdAndType(acc.getId(), Type.EXPENSE))
                 .thenReturn(analyticsDataListTest);
 
-        when(accountService.getAccountByUserId(any())).thenReturn(acc);
+        when(accountService.getAccountIdByUserId(any())).thenReturn(acc.getId());
 
         analyticService.getTotalCategorySumsForAnalytics(123L, Type.EXPENSE);
         Assertions.assertEquals(categoryRepository.findMediumAmountOfAllCategoriesByAccIdAndType(acc.getId(), Type.EXPENSE).size(),
@@ -83,13 +84,13 @@ public class AnalyticServiceTest {
 
         List<Integer> listOfYears = List.of(2020, 2021, 2023);
 
-        when(transactionRepository.findAvailableYearsForAccountByAccountId(any()))
+        when(transactionMonthlyRollupRepository.findAvailableYearsByAccountId(any()))
                 .thenReturn(listOfYears);
         when(transactionService.findAvailableYears(any()))
                 .thenReturn(listOfYears);
-        when(accountService.getAccountByUserId(any())).thenReturn(acc);
+        when(accountService.getAccountIdByUserId(any())).thenReturn(acc.getId());
         analyticService.findAvailableYears(123L);
-        Assertions.assertEquals(transactionRepository.findAvailableYearsForAccountByAccountId(acc.getId()).size(),
+        Assertions.assertEquals(transactionMonthlyRollupRepository.findAvailableYearsByAccountId(acc.getId()).size(),
                 listOfYears.size());
     }
 
@@ -102,8 +103,8 @@ public class AnalyticServiceTest {
 
         when(transactionService.findMonthlyIncomeStatisticsForYearByAccountId(any(), any()))
                 .thenReturn(requeredList);
-        when(accountService.getAccountByUserId(any()))
-                .thenReturn(acc);
+        when(accountService.getAccountIdByUserId(any()))
+                .thenReturn(acc.getId());
 
         List<AnalyticsMonthlyReportForYearDTO> resultList = analyticService.findMonthlyIncomeStatisticsForYearByAccountId(123L, 123);
 
@@ -111,6 +112,22 @@ public class AnalyticServiceTest {
         Assertions.assertEquals(resultList, requeredList);
     }
 
+    @Test
+    public void getTotalIncomeOutcomePerMonthMapsRollupRows() throws InstanceNotFoundException {
+        OverMoneyAccount acc = TestFieldsUtil.generateTestAccount();
+        User testUser = TestFieldsUtil.generateTestUser();
+        testUser.setAccount(acc);
+        List<Object[]> rows = List.of(new Object[]{"January  ", 5000d, 320d}, new Object[]{"March    ", 0d, 100d});
+
+        when(userService.getAccountIdByUserId(123L)).thenReturn(acc.getId());
+        when(transactionMonthlyRollupRepository.findTotalIncomeOutcomePerMonth(acc.getId(), 2024)).thenReturn(rows);
+
+        List<AnalyticsDataMonthDTO> result = analyticService.getTotalIncomeOutcomePerMonth(123L, 2024);
+
+        Assertions.assertEquals(List.of(new AnalyticsDataMonthDTO("January  ", 5000d, 320d),
+                new AnalyticsDataMonthDTO("March    ", 0d, 100d)), result);
+    }
+
     private static Stream<Arguments> provideMonthlyIncomeStatisticsForYearByAccountId() {
         return Stream.of(
                 Arguments.of(TestFieldsUtil.generateTestListOfAnalyticsMonthlyReportForYearDTOWithNull()),
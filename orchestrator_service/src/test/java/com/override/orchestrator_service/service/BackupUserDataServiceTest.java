@@ -1,12 +1,23 @@
 package com.override.orchestrator_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.override.dto.BackupRestoreProgressDTO;
 import com.override.dto.BackupUserDataDTO;
 import com.override.dto.CategoryDTO;
+import com.override.dto.KeywordIdDTO;
 import com.override.dto.TransactionDTO;
+import com.override.dto.constants.BackupRestoreStage;
+import com.override.dto.constants.Type;
 import com.override.orchestrator_service.mapper.CategoryMapper;
+import com.override.orchestrator_service.mapper.TransactionMapper;
 import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
 import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.repository.BackupRestoreRepository;
+import com.override.orchestrator_service.repository.TransactionRepository;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -14,17 +25,23 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import javax.management.InstanceNotFoundException;
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 
@@ -39,109 +56,144 @@ public class BackupUserDataServiceTest {
     private TransactionService transactionService;
     @Mock
     private OverMoneyAccountService overMoneyAccountService;
-    @Mock
+    @Spy
     private CategoryMapper categoryMapper;
     @Mock
-    private TransactionProcessingService transactionProcessingService;
+    private CategorizationIndexService categorizationIndexService;
+    @Mock
+    private BackupRestoreRepository backupRestoreRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private TransactionMapper transactionMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     @Test
-    public void createBackupTest() throws InstanceNotFoundException {
-        BackupUserDataDTO backupUserDataDTO = TestFieldsUtil.generateTestBackupUserDataDTO();
-        List<CategoryDTO> categoryDTOList = new ArrayList<>();
-        CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
-        categoryDTOList.add(categoryDTO);
-        List<TransactionDTO> transactionDTOList = new ArrayList<>();
-        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
-        transactionDTOList.add(transactionDTO);
+    public void writingDataFromBackupFileTest() {
+        List<Transaction> transactionList = new ArrayList<>();
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        transactionList.add(transaction);
 
-        when(transactionService.findAlltransactionDTOForAcountByChatId(any())).thenReturn(transactionDTOList);
-        backupUserDataService.createBackup(any());
+        transactionService.saveAllTransactions(transactionList);
 
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().size(), transactionDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().size(), categoryDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().get(0).getMessage(), transactionDTOList.get(0).getMessage());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().get(0).getId(), categoryDTOList.get(0).getId());
+        verify(transactionService, times(1)).saveAllTransactions(transactionList);
     }
 
     @Test
-    public void createBackupRemovedUserDataTest() {
-        BackupUserDataDTO backupUserDataDTO = TestFieldsUtil.generateTestBackupUserDataDTO();
-        List<CategoryDTO> categoryDTOList = new ArrayList<>();
-        CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
-        categoryDTOList.add(categoryDTO);
+    public void writingDataFromBackupFileRestoresDataInBatchesTest() throws InstanceNotFoundException {
+        OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
+        CategoryDTO products = TestFieldsUtil.generateTestCategoryDTO();
+        CategoryDTO taxi = CategoryDTO.builder().name("такси").type(Type.EXPENSE)
+                .keywords(List.of(KeywordIdDTO.builder().name("яндекс").build(),
+                        KeywordIdDTO.builder().name("Тест").build()))
+                .build();
         List<TransactionDTO> transactionDTOList = new ArrayList<>();
-        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
-        transactionDTOList.add(transactionDTO);
-
-        when(transactionService.findAlltransactionDTOForAcountByChatId(any())).thenReturn(transactionDTOList);
-        backupUserDataService.createBackupRemovedUserData(any());
-
-
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().size(), transactionDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().size(), categoryDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().get(0).getMessage(), transactionDTOList.get(0).getMessage());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().get(0).getId(), categoryDTOList.get(0).getId());
+        for (int i = 0; i < 1001; i++) {
+            transactionDTOList.add(TestFieldsUtil.generateTestTransactionDTO());
+        }
+        transactionDTOList.get(1).setCategoryName("Такси");
+        transactionDTOList.get(2).setCategoryName(null);
+        BackupUserDataDTO backupUserDataDTO = BackupUserDataDTO.builder()
+                .categoryDTOList(List.of(products, taxi))
+                .transactionDTOList(transactionDTOList)
+                .build();
+        when(overMoneyAccountService.getNewAccount(1L)).thenReturn(overMoneyAccount);
+
+        backupUserDataService.writingDataFromBackupFile(backupUserDataDTO, 1L);
+
+        InOrder inOrder = inOrder(backupRestoreRepository);
+        inOrder.verify(backupRestoreRepository).deleteAccountData(overMoneyAccount.getId());
+        ArgumentCaptor<List<Category>> categoriesCaptor = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(backupRestoreRepository).insertCategories(categoriesCaptor.capture());
+        ArgumentCaptor<List<Keyword>> keywordsCaptor = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(backupRestoreRepository).insertKeywords(keywordsCaptor.capture());
+        ArgumentCaptor<List<Transaction>> transactionsCaptor = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(backupRestoreRepository, times(2)).insertTransactions(transactionsCaptor.capture());
+
+        List<Category> categories = categoriesCaptor.getValue();
+        Assertions.assertEquals(List.of("Продукты", "Такси"),
+                categories.stream().map(Category::getName).collect(Collectors.toList()));
+        List<Keyword> keywords = keywordsCaptor.getValue();
+        Assertions.assertEquals(2, keywords.size());
+        Assertions.assertEquals("Тест", keywords.get(0).getKeywordId().getName());
+        Assertions.assertSame(categories.get(1), keywords.get(0).getCategory());
+        Assertions.assertEquals(overMoneyAccount.getId(), keywords.get(1).getKeywordId().getAccountId());
+
+        List<Transaction> firstBatch = transactionsCaptor.getAllValues().get(0);
+        Assertions.assertEquals(1000, firstBatch.size());
+        Assertions.assertEquals(1, transactionsCaptor.getAllValues().get(1).size());
+        Assertions.assertSame(categories.get(0), firstBatch.get(0).getCategory());
+        Assertions.assertSame(categories.get(1), firstBatch.get(1).getCategory());
+        Assertions.assertNull(firstBatch.get(2).getCategory());
+        Assertions.assertEquals(1L, firstBatch.get(0).getTelegramUserId());
+        verify(categorizationIndexService).invalidateAccount(overMoneyAccount.getId());
+
+        BackupRestoreProgressDTO progress = backupUserDataService.getRestoreProgress(1L);
+        Assertions.assertEquals(BackupRestoreStage.COMPLETED, progress.getStage());
+        Assertions.assertEquals(1001, progress.getTotalTransactions());
+        Assertions.assertEquals(1001, progress.getRestoredTransactions());
     }
 
     @Test
-    public void createBackupUserDataTest() throws InstanceNotFoundException {
-        BackupUserDataDTO backupUserDataDTO = TestFieldsUtil.generateTestBackupUserDataDTO();
-        List<CategoryDTO> categoryDTOList = new ArrayList<>();
-        CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
-        categoryDTOList.add(categoryDTO);
-        List<TransactionDTO> transactionDTOList = new ArrayList<>();
-        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
-        transactionDTOList.add(transactionDTO);
-        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
-
-        when(transactionService.findAlltransactionDTOForAcountByChatId(any())).thenReturn(transactionDTOList);
-        when(overMoneyAccountService.getAccountByUserId(any())).thenReturn(account);
-        backupUserDataService.createBackupUserData(any());
-
+    public void writingDataFromBackupFileMarksProgressAsFailedTest() {
+        OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
+        BackupUserDataDTO backupUserDataDTO = BackupUserDataDTO.builder()
+                .categoryDTOList(List.of(TestFieldsUtil.generateTestCategoryDTO()))
+                .transactionDTOList(List.of(TestFieldsUtil.generateTestTransactionDTO()))
+                .build();
+        when(overMoneyAccountService.getNewAccount(1L)).thenReturn(overMoneyAccount);
+        doThrow(new DataIntegrityViolationException("amount")).when(backupRestoreRepository).insertTransactions(any());
+
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> backupUserDataService.writingDataFromBackupFile(backupUserDataDTO, 1L));
+
+        Assertions.assertDoesNotThrow(() -> Assertions.assertEquals(BackupRestoreStage.FAILED,
+                backupUserDataService.getRestoreProgress(1L).getStage()));
+        verify(categorizationIndexService, never()).invalidateAccount(any());
+    }
 
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().size(), transactionDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().size(), categoryDTOList.size());
-        Assertions.assertEquals(backupUserDataDTO.getTransactionDTOList().get(0).getMessage(), transactionDTOList.get(0).getMessage());
-        Assertions.assertEquals(backupUserDataDTO.getCategoryDTOList().get(0).getId(), categoryDTOList.get(0).getId());
+    @Test
+    public void getRestoreProgressThrowsWhenRestoreWasNotStartedTest() {
+        Assertions.assertThrows(InstanceNotFoundException.class, () -> backupUserDataService.getRestoreProgress(1L));
     }
 
     @Test
-    public void writingDataFromBackupFileTest() {
-        List<Transaction> transactionList = new ArrayList<>();
+    public void writeBackupStreamsTransactionsInBackupFormatTest() throws IOException {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
         Transaction transaction = TestFieldsUtil.generateTestTransaction();
-        transactionList.add(transaction);
-
-        transactionService.saveAllTransactions(transactionList);
+        CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
 
-        verify(transactionService, times(1)).saveAllTransactions(transactionList);
+        when(overMoneyAccountService.getAccountIdByChatId(account.getChatId())).thenReturn(account.getId());
+        when(transactionRepository.streamAllByAccountId(account.getId())).thenReturn(Stream.of(transaction));
+        when(categoryService.findCategoriesListByChatId(account.getChatId())).thenReturn(List.of(categoryDTO));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        backupUserDataService.writeBackup(account.getChatId(), out);
+
+        BackupUserDataDTO expected = BackupUserDataDTO.builder()
+                .transactionDTOList(List.of(transactionMapper.mapTransactionToDTO(transaction)))
+                .categoryDTOList(List.of(categoryDTO))
+                .build();
+        Assertions.assertEquals(objectMapper.writeValueAsString(expected), out.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(expected, objectMapper.readValue(out.toByteArray(), BackupUserDataDTO.class));
+        verify(entityManager).detach(transaction);
     }
 
     @Test
-    public void createTransactionsFromBackupFileTest() {
-        BackupUserDataDTO backupUserDataDTO = TestFieldsUtil.generateTestBackupUserDataDTO();
-        List<CategoryDTO> categoryDTOList = new ArrayList<>();
-        CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
-        categoryDTOList.add(categoryDTO);
-        List<TransactionDTO> transactionDTOList = new ArrayList<>();
-        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
-        transactionDTOList.add(transactionDTO);
-        backupUserDataDTO.setTransactionDTOList(transactionDTOList);
-        backupUserDataDTO.setCategoryDTOList(categoryDTOList);
-        OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
-        Category category = TestFieldsUtil.generateTestCategory();
-
-        when(overMoneyAccountService.getNewAccount(any())).thenReturn(overMoneyAccount);
-        when(categoryMapper.mapCategoryDTOToCategory(any(), any())).thenReturn(category);
-        when(transactionProcessingService.getMatchingCategory(any(), any())).thenReturn(category);
-        List<Transaction> transactionList = backupUserDataService.createTransactionsFromBackupFile(backupUserDataDTO, any());
-
-        verify(overMoneyAccountService, times(1)).deletingAllTransactionsCategoriesKeywordsByAccountId(any());
-        verify(categoryService, times(1)).saveAllCategories(any());
-        Assertions.assertEquals(transactionList.size(), transactionDTOList.size());
-        Assertions.assertEquals(transactionList.get(0).getMessage(), transactionDTOList.get(0).getMessage());
-        Assertions.assertEquals(transactionList.get(0).getAmount(), transactionDTOList.get(0).getAmount());
-    }
+    public void writeBackupUserDataWritesBackupOfUserAccountTest() throws IOException, InstanceNotFoundException {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
 
+        when(overMoneyAccountService.getAccountByUserId(1L)).thenReturn(account);
+        when(overMoneyAccountService.getAccountIdByChatId(account.getChatId())).thenReturn(account.getId());
+        when(transactionRepository.streamAllByAccountId(account.getId())).thenReturn(Stream.empty());
+        when(categoryService.findCategoriesListByChatId(account.getChatId())).thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        backupUserDataService.writeBackupUserData(1L, out);
 
+        Assertions.assertEquals("{\"transactionDTOList\":[],\"categoryDTOList\":[]}", out.toString(StandardCharsets.UTF_8));
+    }
 }
-
@@ -4,12 +4,16 @@ import com.override.dto.BugReportDTO;
 import com.override.orchestrator_service.mapper.BugReportMapper;
 import com.override.orchestrator_service.model.BugReport;
 import com.override.orchestrator_service.repository.BugReportRepository;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,6 +25,9 @@ public class BugReportServiceTest {
     @Mock
     private BugReportMapper bugReportMapper;
 
+    @Mock
+    private UserService userService;
+
     @InjectMocks
     private BugReportService bugReportService;
 
@@ -37,4 +44,19 @@ public class BugReportServiceTest {
 
         verify(bugReportRepository, times(1)).save(bugReport);
     }
+
+    @Test
+    public void getBugReportDTOListSetsUsernamesWithOneLookup() {
+        BugReport first = BugReport.builder().id(2L).userId(10L).report("ошибка").build();
+        BugReport second = BugReport.builder().id(1L).userId(20L).report("еще ошибка").build();
+
+        when(bugReportRepository.findAllOrderedByIdDesc()).thenReturn(List.of(first, second));
+        when(userService.getDisplayNamesByIds(List.of(10L, 20L))).thenReturn(Map.of(10L, "anon"));
+
+        List<BugReportDTO> bugReports = bugReportService.getBugReportDTOList();
+
+        Assertions.assertEquals("anon", bugReports.get(0).getUsername());
+        Assertions.assertNull(bugReports.get(1).getUsername());
+        verify(userService, times(1)).getDisplayNamesByIds(any());
+    }
 }
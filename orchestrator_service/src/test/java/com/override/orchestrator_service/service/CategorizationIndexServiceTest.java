@@ -0,0 +1,233 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.constants.Type;
+import com.override.orchestrator_service.model.Category;
+import com.override.orchestrator_service.model.Keyword;
+import com.override.orchestrator_service.model.KeywordId;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.repository.CategoryRepository;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class CategorizationIndexServiceTest {
+    @InjectMocks
+    private CategorizationIndexService categorizationIndexService;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Test
+    public void findCategoryByCategoryNameIgnoringCaseTest() {
+        OverMoneyAccount account = generateAccount(TestFieldsUtil.generateTestAccount());
+
+        Category category = categorizationIndexService.findCategory(account.getId(), "ПРОДУКТЫ");
+
+        assertEquals(12345L, category.getId());
+        assertEquals("продукты", category.getName());
+        assertEquals(Type.EXPENSE, category.getType());
+    }
+
+    @Test
+    public void findCategoryByKeywordIgnoringCaseTest() {
+        OverMoneyAccount account = generateAccount(TestFieldsUtil.generateTestAccount());
+
+        assertEquals("продукты", categorizationIndexService.findCategory(account.getId(), "Пиво").getName());
+        assertNull(categorizationIndexService.findCategory(account.getId(), "пиво теплое"));
+    }
+
+    @Test
+    public void findCategoryPrefersCategoryNameOverKeywordTest() {
+        Category food = generateCategory(1L, "продукты", Type.EXPENSE, "зарплата");
+        Category salary = generateCategory(2L, "зарплата", Type.INCOME);
+        OverMoneyAccount account = generateAccount(food, salary);
+
+        assertEquals(2L, categorizationIndexService.findCategory(account.getId(), "Зарплата").getId());
+    }
+
+    @Test
+    public void findCategoryReturnsNullWhenAccountHasNoCategoriesTest() {
+        assertNull(categorizationIndexService.findCategory(TestFieldsUtil.generateTestAccountNoCategory().getId(), "пиво"));
+    }
+
+    @Test
+    public void getCategoriesGenerationChangesAfterListenersAreNotifiedTest() {
+        CategorizationIndexService.CategoriesChangeListener listener =
+                mock(CategorizationIndexService.CategoriesChangeListener.class);
+        long[] generationDuringNotification = new long[1];
+        doAnswer(invocation -> {
+            generationDuringNotification[0] = categorizationIndexService.getCategoriesGeneration(1L);
+            return null;
+        }).when(listener).accountChanged(1L);
+        categorizationIndexService.addChangeListener(listener);
+        long generation = categorizationIndexService.getCategoriesGeneration(1L);
+
+        categorizationIndexService.invalidateAccount(1L);
+
+        assertNotEquals(generation, generationDuringNotification[0]);
+        assertNotEquals(generationDuringNotification[0], categorizationIndexService.getCategoriesGeneration(1L));
+        assertEquals(generation, categorizationIndexService.getCategoriesGeneration(2L));
+    }
+
+    @Test
+    public void findCategoryBuildsAccountIndexOnceTest() {
+        OverMoneyAccount account = generateAccount(TestFieldsUtil.generateTestAccount());
+
+        categorizationIndexService.findCategory(account.getId(), "пиво");
+        categorizationIndexService.findCategory(account.getId(), "продукты");
+        categorizationIndexService.findCategory(account.getId(), "сок");
+
+        verify(categoryRepository, times(1)).findAllWithKeywordsByAccountId(account.getId());
+    }
+
+    @Test
+    public void putKeywordAddsKeywordToBuiltIndexTest() {
+        OverMoneyAccount account = generateAccount(TestFieldsUtil.generateTestAccount());
+        Category category = account.getCategories().iterator().next();
+        categorizationIndexService.findCategory(account.getId(), "пиво");
+
+        categorizationIndexService.putKeyword(new Keyword(new KeywordId("сок", account.getId()), category));
+
+        assertEquals(category.getId(), categorizationIndexService.findCategory(account.getId(), "СОК").getId());
+    }
+
+    @Test
+    public void putKeywordWithoutCategoryRemovesKeywordTest() {
+        OverMoneyAccount account = generateAccount(TestFieldsUtil.generateTestAccount());
+        categorizationIndexService.findCategory(account.getId(), "пиво");
+
+        categorizationIndexService.putKeyword(new Keyword(new KeywordId("пиво", account.getId()), null));
+
+        assertNull(categorizationIndexService.findCategory(account.getId(), "пиво"));
+    }
+
+    @Test
+    public void removeKeywordKeepsKeywordsDifferingInCaseTest() {
+        Category food = generateCategory(1L, "продукты", Type.EXPENSE, "пиво", "Пиво");
+        OverMoneyAccount account = generateAccount(food);
+        categorizationIndexService.findCategory(account.getId(), "пиво");
+
+        categorizationIndexService.removeKeyword(account.getId(), "пиво");
+        assertEquals(1L, categorizationIndexService.findCategory(account.getId(), "пиво").getId());
+
+        categorizationIndexService.removeKeyword(account.getId(), "Пиво");
+        assertNull(categorizationIndexService.findCategory(account.getId(), "пиво"));
+    }
+
+    @Test
+    public void invalidateAccountRebuildsIndexTest() {
+        OverMoneyAccount account = generateAccount(generateCategory(1L, "продукты", Type.EXPENSE));
+        categorizationIndexService.findCategory(account.getId(), "продукты");
+        account.getCategories().iterator().next().setName("еда");
+
+        assertEquals(1L, categorizationIndexService.findCategory(account.getId(), "продукты").getId());
+
+        categorizationIndexService.invalidateAccount(account.getId());
+
+        assertNull(categorizationIndexService.findCategory(account.getId(), "продукты"));
+        assertEquals(1L, categorizationIndexService.findCategory(account.getId(), "еда").getId());
+    }
+
+    @Test
+    public void invalidateAccountByCategoryIdRebuildsIndexTest() {
+        Category food = generateCategory(1L, "продукты", Type.EXPENSE, "пиво");
+        Category drinks = generateCategory(2L, "напитки", Type.EXPENSE);
+        OverMoneyAccount account = generateAccount(food, drinks);
+        categorizationIndexService.findCategory(account.getId(), "пиво");
+        account.getCategories().remove(food);
+        drinks.getKeywords().add(new Keyword(new KeywordId("пиво", account.getId()), drinks));
+
+        categorizationIndexService.invalidateAccountByCategoryId(food.getId());
+
+        assertNull(categorizationIndexService.findCategory(account.getId(), "продукты"));
+        assertEquals(2L, categorizationIndexService.findCategory(account.getId(), "пиво").getId());
+    }
+
+    @Test
+    public void findCategoryDoesNotCacheIndexChangedDuringBuildTest() {
+        Category food = generateCategory(1L, "продукты", Type.EXPENSE);
+        OverMoneyAccount account = generateAccount(food);
+        Set<Category> staleCategories = account.getCategories();
+        doAnswer(invocation -> {
+            categorizationIndexService.putKeyword(new Keyword(new KeywordId("сок", account.getId()), food));
+            return staleCategories;
+        }).doAnswer(invocation -> {
+            food.getKeywords().add(new Keyword(new KeywordId("сок", account.getId()), food));
+            return staleCategories;
+        }).when(categoryRepository).findAllWithKeywordsByAccountId(account.getId());
+
+        assertNull(categorizationIndexService.findCategory(account.getId(), "сок"));
+        assertEquals(1L, categorizationIndexService.findCategory(account.getId(), "сок").getId());
+        categorizationIndexService.findCategory(account.getId(), "сок");
+
+        verify(categoryRepository, times(2)).findAllWithKeywordsByAccountId(account.getId());
+    }
+
+    private OverMoneyAccount generateAccount(Category... categories) {
+        OverMoneyAccount account = OverMoneyAccount.builder()
+                .id(1L)
+                .chatId(404723191L)
+                .categories(new HashSet<>())
+                .build();
+        for (Category category : categories) {
+            category.setAccount(account);
+            category.getKeywords().forEach(keyword -> keyword.getKeywordId().setAccountId(account.getId()));
+            account.getCategories().add(category);
+        }
+        return generateAccount(account);
+    }
+
+    /**
+     * Категории аккаунта возвращаются репозиторием тем же набором, поэтому их изменения в тесте видны индексу
+     */
+    private OverMoneyAccount generateAccount(OverMoneyAccount account) {
+        lenient().when(categoryRepository.findAllWithKeywordsByAccountId(account.getId()))
+                .thenReturn(account.getCategories());
+        return account;
+    }
+
+    @Test
+    public void changeListenersAreNotifiedAboutChangesTest() {
+        CategorizationIndexService.CategoriesChangeListener listener =
+                mock(CategorizationIndexService.CategoriesChangeListener.class);
+        categorizationIndexService.addChangeListener(listener);
+
+        categorizationIndexService.invalidateAccount(1L);
+        categorizationIndexService.removeKeyword(2L, "пиво");
+        categorizationIndexService.invalidateAccountByCategoryId(3L);
+
+        verify(listener, times(1)).accountChanged(1L);
+        verify(listener, times(1)).accountChanged(2L);
+        verify(listener, times(1)).categoryChanged(3L);
+    }
+
+    private Category generateCategory(Long id, String name, Type type, String... keywords) {
+        Set<Keyword> keywordSet = new HashSet<>();
+        Category category = Category.builder()
+                .id(id)
+                .name(name)
+                .type(type)
+                .keywords(keywordSet)
+                .build();
+        for (String keyword : keywords) {
+            keywordSet.add(new Keyword(new KeywordId(keyword, null), category));
+        }
+        return category;
+    }
+}
@@ -5,7 +5,6 @@ import com.override.dto.MergeCategoryDTO;
 import com.override.dto.constants.Type;
 import com.override.orchestrator_service.config.DefaultCategoryProperties;
 import com.override.orchestrator_service.exception.CategoryNotFoundException;
-import com.override.orchestrator_service.mapper.AccountMapper;
 import com.override.orchestrator_service.mapper.CategoryMapper;
 import com.override.orchestrator_service.model.Category;
 import com.override.orchestrator_service.model.KeywordId;
@@ -50,6 +49,8 @@ public class CategoryServiceTest {
     private DefaultCategoryProperties defaultCategoryProperties;
     @Mock
     private UserService userService;
+    @Mock
+    private CategorizationIndexService categorizationIndexService;
 
     @Test
     public void getCategoryByIdThrowExceptionWhenCategoryNotFound() {
@@ -113,6 +114,35 @@ public class CategoryServiceTest {
         assertEquals(categories.size(), result.size());
     }
 
+    @Test
+    public void findCategoriesListByAccountIdCachesCategoriesUntilEviction() {
+        final Category category = TestFieldsUtil.generateTestCategory();
+        final CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
+
+        when(categoryRepository.findAllWithKeywordsByAccountId(1L)).thenReturn(Set.of(category));
+        when(categoryMapper.mapCategoriesListToJsonResponse(List.of(category))).thenReturn(List.of(categoryDTO));
+
+        assertEquals(List.of(categoryDTO), categoryService.findCategoriesListByAccountId(1L));
+        assertEquals(List.of(categoryDTO), categoryService.findCategoriesListByAccountId(1L));
+        verify(categoryRepository, times(1)).findAllWithKeywordsByAccountId(1L);
+
+        categoryService.evictCategories(1L);
+        categoryService.findCategoriesListByAccountId(1L);
+        verify(categoryRepository, times(2)).findAllWithKeywordsByAccountId(1L);
+
+        categoryService.evictCategoriesByCategoryId(categoryDTO.getId());
+        categoryService.findCategoriesListByAccountId(1L);
+        verify(categoryRepository, times(3)).findAllWithKeywordsByAccountId(1L);
+    }
+
+    @Test
+    public void findCategoriesListByChatIdReturnsEmptyListWhenAccountNotFound() {
+        when(overMoneyAccountService.getAccountIdByChatId(1L)).thenReturn(null);
+
+        assertEquals(List.of(), categoryService.findCategoriesListByChatId(1L));
+        verifyNoInteractions(categoryRepository);
+    }
+
     @Test
     public void findCategoriesListByTypeWhenTypeExpense() throws InstanceNotFoundException {
         final Category categoryExpense1 = TestFieldsUtil.generateTestCategory();
@@ -123,7 +153,7 @@ public class CategoryServiceTest {
         final OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
         List<Category> categoryList = List.of(categoryExpense1, categoryExpense2);
         when(categoryRepository.findAllByTypeAndAccId(account.getId(), Type.EXPENSE)).thenReturn(categoryList);
-        when(overMoneyAccountService.getAccountByUserId(any())).thenReturn(account);
+        when(overMoneyAccountService.getAccountIdByUserId(any())).thenReturn(account.getId());
 
         List<CategoryDTO> categoryDTOList = categoryService.findCategoriesListByType(account.getId(), Type.EXPENSE);
         for (CategoryDTO categoryDTO : categoryDTOList) {
@@ -144,7 +174,7 @@ public class CategoryServiceTest {
         final OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
         List<Category> categoryList = List.of(categoryExpense1, categoryExpense2);
         when(categoryRepository.findAllByTypeAndAccId(account.getId(), Type.INCOME)).thenReturn(categoryList);
-        when(overMoneyAccountService.getAccountByUserId(any())).thenReturn(account);
+        when(overMoneyAccountService.getAccountIdByUserId(any())).thenReturn(account.getId());
 
         List<CategoryDTO> categoryDTOList = categoryService.findCategoriesListByType(account.getId(), Type.INCOME);
         for (CategoryDTO categoryDTO : categoryDTOList) {
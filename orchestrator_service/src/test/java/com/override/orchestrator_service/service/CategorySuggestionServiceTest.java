@@ -0,0 +1,165 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.CategoryDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
+import com.override.orchestrator_service.feign.RecognizerFeign;
+import com.override.orchestrator_service.repository.TransactionSuggestedCategoryRepository;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CategorySuggestionServiceTest {
+
+    @InjectMocks
+    private CategorySuggestionService categorySuggestionService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private CategorizationIndexService categorizationIndexService;
+
+    @Mock
+    private RecognizerFeign recognizerFeign;
+
+    @Mock
+    private TransactionSuggestedCategoryRepository transactionSuggestedCategoryRepository;
+
+    @Mock
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void init() {
+        categorySuggestionService.init();
+    }
+
+    @Test
+    public void initSchedulesProcessingWithCoalesceWindowTest() {
+        verify(scheduledExecutorService).scheduleWithFixedDelay(any(Runnable.class),
+                eq(CategorySuggestionService.COALESCE_WINDOW_MILLIS),
+                eq(CategorySuggestionService.COALESCE_WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void processPendingSuggestionsSendsOneBatchPerAccountTest() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID otherAccount = UUID.randomUUID();
+        List<CategoryDTO> categories = List.of(TestFieldsUtil.generateTestCategoryDTO());
+        List<CategorySuggestionDTO> suggestions = List.of(new CategorySuggestionDTO(first, 1L));
+        when(categoryService.findCategoriesListByAccountId(anyLong())).thenReturn(categories);
+        when(categorizationIndexService.getCategoriesGeneration(anyLong())).thenReturn(5L);
+        when(recognizerFeign.recognizeCategories(any())).thenReturn(suggestions);
+        categorySuggestionService.submit(1L, first, "пиво");
+        categorySuggestionService.submit(1L, second, "кофе");
+        categorySuggestionService.submit(1L, first, "пиво");
+        categorySuggestionService.submit(2L, otherAccount, "такси");
+
+        categorySuggestionService.processPendingSuggestions();
+
+        ArgumentCaptor<CategorySuggestionBatchDTO> captor = ArgumentCaptor.forClass(CategorySuggestionBatchDTO.class);
+        verify(recognizerFeign, times(2)).recognizeCategories(captor.capture());
+        CategorySuggestionBatchDTO batch = captor.getAllValues().get(0);
+        Assertions.assertEquals(2, batch.getTransactions().size());
+        Assertions.assertEquals(first, batch.getTransactions().get(0).getTransactionId());
+        Assertions.assertEquals(second, batch.getTransactions().get(1).getTransactionId());
+        Assertions.assertEquals(categories, batch.getCategories());
+        Assertions.assertEquals(1L, batch.getAccountId());
+        Assertions.assertTrue(batch.getCategoriesVersion().endsWith(":5"));
+        Assertions.assertEquals(batch.getCategoriesVersion(), captor.getAllValues().get(1).getCategoriesVersion());
+        verify(transactionSuggestedCategoryRepository).updateSuggestedCategoryIds(1L, suggestions);
+        verify(transactionSuggestedCategoryRepository).updateSuggestedCategoryIds(2L, suggestions);
+        Assertions.assertEquals(0, categorySuggestionService.getQueueSize());
+        Assertions.assertEquals(2, meterRegistry.get("category.suggestion.suggested").counter().count());
+        Assertions.assertEquals(3, meterRegistry.get("category.suggestion.latency").timer().count());
+    }
+
+    @Test
+    public void processPendingSuggestionsSkipsRecognizerWhenAccountHasNoCategoriesTest() {
+        when(categoryService.findCategoriesListByAccountId(1L)).thenReturn(Collections.emptyList());
+        categorySuggestionService.submit(1L, UUID.randomUUID(), "пиво");
+
+        categorySuggestionService.processPendingSuggestions();
+
+        verify(recognizerFeign, never()).recognizeCategories(any());
+        verify(transactionSuggestedCategoryRepository, never()).updateSuggestedCategoryIds(anyLong(), anyList());
+    }
+
+    @Test
+    public void processPendingSuggestionsCountsFailedTransactionsAndContinuesTest() {
+        when(categoryService.findCategoriesListByAccountId(anyLong()))
+                .thenReturn(List.of(TestFieldsUtil.generateTestCategoryDTO()));
+        when(recognizerFeign.recognizeCategories(any()))
+                .thenThrow(new RuntimeException("recognizer is down"))
+                .thenReturn(Collections.emptyList());
+        categorySuggestionService.submit(1L, UUID.randomUUID(), "пиво");
+        categorySuggestionService.submit(1L, UUID.randomUUID(), "кофе");
+        categorySuggestionService.submit(2L, UUID.randomUUID(), "такси");
+
+        categorySuggestionService.processPendingSuggestions();
+
+        Assertions.assertEquals(2, meterRegistry.get("category.suggestion.failed").counter().count());
+        verify(transactionSuggestedCategoryRepository).updateSuggestedCategoryIds(2L, Collections.emptyList());
+    }
+
+    @Test
+    public void submitDropsTransactionWhenQueueIsFullTest() {
+        for (int i = 0; i < CategorySuggestionService.QUEUE_CAPACITY; i++) {
+            Assertions.assertTrue(categorySuggestionService.submit(1L, UUID.randomUUID(), "пиво"));
+        }
+
+        Assertions.assertFalse(categorySuggestionService.submit(1L, UUID.randomUUID(), "пиво"));
+        Assertions.assertEquals(1, meterRegistry.get("category.suggestion.dropped").counter().count());
+        Assertions.assertEquals(CategorySuggestionService.QUEUE_CAPACITY,
+                meterRegistry.get("category.suggestion.queue.size").gauge().value());
+    }
+
+    @Test
+    public void submitIgnoresTransactionWithoutIdTest() {
+        Assertions.assertFalse(categorySuggestionService.submit(1L, null, "пиво"));
+        Assertions.assertEquals(0, categorySuggestionService.getQueueSize());
+    }
+
+    @Test
+    public void processPendingSuggestionsSplitsLargeAccountBatchesTest() {
+        when(categoryService.findCategoriesListByAccountId(1L))
+                .thenReturn(List.of(TestFieldsUtil.generateTestCategoryDTO()));
+        when(recognizerFeign.recognizeCategories(any())).thenReturn(Collections.emptyList());
+        for (int i = 0; i <= CategorySuggestionService.MAX_BATCH_SIZE; i++) {
+            categorySuggestionService.submit(1L, UUID.randomUUID(), "пиво");
+        }
+
+        categorySuggestionService.processPendingSuggestions();
+
+        verify(recognizerFeign, times(2)).recognizeCategories(any());
+    }
+}
@@ -1,15 +1,21 @@
 package com.override.orchestrator_service.service;
 
+import com.override.dto.TransactionChangeDTO;
+import com.override.dto.constants.TransactionChangeType;
+import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.UUID;
 
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class DefineServiceTest {
@@ -23,10 +29,15 @@ public class DefineServiceTest {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private TransactionChangeFeedService transactionChangeFeedService;
+
     @Test
     public void defineTransactionByTransactionIdAndCategoryIdSetAndAssociate() {
-        UUID transactionId = UUID.randomUUID();
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        UUID transactionId = transaction.getId();
         Long categoryId = 123L;
+        when(transactionService.getTransactionById(transactionId)).thenReturn(transaction);
 
         defineService.defineTransactionCategoryByTransactionIdAndCategoryId(transactionId, categoryId);
 
@@ -34,11 +45,17 @@ public class DefineServiceTest {
                 .setCategoryForAllUndefinedTransactionsWithSameKeywords(transactionId, categoryId);
         verify(keywordService, times(1))
                 .associateTransactionsKeywordWithCategory(transactionId, categoryId);
+        TransactionChangeDTO change = captureChange(transaction);
+        assertEquals(TransactionChangeType.CATEGORIZED, change.getType());
+        assertEquals(transaction.getMessage(), change.getMessage());
+        assertEquals(categoryId, change.getCategoryId());
     }
 
     @Test
     public void undefineTransactionByTransactionIdRemovesTransactionAndKeyword() {
-        UUID transactionId = UUID.randomUUID();
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        UUID transactionId = transaction.getId();
+        when(transactionService.getTransactionById(transactionId)).thenReturn(transaction);
 
         defineService.undefineTransactionCategoryAndKeywordCategory(transactionId);
 
@@ -46,5 +63,15 @@ public class DefineServiceTest {
                 .removeCategoryFromTransactionsWithSameMessage(transactionId);
         verify(keywordService, times(1))
                 .removeCategoryFromKeywordByTransactionId(transactionId);
+        TransactionChangeDTO change = captureChange(transaction);
+        assertEquals(TransactionChangeType.UNCATEGORIZED, change.getType());
+        assertEquals(transaction.getMessage(), change.getMessage());
+        assertNull(change.getCategoryId());
+    }
+
+    private TransactionChangeDTO captureChange(Transaction transaction) {
+        ArgumentCaptor<TransactionChangeDTO> changeCaptor = ArgumentCaptor.forClass(TransactionChangeDTO.class);
+        verify(transactionChangeFeedService).publish(eq(transaction.getAccount().getId()), changeCaptor.capture());
+        return changeCaptor.getValue();
     }
 }
@@ -1,23 +1,28 @@
 package com.override.orchestrator_service.service;
 
 import com.override.dto.CategoryDTO;
-import com.override.dto.TransactionDTO;
+import com.override.dto.constants.Type;
 import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.repository.TransactionRepository;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 
 import javax.management.InstanceNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.when;
 
@@ -29,30 +34,65 @@ public class ExportUserDataServiceTest {
     @Mock
     private CategoryService categoryService;
     @Mock
-    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    @Mock
+    private UserService userService;
     @Mock
     private OverMoneyAccountService overMoneyAccountService;
+
     @Test
-    public void downloadExcelFileTest() throws IOException, InstanceNotFoundException {
-        List<CategoryDTO> categoryDTOList = new ArrayList<>();
+    public void writeExcelExportTest() throws IOException, InstanceNotFoundException {
         CategoryDTO categoryDTO = TestFieldsUtil.generateTestCategoryDTO();
-        categoryDTOList.add(categoryDTO);
-        List<TransactionDTO> transactionDTOList = new ArrayList<>();
-        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
-        transactionDTOList.add(transactionDTO);
         Long testTelegramId = 1L;
-        Long testChatId = 2L;
-        OverMoneyAccount testAccount = new OverMoneyAccount();
-        testAccount.setChatId(testChatId);
+        OverMoneyAccount testAccount = OverMoneyAccount.builder().id(3L).chatId(2L).build();
+        LocalDateTime date = LocalDateTime.of(2023, 5, 1, 12, 0);
         when(overMoneyAccountService.getAccountByUserId(testTelegramId)).thenReturn(testAccount);
-        when(categoryService.findCategoriesListByChatId(testChatId)).thenReturn(categoryDTOList);
-        when(transactionService.findAlltransactionDTOForAcountByChatId(testChatId)).thenReturn(transactionDTOList);
+        when(categoryService.findCategoriesListByChatId(2L)).thenReturn(List.of(categoryDTO));
+        when(transactionRepository.findTelegramUserIdsByAccountId(3L)).thenReturn(List.of(10L));
+        when(userService.getDisplayNamesByIds(List.of(10L))).thenReturn(Map.of(10L, "Иван"));
+        when(transactionRepository.streamExportRowsByAccountId(3L)).thenReturn(Stream.of(
+                new Object[]{"продукты", Type.EXPENSE, 200.456d, "хлеб", date, 10L},
+                new Object[]{"зарплата", Type.INCOME, 1000d, "аванс", date, 11L},
+                new Object[]{"продукты", Type.EXPENSE, 50d, "молоко", date, 10L}));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportUserDataService.writeExcelExport(testTelegramId, out);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet categories = workbook.getSheet("Категории");
+            Assertions.assertEquals(1, categories.getLastRowNum());
+            Assertions.assertEquals("продукты", categories.getRow(1).getCell(1).getStringCellValue());
 
-        ResponseEntity<InputStreamResource> response = exportUserDataService.downloadExelFile(testTelegramId);
+            Sheet income = workbook.getSheet("Доходы");
+            Assertions.assertEquals(1, income.getLastRowNum());
+            Assertions.assertEquals("аванс", income.getRow(1).getCell(2).getStringCellValue());
+            Assertions.assertEquals("", income.getRow(1).getCell(4).getStringCellValue());
+
+            Sheet expense = workbook.getSheet("Расходы");
+            Assertions.assertEquals(2, expense.getLastRowNum());
+            Assertions.assertEquals("Сумма", expense.getRow(0).getCell(1).getStringCellValue());
+            Assertions.assertEquals(200.46d, expense.getRow(1).getCell(1).getNumericCellValue());
+            Assertions.assertEquals(date.toString(), expense.getRow(1).getCell(3).getStringCellValue());
+            Assertions.assertEquals("Иван", expense.getRow(1).getCell(4).getStringCellValue());
+            Assertions.assertEquals("молоко", expense.getRow(2).getCell(2).getStringCellValue());
+            Assertions.assertEquals(ExportUserDataService.EXCEL_CELL_WIDTH, expense.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    public void writeExcelExportWritesEmptySheetsWithoutTransactionsTest() throws IOException, InstanceNotFoundException {
+        OverMoneyAccount testAccount = OverMoneyAccount.builder().id(3L).chatId(2L).build();
+        when(overMoneyAccountService.getAccountByUserId(1L)).thenReturn(testAccount);
+        when(categoryService.findCategoriesListByChatId(2L)).thenReturn(List.of());
+        when(transactionRepository.findTelegramUserIdsByAccountId(3L)).thenReturn(List.of());
+        when(transactionRepository.streamExportRowsByAccountId(3L)).thenReturn(Stream.empty());
 
-        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
-        Assertions.assertEquals("attachment; filename=export.xlsx", response.getHeaders().getFirst("Content-Disposition"));
-        Assertions.assertNotNull(response.getBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportUserDataService.writeExcelExport(1L, out);
 
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Assertions.assertEquals(3, workbook.getNumberOfSheets());
+            Assertions.assertEquals(0, workbook.getSheet("Расходы").getLastRowNum());
+        }
     }
 }
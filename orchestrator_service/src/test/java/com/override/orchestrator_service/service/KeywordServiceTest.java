@@ -37,6 +37,9 @@ public class KeywordServiceTest {
     @Mock
     private KeywordRepository keywordRepository;
 
+    @Mock
+    private CategorizationIndexService categorizationIndexService;
+
     @Test
     public void setKeywordCategoryThrowExceptionWhenCategoryNotFound() {
         final Category category = new Category();
@@ -24,8 +24,11 @@ import javax.management.InstanceNotFoundException;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +50,8 @@ public class OverMoneyAccountServiceTest {
     private TransactionRepository transactionRepository;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private CategorizationIndexService categorizationIndexService;
 
     @Mock
     private TelegramUtils telegramUtils;
@@ -177,4 +182,55 @@ public class OverMoneyAccountServiceTest {
         verify(userService, times(1)).getUserById(chatMemberDTO.getUserId());
         verify(userService, times(1)).saveUser(user);
     }
+
+    @Test
+    public void getAccountIdByChatIdCachesAccountIdUntilAccountIsDeleted() {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+
+        when(accountRepository.findByChatId(account.getChatId())).thenReturn(account);
+
+        assertEquals(account.getId(), accountService.getAccountIdByChatId(account.getChatId()));
+        assertEquals(account.getId(), accountService.getAccountIdByChatId(account.getChatId()));
+        verify(accountRepository, times(1)).findByChatId(account.getChatId());
+
+        accountService.deleteOverMoneyAccountById(account.getId());
+        accountService.getAccountIdByChatId(account.getChatId());
+        verify(accountRepository, times(2)).findByChatId(account.getChatId());
+        verify(userService, times(1)).evictAccount(account.getId());
+    }
+
+    @Test
+    public void getAccountIdByChatIdDoesNotCacheMissingAccount() {
+        when(accountRepository.findByChatId(1L)).thenReturn(null);
+
+        assertNull(accountService.getAccountIdByChatId(1L));
+        assertNull(accountService.getAccountIdByChatId(1L));
+        verify(accountRepository, times(2)).findByChatId(1L);
+    }
+
+    @Test
+    public void getChatIdByAccountIdUsesChatIdCachedWithAccountIdUntilAccountIsDeleted() {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        when(accountRepository.findByChatId(account.getChatId())).thenReturn(account);
+        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
+
+        accountService.getAccountIdByChatId(account.getChatId());
+        assertEquals(account.getChatId(), accountService.getChatIdByAccountId(account.getId()));
+        verify(accountRepository, never()).findById(account.getId());
+
+        accountService.deleteOverMoneyAccountById(account.getId());
+        assertEquals(account.getChatId(), accountService.getChatIdByAccountId(account.getId()));
+        assertEquals(account.getChatId(), accountService.getChatIdByAccountId(account.getId()));
+        verify(accountRepository, times(1)).findById(account.getId());
+    }
+
+    @Test
+    public void saveOverMoneyAccountEvictsAccountUsers() {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+
+        accountService.saveOverMoneyAccount(account);
+
+        verify(accountRepository, times(1)).save(account);
+        account.getUsers().forEach(user -> verify(userService, times(1)).evictUser(user.getId()));
+    }
 }
@@ -0,0 +1,48 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.AnnounceDTO;
+import com.override.orchestrator_service.feign.TelegramBotFeign;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.override.orchestrator_service.service.TelegramBotRequestService.ANNOUNCE_RECIPIENTS_CHUNK_SIZE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TelegramBotRequestServiceTest {
+
+    @InjectMocks
+    private TelegramBotRequestService telegramBotRequestService;
+
+    @Mock
+    private TelegramBotFeign telegramBotFeign;
+
+    @Mock
+    private UserService userService;
+
+    @Test
+    public void sendAnnounceStreamsUserIdsInChunksAndStartsAnnounce() {
+        Long announceId = 7L;
+        when(telegramBotFeign.createAnnounce(any(AnnounceDTO.class))).thenReturn(announceId);
+        when(userService.getUserIdsAfter(0L, ANNOUNCE_RECIPIENTS_CHUNK_SIZE)).thenReturn(List.of(1L, 2L));
+        when(userService.getUserIdsAfter(2L, ANNOUNCE_RECIPIENTS_CHUNK_SIZE)).thenReturn(List.of(3L));
+        when(userService.getUserIdsAfter(3L, ANNOUNCE_RECIPIENTS_CHUNK_SIZE)).thenReturn(List.of());
+
+        telegramBotRequestService.sendAnnounce("\"text\"");
+
+        InOrder inOrder = inOrder(telegramBotFeign);
+        inOrder.verify(telegramBotFeign).createAnnounce(argThat(announce ->
+                announce.getAnnounceText().equals("text") && announce.getUserIds() == null));
+        inOrder.verify(telegramBotFeign).addAnnounceRecipients(announceId, List.of(1L, 2L));
+        inOrder.verify(telegramBotFeign).addAnnounceRecipients(announceId, List.of(3L));
+        inOrder.verify(telegramBotFeign).startAnnounce(announceId);
+    }
+}
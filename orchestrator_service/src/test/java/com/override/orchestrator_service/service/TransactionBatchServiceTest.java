@@ -0,0 +1,170 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.TransactionBatchResultDTO;
+import com.override.dto.TransactionMessageDTO;
+import com.override.dto.TransactionResponseDTO;
+import com.override.orchestrator_service.config.jwt.JwtAuthentication;
+import com.override.orchestrator_service.exception.TransactionProcessingException;
+import com.override.orchestrator_service.mapper.TransactionMapper;
+import com.override.orchestrator_service.model.OverMoneyAccount;
+import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.util.TelegramUtils;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.management.InstanceNotFoundException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionBatchServiceTest {
+    @InjectMocks
+    private TransactionBatchService transactionBatchService;
+
+    @Mock
+    private TransactionProcessingService transactionProcessingService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private OverMoneyAccountService overMoneyAccountService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private TransactionMapper transactionMapper;
+
+    @Mock
+    private CategorySuggestionService categorySuggestionService;
+
+    @Mock
+    private TelegramUtils telegramUtils;
+
+    @Test
+    public void processTransactionsSavesValidAndReportsInvalidTransactionsTest() throws InstanceNotFoundException {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        TransactionMessageDTO valid = generateMessage("пиво 200", account.getChatId());
+        TransactionMessageDTO invalid = generateMessage("пиво", account.getChatId());
+        TransactionMessageDTO otherChat = generateMessage("пиво 300", 1L);
+        when(overMoneyAccountService.getAccountIdByChatId(account.getChatId())).thenReturn(account.getId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
+        when(transactionProcessingService.processTransaction(valid, account)).thenReturn(new Transaction());
+        when(transactionProcessingService.processTransaction(invalid, account))
+                .thenThrow(new TransactionProcessingException("Неподдерживаемый формат транзакции"));
+        when(transactionMapper.mapTransactionToTelegramResponse(any(), eq(account.getChatId())))
+                .thenReturn(new TransactionResponseDTO());
+
+        List<TransactionBatchResultDTO> results =
+                transactionBatchService.processTransactions(List.of(valid, invalid, otherChat), null);
+
+        assertEquals(3, results.size());
+        assertNotNull(results.get(0).getTransaction());
+        assertNull(results.get(0).getError());
+        assertEquals("ORCHESTRA_TRANSACTION_PROCESSING_FAILED", results.get(1).getError().getCode());
+        assertNull(results.get(1).getTransaction());
+        assertNotNull(results.get(2).getError());
+        assertEquals(2, results.get(2).getIndex());
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveAllTransactions(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        verify(overMoneyAccountService, times(1)).getAccountIdByChatId(any());
+    }
+
+    @Test
+    public void processTransactionsFillsWebTransactionFieldsTest() throws InstanceNotFoundException {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        TransactionMessageDTO transactionMessageDTO = TestFieldsUtil.generateTransactionMessageDTOFromWeb();
+        Principal principal = new JwtAuthentication();
+        when(telegramUtils.getTelegramId(principal)).thenReturn(123L);
+        when(overMoneyAccountService.getAccountIdByUserId(123L)).thenReturn(account.getId());
+        when(overMoneyAccountService.getChatIdByAccountId(account.getId())).thenReturn(account.getChatId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
+        when(transactionProcessingService.processTransaction(transactionMessageDTO, account))
+                .thenReturn(new Transaction());
+
+        transactionBatchService.processTransactions(List.of(transactionMessageDTO), principal);
+
+        assertEquals(account.getChatId(), transactionMessageDTO.getChatId());
+        assertEquals(123L, transactionMessageDTO.getUserId());
+        assertNotNull(transactionMessageDTO.getDate());
+    }
+
+    @Test
+    public void processTransactionsSubmitsTransactionsForCategorySuggestionTest() throws InstanceNotFoundException {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        TransactionMessageDTO transactionMessageDTO = generateMessage("пиво 200", account.getChatId());
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        when(overMoneyAccountService.getAccountIdByChatId(account.getChatId())).thenReturn(account.getId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
+        when(transactionProcessingService.processTransaction(transactionMessageDTO, account)).thenReturn(transaction);
+
+        transactionBatchService.processTransactions(List.of(transactionMessageDTO), null);
+
+        verify(categorySuggestionService, times(1))
+                .submit(account.getId(), transaction.getId(), transaction.getMessage());
+    }
+
+    @Test
+    public void processTransactionsReturnsEmptyListForEmptyBatchTest() throws InstanceNotFoundException {
+        assertTrue(transactionBatchService.processTransactions(Collections.emptyList(), null).isEmpty());
+        verify(transactionService, never()).saveAllTransactions(anyList());
+    }
+
+    @Test
+    public void processTransactionsThrowsExceptionWhenBatchIsTooLargeTest() {
+        List<TransactionMessageDTO> batch = new ArrayList<>(Collections.nCopies(1001,
+                TestFieldsUtil.generateTransactionMessageDTOFromTelegram()));
+
+        assertThrows(TransactionProcessingException.class,
+                () -> transactionBatchService.processTransactions(batch, null));
+    }
+
+    @Test
+    public void processTransactionsThrowsExceptionWhenAccountNotFoundTest() {
+        when(overMoneyAccountService.getAccountIdByChatId(eq(1L))).thenReturn(null);
+
+        assertThrows(InstanceNotFoundException.class, () -> transactionBatchService
+                .processTransactions(List.of(generateMessage("пиво 200", 1L)), null));
+    }
+
+    @Test
+    public void processTransactionsThrowsExceptionWhenUserHasNoAccountTest() throws InstanceNotFoundException {
+        Principal principal = new JwtAuthentication();
+        when(telegramUtils.getTelegramId(principal)).thenReturn(123L);
+        when(overMoneyAccountService.getAccountIdByUserId(123L)).thenReturn(null);
+
+        assertThrows(InstanceNotFoundException.class, () -> transactionBatchService
+                .processTransactions(List.of(TestFieldsUtil.generateTransactionMessageDTOFromWeb()), principal));
+        verify(transactionService, never()).saveAllTransactions(anyList());
+    }
+
+    private TransactionMessageDTO generateMessage(String message, Long chatId) {
+        return TransactionMessageDTO.builder()
+                .message(message)
+                .chatId(chatId)
+                .userId(123L)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.override.orchestrator_service.service;
+
+import com.override.dto.TransactionChangeDTO;
+import com.override.dto.constants.TransactionChangeType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionChangeFeedServiceTest {
+
+    @Spy
+    @InjectMocks
+    private TransactionChangeFeedService transactionChangeFeedService;
+
+    @Mock
+    private ScheduledExecutorService feedExecutor;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void init() {
+        doReturn(feedExecutor).when(transactionChangeFeedService).createFeedExecutor();
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(feedExecutor).execute(any());
+        transactionChangeFeedService.init();
+    }
+
+    @Test
+    public void publishSendsChangeOnlyToSubscriptionsOfAccount() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        SseEmitter otherAccountEmitter = mock(SseEmitter.class);
+        doReturn(emitter, otherAccountEmitter).when(transactionChangeFeedService).createEmitter();
+        transactionChangeFeedService.subscribe(1L);
+        transactionChangeFeedService.subscribe(2L);
+
+        transactionChangeFeedService.publish(1L, createChange());
+
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(otherAccountEmitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        assertEquals(1.0, meterRegistry.counter("transactions.change.feed.sent").count());
+    }
+
+    @Test
+    public void publishRemovesSubscriptionWhenSendFails() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doReturn(emitter).when(transactionChangeFeedService).createEmitter();
+        doNothing().doThrow(new IOException()).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        transactionChangeFeedService.subscribe(1L);
+
+        transactionChangeFeedService.publish(1L, createChange());
+
+        assertEquals(0, transactionChangeFeedService.getSubscriptionsCount(1L));
+        assertEquals(1.0, meterRegistry.counter("transactions.change.feed.failed").count());
+    }
+
+    @Test
+    public void subscribeClosesOldestSubscriptionOverLimit() {
+        SseEmitter oldest = mock(SseEmitter.class);
+        doReturn(oldest).doAnswer(invocation -> mock(SseEmitter.class))
+                .when(transactionChangeFeedService).createEmitter();
+
+        for (int i = 0; i <= TransactionChangeFeedService.MAX_SUBSCRIPTIONS_PER_ACCOUNT; i++) {
+            transactionChangeFeedService.subscribe(1L);
+        }
+
+        verify(oldest).complete();
+        assertEquals(TransactionChangeFeedService.MAX_SUBSCRIPTIONS_PER_ACCOUNT,
+                transactionChangeFeedService.getSubscriptionsCount(1L));
+    }
+
+    @Test
+    public void heartbeatRemovesClosedSubscriptions() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doReturn(emitter).when(transactionChangeFeedService).createEmitter();
+        doNothing().doThrow(new IllegalStateException()).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        transactionChangeFeedService.subscribe(1L);
+        ArgumentCaptor<Runnable> heartbeatCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(feedExecutor).scheduleWithFixedDelay(heartbeatCaptor.capture(),
+                eq(TransactionChangeFeedService.HEARTBEAT_PERIOD_SECONDS),
+                eq(TransactionChangeFeedService.HEARTBEAT_PERIOD_SECONDS), eq(TimeUnit.SECONDS));
+
+        heartbeatCaptor.getValue().run();
+
+        assertEquals(0, transactionChangeFeedService.getSubscriptionsCount(1L));
+    }
+
+    @Test
+    public void publishSendsChangeOnFeedExecutor() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doReturn(emitter).when(transactionChangeFeedService).createEmitter();
+        transactionChangeFeedService.subscribe(1L);
+        doNothing().when(feedExecutor).execute(any());
+
+        transactionChangeFeedService.publish(1L, createChange());
+
+        verify(feedExecutor).execute(any());
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    public void shutdownStopsFeedExecutor() {
+        transactionChangeFeedService.shutdown();
+
+        verify(feedExecutor).shutdownNow();
+    }
+
+    private TransactionChangeDTO createChange() {
+        return TransactionChangeDTO.builder()
+                .type(TransactionChangeType.DELETED)
+                .transactionId(UUID.randomUUID())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.override.orchestrator_service.service;
+
+import com.override.orchestrator_service.repository.TransactionMonthlyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionMonthlyRollupServiceTest {
+    @InjectMocks
+    private TransactionMonthlyRollupService transactionMonthlyRollupService;
+
+    @Mock
+    private TransactionMonthlyRollupRepository transactionMonthlyRollupRepository;
+
+    @Test
+    public void rebuildRollupsRecalculatesAllRollupsUnderLockTest() {
+        when(transactionMonthlyRollupRepository.insertAllRollupsFromTransactions()).thenReturn(42);
+
+        assertEquals(42, transactionMonthlyRollupService.rebuildRollups());
+
+        InOrder inOrder = inOrder(transactionMonthlyRollupRepository);
+        inOrder.verify(transactionMonthlyRollupRepository).lockTransactions();
+        inOrder.verify(transactionMonthlyRollupRepository).deleteAllRollups();
+        inOrder.verify(transactionMonthlyRollupRepository).insertAllRollupsFromTransactions();
+    }
+
+    @Test
+    public void rebuildRollupsForAccountRecalculatesOnlyAccountRollupsTest() {
+        when(transactionMonthlyRollupRepository.insertRollupsFromTransactionsByAccountId(1L)).thenReturn(3);
+
+        assertEquals(3, transactionMonthlyRollupService.rebuildRollupsForAccount(1L));
+
+        InOrder inOrder = inOrder(transactionMonthlyRollupRepository);
+        inOrder.verify(transactionMonthlyRollupRepository).lockTransactions();
+        inOrder.verify(transactionMonthlyRollupRepository).deleteRollupsByAccountId(1L);
+        inOrder.verify(transactionMonthlyRollupRepository).insertRollupsFromTransactionsByAccountId(1L);
+        verify(transactionMonthlyRollupRepository, never()).deleteAllRollups();
+    }
+}
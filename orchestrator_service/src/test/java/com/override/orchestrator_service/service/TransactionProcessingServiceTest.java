@@ -7,8 +7,11 @@ import com.override.orchestrator_service.exception.TransactionProcessingExceptio
 import com.override.orchestrator_service.feign.RecognizerFeign;
 import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.Transaction;
+import com.override.orchestrator_service.repository.CategoryRepository;
+import com.override.orchestrator_service.repository.OverMoneyAccountRepository;
 import com.override.orchestrator_service.util.TelegramUtils;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -16,9 +19,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.management.InstanceNotFoundException;
 import java.security.Principal;
@@ -28,6 +33,9 @@ import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,10 +56,25 @@ public class TransactionProcessingServiceTest {
     @Mock
     private TelegramUtils telegramUtils;
 
+    @Spy
+    private CategorizationIndexService categorizationIndexService;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private OverMoneyAccountRepository overMoneyAccountRepository;
+
+    @BeforeEach
+    public void init() {
+        ReflectionTestUtils.setField(categorizationIndexService, "categoryRepository", categoryRepository);
+        when(categoryRepository.findAllWithKeywordsByAccountId(TestFieldsUtil.generateTestAccount().getId()))
+                .thenReturn(TestFieldsUtil.generateTestAccount().getCategories());
+    }
+
     @ParameterizedTest
     @MethodSource("provideTransactionArgumentsCauseExc")
     public void checkProcessTransactionThrowsExceptionTest(String message) throws InstanceNotFoundException {
-        transactionProcessingService.init();
         TransactionMessageDTO transactionMessageDTO = TransactionMessageDTO.builder()
                 .message(message)
                 .userId(123L)
@@ -61,7 +84,8 @@ public class TransactionProcessingServiceTest {
         List<CategoryDTO> categories = List.of(TestFieldsUtil.generateTestCategoryDTO());
         when(recognizerFeign.recognizeCategory(any(), any(), any())).thenReturn(TestFieldsUtil.generateTestCategoryDTO());
         when(categoryService.findCategoriesListByUserId(transactionMessageDTO.getChatId())).thenReturn(categories);
-        when(overMoneyAccountService.getOverMoneyAccountByChatId(transactionMessageDTO.getChatId())).thenReturn(account);
+        when(overMoneyAccountService.getAccountIdByChatId(transactionMessageDTO.getChatId())).thenReturn(account.getId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
 
         assertThrows(TransactionProcessingException.class, () ->
                 transactionProcessingService.processTransaction(transactionMessageDTO));
@@ -105,7 +129,6 @@ public class TransactionProcessingServiceTest {
     @ParameterizedTest
     @MethodSource("provideTransactionArguments")
     public void checkProcessTransactionReturnsCorrectValuesTest(String message, String messageResponse, double amount, String categoryName) throws InstanceNotFoundException {
-        transactionProcessingService.init();
         TransactionMessageDTO transactionMessageDTO = TransactionMessageDTO.builder()
                 .message(message)
                 .userId(123L)
@@ -115,7 +138,8 @@ public class TransactionProcessingServiceTest {
         List<CategoryDTO> categories = List.of(TestFieldsUtil.generateTestCategoryDTO());
         when(recognizerFeign.recognizeCategory(any(), any(), any())).thenReturn(TestFieldsUtil.generateTestCategoryDTO());
         when(categoryService.findCategoriesListByUserId(transactionMessageDTO.getChatId())).thenReturn(categories);
-        when(overMoneyAccountService.getOverMoneyAccountByChatId(transactionMessageDTO.getChatId())).thenReturn(account);
+        when(overMoneyAccountService.getAccountIdByChatId(transactionMessageDTO.getChatId())).thenReturn(account.getId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
         Transaction transactionTest = transactionProcessingService.processTransaction(transactionMessageDTO);
 
         assertEquals(messageResponse, transactionTest.getMessage());
@@ -199,14 +223,16 @@ public class TransactionProcessingServiceTest {
 
     @Test
     public void checkValidateAndProcessTransactionWorksEqualsWithAndWithoutPrincipalTest() throws InstanceNotFoundException {
-        transactionProcessingService.init();
         when(telegramUtils.getTelegramId(any())).thenReturn(TestFieldsUtil.generateTestAccount().getId());
-        when(overMoneyAccountService.getAccountByUserId(any())).thenReturn(TestFieldsUtil.generateTestAccount());
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        when(overMoneyAccountService.getAccountIdByUserId(any())).thenReturn(account.getId());
+        when(overMoneyAccountService.getChatIdByAccountId(account.getId())).thenReturn(account.getChatId());
 
         List<CategoryDTO> categories = List.of(TestFieldsUtil.generateTestCategoryDTO());
         when(recognizerFeign.recognizeCategory(any(), any(), any())).thenReturn(TestFieldsUtil.generateTestCategoryDTO());
         when(categoryService.findCategoriesListByUserId(any())).thenReturn(categories);
-        when(overMoneyAccountService.getOverMoneyAccountByChatId(any())).thenReturn(TestFieldsUtil.generateTestAccount());
+        when(overMoneyAccountService.getAccountIdByChatId(any())).thenReturn(account.getId());
+        when(overMoneyAccountService.getAccountReference(account.getId())).thenReturn(account);
         Principal principal = new JwtAuthentication();
 
         Transaction resultTransactionWithPrincipal =
@@ -226,4 +252,33 @@ public class TransactionProcessingServiceTest {
         assertEquals(resultTransactionWithPrincipal.getCategory().getName(),
                 resultTransactionWithoutPrincipal.getCategory().getName());
     }
+
+    @Test
+    public void validateAndProcessTransactionThrowsExceptionWhenUserHasNoAccountTest() throws InstanceNotFoundException {
+        Principal principal = new JwtAuthentication();
+        when(telegramUtils.getTelegramId(principal)).thenReturn(123L);
+        when(overMoneyAccountService.getAccountIdByUserId(123L)).thenReturn(null);
+
+        assertThrows(InstanceNotFoundException.class, () -> transactionProcessingService
+                .validateAndProcessTransaction(TestFieldsUtil.generateTransactionMessageDTOFromWeb(), principal));
+    }
+
+    @Test
+    public void processTransactionResolvesAccountOfChatFromCacheTest() throws InstanceNotFoundException {
+        OverMoneyAccountService cachingAccountService = new OverMoneyAccountService();
+        ReflectionTestUtils.setField(cachingAccountService, "overMoneyAccountRepository", overMoneyAccountRepository);
+        ReflectionTestUtils.setField(transactionProcessingService, "overMoneyAccountService", cachingAccountService);
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        when(overMoneyAccountRepository.findByChatId(account.getChatId())).thenReturn(account);
+        when(overMoneyAccountRepository.getReferenceById(account.getId())).thenReturn(account);
+
+        transactionProcessingService.processTransaction(TestFieldsUtil.generateTransactionMessageDTOFromTelegram());
+        Transaction transaction = transactionProcessingService
+                .processTransaction(TestFieldsUtil.generateTransactionMessageDTOFromTelegram());
+
+        assertEquals(account.getId(), transaction.getAccount().getId());
+        verify(overMoneyAccountRepository, times(1)).findByChatId(account.getChatId());
+        verify(overMoneyAccountRepository, never()).findById(any());
+        verify(categoryRepository, times(1)).findAllWithKeywordsByAccountId(account.getId());
+    }
 }
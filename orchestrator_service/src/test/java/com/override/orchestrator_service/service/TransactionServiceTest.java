@@ -1,12 +1,18 @@
 package com.override.orchestrator_service.service;
 
 import com.override.dto.*;
+import com.override.dto.constants.TransactionChangeType;
+import com.override.orchestrator_service.exception.InvalidHistoryCursorException;
+import com.override.orchestrator_service.exception.InvalidPageSizeException;
+import com.override.orchestrator_service.exception.RequestSizeException;
 import com.override.orchestrator_service.feign.TelegramBotFeign;
 import com.override.orchestrator_service.mapper.TransactionMapper;
 import com.override.orchestrator_service.model.*;
 import com.override.orchestrator_service.repository.CategoryRepository;
 import com.override.orchestrator_service.repository.KeywordRepository;
+import com.override.orchestrator_service.repository.TransactionMonthlyRollupRepository;
 import com.override.orchestrator_service.repository.TransactionRepository;
+import com.override.orchestrator_service.repository.TransactionSuggestedCategoryRepository;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
 import org.assertj.core.util.Arrays;
 import org.junit.jupiter.api.Test;
@@ -14,11 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import javax.management.InstanceNotFoundException;
 import java.time.LocalDateTime;
@@ -26,10 +35,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -55,6 +67,14 @@ public class TransactionServiceTest {
     private CategoryRepository categoryRepository;
     @Mock
     private TransactionProcessingService transactionProcessingService;
+    @Mock
+    private CategorizationIndexService categorizationIndexService;
+    @Mock
+    private TransactionMonthlyRollupRepository transactionMonthlyRollupRepository;
+    @Mock
+    private TransactionSuggestedCategoryRepository transactionSuggestedCategoryRepository;
+    @Mock
+    private TransactionChangeFeedService transactionChangeFeedService;
 
     @Test
     public void transactionRepositorySaveTransactionWhenCategoryAndTransactionFound() {
@@ -64,6 +84,45 @@ public class TransactionServiceTest {
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
 
+    @Test
+    public void saveTransactionPublishesCreatedChangeForNewTransaction() {
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        transaction.setId(null);
+        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
+        when(transactionMapper.mapTransactionToDTO(transaction)).thenReturn(transactionDTO);
+
+        transactionService.saveTransaction(transaction);
+
+        TransactionChangeDTO change = captureChange(transaction.getAccount().getId());
+        assertEquals(TransactionChangeType.CREATED, change.getType());
+        assertEquals(transactionDTO, change.getTransaction());
+    }
+
+    @Test
+    public void saveTransactionPublishesUpdatedChangeForExistingTransaction() {
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+
+        transactionService.saveTransaction(transaction);
+
+        TransactionChangeDTO change = captureChange(transaction.getAccount().getId());
+        assertEquals(TransactionChangeType.UPDATED, change.getType());
+        assertEquals(transaction.getId(), change.getTransactionId());
+    }
+
+    @Test
+    public void saveAllTransactionsPublishesSingleReloadForLargeBatch() {
+        OverMoneyAccount account = TestFieldsUtil.generateTestAccount();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i <= TransactionService.MAX_CREATED_CHANGES_PER_SAVE; i++) {
+            transactions.add(Transaction.builder().account(account).build());
+        }
+
+        transactionService.saveAllTransactions(transactions);
+
+        assertEquals(TransactionChangeType.RELOAD, captureChange(account.getId()).getType());
+        verifyNoInteractions(transactionMapper);
+    }
+
     @Test
     void saveAllTransactionsTest() {
         List<Transaction> transactions = new ArrayList<>();
@@ -99,7 +158,7 @@ public class TransactionServiceTest {
         transaction2.setCategory(null);
         when(transactionRepository.findAllWithoutCategoriesByAccountId(any()))
                 .thenReturn(List.of(transaction1, transaction2));
-        when(userService.getUserById(any())).thenReturn(user);
+        when(userService.getAccountIdByUserId(any())).thenReturn(user.getAccount().getId());
         List<Transaction> testListTransaction =
                 transactionService.findTransactionsListByUserIdWithoutCategories(user.getId());
         assertEquals(List.of(transaction1, transaction2), testListTransaction);
@@ -119,7 +178,7 @@ public class TransactionServiceTest {
         Page<Transaction> page = new PageImpl<>(List.of(transaction1, transaction2));
 
         when(transactionRepository.findAllByAccountId(any(), any())).thenReturn(page);
-        when(userService.getUserById(any())).thenReturn(user);
+        when(userService.getAccountIdByUserId(any())).thenReturn(user.getAccount().getId());
         when(transactionMapper.mapTransactionToDTO(transaction1)).thenReturn(transactionDTO1);
         when(transactionMapper.mapTransactionToDTO(transaction2)).thenReturn(transactionDTO2);
 
@@ -128,6 +187,74 @@ public class TransactionServiceTest {
         assertEquals(List.of(transactionDTO1, transactionDTO2), testListTransaction);
     }
 
+    @Test
+    public void findTransactionsHistoryPageReturnsCursorOfLastTransactionTest() throws InstanceNotFoundException {
+        User user = TestFieldsUtil.generateTestUser();
+        user.setAccount(TestFieldsUtil.generateTestAccount());
+        Transaction transaction1 = TestFieldsUtil.generateTestTransaction();
+        Transaction transaction2 = TestFieldsUtil.generateTestTransaction();
+        Transaction transaction3 = TestFieldsUtil.generateTestTransaction();
+        TransactionDTO transactionDTO1 = TestFieldsUtil.generateTestTransactionDTO();
+        TransactionDTO transactionDTO2 = TestFieldsUtil.generateTestTransactionDTO();
+
+        when(userService.getAccountIdByUserId(any())).thenReturn(user.getAccount().getId());
+        when(transactionRepository.findHistoryFirstPage(user.getAccount().getId(), PageRequest.of(0, 3)))
+                .thenReturn(List.of(transaction1, transaction2, transaction3));
+        when(transactionMapper.mapTransactionToDTO(transaction1)).thenReturn(transactionDTO1);
+        when(transactionMapper.mapTransactionToDTO(transaction2)).thenReturn(transactionDTO2);
+
+        TransactionHistoryPageDTO firstPage = transactionService.findTransactionsHistoryPage(user.getId(), 2, null);
+        assertEquals(List.of(transactionDTO1, transactionDTO2), firstPage.getTransactions());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(transactionRepository.findHistoryPageAfter(user.getAccount().getId(), transaction2.getDate(),
+                transaction2.getId(), PageRequest.of(0, 3))).thenReturn(List.of(transaction3));
+        when(transactionMapper.mapTransactionToDTO(transaction3)).thenReturn(transactionDTO1);
+
+        TransactionHistoryPageDTO lastPage = transactionService
+                .findTransactionsHistoryPage(user.getId(), 2, firstPage.getNextCursor());
+        assertEquals(List.of(transactionDTO1), lastPage.getTransactions());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    public void findTransactionsHistoryPageThrowsExceptionWhenCursorIsInvalidTest() throws InstanceNotFoundException {
+        User user = TestFieldsUtil.generateTestUser();
+        user.setAccount(TestFieldsUtil.generateTestAccount());
+        when(userService.getAccountIdByUserId(any())).thenReturn(user.getAccount().getId());
+
+        assertThrows(InvalidHistoryCursorException.class,
+                () -> transactionService.findTransactionsHistoryPage(user.getId(), 50, "не курсор"));
+        assertThrows(InvalidHistoryCursorException.class,
+                () -> transactionService.findTransactionsHistoryPage(user.getId(), 50, "MjAyNC0wMS0wMQ"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 0, 501})
+    public void findTransactionsHistoryPageThrowsExceptionWhenPageSizeIsInvalidTest(int pageSize) {
+        assertThrows(InvalidPageSizeException.class,
+                () -> transactionService.findTransactionsHistoryPage(1L, pageSize, null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    public void getTransactionsListByPeriodAndCategoryQueriesHalfOpenMonthRange() {
+        Transaction transaction = TestFieldsUtil.generateTestTransaction();
+        TransactionDTO transactionDTO = TestFieldsUtil.generateTestTransactionDTO();
+        when(transactionRepository.findTransactionsBetweenDatesAndCategory(LocalDateTime.of(2023, 12, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 1, 0, 0), 1L))
+                .thenReturn(List.of(transaction));
+        when(transactionMapper.mapTransactionToDTO(transaction)).thenReturn(transactionDTO);
+
+        assertEquals(List.of(transactionDTO), transactionService.getTransactionsListByPeriodAndCategory(2023, 12, 1L));
+    }
+
+    @Test
+    public void getTransactionsListByPeriodAndCategoryReturnsEmptyListForInvalidMonth() {
+        assertEquals(List.of(), transactionService.getTransactionsListByPeriodAndCategory(2023, 13, 1L));
+        verifyNoInteractions(transactionRepository);
+    }
+
     @Test
     public void removeCategoryFromTransactionsWithSameMessageRemovesCategoryFromKeyword() {
         Transaction transaction = TestFieldsUtil.generateTestTransaction();
@@ -146,11 +273,11 @@ public class TransactionServiceTest {
         OverMoneyAccount acc = TestFieldsUtil.generateTestAccount();
         List<Integer> listOfYears = List.of(1, 2, 3);
 
-        when(transactionRepository.findAvailableYearsForAccountByAccountId(any()))
+        when(transactionMonthlyRollupRepository.findAvailableYearsByAccountId(any()))
                 .thenReturn(listOfYears);
 
         transactionService.findAvailableYears(123L);
-        assertEquals(transactionRepository.findAvailableYearsForAccountByAccountId(acc.getId()).size(),
+        assertEquals(transactionMonthlyRollupRepository.findAvailableYearsByAccountId(acc.getId()).size(),
                 listOfYears.size());
     }
 
@@ -159,7 +286,7 @@ public class TransactionServiceTest {
     public void findMonthlyIncomeStatisticsForYearByAccountIdReturnsCorrectList(List<AnalyticsMonthlyIncomeForCategoryDTO> inputList,
                                                                                 List<AnalyticsMonthlyReportForYearDTO> requeredList) {
 
-        when(transactionRepository.findMonthlyIncomeStatisticsByYearAndAccountId(any(), any()))
+        when(transactionMonthlyRollupRepository.findMonthlyIncomeStatisticsByYearAndAccountId(any(), any()))
                 .thenReturn(inputList);
 
         List<AnalyticsMonthlyReportForYearDTO> resultList = transactionService.findMonthlyIncomeStatisticsForYearByAccountId(123L, 123);
@@ -198,13 +325,22 @@ public class TransactionServiceTest {
         transactionService.deleteTransactionById(id);
         verify(transactionRepository, times(1)).findById(id);
         verify(transactionRepository, times(1)).deleteById(id);
+        TransactionChangeDTO change = captureChange(transaction.getAccount().getId());
+        assertEquals(TransactionChangeType.DELETED, change.getType());
+        assertEquals(id, change.getTransactionId());
+    }
+
+    private TransactionChangeDTO captureChange(Long accountId) {
+        ArgumentCaptor<TransactionChangeDTO> changeCaptor = ArgumentCaptor.forClass(TransactionChangeDTO.class);
+        verify(transactionChangeFeedService).publish(eq(accountId), changeCaptor.capture());
+        return changeCaptor.getValue();
     }
 
     @ParameterizedTest
     @MethodSource("provideAnnualAndMonthlyTotalStatisticsForYear")
     public void findAnnualAndMonthlyTotalStatisticsByAccountIdReturnsCorrectList(List<AnalyticsAnnualAndMonthlyExpenseForCategoryDTO> inputList,
                                                                                  List<AnalyticsAnnualAndMonthlyReportDTO> outputList) {
-        when(transactionRepository.findAnnualAndMonthlyTotalStatisticsByAccountId(any(), any()))
+        when(transactionMonthlyRollupRepository.findAnnualAndMonthlyTotalStatisticsByAccountId(any(), any()))
                 .thenReturn(inputList);
 
         List<AnalyticsAnnualAndMonthlyReportDTO> resultList = transactionService
@@ -222,6 +358,30 @@ public class TransactionServiceTest {
         );
     }
 
+    @Test
+    public void findAnnualAndMonthlyTotalStatisticsByAccountIdCalculatesSharesOfMonthTotalTest() {
+        when(transactionMonthlyRollupRepository.findAnnualAndMonthlyTotalStatisticsByAccountId(any(), any()))
+                .thenReturn(List.of(new AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(100d, "продукты", 1, 1),
+                        new AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(200.004d, "кафе", 2, 1),
+                        new AnalyticsAnnualAndMonthlyExpenseForCategoryDTO(50d, "кафе", 2, 2)));
+
+        List<AnalyticsAnnualAndMonthlyReportDTO> resultList = transactionService
+                .findAnnualAndMonthlyTotalStatisticsByAccountId(1L, 1999);
+
+        assertEquals(2, resultList.size());
+        AnalyticsAnnualAndMonthlyReportDTO food = resultList.stream()
+                .filter(dto -> dto.getCategoryId() == 1).findFirst().orElseThrow();
+        AnalyticsAnnualAndMonthlyReportDTO cafe = resultList.stream()
+                .filter(dto -> dto.getCategoryId() == 2).findFirst().orElseThrow();
+        assertEquals(100d, food.getMonthlyAnalytics().get(1));
+        assertEquals(200d, cafe.getMonthlyAnalytics().get(1));
+        assertEquals(1 - ((300d - 100d) / 300d), food.getShareOfMonthlyExpenses().get(1));
+        assertEquals(1 - ((300d - 200d) / 300d), cafe.getShareOfMonthlyExpenses().get(1));
+        assertEquals(0d, food.getShareOfMonthlyExpenses().get(2));
+        assertEquals(1d, cafe.getShareOfMonthlyExpenses().get(2));
+        assertEquals(12, food.getShareOfMonthlyExpenses().size());
+    }
+
     @Test
     public void editTransactionTestWhenChangesKeyword() {
         TransactionDTO transactionDTO = TransactionDTO.builder()
@@ -320,4 +480,23 @@ public class TransactionServiceTest {
         assertEquals(receivedTransactionFromReply.getMessage(), transactionFromRepo.getMessage());
         assertEquals(receivedTransactionFromReply.getAmount(), transactionFromRepo.getAmount());
     }
+
+    @Test
+    public void updateSuggestedCategoriesWritesSuggestionsWithOneUpdateTest() {
+        List<CategorySuggestionDTO> suggestions = List.of(
+                new CategorySuggestionDTO(UUID.randomUUID(), 1L), new CategorySuggestionDTO(UUID.randomUUID(), 2L));
+        when(transactionSuggestedCategoryRepository.updateSuggestedCategoryIds(suggestions)).thenReturn(2);
+
+        assertEquals(2, transactionService.updateSuggestedCategories(suggestions));
+        verify(transactionRepository, never()).findById(any());
+    }
+
+    @Test
+    public void updateSuggestedCategoriesThrowsExceptionWhenBatchIsTooLargeTest() {
+        List<CategorySuggestionDTO> suggestions = Collections.nCopies(TransactionService.MAX_SUGGESTIONS_BATCH_SIZE + 1,
+                new CategorySuggestionDTO(UUID.randomUUID(), 1L));
+
+        assertThrows(RequestSizeException.class, () -> transactionService.updateSuggestedCategories(suggestions));
+        verifyNoInteractions(transactionSuggestedCategoryRepository);
+    }
 }
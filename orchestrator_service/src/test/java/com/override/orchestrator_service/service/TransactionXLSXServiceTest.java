@@ -1,26 +1,39 @@
 package com.override.orchestrator_service.service;
 
 import com.override.dto.TransactionDTO;
+import com.override.dto.TransactionXLSXImportResultDTO;
+import com.override.orchestrator_service.exception.XLSXProcessingException;
 import com.override.orchestrator_service.model.Category;
 import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.Transaction;
 import com.override.orchestrator_service.utils.TestFieldsUtil;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
 import org.thymeleaf.util.StringUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -31,12 +44,11 @@ public class TransactionXLSXServiceTest {
     private TransactionXLSXService transactionXLSXService;
 
     @Mock
-    private TransactionProcessingService transactionProcessingService;
+    private TransactionService transactionService;
 
     @Mock
     private CategoryService categoryService;
 
-
     @ParameterizedTest
     @CsvSource({
             "Продукты, Расходы",
@@ -65,50 +77,115 @@ public class TransactionXLSXServiceTest {
         Category category = TestFieldsUtil.generateTestCategory();
         TransactionDTO transactionDTO = generateTestTransactionDTO();
         category.setName(nameCategory);
-        Set<Category> categories = Set.of(category);
         transactionDTO.setCategoryName(nameCategory);
         transactionDTO.setMessage(message);
         transactionDTO.setAmount(amount);
-        when(transactionProcessingService.getMatchingCategory(any(), any())).thenReturn(category);
         Transaction transaction = transactionXLSXService.createTransaction(transactionDTO,
-                TestFieldsUtil.generateTestAccount(), categories);
+                TestFieldsUtil.generateTestAccount(), category);
         assertEquals(transaction.getMessage(), message);
         assertEquals(transaction.getCategory().getName(), nameCategory);
         assertEquals(transaction.getAmount(), amount);
     }
 
     @Test
-    public void saveAllCategoriesFromXLSXTest() {
-        List<TransactionDTO> transactionDTOS = new ArrayList<>();
+    public void importTransactionsFromXLSXResolvesCategoriesAndReportsRowErrorsTest() throws IOException {
         OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
+        Category existingCategory = TestFieldsUtil.generateTestCategory();
+        existingCategory.setName("Продукты");
+        when(categoryService.getCategoriesByUserId(overMoneyAccount.getId())).thenReturn(Set.of(existingCategory));
+        LocalDateTime date = LocalDateTime.of(2023, 3, 15, 10, 30);
+        MockMultipartFile file = createXLSXFile(List.of(
+                new Object[]{"продукты", 200.5d, "хлеб", date},
+                new Object[]{"такси", 300d, "домой", date},
+                new Object[]{"", 100d, "без категории", date},
+                new Object[]{"Такси", "много", "на работу", date},
+                new Object[]{"такси", 150d, "в гости", "вчера"},
+                new Object[]{"такси", 120d, "обратно", date}));
+
+        TransactionXLSXImportResultDTO result = transactionXLSXService.importTransactionsFromXLSX(file, overMoneyAccount);
+
+        ArgumentCaptor<List<Transaction>> transactionsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveAllTransactions(transactionsCaptor.capture());
+        List<Transaction> transactions = transactionsCaptor.getValue();
+        assertEquals(3, transactions.size());
+        assertSame(existingCategory, transactions.get(0).getCategory());
+        assertEquals(200.5d, transactions.get(0).getAmount());
+        assertEquals(date, transactions.get(0).getDate());
+        assertEquals("Такси", transactions.get(1).getCategory().getName());
+        assertSame(transactions.get(1).getCategory(), transactions.get(2).getCategory());
+        verify(categoryService, times(1)).saveAllCategories(any());
+
+        assertEquals(5, result.getProcessedRows());
+        assertEquals(3, result.getImportedTransactions());
+        assertEquals(2, result.getFailedRows());
+        assertEquals(1, result.getCreatedCategories());
+        assertEquals(4, result.getErrors().get(0).getRow());
+        assertEquals("Некорректная сумма", result.getErrors().get(0).getError().getMessage());
+        assertEquals(5, result.getErrors().get(1).getRow());
+        assertEquals("Некорректная дата", result.getErrors().get(1).getError().getMessage());
+    }
 
-        Category category1 = TestFieldsUtil.generateTestCategory();
-        category1.setName("Category 1");
-
-        Category category2 = TestFieldsUtil.generateTestCategory();
-        category2.setName("Category 2");
-
-        Set<Category> newCategories = new HashSet<>();
-        newCategories.add(category2);
-
-        Set<Category> existingCategories = new HashSet<>();
-        existingCategories.add(category1);
-
-        overMoneyAccount.setCategories(existingCategories);
-
-        TransactionDTO transaction1 = new TransactionDTO();
-        transaction1.setCategoryName("Category 1");
-        transactionDTOS.add(transaction1);
+    @Test
+    public void importTransactionsFromXLSXSavesTransactionsInBatchesTest() throws IOException {
+        OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
+        Category category = TestFieldsUtil.generateTestCategory();
+        category.setName("Продукты");
+        when(categoryService.getCategoriesByUserId(overMoneyAccount.getId())).thenReturn(Set.of(category));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            rows.add(new Object[]{"Продукты", 10d, "хлеб", LocalDateTime.now()});
+        }
+
+        TransactionXLSXImportResultDTO result = transactionXLSXService
+                .importTransactionsFromXLSX(createXLSXFile(rows), overMoneyAccount);
+
+        ArgumentCaptor<List<Transaction>> transactionsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(2)).saveAllTransactions(transactionsCaptor.capture());
+        assertEquals(500, transactionsCaptor.getAllValues().get(0).size());
+        assertEquals(1, transactionsCaptor.getAllValues().get(1).size());
+        assertEquals(501, result.getImportedTransactions());
+        verify(categoryService, never()).saveAllCategories(any());
+    }
 
-        TransactionDTO transaction2 = new TransactionDTO();
-        transaction2.setCategoryName("Category 2");
-        transactionDTOS.add(transaction2);
+    @Test
+    public void importTransactionsFromXLSXThrowsOnInvalidFileTest() {
+        OverMoneyAccount overMoneyAccount = TestFieldsUtil.generateTestAccount();
+        MockMultipartFile file = new MockMultipartFile("data", "data.xlsx", null, "не xlsx".getBytes());
 
-        transactionXLSXService.saveAllCategoriesFromXLSX(transactionDTOS, overMoneyAccount);
+        assertThrows(XLSXProcessingException.class,
+                () -> transactionXLSXService.importTransactionsFromXLSX(file, overMoneyAccount));
+        verify(transactionService, never()).saveAllTransactions(any());
+    }
 
-        verify(categoryService, times(1)).saveAllCategories(newCategories);
+    private MockMultipartFile createXLSXFile(List<Object[]> rows) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy hh:mm"));
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = sheet.createRow(i);
+                Object[] values = rows.get(i);
+                row.createCell(0).setCellValue((String) values[0]);
+                setCellValue(row.createCell(1), values[1]);
+                row.createCell(2).setCellValue((String) values[2]);
+                Cell dateCell = row.createCell(4);
+                setCellValue(dateCell, values[3]);
+                dateCell.setCellStyle(dateStyle);
+            }
+            workbook.write(out);
+            return new MockMultipartFile("data", "data.xlsx", null, out.toByteArray());
+        }
     }
 
+    private void setCellValue(Cell cell, Object value) {
+        if (value instanceof Double) {
+            cell.setCellValue((Double) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+        } else {
+            cell.setCellValue((String) value);
+        }
+    }
 
     private TransactionDTO generateTestTransactionDTO() {
         return TransactionDTO.builder()
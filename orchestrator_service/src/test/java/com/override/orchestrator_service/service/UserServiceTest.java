@@ -2,9 +2,11 @@ package com.override.orchestrator_service.service;
 
 import com.override.dto.AccountDataDTO;
 import com.override.orchestrator_service.mapper.UserMapper;
+import com.override.orchestrator_service.model.OverMoneyAccount;
 import com.override.orchestrator_service.model.TelegramAuthRequest;
 import com.override.orchestrator_service.model.User;
 import com.override.orchestrator_service.repository.UserRepository;
+import com.override.orchestrator_service.utils.TestFieldsUtil;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +15,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.management.InstanceNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -121,7 +126,75 @@ public class UserServiceTest {
         Assertions.assertEquals(user, foundUser);
     }
 
+    @Test
+    public void getAccountIdByUserIdCachesAccountIdUntilUserIsSaved() throws InstanceNotFoundException {
+        final User user = TestFieldsUtil.generateTestUser();
+        user.setAccount(TestFieldsUtil.generateTestAccount());
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        Assertions.assertEquals(user.getAccount().getId(), userService.getAccountIdByUserId(user.getId()));
+        Assertions.assertEquals(user.getAccount().getId(), userService.getAccountIdByUserId(user.getId()));
+        verify(userRepository, times(1)).findById(user.getId());
+
+        userService.saveUser(user);
+        userService.getAccountIdByUserId(user.getId());
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    public void getAccountIdByUserIdThrowsExceptionWhenUserNotFound() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(InstanceNotFoundException.class, () -> userService.getAccountIdByUserId(1L));
+    }
+
+    @Test
+    public void getDisplayNamesByIdsLoadsOnlyMissingUsers() {
+        final User withUsername = User.builder().id(1L).username("anon").firstName("Иван").build();
+        final User withoutUsername = User.builder().id(2L).firstName("Петр").build();
 
+        when(userRepository.findAllUsersByIds(any())).thenReturn(List.of(withUsername, withoutUsername));
+        Map<Long, String> displayNames = userService.getDisplayNamesByIds(Arrays.asList(1L, 2L, 1L, null));
 
+        Assertions.assertEquals(Map.of(1L, "anon", 2L, "Петр"), displayNames);
 
+        when(userRepository.findAllUsersByIds(List.of(3L))).thenReturn(List.of());
+        displayNames = userService.getDisplayNamesByIds(List.of(1L, 3L));
+
+        Assertions.assertEquals(Map.of(1L, "anon"), displayNames);
+        verify(userRepository, times(1)).findAllUsersByIds(List.of(3L));
+    }
+
+    @Test
+    public void evictAccountEvictsAccountIdsOfAccountUsers() throws InstanceNotFoundException {
+        final User user = TestFieldsUtil.generateTestUser();
+        user.setAccount(TestFieldsUtil.generateTestAccount());
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        userService.getAccountIdByUserId(user.getId());
+        userService.evictAccount(user.getAccount().getId());
+        userService.getAccountIdByUserId(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    public void getAccountIdByUserIdReloadsAccountIdEvictedDuringLoading() throws InstanceNotFoundException {
+        final OverMoneyAccount oldAccount = OverMoneyAccount.builder().id(1L).build();
+        final OverMoneyAccount newAccount = OverMoneyAccount.builder().id(2L).build();
+        final User staleUser = User.builder().id(1L).account(oldAccount).build();
+        final User user = User.builder().id(1L).account(newAccount).build();
+
+        when(userRepository.findById(user.getId()))
+                .thenAnswer(invocation -> {
+                    userService.evictAccount(oldAccount.getId());
+                    return Optional.of(staleUser);
+                })
+                .thenReturn(Optional.of(user));
+
+        Assertions.assertEquals(newAccount.getId(), userService.getAccountIdByUserId(user.getId()));
+        Assertions.assertEquals(newAccount.getId(), userService.getAccountIdByUserId(user.getId()));
+        verify(userRepository, times(2)).findById(user.getId());
+    }
 }
@@ -0,0 +1,120 @@
+package com.override.orchestrator_service.service.calc;
+
+import com.override.dto.TransactionAmountAndCommentDTO;
+import com.override.orchestrator_service.exception.TransactionProcessingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionMessageParserTest {
+    @InjectMocks
+    private TransactionMessageParser parser;
+
+    private final List<TransactionHandler> transactionHandlers = List.of(
+            new TransactionHandlerImplSumAmountAtFront(),
+            new TransactionHandlerImplSingleAmountAtFront(),
+            new TransactionHandlerImplSumAmountAtEnd(),
+            new TransactionHandlerImplSingleAmountAtEnd(),
+            new TransactionHandlerImplInvalidTransaction());
+
+    private static final String[] MESSAGE_PARTS = {
+            "пиво", "Теплое", "ёлка", "beer", "7", "200", "1.5", ",45", "200,12", ".", ",", "+", "+", "-", "!",
+            "№", "€", "🍺", " ", " ", " ", "  ", "\t", "\n", "\r\n", "\u2028", "\u0085", "\u00A0", "\u0000"
+    };
+
+    @ParameterizedTest
+    @MethodSource("provideTransactions")
+    public void parseReturnsAmountAndCommentTest(String message, String expectedComment, double expectedAmount) {
+        TransactionAmountAndCommentDTO result = parser.parse(message);
+
+        assertEquals(expectedAmount, result.getAmount(), 0.0001d);
+        assertEquals(expectedComment, result.getComment());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"пиво", "пиво 200 пиво", "пиво200", "200пиво", "200,5пиво 200,5 пиво", "100+100",
+            "пиво 100+1-1", "200+один+200 пиво", "200+1 +один пиво", "", " ", "пиво 200.", "пиво 1.2.3"})
+    public void parseThrowsExceptionForUnsupportedFormatTest(String message) {
+        assertThrows(TransactionProcessingException.class, () -> parser.parse(message));
+    }
+
+    @Test
+    public void parseMatchesHandlerChainOnRandomMessagesTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder message = new StringBuilder();
+            int partsCount = 1 + random.nextInt(8);
+            for (int j = 0; j < partsCount; j++) {
+                message.append(MESSAGE_PARTS[random.nextInt(MESSAGE_PARTS.length)]);
+            }
+            assertSameResultAsHandlerChain(message.toString());
+        }
+    }
+
+    private void assertSameResultAsHandlerChain(String message) {
+        TransactionAmountAndCommentDTO expected;
+        try {
+            expected = processWithHandlerChain(message);
+        } catch (TransactionProcessingException e) {
+            assertThrows(TransactionProcessingException.class, () -> parser.parse(message), message);
+            return;
+        } catch (RuntimeException e) {
+            return;
+        }
+        TransactionAmountAndCommentDTO actual;
+        try {
+            actual = parser.parse(message);
+        } catch (TransactionProcessingException e) {
+            fail("Сообщение не разобрано: " + message);
+            return;
+        }
+        assertEquals(expected.getAmount(), actual.getAmount(), message);
+        assertEquals(expected.getComment(), actual.getComment(), message);
+    }
+
+    private TransactionAmountAndCommentDTO processWithHandlerChain(String message) {
+        for (TransactionHandler handler : transactionHandlers) {
+            if (Pattern.compile(handler.getRegExp()).matcher(message).find()) {
+                return new TransactionAmountAndCommentDTO(handler.calculateAmount(message),
+                        handler.getTransactionComment(message));
+            }
+        }
+        throw new IllegalStateException("Последняя стратегия принимает любое сообщение");
+    }
+
+    private static Stream<Arguments> provideTransactions() {
+        return Stream.of(
+                Arguments.of("пиво 200", "пиво", 200),
+                Arguments.of("пиво ,45", "пиво", .45),
+                Arguments.of("пиво 1.5 .45", "пиво 1.5", .45),
+                Arguments.of("пиво 777 ! теплое 200", "пиво 777 ! теплое", 200),
+                Arguments.of("пиво теплое! 1,5 500,23", "пиво теплое! 1,5", 500.23),
+                Arguments.of("200 пиво", "пиво", 200),
+                Arguments.of("1,5 .45 пиво", ".45 пиво", 1.5),
+                Arguments.of("200  пиво", " пиво", 200),
+                Arguments.of("500 пиво теплое! 1.5", "пиво теплое! 1.5", 500),
+                Arguments.of("200+200 пиво теплое", "пиво теплое", 400),
+                Arguments.of("200,1+200.1 пиво теплое 1 +1", "пиво теплое 1 +1", 400.2),
+                Arguments.of("пиво 200,1 +200.1+ 200.12", "пиво", 600.32),
+                Arguments.of("пиво теплое! 1.5 200+   200,12  +   200.13  +200", "пиво теплое! 1.5", 800.25),
+                Arguments.of("ёлка пиво 200", "ёлка пиво", 200),
+                Arguments.of("пиво 1 + 2 3", "пиво 1 + 2", 3),
+                Arguments.of("пиво 200\n", "пиво", 200)
+        );
+    }
+}
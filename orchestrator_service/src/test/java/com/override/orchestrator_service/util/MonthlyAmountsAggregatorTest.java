@@ -0,0 +1,99 @@
+package com.override.orchestrator_service.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class MonthlyAmountsAggregatorTest {
+
+    @Test
+    public void addSumsAmountsByCategoryAndMonth() {
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+
+        aggregator.add("еда", 1, 1, 100d);
+        aggregator.add("еда", 1, 1, 50d);
+        aggregator.add("еда", 2, 12, 30d);
+        aggregator.add("кафе", 3, 1, 10d);
+
+        Map<String, MonthlyAmountsAggregator.CategoryAmounts> categories = aggregator.getCategories().stream()
+                .collect(Collectors.toMap(MonthlyAmountsAggregator.CategoryAmounts::getCategoryName, c -> c));
+        Assertions.assertEquals(2, categories.size());
+        Assertions.assertEquals(150d, categories.get("еда").getAmounts()[0]);
+        Assertions.assertEquals(30d, categories.get("еда").getAmounts()[11]);
+        Assertions.assertEquals(2, categories.get("еда").getCategoryId());
+        Assertions.assertEquals(10d, categories.get("кафе").getAmounts()[0]);
+        Assertions.assertArrayEquals(new double[]{160d, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 30d}, aggregator.getMonthTotals());
+    }
+
+    @Test
+    public void addSkipsRowsWithoutAmountOrWithUnknownMonth() {
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+
+        aggregator.add("еда", 1, 0, 100d);
+        aggregator.add("еда", 1, 13, 100d);
+        aggregator.add("еда", 1, null, 100d);
+        aggregator.add("еда", 1, 5, null);
+
+        Assertions.assertEquals(1, aggregator.getCategories().size());
+        Assertions.assertArrayEquals(new double[MonthlyAmountsAggregator.MONTHS_COUNT], aggregator.getMonthTotals());
+    }
+
+    @Test
+    public void roundAmountsRoundsToKopecks() {
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+        aggregator.add("еда", 1, 3, 10.125);
+        aggregator.add("еда", 1, 4, 0.1);
+        aggregator.add("еда", 1, 4, 0.2);
+
+        aggregator.roundAmounts();
+
+        double[] amounts = aggregator.getCategories().iterator().next().getAmounts();
+        Assertions.assertEquals(10.13, amounts[2]);
+        Assertions.assertEquals(0.3, amounts[3]);
+    }
+
+    @Test
+    public void getSharesDividesAmountsByMonthTotals() {
+        double[] amounts = {25d, 0, 10d, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        double[] totals = {100d, 50d, 10d, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+        double[] shares = MonthlyAmountsAggregator.getShares(amounts, totals);
+
+        Assertions.assertEquals(0.25, shares[0]);
+        Assertions.assertEquals(0d, shares[1]);
+        Assertions.assertEquals(1d, shares[2]);
+        Assertions.assertEquals(0d, shares[3]);
+    }
+
+    @Test
+    public void toMonthMapContainsEveryMonth() {
+        double[] values = new double[MonthlyAmountsAggregator.MONTHS_COUNT];
+        values[6] = 7d;
+
+        Map<Integer, Double> monthMap = MonthlyAmountsAggregator.toMonthMap(values);
+
+        Assertions.assertEquals(12, monthMap.size());
+        Assertions.assertEquals(7d, monthMap.get(7));
+        Assertions.assertEquals(0d, monthMap.get(12));
+    }
+
+    @Test
+    public void getCategoriesKeepsHashSetOrderOfCategoryNames() {
+        List<String> names = List.of("продукты", "кафе", "транспорт", "жкх", "одежда", "здоровье", "подарки");
+        MonthlyAmountsAggregator aggregator = new MonthlyAmountsAggregator();
+        Set<String> nameSet = new HashSet<>();
+        names.forEach(name -> {
+            aggregator.add(name, 1, 1, 1d);
+            nameSet.add(name);
+        });
+
+        Assertions.assertEquals(List.copyOf(nameSet), aggregator.getCategories().stream()
+                .map(MonthlyAmountsAggregator.CategoryAmounts::getCategoryName)
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.override.recognizer_service.config;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Один клиент на все запросы к wit.ai go proxy, соединения переиспользуются из пула
+     */
+    @Bean
+    public OkHttpClient witAiProxyHttpClient(WitAiProxyProperties witAiProxyProperties) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(witAiProxyProperties.getMaxIdleConnections(),
+                        witAiProxyProperties.getKeepAliveMinutes(), TimeUnit.MINUTES))
+                .connectTimeout(witAiProxyProperties.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(witAiProxyProperties.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(witAiProxyProperties.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.override.recognizer_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "voice-recognition-cache")
+@Getter
+@Setter
+public class VoiceRecognitionCacheProperties {
+    /**
+     * Сколько результатов распознавания хранится в памяти
+     */
+    private long maxSize = 10000;
+    private long ttlHours = 168;
+    private Disk disk = new Disk();
+
+    @Getter
+    @Setter
+    public static class Disk {
+        /**
+         * Хранить ли результаты на диске, чтобы они переживали перезапуск сервиса
+         */
+        private boolean enabled = false;
+        private String directory = "/tmp/voice-recognition-cache";
+        private int maxEntries = 100000;
+    }
+}
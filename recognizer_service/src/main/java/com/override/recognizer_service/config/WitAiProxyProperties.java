@@ -0,0 +1,21 @@
+package com.override.recognizer_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "wit-ai-proxy")
+@Getter
+@Setter
+public class WitAiProxyProperties {
+    private long connectTimeoutMillis = 2000;
+    /**
+     * Распознавание длинного голосового сообщения занимает несколько секунд, поэтому ответ ждем дольше
+     */
+    private long readTimeoutMillis = 30000;
+    private long writeTimeoutMillis = 10000;
+    private int maxIdleConnections = 5;
+    private long keepAliveMinutes = 5;
+}
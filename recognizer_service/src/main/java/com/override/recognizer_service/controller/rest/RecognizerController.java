@@ -1,6 +1,8 @@
 package com.override.recognizer_service.controller.rest;
 
 import com.override.dto.CategoryDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
 import com.override.recognizer_service.service.CategoryRecognizerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,5 +24,10 @@ public class RecognizerController {
         categoryRecognizerService.sendTransactionWithSuggestedCategory(message, categories, transactionId);
     }
 
+    @PostMapping("/recognizer/category/suggested/batch")
+    public List<CategorySuggestionDTO> recognizeCategories(@RequestBody CategorySuggestionBatchDTO batch) {
+        return categoryRecognizerService.recognizeCategories(batch);
+    }
+
 
 }
@@ -3,18 +3,33 @@ package com.override.recognizer_service.controller.rest;
 import com.override.dto.VoiceMessageDTO;
 import com.override.recognizer_service.service.VoiceMessageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
+
 @RestController
 public class VoiceMessageController {
 
+    public static final String FILE_UNIQUE_ID_HEADER = "X-Voice-File-Unique-Id";
+
     @Autowired
     private VoiceMessageService voiceMessageService;
 
-    @PostMapping("/voice")
+    @PostMapping(value = "/voice", consumes = MediaType.APPLICATION_JSON_VALUE)
     public String processVoiceMessage(@RequestBody VoiceMessageDTO voiceMessage) {
         return voiceMessageService.processVoiceMessage(voiceMessage);
     }
+
+    /**
+     * Принимает голосовое сообщение телом запроса без base64 и читает его из соединения по мере распознавания
+     */
+    @PostMapping(value = "/voice", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public String processVoiceMessage(InputStream voiceMessage,
+                                      @RequestHeader(value = FILE_UNIQUE_ID_HEADER, required = false) String fileUniqueId) {
+        return voiceMessageService.processVoiceMessage(voiceMessage, fileUniqueId);
+    }
 }
@@ -1,15 +1,17 @@
 package com.override.recognizer_service.feign;
 
-import com.override.dto.TransactionDTO;
+import com.override.dto.CategorySuggestionDTO;
 import com.override.recognizer_service.config.FeignConfiguration;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(value = "orchestrator", url = "${integration.internal.host.orchestrator}", configuration = FeignConfiguration.class)
 public interface OrchestratorFeign {
 
-    @PutMapping("/transaction")
-    ResponseEntity<String> editTransaction(@RequestBody TransactionDTO transactionDTO);
+    @PutMapping("/transactions/suggested-categories")
+    ResponseEntity<String> editSuggestedCategories(@RequestBody List<CategorySuggestionDTO> suggestions);
 }
@@ -0,0 +1,331 @@
+package com.override.recognizer_service.service;
+
+import com.override.dto.CategoryDTO;
+import com.override.dto.KeywordIdDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс ключевых слов категорий аккаунта для поиска наиболее похожего на сообщение ключевого слова.
+ * Результат совпадает с полным перебором: похожесть считается как (maxLength - levenshtein) / maxLength
+ * по строкам в нижнем регистре, название категории считается ее последним ключевым словом,
+ * при равной похожести выбирается ключевое слово, встретившееся в списке раньше.
+ * <p>
+ * Вместо расчета расстояния Левенштейна до каждого ключевого слова сначала проверяются ключевые слова
+ * с общими с сообщением триграммами, затем остальные по мере удаления их длины от длины сообщения.
+ * Ключевое слово отбрасывается без расчета, если его не позволяет выбрать разница длин или
+ * число общих триграмм (при расстоянии d у строк не меньше max(|a|, |b|) - 2 - 3d общих триграмм),
+ * или число общих символов (расстояние не меньше max(|a|, |b|) минус размер пересечения мультимножеств символов),
+ * а расчет расстояния прерывается, как только оно превышает допустимое для лучшего найденного слова
+ */
+public class CategoryKeywordIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private static final int ALPHABET_SIZE = 251;
+
+    private final char[][] keywords;
+
+    private final int[] categoryPositions;
+
+    private final int[][] keywordsByLength;
+
+    private final Map<String, int[]> postings;
+
+    public CategoryKeywordIndex(List<CategoryDTO> categories) {
+        List<char[]> keywordList = new ArrayList<>();
+        List<Integer> positionList = new ArrayList<>();
+        for (int position = 0; position < categories.size(); position++) {
+            CategoryDTO category = categories.get(position);
+            if (category.getKeywords() != null) {
+                for (KeywordIdDTO keyword : category.getKeywords()) {
+                    addKeyword(keywordList, positionList, keyword.getName(), position);
+                }
+            }
+            addKeyword(keywordList, positionList, category.getName(), position);
+        }
+        keywords = keywordList.toArray(new char[0][]);
+        categoryPositions = positionList.stream().mapToInt(Integer::intValue).toArray();
+        keywordsByLength = groupByLength(keywords);
+        postings = buildPostings(keywords);
+    }
+
+    /**
+     * @return позиция в списке категорий, по которому построен индекс, категории с наиболее похожим
+     * на сообщение ключевым словом, либо 0, если ни одно ключевое слово не похоже на сообщение
+     */
+    public int findMostSuitableCategoryPosition(String message) {
+        return new Search(message.toLowerCase().toCharArray()).find();
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    private static void addKeyword(List<char[]> keywordList, List<Integer> positionList, String name, int position) {
+        if (name == null) {
+            return;
+        }
+        keywordList.add(name.toLowerCase().toCharArray());
+        positionList.add(position);
+    }
+
+    private static int[][] groupByLength(char[][] keywords) {
+        int maxLength = 0;
+        for (char[] keyword : keywords) {
+            maxLength = Math.max(maxLength, keyword.length);
+        }
+        int[] counts = new int[maxLength + 1];
+        for (char[] keyword : keywords) {
+            counts[keyword.length]++;
+        }
+        int[][] byLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length] = new int[counts[length]];
+            counts[length] = 0;
+        }
+        for (int i = 0; i < keywords.length; i++) {
+            int length = keywords[i].length;
+            byLength[length][counts[length]++] = i;
+        }
+        return byLength;
+    }
+
+    /**
+     * @return триграмма - пары (номер ключевого слова, число вхождений триграммы в него)
+     */
+    private static Map<String, int[]> buildPostings(char[][] keywords) {
+        Map<String, List<int[]>> postingLists = new HashMap<>();
+        for (int i = 0; i < keywords.length; i++) {
+            int keywordIndex = i;
+            countGrams(keywords[i]).forEach((gram, count) -> postingLists
+                    .computeIfAbsent(gram, g -> new ArrayList<>())
+                    .add(new int[]{keywordIndex, count}));
+        }
+        Map<String, int[]> result = new HashMap<>(postingLists.size() * 2);
+        postingLists.forEach((gram, list) -> {
+            int[] pairs = new int[list.size() * 2];
+            for (int i = 0; i < list.size(); i++) {
+                pairs[i * 2] = list.get(i)[0];
+                pairs[i * 2 + 1] = list.get(i)[1];
+            }
+            result.put(gram, pairs);
+        });
+        return result;
+    }
+
+    private static Map<String, Integer> countGrams(char[] chars) {
+        Map<String, Integer> grams = new HashMap<>();
+        for (int i = 0; i + GRAM_LENGTH <= chars.length; i++) {
+            grams.merge(new String(chars, i, GRAM_LENGTH), 1, Integer::sum);
+        }
+        return grams;
+    }
+
+    static float similarity(int maxLength, int distance) {
+        float length = maxLength;
+        return (length - distance) / length;
+    }
+
+    /**
+     * Расстояние Левенштейна, ограниченное порогом: считается только полоса шириной 2 * threshold + 1
+     * вокруг диагонали, расчет прерывается, когда все значения строки превышают порог
+     *
+     * @return расстояние или -1, если оно больше threshold
+     */
+    static int boundedDistance(char[] left, char[] right, int threshold) {
+        return boundedDistance(left, right, threshold, new int[right.length + 1], new int[right.length + 1]);
+    }
+
+    /**
+     * @param previous строка матрицы длиной не меньше right.length + 1, переиспользуется между вызовами
+     * @param current  вторая такая же строка
+     */
+    private static int boundedDistance(char[] left, char[] right, int threshold, int[] previous, int[] current) {
+        int n = left.length;
+        int m = right.length;
+        if (Math.abs(n - m) > threshold) {
+            return -1;
+        }
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= threshold ? j : INFINITY;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - threshold);
+            int to = Math.min(m, i + threshold);
+            current[0] = i <= threshold ? i : INFINITY;
+            current[from - 1] = from > 1 ? INFINITY : current[0];
+            int rowMin = current[from - 1];
+            char leftChar = left[i - 1];
+            for (int j = from; j <= to; j++) {
+                int substitution = previous[j - 1] + (leftChar == right[j - 1] ? 0 : 1);
+                int value = Math.min(Math.min(current[j - 1], previous[j]) + 1, substitution);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < m) {
+                current[to + 1] = INFINITY;
+            }
+            if (rowMin > threshold) {
+                return -1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= threshold ? previous[m] : -1;
+    }
+
+    private class Search {
+
+        private final char[] message;
+
+        private final int[] commonGrams = new int[keywords.length];
+
+        private final boolean[] checked = new boolean[keywords.length];
+
+        /**
+         * Число символов сообщения по остатку от деления кода символа на {@link #ALPHABET_SIZE}.
+         * Совпадение остатков у разных символов только увеличивает число общих символов, оценка остается нижней
+         */
+        private final int[] messageChars = new int[ALPHABET_SIZE];
+
+        private final int[] previousRow = new int[keywordsByLength.length + 1];
+
+        private final int[] currentRow = new int[keywordsByLength.length + 1];
+
+        private int best = -1;
+
+        private float bestSimilarity = 0;
+
+        private Search(char[] message) {
+            this.message = message;
+            for (char c : message) {
+                messageChars[c % ALPHABET_SIZE]++;
+            }
+        }
+
+        private int find() {
+            checkKeywordsWithCommonGrams();
+            checkKeywordsByLength();
+            return best < 0 ? 0 : categoryPositions[best];
+        }
+
+        /**
+         * Проверяет ключевые слова с общими триграммами, начиная с имеющих больше всего общих триграмм,
+         * чтобы как можно раньше найти близкое слово и отбрасывать остальные по оценкам
+         */
+        private void checkKeywordsWithCommonGrams() {
+            Map<String, Integer> messageGrams = countGrams(message);
+            int[] candidates = new int[keywords.length];
+            int[] candidatesCount = {0};
+            int[] maxCommonGrams = {0};
+            messageGrams.forEach((gram, count) -> {
+                int[] pairs = postings.get(gram);
+                if (pairs == null) {
+                    return;
+                }
+                for (int i = 0; i < pairs.length; i += 2) {
+                    int keyword = pairs[i];
+                    if (commonGrams[keyword] == 0) {
+                        candidates[candidatesCount[0]++] = keyword;
+                    }
+                    commonGrams[keyword] += Math.min(count, pairs[i + 1]);
+                    maxCommonGrams[0] = Math.max(maxCommonGrams[0], commonGrams[keyword]);
+                }
+            });
+            int[] offsets = new int[maxCommonGrams[0] + 2];
+            for (int i = 0; i < candidatesCount[0]; i++) {
+                offsets[maxCommonGrams[0] - commonGrams[candidates[i]] + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            int[] sorted = new int[candidatesCount[0]];
+            for (int i = 0; i < candidatesCount[0]; i++) {
+                sorted[offsets[maxCommonGrams[0] - commonGrams[candidates[i]]]++] = candidates[i];
+            }
+            for (int keyword : sorted) {
+                check(keyword);
+            }
+        }
+
+        private void checkKeywordsByLength() {
+            for (int length = message.length; length >= 0 && canCompete(length); length--) {
+                checkKeywordsWithLength(length);
+            }
+            for (int length = message.length + 1; length < keywordsByLength.length && canCompete(length); length++) {
+                checkKeywordsWithLength(length);
+            }
+        }
+
+        private void checkKeywordsWithLength(int length) {
+            if (length < keywordsByLength.length) {
+                for (int keyword : keywordsByLength[length]) {
+                    check(keyword);
+                }
+            }
+        }
+
+        private boolean canCompete(int keywordLength) {
+            int maxLength = Math.max(message.length, keywordLength);
+            return maxLength > 0 && similarity(maxLength, Math.abs(message.length - keywordLength)) >= bestSimilarity;
+        }
+
+        private void check(int keyword) {
+            if (checked[keyword]) {
+                return;
+            }
+            checked[keyword] = true;
+            char[] chars = keywords[keyword];
+            int maxLength = Math.max(message.length, chars.length);
+            if (maxLength == 0) {
+                return;
+            }
+            int maxDistance = maxWinningDistance(maxLength, keyword);
+            if (maxDistance < Math.abs(message.length - chars.length)
+                    || commonGrams[keyword] < maxLength - GRAM_LENGTH + 1 - GRAM_LENGTH * maxDistance
+                    || maxLength - countCommonChars(chars) > maxDistance) {
+                return;
+            }
+            int distance = boundedDistance(message, chars, maxDistance, previousRow, currentRow);
+            if (distance >= 0) {
+                best = keyword;
+                bestSimilarity = similarity(maxLength, distance);
+            }
+        }
+
+        private int countCommonChars(char[] chars) {
+            int common = 0;
+            for (char c : chars) {
+                if (messageChars[c % ALPHABET_SIZE]-- > 0) {
+                    common++;
+                }
+            }
+            for (char c : chars) {
+                messageChars[c % ALPHABET_SIZE]++;
+            }
+            return common;
+        }
+
+        /**
+         * @return наибольшее расстояние, при котором ключевое слово становится лучшим, -1, если такого нет
+         */
+        private int maxWinningDistance(int maxLength, int keyword) {
+            int distance = Math.min(maxLength, (int) ((1 - bestSimilarity) * maxLength) + 1);
+            while (distance >= 0 && !wins(similarity(maxLength, distance), keyword)) {
+                distance--;
+            }
+            return distance;
+        }
+
+        private boolean wins(float similarity, int keyword) {
+            return similarity > bestSimilarity || similarity == bestSimilarity && best >= 0 && keyword < best;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.override.recognizer_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.override.dto.CategoryDTO;
-
-import com.override.dto.KeywordIdDTO;
-import com.override.dto.TransactionDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
+import com.override.dto.CategorySuggestionRequestDTO;
 import com.override.recognizer_service.feign.OrchestratorFeign;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,49 +18,97 @@ import java.util.*;
 @Slf4j
 public class CategoryRecognizerService {
 
+    public static final long MAX_CACHED_KEYWORDS = 500000;
+
     @Autowired
     private OrchestratorFeign orchestratorFeign;
 
+    /**
+     * Индексы ключевых слов по id аккаунта вместе с версией категорий, по которой построен индекс.
+     * Версию присылает оркестратор, поэтому проверка актуальности не зависит от числа ключевых слов.
+     * Размер кэша ограничен суммарным числом ключевых слов в индексах
+     */
+    private final Cache<Long, VersionedIndex> indexes = Caffeine.newBuilder()
+            .maximumWeight(MAX_CACHED_KEYWORDS)
+            .weigher((Long accountId, VersionedIndex versionedIndex) -> versionedIndex.index.size() + 1)
+            .build();
 
-    private float calculateLevenshteinDistance(String strOne, String strTwo) {
-        strOne = strOne.toLowerCase();
-        strTwo = strTwo.toLowerCase();
-        float maxLength = Integer.max(strOne.length(), strTwo.length());
-        if (maxLength > 0) {
-            return (maxLength - LevenshteinDistance.getDefaultInstance().apply(strOne, strTwo)) / maxLength;
-        }
-        return 0.0f;
-    }
-
+    /**
+     * Подбирает категорию с наиболее похожим на сообщение ключевым словом или названием.
+     * Версия категорий неизвестна, поэтому индекс строится для каждого вызова. Переданные категории не изменяются
+     *
+     * @return одна из переданных категорий, первая, если похожих нет, либо null, если список пуст
+     * @see CategoryKeywordIndex
+     */
     public CategoryDTO recognizeCategory(String message, List<CategoryDTO> categories) {
         if (categories.isEmpty()) {
             return null;
         }
-        CategoryDTO[] mostSuitableCategory = {categories.get(0)};
-        float[] maxLevenshteinDistance = {0};
-        categories.forEach(c -> {
-            c.getKeywords().add(
-                    KeywordIdDTO.builder()
-                            .name(c.getName())
-                            .build());
-        });
-        categories.forEach(c -> {
-            c.getKeywords().forEach(k -> {
-                float currentValue = calculateLevenshteinDistance(message, k.getName());
-                if (currentValue > maxLevenshteinDistance[0]) {
-                    mostSuitableCategory[0] = c;
-                    maxLevenshteinDistance[0] = currentValue;
-                }
-            });
-        });
-        return mostSuitableCategory[0];
+        return categories.get(new CategoryKeywordIndex(categories).findMostSuitableCategoryPosition(message));
+    }
+
+    /**
+     * Подбирает категории всем транзакциям пакета по общему индексу категорий, переданные категории не изменяются.
+     * Индекс берется из кэша, если пакет содержит id аккаунта и версию категорий, совпадающую с версией индекса
+     *
+     * @return предложенные категории в порядке транзакций пакета, пустой список, если у аккаунта нет категорий
+     */
+    public List<CategorySuggestionDTO> recognizeCategories(CategorySuggestionBatchDTO batch) {
+        List<CategorySuggestionDTO> suggestions = new ArrayList<>(batch.getTransactions().size());
+        List<CategoryDTO> categories = batch.getCategories();
+        if (categories == null || categories.isEmpty()) {
+            return suggestions;
+        }
+        CategoryKeywordIndex index = getIndex(batch.getAccountId(), batch.getCategoriesVersion(), categories);
+        for (CategorySuggestionRequestDTO transaction : batch.getTransactions()) {
+            suggestions.add(CategorySuggestionDTO.builder()
+                    .transactionId(transaction.getTransactionId())
+                    .suggestedCategoryId(categories.get(index.findMostSuitableCategoryPosition(transaction.getMessage()))
+                            .getId())
+                    .build());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Индекс возвращает позиции категорий, поэтому кэшированный индекс используется, только если
+     * id категорий пакета совпадают с id, по которым он построен. Сравнение проходит только по категориям,
+     * а не по ключевым словам, и защищает от пакета, собранного одновременно с изменением категорий
+     */
+    private CategoryKeywordIndex getIndex(Long accountId, String version, List<CategoryDTO> categories) {
+        if (accountId == null || version == null) {
+            return new CategoryKeywordIndex(categories);
+        }
+        List<Long> categoryIds = new ArrayList<>(categories.size());
+        categories.forEach(category -> categoryIds.add(category.getId()));
+        VersionedIndex versionedIndex = indexes.getIfPresent(accountId);
+        if (versionedIndex != null && versionedIndex.version.equals(version)
+                && versionedIndex.categoryIds.equals(categoryIds)) {
+            return versionedIndex.index;
+        }
+        CategoryKeywordIndex index = new CategoryKeywordIndex(categories);
+        indexes.put(accountId, new VersionedIndex(version, categoryIds, index));
+        return index;
     }
 
+    /**
+     * Подбирает категорию транзакции и записывает ее в оркестратор пакетным обновлением из одной транзакции
+     */
     public void sendTransactionWithSuggestedCategory(String message, List<CategoryDTO> categories, UUID transactionId) {
-        Long suggestedCategoryId = recognizeCategory(message, categories).getId();
-        TransactionDTO transactionDTO = TransactionDTO.builder()
-                .suggestedCategoryId(suggestedCategoryId)
-                .id(transactionId).build();
-        orchestratorFeign.editTransaction(transactionDTO);
+        CategoryDTO suggestedCategory = recognizeCategory(message, categories);
+        if (suggestedCategory == null) {
+            return;
+        }
+        orchestratorFeign.editSuggestedCategories(List.of(CategorySuggestionDTO.builder()
+                .transactionId(transactionId)
+                .suggestedCategoryId(suggestedCategory.getId())
+                .build()));
+    }
+
+    @AllArgsConstructor
+    private static class VersionedIndex {
+        private final String version;
+        private final List<Long> categoryIds;
+        private final CategoryKeywordIndex index;
     }
 }
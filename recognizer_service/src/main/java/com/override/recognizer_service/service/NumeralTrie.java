@@ -0,0 +1,106 @@
+package com.override.recognizer_service.service;
+
+import java.util.Arrays;
+
+/**
+ * Префиксное дерево слов, которые распознаются как части суммы. Переходы хранятся в одном массиве
+ * по номеру буквы, поэтому слово проверяется по мере чтения символов текста, без выделения строки
+ * и без приведения к нижнему регистру. Поддерживаются кириллица, включая ё, и латиница
+ */
+public class NumeralTrie {
+
+    public static final int NO_STATE = -1;
+    public static final byte NONE = 0;
+
+    private static final int CYRILLIC_LETTERS = 'я' - 'а' + 1;
+    private static final int YO_INDEX = CYRILLIC_LETTERS;
+    private static final int LATIN_INDEX = CYRILLIC_LETTERS + 1;
+    private static final int ALPHABET = LATIN_INDEX + ('z' - 'a' + 1);
+    private static final int ROOT = 0;
+
+    /**
+     * Переход из состояния state по букве с номером i хранится в ячейке state * ALPHABET + i,
+     * 0 означает отсутствие перехода, так как в корень перейти нельзя
+     */
+    private int[] transitions = new int[ALPHABET * 64];
+    private byte[] kinds = new byte[64];
+    private long[] values = new long[64];
+    private int size = 1;
+
+    public void put(String word, byte kind, long value) {
+        int state = ROOT;
+        for (int i = 0; i < word.length(); i++) {
+            int letter = getLetterIndex(word.charAt(i));
+            if (letter < 0) {
+                throw new IllegalArgumentException("Неподдерживаемый символ в слове " + word);
+            }
+            int transition = state * ALPHABET + letter;
+            if (transitions[transition] == ROOT) {
+                // addState может заменить массив переходов, поэтому состояние добавляется до записи
+                int added = addState();
+                transitions[transition] = added;
+            }
+            state = transitions[transition];
+        }
+        kinds[state] = kind;
+        values[state] = value;
+    }
+
+    public int start() {
+        return ROOT;
+    }
+
+    /**
+     * @return состояние после буквы c или {@link #NO_STATE}, если слов с таким началом нет
+     */
+    public int next(int state, char c) {
+        int letter = getLetterIndex(c);
+        if (state == NO_STATE || letter < 0) {
+            return NO_STATE;
+        }
+        int next = transitions[state * ALPHABET + letter];
+        return next == ROOT ? NO_STATE : next;
+    }
+
+    /**
+     * @return вид слова, которое заканчивается в состоянии state, или {@link #NONE}
+     */
+    public byte getKind(int state) {
+        return state == NO_STATE ? NONE : kinds[state];
+    }
+
+    public long getValue(int state) {
+        return values[state];
+    }
+
+    /**
+     * @return номер буквы в алфавите дерева без учета регистра или -1, если символ не буква алфавита
+     */
+    public static int getLetterIndex(char c) {
+        if (c >= 'а' && c <= 'я') {
+            return c - 'а';
+        }
+        if (c >= 'А' && c <= 'Я') {
+            return c - 'А';
+        }
+        if (c == 'ё' || c == 'Ё') {
+            return YO_INDEX;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return LATIN_INDEX + c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return LATIN_INDEX + c - 'A';
+        }
+        return -1;
+    }
+
+    private int addState() {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            transitions = Arrays.copyOf(transitions, size * 2 * ALPHABET);
+        }
+        return size++;
+    }
+}
@@ -1,12 +1,16 @@
 package com.override.recognizer_service.service;
 
-import com.override.dto.AudioRecognizerGoRequestDTO;
 import com.override.dto.VoiceMessageDTO;
 import com.override.recognizer_service.service.voice.VoiceDTORecognitionService;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
 import java.util.UUID;
 
 @Service
@@ -19,17 +23,41 @@ public class VoiceMessageService {
     @Autowired
     private VoiceDTORecognitionService voiceDTORecognitionService;
 
+    @Autowired
+    private VoiceRecognitionCache voiceRecognitionCache;
+
     public String processVoiceMessage(VoiceMessageDTO voiceMessage) {
-        AudioRecognizerGoRequestDTO requestDTO = mapRequest(voiceMessage);
-        String textMessage = voiceDTORecognitionService.voiceToText(requestDTO);
+        byte[] voiceMessageBytes = voiceMessage.getVoiceMessageBytes();
+        String contentKey = voiceRecognitionCache.contentKey(voiceMessageBytes);
+        String textMessage = voiceRecognitionCache.get(contentKey);
+        if (textMessage == null) {
+            textMessage = voiceDTORecognitionService.voiceToText(UUID.randomUUID(),
+                    new ByteArrayInputStream(voiceMessageBytes));
+            voiceRecognitionCache.put(contentKey, textMessage);
+        }
         return wordsToNumbersService.wordsToNumbers(textMessage);
     }
 
-    private AudioRecognizerGoRequestDTO mapRequest(VoiceMessageDTO voiceMessage) {
-        UUID id = UUID.randomUUID();
-        return AudioRecognizerGoRequestDTO.builder()
-                .id(id)
-                .voiceMessage(voiceMessage.getVoiceMessageBytes())
-                .build();
+    /**
+     * Распознает голосовое сообщение, передавая его в сервис распознавания по мере чтения потока.
+     * Поток нельзя прочитать до распознавания, поэтому сохраненный результат ищется только по file_unique_id,
+     * а сохраняется и по нему, и по хэшу прочитанного содержимого
+     *
+     * @param fileUniqueId file_unique_id голосового сообщения в телеграме или null
+     */
+    @SneakyThrows
+    public String processVoiceMessage(InputStream voiceMessage, String fileUniqueId) {
+        String fileKey = fileUniqueId == null ? null : voiceRecognitionCache.fileKey(fileUniqueId);
+        String textMessage = fileKey == null ? null : voiceRecognitionCache.get(fileKey);
+        if (textMessage == null) {
+            DigestInputStream digestedVoiceMessage = new DigestInputStream(voiceMessage, voiceRecognitionCache.newDigest());
+            textMessage = voiceDTORecognitionService.voiceToText(UUID.randomUUID(), digestedVoiceMessage);
+            digestedVoiceMessage.transferTo(OutputStream.nullOutputStream());
+            voiceRecognitionCache.put(voiceRecognitionCache.contentKey(digestedVoiceMessage.getMessageDigest()), textMessage);
+            if (fileKey != null) {
+                voiceRecognitionCache.put(fileKey, textMessage);
+            }
+        }
+        return wordsToNumbersService.wordsToNumbers(textMessage);
     }
 }
@@ -0,0 +1,224 @@
+package com.override.recognizer_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.override.recognizer_service.config.VoiceRecognitionCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Кэш результатов распознавания голосовых сообщений. Ключ - file_unique_id телеграма или хэш содержимого файла,
+ * поэтому пересланное или повторно отправленное сообщение не распознается заново. Результаты хранятся в памяти
+ * с ограничением размера и времени жизни и, если включено, в файлах на диске, чтобы переживать перезапуск
+ */
+@Service
+@Slf4j
+public class VoiceRecognitionCache {
+
+    private final String FILE_KEY_PREFIX = "file:";
+    private final String CONTENT_KEY_PREFIX = "sha256:";
+    private final String DIGEST_ALGORITHM = "SHA-256";
+    private final String DISK_ENTRY_SUFFIX = ".txt";
+
+    @Autowired
+    private VoiceRecognitionCacheProperties voiceRecognitionCacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, String> recognizedTexts;
+
+    /**
+     * Каталог для хранения результатов на диске или null, если хранение на диске выключено
+     */
+    private Path directory;
+
+    private final AtomicInteger diskEntries = new AtomicInteger();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter diskHitCounter;
+
+    @PostConstruct
+    public void init() {
+        recognizedTexts = Caffeine.newBuilder()
+                .maximumSize(voiceRecognitionCacheProperties.getMaxSize())
+                .expireAfterWrite(getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recognizedTexts, "voice.recognition");
+        hitCounter = meterRegistry.counter("voice.recognition.cache.lookups", "result", "hit");
+        missCounter = meterRegistry.counter("voice.recognition.cache.lookups", "result", "miss");
+        diskHitCounter = meterRegistry.counter("voice.recognition.cache.disk.hits");
+        if (voiceRecognitionCacheProperties.getDisk().isEnabled()) {
+            initDirectory();
+        }
+    }
+
+    public String fileKey(String fileUniqueId) {
+        return FILE_KEY_PREFIX + fileUniqueId;
+    }
+
+    public String contentKey(byte[] voiceMessage) {
+        return toContentKey(newDigest().digest(voiceMessage));
+    }
+
+    /**
+     * @param digest дайджест {@link #newDigest()}, через который прочитано голосовое сообщение
+     */
+    public String contentKey(MessageDigest digest) {
+        return toContentKey(digest.digest());
+    }
+
+    @SneakyThrows
+    public MessageDigest newDigest() {
+        return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    }
+
+    /**
+     * @return распознанный текст или null, если сообщение с таким ключом еще не распознавалось
+     */
+    public String get(String key) {
+        String text = recognizedTexts.getIfPresent(key);
+        if (text == null && directory != null) {
+            text = readFromDisk(key);
+            if (text != null) {
+                diskHitCounter.increment();
+                recognizedTexts.put(key, text);
+            }
+        }
+        if (text == null) {
+            missCounter.increment();
+        } else {
+            hitCounter.increment();
+        }
+        return text;
+    }
+
+    public void put(String key, String text) {
+        if (text == null) {
+            return;
+        }
+        recognizedTexts.put(key, text);
+        if (directory != null) {
+            writeToDisk(key, text);
+        }
+    }
+
+    /**
+     * Удаляет с диска устаревшие результаты, а при превышении допустимого количества - самые старые,
+     * оставляя запас в десятую часть, чтобы очистка не запускалась на каждой записи
+     */
+    synchronized void cleanupDisk() {
+        if (directory == null) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - getTtl().toMillis();
+        int maxEntries = voiceRecognitionCacheProperties.getDisk().getMaxEntries();
+        int keptLimit = maxEntries - maxEntries / 10;
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> entries = files
+                    .filter(file -> file.getFileName().toString().endsWith(DISK_ENTRY_SUFFIX))
+                    .sorted(Comparator.comparingLong(this::getLastModified).reversed())
+                    .collect(Collectors.toList());
+            int kept = 0;
+            for (Path entry : entries) {
+                if (kept < keptLimit && getLastModified(entry) >= expiredBefore) {
+                    kept++;
+                } else {
+                    Files.deleteIfExists(entry);
+                }
+            }
+            diskEntries.set(kept);
+        } catch (IOException e) {
+            log.warn("Не удалось очистить кэш распознавания на диске: " + e.getMessage());
+        }
+    }
+
+    private void initDirectory() {
+        Path cacheDirectory = Paths.get(voiceRecognitionCacheProperties.getDisk().getDirectory());
+        try {
+            Files.createDirectories(cacheDirectory);
+            directory = cacheDirectory;
+            cleanupDisk();
+        } catch (IOException e) {
+            log.error("Кэш распознавания на диске отключен, каталог " + cacheDirectory + " недоступен", e);
+        }
+    }
+
+    private String readFromDisk(String key) {
+        Path entry = getDiskEntry(key);
+        try {
+            if (!Files.exists(entry)) {
+                return null;
+            }
+            if (getLastModified(entry) < System.currentTimeMillis() - getTtl().toMillis()) {
+                Files.deleteIfExists(entry);
+                return null;
+            }
+            return Files.readString(entry, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать результат распознавания с диска: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, String text) {
+        try {
+            Path temporary = Files.createTempFile(directory, "voice", ".tmp");
+            Files.writeString(temporary, text, StandardCharsets.UTF_8);
+            Files.move(temporary, getDiskEntry(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить результат распознавания на диск: " + e.getMessage());
+            return;
+        }
+        if (diskEntries.incrementAndGet() > voiceRecognitionCacheProperties.getDisk().getMaxEntries()) {
+            cleanupDisk();
+        }
+    }
+
+    /**
+     * Файл называется по хэшу ключа, так как file_unique_id может содержать недопустимые в имени файла символы
+     */
+    private Path getDiskEntry(String key) {
+        byte[] keyHash = newDigest().digest(key.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(keyHash) + DISK_ENTRY_SUFFIX);
+    }
+
+    private long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String toContentKey(byte[] contentHash) {
+        return CONTENT_KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(contentHash);
+    }
+
+    private Duration getTtl() {
+        return Duration.ofHours(voiceRecognitionCacheProperties.getTtlHours());
+    }
+}
@@ -3,113 +3,204 @@ package com.override.recognizer_service.service;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 
+/**
+ * Заменяет записанную прописью сумму в распознанном тексте числом в конце сообщения.
+ * Слова чисел, валют и дробей хранятся в префиксном дереве, поэтому текст разбирается за один проход
+ * по символам: слово ищется в дереве по мере чтения, а в сообщение копируются только прочие слова
+ */
 @Service
 public class WordsToNumbersService {
-    private final HashMap<String, Long> vocabulary = new HashMap<>();
-    private final List<String> currencies = new ArrayList<>();
-    private final String SPACE = " ";
+    private final byte NUMBER = 1;
+    private final byte CURRENCY = 2;
+    private final byte KOPECK = 3;
+    private final byte INTEGER_PART = 4;
+    private final byte FRACTION = 5;
+    private final long MULTIPLIER_THRESHOLD = 1000;
+    private final int KOPECKS_IN_RUBLE = 100;
+    private final int NUMBER_CAPACITY = 24;
+    private final char SPACE = ' ';
+    private final char DECIMAL_DELIMITER = '.';
+
+    private final NumeralTrie trie = new NumeralTrie();
 
     @PostConstruct
     public void fillCurrencies() {
-        currencies.add("рубль");
-        currencies.add("рублей");
-        currencies.add("рубля");
+        trie.put("рубль", CURRENCY, 0L);
+        trie.put("рублей", CURRENCY, 0L);
+        trie.put("рубля", CURRENCY, 0L);
+        trie.put("копейка", KOPECK, 0L);
+        trie.put("копейку", KOPECK, 0L);
+        trie.put("копейки", KOPECK, 0L);
+        trie.put("копеек", KOPECK, 0L);
+    }
+
+    /**
+     * Дробные числа вида "две целых пять десятых", значение слова дроби - ее знаменатель
+     */
+    @PostConstruct
+    public void fillFractions() {
+        trie.put("целая", INTEGER_PART, 0L);
+        trie.put("целую", INTEGER_PART, 0L);
+        trie.put("целых", INTEGER_PART, 0L);
+        trie.put("десятая", FRACTION, 10L);
+        trie.put("десятую", FRACTION, 10L);
+        trie.put("десятых", FRACTION, 10L);
+        trie.put("сотая", FRACTION, 100L);
+        trie.put("сотую", FRACTION, 100L);
+        trie.put("сотых", FRACTION, 100L);
     }
 
     @PostConstruct
     public void fillVocabulary() {
-        vocabulary.put("ноль", 0L);
-        vocabulary.put("один", 1L);
-        vocabulary.put("одна", 1L);
-        vocabulary.put("два", 2L);
-        vocabulary.put("две", 2L);
-        vocabulary.put("три", 3L);
-        vocabulary.put("четыре", 4L);
-        vocabulary.put("пять", 5L);
-        vocabulary.put("шесть", 6L);
-        vocabulary.put("семь", 7L);
-        vocabulary.put("восемь", 8L);
-        vocabulary.put("девять", 9L);
-        vocabulary.put("десять", 10L);
-        vocabulary.put("одиннадцать", 11L);
-        vocabulary.put("двенадцать", 12L);
-        vocabulary.put("тринадцать", 13L);
-        vocabulary.put("четырнадцать", 14L);
-        vocabulary.put("пятнадцать", 15L);
-        vocabulary.put("шестнадцать", 16L);
-        vocabulary.put("семнадцать", 17L);
-        vocabulary.put("восемнадцать", 18L);
-        vocabulary.put("девятнадцать", 19L);
-        vocabulary.put("двадцать", 20L);
-        vocabulary.put("тридцать", 30L);
-        vocabulary.put("сорок", 40L);
-        vocabulary.put("пятьдесят", 50L);
-        vocabulary.put("шестьдесят", 60L);
-        vocabulary.put("семьдесят", 70L);
-        vocabulary.put("восемьдесят", 80L);
-        vocabulary.put("девяносто", 90L);
-        vocabulary.put("сто", 100L);
-        vocabulary.put("двести", 200L);
-        vocabulary.put("триста", 300L);
-        vocabulary.put("четыреста", 400L);
-        vocabulary.put("пятьсот", 500L);
-        vocabulary.put("шестьсот", 600L);
-        vocabulary.put("семьсот", 700L);
-        vocabulary.put("восемьсот", 800L);
-        vocabulary.put("девятьсот", 900L);
-        vocabulary.put("тысяча", 1000L);
-        vocabulary.put("тысячи", 1000L);
-        vocabulary.put("тыща", 1000L);
-        vocabulary.put("тыщу", 1000L);
-        vocabulary.put("тыщи", 1000L);
-        vocabulary.put("тысяч", 1000L);
-        vocabulary.put("миллион", 1000000L);
-        vocabulary.put("миллиона", 1000000L);
-        vocabulary.put("миллионов", 1000000L);
-        vocabulary.put("миллиард", 1000000000L);
-        vocabulary.put("миллиарда", 1000000000L);
-        vocabulary.put("миллиардов", 1000000000L);
+        trie.put("ноль", NUMBER, 0L);
+        trie.put("один", NUMBER, 1L);
+        trie.put("одна", NUMBER, 1L);
+        trie.put("два", NUMBER, 2L);
+        trie.put("две", NUMBER, 2L);
+        trie.put("три", NUMBER, 3L);
+        trie.put("четыре", NUMBER, 4L);
+        trie.put("пять", NUMBER, 5L);
+        trie.put("шесть", NUMBER, 6L);
+        trie.put("семь", NUMBER, 7L);
+        trie.put("восемь", NUMBER, 8L);
+        trie.put("девять", NUMBER, 9L);
+        trie.put("десять", NUMBER, 10L);
+        trie.put("одиннадцать", NUMBER, 11L);
+        trie.put("двенадцать", NUMBER, 12L);
+        trie.put("тринадцать", NUMBER, 13L);
+        trie.put("четырнадцать", NUMBER, 14L);
+        trie.put("пятнадцать", NUMBER, 15L);
+        trie.put("шестнадцать", NUMBER, 16L);
+        trie.put("семнадцать", NUMBER, 17L);
+        trie.put("восемнадцать", NUMBER, 18L);
+        trie.put("девятнадцать", NUMBER, 19L);
+        trie.put("двадцать", NUMBER, 20L);
+        trie.put("тридцать", NUMBER, 30L);
+        trie.put("сорок", NUMBER, 40L);
+        trie.put("пятьдесят", NUMBER, 50L);
+        trie.put("шестьдесят", NUMBER, 60L);
+        trie.put("семьдесят", NUMBER, 70L);
+        trie.put("восемьдесят", NUMBER, 80L);
+        trie.put("девяносто", NUMBER, 90L);
+        trie.put("сто", NUMBER, 100L);
+        trie.put("двести", NUMBER, 200L);
+        trie.put("триста", NUMBER, 300L);
+        trie.put("четыреста", NUMBER, 400L);
+        trie.put("пятьсот", NUMBER, 500L);
+        trie.put("шестьсот", NUMBER, 600L);
+        trie.put("семьсот", NUMBER, 700L);
+        trie.put("восемьсот", NUMBER, 800L);
+        trie.put("девятьсот", NUMBER, 900L);
+        trie.put("тысяча", NUMBER, 1000L);
+        trie.put("тысячи", NUMBER, 1000L);
+        trie.put("тыща", NUMBER, 1000L);
+        trie.put("тыщу", NUMBER, 1000L);
+        trie.put("тыщи", NUMBER, 1000L);
+        trie.put("тысяч", NUMBER, 1000L);
+        trie.put("миллион", NUMBER, 1000000L);
+        trie.put("миллиона", NUMBER, 1000000L);
+        trie.put("миллионов", NUMBER, 1000000L);
+        trie.put("миллиард", NUMBER, 1000000000L);
+        trie.put("миллиарда", NUMBER, 1000000000L);
+        trie.put("миллиардов", NUMBER, 1000000000L);
     }
 
     @PostConstruct
     public void fillSlangVocabulary() {
-        vocabulary.put("чирик", 10L);
-        vocabulary.put("полтос", 50L);
-        vocabulary.put("сотыга", 100L);
-        vocabulary.put("соточка", 100L);
-        vocabulary.put("пятиха", 500L);
-        vocabulary.put("пятихатка", 500L);
-        vocabulary.put("косарь", 1000L);
-        vocabulary.put("кaсарь", 1000L);
+        trie.put("чирик", NUMBER, 10L);
+        trie.put("полтос", NUMBER, 50L);
+        trie.put("сотыга", NUMBER, 100L);
+        trie.put("соточка", NUMBER, 100L);
+        trie.put("пятиха", NUMBER, 500L);
+        trie.put("пятихатка", NUMBER, 500L);
+        trie.put("косарь", NUMBER, 1000L);
+        trie.put("кaсарь", NUMBER, 1000L);
     }
 
+    /**
+     * Слова разделяются пробельными символами, знаки препинания и цифры внутри слов отбрасываются.
+     * Числа до слова валюты или "целых" считаются рублями, до слова "копеек" или дроби - копейками,
+     * числа без единиц измерения прибавляются к рублям. Слова "целых", "копеек" и дроби без числа перед ними,
+     * например "целая пицца", остаются в сообщении
+     *
+     * @return слова, не относящиеся к сумме, через пробел и сумма, копейки отделяются точкой
+     */
     public String wordsToNumbers(String words) {
-        int number = 0;
-        int prevNumber = 0;
-        String[] splitWords = words.replaceAll("[^a-zA-Zа-яА-Я\\s]", "").split("\\s+");
-        StringBuilder message = new StringBuilder();
-        for (String word : splitWords) {
-            if (vocabulary.containsKey(word.toLowerCase())) {
-                long value = vocabulary.get(word.toLowerCase());
-                if (value >= 1000) {
-                    if (prevNumber == 0) {
-                        prevNumber = 1;
+        StringBuilder message = new StringBuilder(words.length() + NUMBER_CAPACITY);
+        long rubles = 0;
+        long kopecks = 0;
+        long number = 0;
+        long prevNumber = 0;
+        boolean hasNumber = false;
+        int length = words.length();
+        int i = 0;
+        while (i < length) {
+            if (Character.isWhitespace(words.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int state = trie.start();
+            boolean hasLetters = false;
+            for (; i < length && !Character.isWhitespace(words.charAt(i)); i++) {
+                char c = words.charAt(i);
+                if (NumeralTrie.getLetterIndex(c) >= 0) {
+                    hasLetters = true;
+                    state = trie.next(state, c);
+                }
+            }
+            if (hasLetters) {
+                byte kind = trie.getKind(state);
+                if (!hasNumber && (kind == INTEGER_PART || kind == KOPECK || kind == FRACTION)) {
+                    kind = NumeralTrie.NONE;
+                }
+                if (kind == NUMBER) {
+                    hasNumber = true;
+                    long value = trie.getValue(state);
+                    if (value >= MULTIPLIER_THRESHOLD) {
+                        number += Math.max(prevNumber, 1) * value;
+                        prevNumber = 0;
+                    } else {
+                        prevNumber += value;
                     }
-                    number += prevNumber * value;
-                    prevNumber = 0;
+                    continue;
+                }
+                if (kind == CURRENCY || kind == INTEGER_PART) {
+                    rubles += number + prevNumber;
+                } else if (kind == KOPECK) {
+                    kopecks += number + prevNumber;
+                } else if (kind == FRACTION) {
+                    kopecks += (number + prevNumber) * KOPECKS_IN_RUBLE / trie.getValue(state);
                 } else {
-                    prevNumber += value;
+                    appendLetters(message, words, start, i);
+                    message.append(SPACE);
+                    continue;
                 }
-            } else if (!currencies.contains(word.toLowerCase())) {
-                message.append(word).append(SPACE);
+                number = 0;
+                prevNumber = 0;
+                hasNumber = false;
+            }
+        }
+        rubles += number + prevNumber + kopecks / KOPECKS_IN_RUBLE;
+        message.append(rubles);
+        long remainingKopecks = kopecks % KOPECKS_IN_RUBLE;
+        if (remainingKopecks != 0) {
+            message.append(DECIMAL_DELIMITER);
+            if (remainingKopecks < 10) {
+                message.append('0');
             }
+            message.append(remainingKopecks);
         }
-        number += prevNumber;
-        message.append(number);
         return message.toString();
     }
+
+    private void appendLetters(StringBuilder message, String words, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = words.charAt(i);
+            if (NumeralTrie.getLetterIndex(c) >= 0) {
+                message.append(c);
+            }
+        }
+    }
 }
\ No newline at end of file
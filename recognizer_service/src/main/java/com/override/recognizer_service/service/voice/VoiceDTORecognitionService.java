@@ -1,7 +1,8 @@
 package com.override.recognizer_service.service.voice;
 
-import com.override.dto.AudioRecognizerGoRequestDTO;
+import java.io.InputStream;
+import java.util.UUID;
 
 public interface VoiceDTORecognitionService {
-    String voiceToText(AudioRecognizerGoRequestDTO requestDTO);
+    String voiceToText(UUID id, InputStream voiceMessage);
 }
@@ -1,84 +1,104 @@
 package com.override.recognizer_service.service.voice;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.override.dto.AudioRecognizerGoRequestDTO;
 import com.override.dto.AudioRecognizerGoResponseDTO;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
 
 @Service
 @Profile("!dev")
 @Slf4j
 public class VoiceDTORecognitionServiceImplGoAudioRecognizer implements VoiceDTORecognitionService {
 
+    private static final MediaType APPLICATION_JSON = MediaType.get("application/json");
+
     @Value("${integration.internal.host.wit-ai-proxy}")
     private String goServiceUrl;
 
+    @Autowired
+    private OkHttpClient witAiProxyHttpClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
-     * Метод открывает соединение  HttpURLConnection и отправляюет запрос
-     * на распознавание файла в сервис AudioRecognizer
+     * Метод отправляет запрос на распознавание файла в сервис AudioRecognizer через общий пул соединений.
+     * Сервис принимает json, в котором файл закодирован в base64, поэтому json пишется в соединение
+     * по мере чтения голосового сообщения, не собираясь целиком в памяти
      *
-     * @param request принимает на вход ДТО для отправки в сервис AudioRecognizer
+     * @param id           id запроса для логов сервиса AudioRecognizer
+     * @param voiceMessage голосовое сообщение, поток читается один раз
      * @return Возвращает распознанную строку (цифры приходят прописью)
      */
-    @SneakyThrows
-    public String voiceToText(AudioRecognizerGoRequestDTO request) {
-
-        ObjectMapper mapper = new ObjectMapper();
-        String decryptedMessageAsJSON = null;
-        HttpURLConnection connection = getConnection();
-
-        try (OutputStream outputStream = connection.getOutputStream()) {
-            byte[] input = mapper.writeValueAsBytes(request);
-            outputStream.write(input, 0, input.length);
-        } catch (Exception e) {
-            log.error("Error sending voice message to wit ai go proxy, id= " + request.getId(), e);
-            throw e;
-        }
-
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            StringBuilder response = new StringBuilder();
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                response.append(responseLine.trim());
+    public String voiceToText(UUID id, InputStream voiceMessage) {
+        Request request = new Request.Builder()
+                .url(goServiceUrl + "/recognizer")
+                .header("Accept", APPLICATION_JSON.toString())
+                .post(new VoiceMessageRequestBody(id, voiceMessage))
+                .build();
+        try (Response response = witAiProxyHttpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("wit ai go proxy responded with status " + response.code());
             }
-            decryptedMessageAsJSON = response.toString();
-        } catch (Exception e) {
-            log.error("Error processing response from wit ai go proxy, id= " + request.getId(), e);
-            throw e;
+            AudioRecognizerGoResponseDTO result = objectMapper.readValue(response.body().byteStream(),
+                    AudioRecognizerGoResponseDTO.class);
+            log.info("Got result from wit.ai go proxy, id= " + id);
+            return result.getText();
+        } catch (IOException e) {
+            log.error("Error recognizing voice message with wit ai go proxy, id= " + id, e);
+            throw new UncheckedIOException(e);
         }
-        log.info("Got json result from wit.ai go proxy " + decryptedMessageAsJSON);
-        return mapper.readValue(decryptedMessageAsJSON, AudioRecognizerGoResponseDTO.class).getText();
     }
 
     /**
-     * Метод, открывающий соединение с сервисом AudioRecognizer
-     *
-     * @return соединение с этим сервисом
+     * Тело запроса вида {"id": "...", "voiceMessage": "base64"}. Поток сообщения читается один раз,
+     * поэтому повторная отправка тела клиентом запрещена
      */
-    @SneakyThrows
-    private HttpURLConnection getConnection() {
-        log.info("getting connection to " + goServiceUrl);
-        URLConnection connectionURL =
-                new URL(goServiceUrl + "/recognizer").openConnection();
-        HttpURLConnection connection = (HttpURLConnection) connectionURL;
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setRequestProperty("Accept", "application/json");
-        connection.setDoOutput(true);
-        return connection;
-    }
+    private class VoiceMessageRequestBody extends RequestBody {
 
+        private final UUID id;
+        private final InputStream voiceMessage;
 
+        VoiceMessageRequestBody(UUID id, InputStream voiceMessage) {
+            this.id = id;
+            this.voiceMessage = voiceMessage;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return APPLICATION_JSON;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(sink.outputStream())
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartObject();
+                generator.writeStringField("id", id.toString());
+                generator.writeFieldName("voiceMessage");
+                generator.writeBinary(voiceMessage, -1);
+                generator.writeEndObject();
+            }
+        }
+    }
 }
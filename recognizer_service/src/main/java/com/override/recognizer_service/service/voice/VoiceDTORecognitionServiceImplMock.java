@@ -1,16 +1,18 @@
 package com.override.recognizer_service.service.voice;
 
-import com.override.dto.AudioRecognizerGoRequestDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
+import java.util.UUID;
+
 @Service
 @Profile("dev")
 @Slf4j
 public class VoiceDTORecognitionServiceImplMock implements VoiceDTORecognitionService {
     @Override
-    public String voiceToText(AudioRecognizerGoRequestDTO requestDTO) {
+    public String voiceToText(UUID id, InputStream voiceMessage) {
         return "Пиво двести";
     }
 }
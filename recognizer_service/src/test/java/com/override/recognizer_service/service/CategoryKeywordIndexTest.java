@@ -0,0 +1,125 @@
+package com.override.recognizer_service.service;
+
+import com.override.dto.CategoryDTO;
+import com.override.dto.KeywordIdDTO;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CategoryKeywordIndexTest {
+
+    private final String[] WORDS = {"продукты", "пиво", "такси", "кофе", "бензин", "аптека", "кино", "обед",
+            "подарок", "ремонт", "одежда", "связь", "интернет", "спортзал", "книги", "зарплата", "пупа", "лупа"};
+
+    @Test
+    public void boundedDistanceReturnsDistanceWithinThreshold() {
+        Assertions.assertEquals(0, CategoryKeywordIndex.boundedDistance("пиво".toCharArray(), "пиво".toCharArray(), 0));
+        Assertions.assertEquals(1, CategoryKeywordIndex.boundedDistance("пупв".toCharArray(), "пупа".toCharArray(), 1));
+        Assertions.assertEquals(3, CategoryKeywordIndex.boundedDistance("кот".toCharArray(), "".toCharArray(), 5));
+        Assertions.assertEquals(-1, CategoryKeywordIndex.boundedDistance("кофе".toCharArray(), "такси".toCharArray(), 3));
+        Assertions.assertEquals(-1, CategoryKeywordIndex.boundedDistance("пиво".toCharArray(), "пиво теплое".toCharArray(), 6));
+    }
+
+    @Test
+    public void boundedDistanceMatchesLevenshteinDistance() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String left = randomMessage(random);
+            String right = randomMessage(random);
+            int expected = LevenshteinDistance.getDefaultInstance().apply(left, right);
+            int threshold = random.nextInt(12);
+            Assertions.assertEquals(expected <= threshold ? expected : -1,
+                    CategoryKeywordIndex.boundedDistance(left.toCharArray(), right.toCharArray(), threshold),
+                    left + " / " + right + " / " + threshold);
+        }
+    }
+
+    @Test
+    public void findMostSuitableCategoryPositionMatchesFullScan() {
+        Random random = new Random(7);
+        for (int attempt = 0; attempt < 50; attempt++) {
+            List<CategoryDTO> categories = randomCategories(random, 1 + random.nextInt(20), random.nextInt(30));
+            CategoryKeywordIndex index = new CategoryKeywordIndex(categories);
+            for (int i = 0; i < 40; i++) {
+                String message = random.nextInt(10) == 0 ? "" : randomMessage(random);
+                Assertions.assertEquals(fullScan(message, categories), index.findMostSuitableCategoryPosition(message),
+                        message);
+            }
+        }
+    }
+
+    @Test
+    public void findMostSuitableCategoryPositionUsesCategoryNameAsKeyword() {
+        List<CategoryDTO> categories = List.of(
+                CategoryDTO.builder().name("Продукты").keywords(new ArrayList<>()).build(),
+                CategoryDTO.builder().name("Такси").keywords(null).build());
+
+        CategoryKeywordIndex index = new CategoryKeywordIndex(categories);
+
+        Assertions.assertEquals(1, index.findMostSuitableCategoryPosition("ТАКСИ"));
+        Assertions.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void findMostSuitableCategoryPositionReturnsFirstCategoryWithoutSimilarKeywords() {
+        List<CategoryDTO> categories = List.of(
+                CategoryDTO.builder().name("аа").keywords(new ArrayList<>()).build(),
+                CategoryDTO.builder().name("бб").keywords(new ArrayList<>()).build());
+
+        Assertions.assertEquals(0, new CategoryKeywordIndex(categories).findMostSuitableCategoryPosition("вв"));
+    }
+
+    private List<CategoryDTO> randomCategories(Random random, int categoriesCount, int keywordsPerCategory) {
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (int i = 0; i < categoriesCount; i++) {
+            List<KeywordIdDTO> keywords = new ArrayList<>();
+            for (int j = 0; j < keywordsPerCategory; j++) {
+                keywords.add(KeywordIdDTO.builder().name(randomMessage(random)).build());
+            }
+            categories.add(CategoryDTO.builder()
+                    .id((long) i)
+                    .name(WORDS[random.nextInt(WORDS.length)].toUpperCase())
+                    .keywords(keywords)
+                    .build());
+        }
+        return categories;
+    }
+
+    private String randomMessage(Random random) {
+        StringBuilder message = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        if (random.nextBoolean()) {
+            message.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextBoolean()) {
+            message.setCharAt(random.nextInt(message.length()), (char) ('а' + random.nextInt(32)));
+        }
+        return message.toString();
+    }
+
+    private int fullScan(String message, List<CategoryDTO> categories) {
+        int bestPosition = 0;
+        float bestSimilarity = 0;
+        for (int position = 0; position < categories.size(); position++) {
+            List<String> names = new ArrayList<>();
+            categories.get(position).getKeywords().forEach(keyword -> names.add(keyword.getName()));
+            names.add(categories.get(position).getName());
+            for (String name : names) {
+                String left = message.toLowerCase();
+                String right = name.toLowerCase();
+                float maxLength = Integer.max(left.length(), right.length());
+                if (maxLength > 0) {
+                    float similarity = (maxLength - LevenshteinDistance.getDefaultInstance().apply(left, right)) / maxLength;
+                    if (similarity > bestSimilarity) {
+                        bestPosition = position;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+        }
+        return bestPosition;
+    }
+}
@@ -1,22 +1,32 @@
 package com.override.recognizer_service.service;
 
 import com.override.dto.CategoryDTO;
+import com.override.dto.CategorySuggestionBatchDTO;
+import com.override.dto.CategorySuggestionDTO;
+import com.override.dto.CategorySuggestionRequestDTO;
 import com.override.dto.KeywordIdDTO;
+import com.override.recognizer_service.feign.OrchestratorFeign;
 import com.override.recognizer_service.service.CategoryRecognizerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @ExtendWith(MockitoExtension.class)
 public class CategoryRecognizerServiceTests {
     @InjectMocks
     private CategoryRecognizerService categoryRecognizerService;
 
+    @Mock
+    private OrchestratorFeign orchestratorFeign;
+
     @Test
     public void returnCorrectCategoryWhenKeywordMatched() {
         final KeywordIdDTO keywordBeer = KeywordIdDTO.builder()
@@ -92,4 +102,161 @@ public class CategoryRecognizerServiceTests {
                         .recognizeCategory(message, List.of(categoryWithLupa, categoryWithPupa)).getName(),
                 categoryWithPupa.getName());
     }
+
+    @Test
+    public void recognizeCategoriesSuggestsCategoryForEachTransactionWithoutChangingCategories() {
+        List<KeywordIdDTO> listOfKeywordBeer = new ArrayList<>();
+        listOfKeywordBeer.add(KeywordIdDTO.builder().accountId(1L).name("пиво").build());
+        final CategoryDTO categoryWithBeer = CategoryDTO.builder()
+                .id(1L)
+                .keywords(listOfKeywordBeer)
+                .name("Напитки")
+                .build();
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .id(2L)
+                .keywords(new ArrayList<>())
+                .name("такси")
+                .build();
+        UUID beerTransactionId = UUID.randomUUID();
+        UUID taxiTransactionId = UUID.randomUUID();
+        CategorySuggestionBatchDTO batch = CategorySuggestionBatchDTO.builder()
+                .transactions(List.of(
+                        CategorySuggestionRequestDTO.builder().transactionId(beerTransactionId).message("пиво").build(),
+                        CategorySuggestionRequestDTO.builder().transactionId(taxiTransactionId).message("такси").build()))
+                .categories(List.of(categoryWithBeer, categoryTaxi))
+                .build();
+
+        List<CategorySuggestionDTO> suggestions = categoryRecognizerService.recognizeCategories(batch);
+
+        Assertions.assertEquals(List.of(
+                CategorySuggestionDTO.builder().transactionId(beerTransactionId).suggestedCategoryId(1L).build(),
+                CategorySuggestionDTO.builder().transactionId(taxiTransactionId).suggestedCategoryId(2L).build()),
+                suggestions);
+        Assertions.assertEquals(1, categoryWithBeer.getKeywords().size());
+        Assertions.assertTrue(categoryTaxi.getKeywords().isEmpty());
+    }
+
+    @Test
+    public void recognizeCategoriesReturnsEmptyListWithoutCategories() {
+        CategorySuggestionBatchDTO batch = CategorySuggestionBatchDTO.builder()
+                .transactions(List.of(CategorySuggestionRequestDTO.builder()
+                        .transactionId(UUID.randomUUID()).message("пиво").build()))
+                .categories(List.of())
+                .build();
+
+        Assertions.assertTrue(categoryRecognizerService.recognizeCategories(batch).isEmpty());
+    }
+
+    @Test
+    public void recognizeCategoryDoesNotChangeCategories() {
+        List<KeywordIdDTO> listOfKeywordBeer = new ArrayList<>();
+        listOfKeywordBeer.add(KeywordIdDTO.builder().accountId(1L).name("пиво").build());
+        final CategoryDTO categoryWithBeer = CategoryDTO.builder()
+                .keywords(listOfKeywordBeer)
+                .name("Напитки")
+                .build();
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .keywords(new ArrayList<>())
+                .name("такси")
+                .build();
+
+        Assertions.assertSame(categoryTaxi,
+                categoryRecognizerService.recognizeCategory("такси", List.of(categoryWithBeer, categoryTaxi)));
+        Assertions.assertSame(categoryWithBeer,
+                categoryRecognizerService.recognizeCategory("пиво", List.of(categoryWithBeer, categoryTaxi)));
+        Assertions.assertEquals(1, categoryWithBeer.getKeywords().size());
+        Assertions.assertTrue(categoryTaxi.getKeywords().isEmpty());
+    }
+
+    @Test
+    public void recognizeCategoryRebuildsIndexWhenKeywordsChange() {
+        final CategoryDTO categoryMeal = CategoryDTO.builder()
+                .keywords(new ArrayList<>())
+                .name("Еда")
+                .build();
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .keywords(new ArrayList<>())
+                .name("Такси")
+                .build();
+        List<CategoryDTO> categories = List.of(categoryMeal, categoryTaxi);
+        Assertions.assertSame(categoryMeal, categoryRecognizerService.recognizeCategory("пиво", categories));
+
+        categoryTaxi.getKeywords().add(KeywordIdDTO.builder().accountId(1L).name("пиво").build());
+
+        Assertions.assertSame(categoryTaxi, categoryRecognizerService.recognizeCategory("пиво", categories));
+    }
+
+    @Test
+    public void recognizeCategoriesReusesIndexUntilCategoriesVersionChanges() {
+        final CategoryDTO categoryMeal = CategoryDTO.builder()
+                .id(1L)
+                .keywords(new ArrayList<>())
+                .name("Еда")
+                .build();
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .id(2L)
+                .keywords(new ArrayList<>())
+                .name("Такси")
+                .build();
+        List<CategoryDTO> categories = List.of(categoryMeal, categoryTaxi);
+        Assertions.assertEquals(1L, recognizeSingle(categories, "1").getSuggestedCategoryId());
+
+        categoryTaxi.getKeywords().add(KeywordIdDTO.builder().accountId(1L).name("пиво").build());
+
+        Assertions.assertEquals(1L, recognizeSingle(categories, "1").getSuggestedCategoryId());
+        Assertions.assertEquals(2L, recognizeSingle(categories, "2").getSuggestedCategoryId());
+    }
+
+    @Test
+    public void recognizeCategoriesRebuildsIndexWhenCategoriesDifferFromCachedIndex() {
+        final CategoryDTO categoryMeal = CategoryDTO.builder()
+                .id(1L)
+                .keywords(new ArrayList<>())
+                .name("Еда")
+                .build();
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .id(2L)
+                .keywords(List.of(KeywordIdDTO.builder().accountId(1L).name("пиво").build()))
+                .name("Такси")
+                .build();
+        Assertions.assertEquals(1L, recognizeSingle(List.of(categoryMeal), "1").getSuggestedCategoryId());
+
+        Assertions.assertEquals(2L,
+                recognizeSingle(List.of(categoryMeal, categoryTaxi), "1").getSuggestedCategoryId());
+    }
+
+    @Test
+    public void sendTransactionWithSuggestedCategoryWritesSuggestionWithBulkUpdate() {
+        final CategoryDTO categoryTaxi = CategoryDTO.builder()
+                .id(2L)
+                .keywords(new ArrayList<>())
+                .name("такси")
+                .build();
+        UUID transactionId = UUID.randomUUID();
+
+        categoryRecognizerService.sendTransactionWithSuggestedCategory("такси", List.of(categoryTaxi), transactionId);
+
+        Mockito.verify(orchestratorFeign).editSuggestedCategories(List.of(CategorySuggestionDTO.builder()
+                .transactionId(transactionId)
+                .suggestedCategoryId(2L)
+                .build()));
+    }
+
+    @Test
+    public void sendTransactionWithSuggestedCategorySkipsAccountWithoutCategories() {
+        categoryRecognizerService.sendTransactionWithSuggestedCategory("такси", List.of(), UUID.randomUUID());
+
+        Mockito.verifyNoInteractions(orchestratorFeign);
+    }
+
+    private CategorySuggestionDTO recognizeSingle(List<CategoryDTO> categories, String version) {
+        CategorySuggestionBatchDTO batch = CategorySuggestionBatchDTO.builder()
+                .accountId(1L)
+                .categoriesVersion(version)
+                .transactions(List.of(CategorySuggestionRequestDTO.builder()
+                        .transactionId(UUID.randomUUID()).message("пиво").build()))
+                .categories(categories)
+                .build();
+        return categoryRecognizerService.recognizeCategories(batch).get(0);
+    }
 }
@@ -0,0 +1,81 @@
+package com.override.recognizer_service.service;
+
+import com.override.dto.VoiceMessageDTO;
+import com.override.recognizer_service.config.VoiceRecognitionCacheProperties;
+import com.override.recognizer_service.service.voice.VoiceDTORecognitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class VoiceMessageServiceTest {
+
+    private static final byte[] VOICE_MESSAGE = {1, 2, 3};
+
+    @InjectMocks
+    private VoiceMessageService voiceMessageService;
+
+    @Mock
+    private VoiceDTORecognitionService voiceDTORecognitionService;
+
+    @Mock
+    private WordsToNumbersService wordsToNumbersService;
+
+    @Spy
+    private VoiceRecognitionCache voiceRecognitionCache = new VoiceRecognitionCache();
+
+    @BeforeEach
+    public void init() {
+        ReflectionTestUtils.setField(voiceRecognitionCache, "voiceRecognitionCacheProperties",
+                new VoiceRecognitionCacheProperties());
+        ReflectionTestUtils.setField(voiceRecognitionCache, "meterRegistry", new SimpleMeterRegistry());
+        voiceRecognitionCache.init();
+        when(voiceDTORecognitionService.voiceToText(any(), any())).thenAnswer(invocation -> {
+            InputStream voiceMessage = invocation.getArgument(1);
+            voiceMessage.readAllBytes();
+            return "пиво двести";
+        });
+        when(wordsToNumbersService.wordsToNumbers("пиво двести")).thenReturn("пиво 200");
+    }
+
+    @Test
+    public void processVoiceMessageRecognizesSameContentOnce() {
+        VoiceMessageDTO voiceMessage = VoiceMessageDTO.builder().voiceMessageBytes(VOICE_MESSAGE).build();
+
+        assertEquals("пиво 200", voiceMessageService.processVoiceMessage(voiceMessage));
+        assertEquals("пиво 200", voiceMessageService.processVoiceMessage(voiceMessage));
+
+        verify(voiceDTORecognitionService, times(1)).voiceToText(any(), any());
+    }
+
+    @Test
+    public void processVoiceMessageStreamRecognizesSameFileUniqueIdOnce() {
+        voiceMessageService.processVoiceMessage(new ByteArrayInputStream(VOICE_MESSAGE), "unique");
+
+        assertEquals("пиво 200", voiceMessageService.processVoiceMessage(new ByteArrayInputStream(new byte[0]), "unique"));
+
+        verify(voiceDTORecognitionService, times(1)).voiceToText(any(), any());
+    }
+
+    @Test
+    public void processVoiceMessageStreamCachesResultByContent() {
+        voiceMessageService.processVoiceMessage(new ByteArrayInputStream(VOICE_MESSAGE), null);
+
+        voiceMessageService.processVoiceMessage(VoiceMessageDTO.builder().voiceMessageBytes(VOICE_MESSAGE).build());
+
+        verify(voiceDTORecognitionService, times(1)).voiceToText(any(), any());
+    }
+}
@@ -0,0 +1,118 @@
+package com.override.recognizer_service.service;
+
+import com.override.recognizer_service.config.VoiceRecognitionCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class VoiceRecognitionCacheTest {
+
+    @InjectMocks
+    private VoiceRecognitionCache voiceRecognitionCache;
+
+    @Spy
+    private VoiceRecognitionCacheProperties voiceRecognitionCacheProperties = new VoiceRecognitionCacheProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void init() {
+        voiceRecognitionCacheProperties.getDisk().setDirectory(directory.toString());
+    }
+
+    @Test
+    public void contentKeyIsSameForSameBytes() {
+        voiceRecognitionCache.init();
+
+        assertEquals(voiceRecognitionCache.contentKey(new byte[]{1, 2, 3}),
+                voiceRecognitionCache.contentKey(new byte[]{1, 2, 3}));
+        assertNotEquals(voiceRecognitionCache.contentKey(new byte[]{1, 2, 3}),
+                voiceRecognitionCache.contentKey(new byte[]{1, 2, 4}));
+        assertNotEquals(voiceRecognitionCache.fileKey("id"), voiceRecognitionCache.contentKey(new byte[0]));
+    }
+
+    @Test
+    public void getCountsHitsAndMisses() {
+        voiceRecognitionCache.init();
+        voiceRecognitionCache.put("key", "пиво двести");
+
+        assertEquals("пиво двести", voiceRecognitionCache.get("key"));
+        assertNull(voiceRecognitionCache.get("other"));
+
+        assertEquals(1.0, meterRegistry.counter("voice.recognition.cache.lookups", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("voice.recognition.cache.lookups", "result", "miss").count());
+    }
+
+    @Test
+    public void getReadsResultFromDiskAfterRestart() {
+        voiceRecognitionCacheProperties.getDisk().setEnabled(true);
+        voiceRecognitionCache.init();
+        voiceRecognitionCache.put("key", "пиво двести");
+
+        voiceRecognitionCache.init();
+
+        assertEquals("пиво двести", voiceRecognitionCache.get("key"));
+        assertEquals(1.0, meterRegistry.counter("voice.recognition.cache.disk.hits").count());
+    }
+
+    @Test
+    public void getSkipsExpiredResultOnDisk() throws IOException {
+        voiceRecognitionCacheProperties.getDisk().setEnabled(true);
+        voiceRecognitionCache.init();
+        voiceRecognitionCache.put("key", "пиво двести");
+        setAllModified(Instant.now().minus(voiceRecognitionCacheProperties.getTtlHours() + 1, ChronoUnit.HOURS));
+
+        voiceRecognitionCache.init();
+
+        assertNull(voiceRecognitionCache.get("key"));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void putRemovesOldestResultsOverDiskLimit() throws IOException {
+        voiceRecognitionCacheProperties.getDisk().setEnabled(true);
+        voiceRecognitionCacheProperties.getDisk().setMaxEntries(10);
+        voiceRecognitionCache.init();
+
+        for (int i = 0; i <= 10; i++) {
+            voiceRecognitionCache.put("key" + i, "text" + i);
+        }
+
+        assertEquals(9, countFiles());
+    }
+
+    private void setAllModified(Instant modified) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.setLastModifiedTime(file, FileTime.from(modified));
+            }
+        }
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
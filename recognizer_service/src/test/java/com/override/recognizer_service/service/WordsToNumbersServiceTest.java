@@ -22,6 +22,7 @@ public class WordsToNumbersServiceTest {
     @BeforeEach
     public void setUp() {
         wordsToNumbersService.fillCurrencies();
+        wordsToNumbersService.fillFractions();
         wordsToNumbersService.fillVocabulary();
         wordsToNumbersService.fillSlangVocabulary();
     }
@@ -49,7 +50,19 @@ public class WordsToNumbersServiceTest {
                 Arguments.of("очень дорогое/ пиво! сто тридцать три тысячи двести семьдесят восемь",
                         "очень дорогое пиво 133278"),
                 Arguments.of("машина два миллиона четыреста одиннадцать тысяч шестьсот двадцать один рубль",
-                        "машина 2411621")
+                        "машина 2411621"),
+                Arguments.of("квартира три миллиарда рублей", "квартира 3000000000"),
+                Arguments.of("пиво двести рублей пятьдесят копеек", "пиво 200.50"),
+                Arguments.of("хлеб сорок пять рублей пять копеек", "хлеб 45.05"),
+                Arguments.of("жвачка девяносто копеек", "жвачка 0.90"),
+                Arguments.of("сдача сто пятьдесят копеек", "сдача 1.50"),
+                Arguments.of("бензин две целых пять десятых", "бензин 2.50"),
+                Arguments.of("проезд сорок шесть целых семьдесят пять сотых", "проезд 46.75"),
+                Arguments.of("Ёлка Косарь", "Ёлка 1000"),
+                Arguments.of("кофе", "кофе 0"),
+                Arguments.of("целая пицца триста", "целая пицца 300"),
+                Arguments.of("копейка рубль бережет", "копейка бережет 0"),
+                Arguments.of("ноль целых пять десятых", "0.50")
         );
     }
 }
@@ -0,0 +1,80 @@
+package com.override.recognizer_service.service.voice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VoiceDTORecognitionServiceImplGoAudioRecognizerTest {
+
+    private static final String GO_SERVICE_URL = "http://wit-ai-go-proxy";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void voiceToTextStreamsVoiceMessageAsBase64Json() throws Exception {
+        UUID id = UUID.randomUUID();
+        byte[] voiceMessage = {0, 1, 2, -1, 127};
+        AtomicReference<Request> sentRequest = new AtomicReference<>();
+        AtomicReference<String> sentBody = new AtomicReference<>();
+        VoiceDTORecognitionServiceImplGoAudioRecognizer recognizer = createRecognizer(chain -> {
+            Buffer body = new Buffer();
+            chain.request().body().writeTo(body);
+            sentRequest.set(chain.request());
+            sentBody.set(body.readUtf8());
+            return createResponse(chain.request(), 200, "{\"text\":\"пиво двести\"}");
+        });
+
+        String text = recognizer.voiceToText(id, new ByteArrayInputStream(voiceMessage));
+
+        assertEquals("пиво двести", text);
+        assertEquals(GO_SERVICE_URL + "/recognizer", sentRequest.get().url().toString());
+        assertTrue(sentRequest.get().body().isOneShot());
+        JsonNode json = objectMapper.readTree(sentBody.get());
+        assertEquals(id.toString(), json.get("id").asText());
+        assertEquals(Base64.getEncoder().encodeToString(voiceMessage), json.get("voiceMessage").asText());
+    }
+
+    @Test
+    public void voiceToTextThrowsWhenProxyRespondsWithError() {
+        VoiceDTORecognitionServiceImplGoAudioRecognizer recognizer = createRecognizer(chain ->
+                createResponse(chain.request(), 502, "bad gateway"));
+
+        assertThrows(UncheckedIOException.class,
+                () -> recognizer.voiceToText(UUID.randomUUID(), new ByteArrayInputStream(new byte[]{1})));
+    }
+
+    private VoiceDTORecognitionServiceImplGoAudioRecognizer createRecognizer(okhttp3.Interceptor proxy) {
+        VoiceDTORecognitionServiceImplGoAudioRecognizer recognizer = new VoiceDTORecognitionServiceImplGoAudioRecognizer();
+        ReflectionTestUtils.setField(recognizer, "goServiceUrl", GO_SERVICE_URL);
+        ReflectionTestUtils.setField(recognizer, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(recognizer, "witAiProxyHttpClient",
+                new OkHttpClient.Builder().addInterceptor(proxy).build());
+        return recognizer;
+    }
+
+    private Response createResponse(Request request, int code, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(body, MediaType.get("application/json")))
+                .build();
+    }
+}
@@ -62,6 +62,8 @@ public class OverMoneyBot extends TelegramLongPollingCommandBot {
     private TelegramMessageCheckerService telegramMessageCheckerService;
     @Autowired
     private TelegramMessageService telegramMessageService;
+    @Autowired
+    private UpdateDispatcherService updateDispatcherService;
     private final String TRANSACTION_MESSAGE_INVALID = "Мы не смогли распознать ваше сообщение. " +
             "Убедитесь, что сумма и товар указаны верно и попробуйте еще раз :)";
     private final Integer MILLISECONDS_CONVERSION = 1000;
@@ -83,6 +85,8 @@ public class OverMoneyBot extends TelegramLongPollingCommandBot {
     private final String BLANK_MESSAGE = "";
     private final Boolean BOT = true;
     private final String SUCCESSFUL_UPDATE_TRANSACTION_TEXT = "Запись успешно изменена.\n";
+    private final String UPDATES_OVERFLOW_TEXT = "Сейчас бот получает слишком много сообщений, " +
+            "это сообщение не обработано. Пожалуйста, отправьте его еще раз чуть позже";
     private final String INVALID_UPDATE_TRANSACTION_TEXT = "Некорректная транзакция для изменения.\n" +
             "Возможно, Вы выбрали транзакцию, которая уже была изменена или сообщение бота";
 
@@ -102,9 +106,35 @@ public class OverMoneyBot extends TelegramLongPollingCommandBot {
         return botToken;
     }
 
+    /**
+     * Обработка обновления ставится в очередь потока его чата, чтобы долгая обработка сообщения
+     * не задерживала получение обновлений и другие чаты, см. {@link UpdateDispatcherService}
+     */
     @Override
-    @SneakyThrows
     public void processNonCommandUpdate(Update update) {
+        Long chatId = getChatId(update);
+        updateDispatcherService.dispatch(chatId, () -> handleUpdate(update), () -> {
+            if (update.hasMessage()) {
+                sendMessage(chatId, UPDATES_OVERFLOW_TEXT);
+            }
+        });
+    }
+
+    private Long getChatId(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        if (update.hasMyChatMember()) {
+            return update.getMyChatMember().getChat().getId();
+        }
+        return null;
+    }
+
+    @SneakyThrows
+    private void handleUpdate(Update update) {
         if (update.hasMessage()) {
             Message receivedMessage = update.getMessage();
             Long chatId = receivedMessage.getChatId();
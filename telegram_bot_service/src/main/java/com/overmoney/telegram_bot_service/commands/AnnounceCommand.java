@@ -1,10 +1,6 @@
 package com.overmoney.telegram_bot_service.commands;
 
-import com.overmoney.telegram_bot_service.model.Announce;
-import com.overmoney.telegram_bot_service.model.Mail;
-import com.overmoney.telegram_bot_service.repository.AnnounceRepository;
-import com.overmoney.telegram_bot_service.service.MailService;
-import com.overmoney.telegram_bot_service.service.TelegramMessageService;
+import com.overmoney.telegram_bot_service.service.AnnounceMailerService;
 import com.overmoney.telegram_bot_service.util.ValidationUtils;
 import com.override.dto.constants.StatusMailing;
 import lombok.extern.slf4j.Slf4j;
@@ -17,11 +13,7 @@ import org.telegram.telegrambots.meta.api.objects.User;
 import org.telegram.telegrambots.meta.bots.AbsSender;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 
 import static com.overmoney.telegram_bot_service.constants.Command.ANNOUNCE;
 import static com.overmoney.telegram_bot_service.constants.MessageConstants.NO_RIGHTS;
@@ -32,18 +24,7 @@ public class AnnounceCommand extends OverMoneyCommand {
     @Value("${admin.allowed_users}")
     private Set<String> admins;
     @Autowired
-    private MailService mailService;
-    @Autowired
-    private TelegramMessageService telegramMessageService;
-
-    @Autowired
-    private AnnounceRepository announceRepository;
-
-    @Autowired
-    private ExecutorService executorService;
-
-    @Value("${max-mailing-messages.maxMessagesOfAnnouncePerSecond}")
-    private long MAX_MESSAGES_PER_SECOND;
+    private AnnounceMailerService announceMailerService;
 
     @Autowired
     public AnnounceCommand() {
@@ -57,9 +38,9 @@ public class AnnounceCommand extends OverMoneyCommand {
             return;
         }
         ValidationUtils.validateArguments(args);
-        String announce = String.join(" ", args);
-        Set<Long> userIds = telegramMessageService.getAllUniqChatIds();
-        sendAnnounce(announce, userIds, absSender);
+        Long announceId = announceMailerService.createAnnounce(String.join(" ", args));
+        announceMailerService.addRecipientsFromKnownChats(announceId);
+        announceMailerService.start(announceId);
     }
 
     public StatusMailing sendMessage(AbsSender sender, Long chatId, String messageText) {
@@ -73,52 +54,4 @@ public class AnnounceCommand extends OverMoneyCommand {
             return StatusMailing.ERROR;
         }
     }
-
-    public void sendAnnounce(String announceText, Set<Long> userIds, AbsSender absSender) {
-        Announce announce = saveAnnounce(announceText);
-        List<Mail> mails = new ArrayList<>();
-        for (Long userTgId : userIds) {
-            mails.add(mailService.createMail(announce, StatusMailing.PENDING, userTgId));
-        }
-        mailService.saveListOfMails(mails);
-        sendAnnounceForUsersInPending(announceText, announce, absSender);
-    }
-
-    private void sendAnnounceForUsersInPending(String announceText, Announce announce, AbsSender absSender) {
-        executorService.execute(() -> {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-            List<Mail> mailsInPending = mailService.findAllMailsByStatusAndAnnounce(StatusMailing.PENDING, announce);
-            long countMessage = 0;
-            for (Mail mail : mailsInPending) {
-                long userTgId = mail.getUserTgId();
-                if (countMessage < MAX_MESSAGES_PER_SECOND) {
-                    StatusMailing statusMailing = sendMessage(absSender, userTgId, announceText);
-                    mail.setStatusMailing(statusMailing);
-                    countMessage++;
-                } else {
-                    try {
-                        mailService.saveListOfMails(mailsInPending);
-                        Thread.sleep(1000);
-                        StatusMailing statusMailing = sendMessage(absSender, userTgId, announceText);
-                        mail.setStatusMailing(statusMailing);
-                        countMessage = 1;
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
-            mailService.saveListOfMails(mailsInPending);
-        });
-    }
-
-    public Announce saveAnnounce(String announceText) {
-        return announceRepository.save(Announce.builder()
-                .textAnnounce(announceText)
-                .date(LocalDateTime.now())
-                .build());
-    }
 }
@@ -0,0 +1,41 @@
+package com.overmoney.telegram_bot_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "announce-mailer")
+@Getter
+@Setter
+public class AnnounceMailerProperties {
+    /**
+     * Сколько сообщений рассылки отправляется одновременно
+     */
+    private int parallelism = 4;
+    /**
+     * Минимальный интервал между сообщениями в один личный чат
+     */
+    private long chatIntervalMillis = 1000;
+    /**
+     * Минимальный интервал между сообщениями в один групповой чат, телеграм допускает 20 сообщений в минуту
+     */
+    private long groupChatIntervalMillis = 3000;
+    /**
+     * Сколько писем читается из БД за один запрос
+     */
+    private int pageSize = 500;
+    /**
+     * Сколько статусов писем накапливается перед записью в БД
+     */
+    private int statusBatchSize = 50;
+    /**
+     * Сколько раз письмо отправляется при ответе 429, после чего получает статус ошибки
+     */
+    private int maxAttempts = 3;
+    /**
+     * Рассылки старше этого количества часов не продолжаются после перезапуска приложения
+     */
+    private long resumeMaxAgeHours = 24;
+}
@@ -1,15 +1,18 @@
 package com.overmoney.telegram_bot_service.config;
 
 import feign.RequestInterceptor;
-import feign.okhttp.OkHttpClient;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class FeignConfiguration {
 
-    private final String HEADER_NAME = "X-INTERNAL-KEY";
+    public static final String HEADER_NAME = "X-INTERNAL-KEY";
 
     @Value("${authorization-header.header-value}")
     private String headerValue;
@@ -21,8 +24,22 @@ public class FeignConfiguration {
         };
     }
 
+    /**
+     * Общий пул соединений для feign клиентов и потоковой передачи голосовых сообщений
+     */
+    @Bean
+    public OkHttpClient okHttpClient(HttpClientProperties httpClientProperties) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(httpClientProperties.getMaxIdleConnections(),
+                        httpClientProperties.getKeepAliveMinutes(), TimeUnit.MINUTES))
+                .connectTimeout(httpClientProperties.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(httpClientProperties.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(httpClientProperties.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
     @Bean
-    public feign.Client feignClient() {
-        return new OkHttpClient();
+    public feign.Client feignClient(OkHttpClient okHttpClient) {
+        return new feign.okhttp.OkHttpClient(okHttpClient);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.overmoney.telegram_bot_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "http-client")
+@Getter
+@Setter
+public class HttpClientProperties {
+    private long connectTimeoutMillis = 5000;
+    /**
+     * Ответ распознавателя ждем, пока голосовое сообщение распознается
+     */
+    private long readTimeoutMillis = 60000;
+    private long writeTimeoutMillis = 30000;
+    private int maxIdleConnections = 10;
+    private long keepAliveMinutes = 5;
+}
@@ -0,0 +1,21 @@
+package com.overmoney.telegram_bot_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "update-dispatcher")
+@Getter
+@Setter
+public class UpdateDispatcherProperties {
+    /**
+     * Количество потоков обработки, сообщения одного чата всегда обрабатываются одним потоком
+     */
+    private int stripes = 8;
+    /**
+     * Сколько обновлений может ждать обработки в очереди одного потока
+     */
+    private int queueCapacity = 100;
+}
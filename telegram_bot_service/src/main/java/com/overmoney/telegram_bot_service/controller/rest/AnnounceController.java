@@ -1,24 +1,50 @@
 package com.overmoney.telegram_bot_service.controller.rest;
 
 
-import com.overmoney.telegram_bot_service.commands.AnnounceCommand;
+import com.overmoney.telegram_bot_service.service.AnnounceMailerService;
 import com.override.dto.AnnounceDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-import org.telegram.telegrambots.meta.bots.AbsSender;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 public class AnnounceController {
 
     @Autowired
-    private AnnounceCommand announceCommand;
-    @Autowired
-    private AbsSender absSender;
+    private AnnounceMailerService announceMailerService;
 
     @PostMapping("/announce")
     public void sendAnnounce(@RequestBody AnnounceDTO announceDTO) {
-        announceCommand.sendAnnounce(announceDTO.getAnnounceText(), announceDTO.getUserIds(), absSender);
+        Long announceId = createAnnounce(announceDTO);
+        announceMailerService.start(announceId);
+    }
+
+    /**
+     * Создает рассылку, получатели добавляются отдельными запросами, после чего рассылка запускается
+     *
+     * @return id рассылки
+     */
+    @PostMapping("/announces")
+    public Long createAnnounce(@RequestBody AnnounceDTO announceDTO) {
+        Long announceId = announceMailerService.createAnnounce(announceDTO.getAnnounceText());
+        if (announceDTO.getUserIds() != null) {
+            announceMailerService.addRecipients(announceId, new ArrayList<>(announceDTO.getUserIds()));
+        }
+        return announceId;
+    }
+
+    @PostMapping("/announces/{id}/recipients")
+    public void addRecipients(@PathVariable("id") Long announceId, @RequestBody List<Long> userIds) {
+        announceMailerService.addRecipients(announceId, userIds);
+    }
+
+    @PostMapping("/announces/{id}/start")
+    public void startAnnounce(@PathVariable("id") Long announceId) {
+        announceMailerService.start(announceId);
     }
 }
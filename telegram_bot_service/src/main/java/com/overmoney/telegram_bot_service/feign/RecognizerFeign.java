@@ -1,13 +0,0 @@
-package com.overmoney.telegram_bot_service.feign;
-
-import com.override.dto.VoiceMessageDTO;
-import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-
-@FeignClient(value="recognizer", url = "${integration.internal.host.recognizer}")
-public interface RecognizerFeign {
-
-    @PostMapping("/voice")
-    String sendVoiceMessage(@RequestBody VoiceMessageDTO voiceMessageDTO);
-}
@@ -1,5 +1,6 @@
 package com.overmoney.telegram_bot_service.feign;
 
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,5 +15,5 @@ public interface TelegramBotApiFeign {
     ResponseEntity<ApiResponse<File>> getTelegramFileData(@PathVariable String fileId);
 
     @GetMapping("/file/bot${bot.token}/{filePath}")
-    ResponseEntity<byte[]> getVoiceMessage(@PathVariable String filePath);
+    Response getVoiceMessage(@PathVariable String filePath);
 }
@@ -0,0 +1,83 @@
+package com.overmoney.telegram_bot_service.repository;
+
+import com.overmoney.telegram_bot_service.model.Mail;
+import com.override.dto.constants.StatusMailing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Запросы рассылки через JDBC: получатели добавляются и статусы писем обновляются пачками,
+ * письма читаются страницами по id без загрузки сущностей рассылки.
+ * Статус письма хранится в БД номером {@link StatusMailing#ordinal()}
+ */
+@Repository
+public class MailDeliveryRepository {
+
+    private final String INSERT_RECIPIENT = "INSERT INTO mails (user_tg_id, status_mailing, announce_id) " +
+            "VALUES (?, ?, ?) ON CONFLICT (announce_id, user_tg_id) DO NOTHING";
+    private final String INSERT_KNOWN_CHATS = "INSERT INTO mails (user_tg_id, status_mailing, announce_id) " +
+            "SELECT DISTINCT tm.chat_id, ?, ? FROM telegram_message tm WHERE tm.chat_id IS NOT NULL " +
+            "ON CONFLICT (announce_id, user_tg_id) DO NOTHING";
+    private final String SELECT_MAILS_PAGE = "SELECT id, user_tg_id FROM mails " +
+            "WHERE announce_id = ? AND status_mailing = ? AND id > ? ORDER BY id LIMIT ?";
+    private final String SELECT_ANNOUNCE_IDS = "SELECT DISTINCT m.announce_id FROM mails m " +
+            "JOIN announcements a ON a.id = m.announce_id WHERE m.status_mailing = ? AND a.date > ?";
+    private final String UPDATE_STATUS = "UPDATE mails SET status_mailing = ? WHERE id = ANY (?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Добавляет рассылке письма получателям одной пачкой, уже добавленные получатели пропускаются
+     */
+    public void insertRecipients(Long announceId, Collection<Long> chatIds, StatusMailing status) {
+        jdbcTemplate.batchUpdate(INSERT_RECIPIENT, chatIds, chatIds.size(), (statement, chatId) -> {
+            statement.setLong(1, chatId);
+            statement.setInt(2, status.ordinal());
+            statement.setLong(3, announceId);
+        });
+    }
+
+    /**
+     * Добавляет рассылке письма во все чаты, из которых приходили сообщения, одним запросом в БД
+     *
+     * @return количество добавленных писем
+     */
+    public int insertRecipientsFromKnownChats(Long announceId, StatusMailing status) {
+        return jdbcTemplate.update(INSERT_KNOWN_CHATS, status.ordinal(), announceId);
+    }
+
+    /**
+     * @return до limit писем рассылки с указанным статусом и id больше afterId, по возрастанию id
+     */
+    public List<Mail> findMailsPage(Long announceId, StatusMailing status, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_MAILS_PAGE, (resultSet, rowNum) -> Mail.builder()
+                        .id(resultSet.getLong("id"))
+                        .userTgId(resultSet.getLong("user_tg_id"))
+                        .build(),
+                announceId, status.ordinal(), afterId, limit);
+    }
+
+    /**
+     * @return id рассылок, созданных позже createdAfter, у которых есть письма с указанным статусом
+     */
+    public List<Long> findAnnounceIdsByStatusCreatedAfter(StatusMailing status, LocalDateTime createdAfter) {
+        return jdbcTemplate.queryForList(SELECT_ANNOUNCE_IDS, Long.class, status.ordinal(),
+                Timestamp.valueOf(createdAfter));
+    }
+
+    public void updateStatuses(StatusMailing status, Collection<Long> mailIds) {
+        jdbcTemplate.execute(UPDATE_STATUS, (PreparedStatementCallback<Integer>) statement -> {
+            statement.setInt(1, status.ordinal());
+            statement.setArray(2, statement.getConnection().createArrayOf("bigint", mailIds.toArray()));
+            return statement.executeUpdate();
+        });
+    }
+}
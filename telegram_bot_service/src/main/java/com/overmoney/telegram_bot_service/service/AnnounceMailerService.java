@@ -0,0 +1,269 @@
+package com.overmoney.telegram_bot_service.service;
+
+import com.overmoney.telegram_bot_service.config.AnnounceMailerProperties;
+import com.overmoney.telegram_bot_service.config.MaxMessagesInSecondProperties;
+import com.overmoney.telegram_bot_service.model.Announce;
+import com.overmoney.telegram_bot_service.model.Mail;
+import com.overmoney.telegram_bot_service.repository.AnnounceRepository;
+import com.overmoney.telegram_bot_service.repository.MailDeliveryRepository;
+import com.overmoney.telegram_bot_service.util.TokenBucket;
+import com.override.dto.constants.StatusMailing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рассылает объявления с соблюдением ограничений телеграма: общая частота отправки задается token bucket,
+ * в один чат сообщения уходят не чаще заданного интервала, при ответе 429 отправка приостанавливается
+ * на retry_after. Письма читаются из БД страницами и отправляются параллельно, статусы записываются
+ * небольшими пачками, поэтому после перезапуска рассылка продолжается с неотправленных писем
+ */
+@Service
+@Slf4j
+public class AnnounceMailerService {
+
+    private final int TOO_MANY_REQUESTS = 429;
+    private final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private MailDeliveryRepository mailDeliveryRepository;
+
+    @Autowired
+    private AnnounceRepository announceRepository;
+
+    @Autowired
+    private AnnounceMailerProperties announceMailerProperties;
+
+    @Autowired
+    private MaxMessagesInSecondProperties maxMessagesInSecondProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Бот получает список команд, среди которых команда рассылки, поэтому отправитель внедряется лениво
+     */
+    @Lazy
+    @Autowired
+    private AbsSender absSender;
+
+    private final Map<Long, Long> chatNextSendAt = new ConcurrentHashMap<>();
+
+    private final Set<Long> activeAnnounces = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService coordinator;
+    private ExecutorService senders;
+    private TokenBucket tokenBucket;
+
+    private Counter retriedCounter;
+
+    @PostConstruct
+    public void init() {
+        coordinator = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("announce-coordinator-"));
+        senders = Executors.newFixedThreadPool(announceMailerProperties.getParallelism(),
+                new CustomizableThreadFactory("announce-sender-"));
+        tokenBucket = new TokenBucket(maxMessagesInSecondProperties.getMaxMessagesOfAnnouncePerSecond(), System.nanoTime());
+        retriedCounter = meterRegistry.counter("announce.mails.retried");
+        meterRegistry.gaugeCollectionSize("announce.active", List.of(), activeAnnounces);
+    }
+
+    public Long createAnnounce(String announceText) {
+        return announceRepository.save(Announce.builder()
+                .textAnnounce(announceText)
+                .date(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    /**
+     * Добавляет рассылке получателей пачками по размеру страницы, повторно добавленные получатели пропускаются
+     */
+    public void addRecipients(Long announceId, List<Long> chatIds) {
+        int pageSize = announceMailerProperties.getPageSize();
+        for (int from = 0; from < chatIds.size(); from += pageSize) {
+            mailDeliveryRepository.insertRecipients(announceId,
+                    chatIds.subList(from, Math.min(from + pageSize, chatIds.size())), StatusMailing.PENDING);
+        }
+    }
+
+    /**
+     * Добавляет рассылке все чаты, из которых приходили сообщения
+     */
+    public int addRecipientsFromKnownChats(Long announceId) {
+        return mailDeliveryRepository.insertRecipientsFromKnownChats(announceId, StatusMailing.PENDING);
+    }
+
+    /**
+     * Запускает отправку неотправленных писем рассылки, не дожидаясь ее окончания
+     *
+     * @return false, если рассылка уже отправляется
+     */
+    public boolean start(Long announceId) {
+        if (!activeAnnounces.add(announceId)) {
+            return false;
+        }
+        coordinator.execute(() -> {
+            try {
+                deliver(announceId);
+            } catch (InterruptedException e) {
+                log.warn("Рассылка " + announceId + " прервана, оставшиеся письма будут отправлены после перезапуска");
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Ошибка рассылки " + announceId + ": " + e.getMessage(), e);
+            } finally {
+                activeAnnounces.remove(announceId);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Продолжает рассылки, которые не были завершены до остановки приложения. Письмо, отправленное
+     * перед остановкой без записи статуса, будет отправлено повторно. Рассылки старше
+     * {@link AnnounceMailerProperties#getResumeMaxAgeHours()} часов не продолжаются, чтобы не отправлять устаревшие объявления
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        LocalDateTime createdAfter = LocalDateTime.now().minusHours(announceMailerProperties.getResumeMaxAgeHours());
+        for (Long announceId : mailDeliveryRepository.findAnnounceIdsByStatusCreatedAfter(StatusMailing.PENDING, createdAfter)) {
+            log.info("Продолжение рассылки " + announceId);
+            start(announceId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        coordinator.shutdownNow();
+        senders.shutdownNow();
+        coordinator.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void deliver(Long announceId) throws InterruptedException {
+        Announce announce = announceRepository.findById(announceId).orElse(null);
+        if (announce == null) {
+            log.error("Рассылка " + announceId + " не найдена");
+            return;
+        }
+        Map<StatusMailing, List<Long>> statuses = new EnumMap<>(StatusMailing.class);
+        long afterId = 0;
+        List<Mail> page = mailDeliveryRepository.findMailsPage(announceId, StatusMailing.PENDING,
+                afterId, announceMailerProperties.getPageSize());
+        while (!page.isEmpty()) {
+            List<Callable<Void>> sends = new ArrayList<>();
+            for (Mail mail : page) {
+                sends.add(() -> {
+                    StatusMailing status = send(mail.getUserTgId(), announce.getTextAnnounce());
+                    addStatus(statuses, status, mail.getId());
+                    return null;
+                });
+            }
+            for (Future<Void> sent : senders.invokeAll(sends)) {
+                try {
+                    sent.get();
+                } catch (ExecutionException e) {
+                    log.error("Ошибка отправки письма рассылки " + announceId + ": " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            flushStatuses(statuses);
+            afterId = page.get(page.size() - 1).getId();
+            page = mailDeliveryRepository.findMailsPage(announceId, StatusMailing.PENDING,
+                    afterId, announceMailerProperties.getPageSize());
+        }
+        long now = System.nanoTime();
+        chatNextSendAt.values().removeIf(nextSendAt -> nextSendAt - now < 0);
+        log.info("Рассылка " + announceId + " завершена");
+    }
+
+    StatusMailing send(Long chatId, String announceText) throws InterruptedException {
+        SendMessage message = new SendMessage(chatId.toString(), announceText);
+        for (int attempt = 1; ; attempt++) {
+            awaitSendAt(chatId);
+            try {
+                absSender.execute(message);
+                return countStatus(StatusMailing.SUCCESS);
+            } catch (TelegramApiRequestException e) {
+                Integer retryAfter = getRetryAfter(e);
+                if (retryAfter == null || attempt >= announceMailerProperties.getMaxAttempts()) {
+                    log.error("Сообщение рассылки не отправлено в чат " + chatId + ": " + e.getMessage());
+                    return countStatus(StatusMailing.ERROR);
+                }
+                retriedCounter.increment();
+                long now = System.nanoTime();
+                long pauseNanos = TimeUnit.SECONDS.toNanos(retryAfter);
+                tokenBucket.pause(now, pauseNanos);
+                chatNextSendAt.merge(chatId, now + pauseNanos, Math::max);
+            } catch (TelegramApiException e) {
+                log.error("Сообщение рассылки не отправлено в чат " + chatId + ": " + e.getMessage());
+                return countStatus(StatusMailing.ERROR);
+            }
+        }
+    }
+
+    /**
+     * Ждет токена общего ограничения и интервала с предыдущего сообщения в этот чат
+     */
+    private void awaitSendAt(Long chatId) throws InterruptedException {
+        long now = System.nanoTime();
+        long earliest = now + tokenBucket.reserve(now);
+        long interval = TimeUnit.MILLISECONDS.toNanos(chatId < 0
+                ? announceMailerProperties.getGroupChatIntervalMillis()
+                : announceMailerProperties.getChatIntervalMillis());
+        long sendAt = chatNextSendAt.merge(chatId, earliest + interval,
+                (nextSendAt, ignored) -> Math.max(nextSendAt, earliest) + interval) - interval;
+        TimeUnit.NANOSECONDS.sleep(sendAt - System.nanoTime());
+    }
+
+    private Integer getRetryAfter(TelegramApiRequestException e) {
+        if (e.getErrorCode() == null || e.getErrorCode() != TOO_MANY_REQUESTS || e.getParameters() == null) {
+            return null;
+        }
+        return e.getParameters().getRetryAfter();
+    }
+
+    private StatusMailing countStatus(StatusMailing status) {
+        meterRegistry.counter("announce.mails.sent", "status", status.name()).increment();
+        return status;
+    }
+
+    private void addStatus(Map<StatusMailing, List<Long>> statuses, StatusMailing status, Long mailId) {
+        synchronized (statuses) {
+            List<Long> mailIds = statuses.computeIfAbsent(status, s -> new ArrayList<>());
+            mailIds.add(mailId);
+            if (mailIds.size() >= announceMailerProperties.getStatusBatchSize()) {
+                mailDeliveryRepository.updateStatuses(status, statuses.remove(status));
+            }
+        }
+    }
+
+    private void flushStatuses(Map<StatusMailing, List<Long>> statuses) {
+        synchronized (statuses) {
+            statuses.forEach(mailDeliveryRepository::updateStatuses);
+            statuses.clear();
+        }
+    }
+}
@@ -1,26 +1,99 @@
 package com.overmoney.telegram_bot_service.service;
 
 import com.overmoney.telegram_bot_service.exception.VoiceProcessingException;
-import com.overmoney.telegram_bot_service.feign.RecognizerFeign;
-import com.override.dto.VoiceMessageDTO;
-import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.overmoney.telegram_bot_service.config.FeignConfiguration.HEADER_NAME;
+
 @Service
 @Slf4j
 public class RecognizerRequestService {
 
+    private final String FILE_UNIQUE_ID_HEADER = "X-Voice-File-Unique-Id";
+    private final String NETWORK_ERROR = "сетевая ошибка, функционал временно не доступен";
+
+    @Value("${integration.internal.host.recognizer}")
+    private String recognizerUrl;
+
+    @Value("${authorization-header.header-value}")
+    private String headerValue;
+
     @Autowired
-    private RecognizerFeign recognizerFeign;
-
-    public String sendVoiceMessage(VoiceMessageDTO voiceMessage) {
-        try {
-            return recognizerFeign.sendVoiceMessage(voiceMessage);
-        } catch (FeignException e) {
-            log.error("Сетевая ошибка: " + e.status(), e);
-            throw new VoiceProcessingException("сетевая ошибка, функционал временно не доступен", e);
+    private OkHttpClient okHttpClient;
+
+    /**
+     * Передает голосовое сообщение в распознаватель телом запроса application/octet-stream,
+     * читая его из потока по мере отправки
+     *
+     * @param contentLength размер сообщения или -1, если он неизвестен
+     * @param fileUniqueId  file_unique_id сообщения в телеграме, по нему распознаватель находит
+     *                      сохраненный результат для пересланных сообщений
+     */
+    public String sendVoiceMessage(InputStream voiceMessage, long contentLength, String fileUniqueId) {
+        Request.Builder request = new Request.Builder()
+                .url(recognizerUrl + "/voice")
+                .header(HEADER_NAME, headerValue)
+                .post(new VoiceMessageRequestBody(voiceMessage, contentLength));
+        if (fileUniqueId != null) {
+            request.header(FILE_UNIQUE_ID_HEADER, fileUniqueId);
+        }
+        try (Response response = okHttpClient.newCall(request.build()).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                log.error("Сетевая ошибка: " + response.code());
+                throw new VoiceProcessingException(NETWORK_ERROR, null);
+            }
+            return response.body().string();
+        } catch (IOException e) {
+            log.error("Сетевая ошибка: " + e.getMessage(), e);
+            throw new VoiceProcessingException(NETWORK_ERROR, e);
+        }
+    }
+
+    private static class VoiceMessageRequestBody extends RequestBody {
+
+        private static final MediaType APPLICATION_OCTET_STREAM = MediaType.get("application/octet-stream");
+
+        private final InputStream voiceMessage;
+        private final long contentLength;
+
+        VoiceMessageRequestBody(InputStream voiceMessage, long contentLength) {
+            this.voiceMessage = voiceMessage;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return APPLICATION_OCTET_STREAM;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Source source = Okio.source(voiceMessage);
+            sink.writeAll(source);
         }
     }
 }
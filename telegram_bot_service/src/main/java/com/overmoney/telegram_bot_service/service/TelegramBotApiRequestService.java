@@ -1,6 +1,7 @@
 package com.overmoney.telegram_bot_service.service;
 
 import com.overmoney.telegram_bot_service.feign.TelegramBotApiFeign;
+import feign.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -10,8 +11,11 @@ public class TelegramBotApiRequestService {
     @Autowired
     private TelegramBotApiFeign telegramBotApiFeign;
 
-    public byte[] getVoiceMessageBytes(String fileId) {
-        return telegramBotApiFeign.getVoiceMessage(getTelegramFileUrl(fileId)).getBody();
+    /**
+     * @return ответ телеграма с файлом голосового сообщения, тело читается из соединения и должно быть закрыто
+     */
+    public Response getVoiceMessage(String fileId) {
+        return telegramBotApiFeign.getVoiceMessage(getTelegramFileUrl(fileId));
     }
 
     private String getTelegramFileUrl(String fileId) {
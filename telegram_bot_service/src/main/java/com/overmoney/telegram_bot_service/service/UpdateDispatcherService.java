@@ -0,0 +1,115 @@
+package com.overmoney.telegram_bot_service.service;
+
+import com.overmoney.telegram_bot_service.config.UpdateDispatcherProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обрабатывает обновления телеграма вне потока long polling. Обновления распределяются по потокам
+ * по остатку от деления id чата на их количество, поэтому сообщения одного чата обрабатываются по порядку,
+ * а разные чаты - параллельно, и долгая обработка в одном чате задерживает только чаты своего потока.
+ * У каждого потока своя ограниченная очередь, при ее переполнении обновление не обрабатывается
+ */
+@Service
+@Slf4j
+public class UpdateDispatcherService {
+
+    private final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private UpdateDispatcherProperties updateDispatcherProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor[] stripes;
+
+    private Counter dispatchedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Timer processingTimer;
+
+    @PostConstruct
+    public void init() {
+        stripes = new ThreadPoolExecutor[updateDispatcherProperties.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(updateDispatcherProperties.getQueueCapacity());
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue,
+                    new CustomizableThreadFactory("update-stripe-" + i + "-"));
+            Gauge.builder("bot.updates.stripe.queue.size", queue, BlockingQueue::size)
+                    .tag("stripe", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        dispatchedCounter = meterRegistry.counter("bot.updates.dispatched");
+        rejectedCounter = meterRegistry.counter("bot.updates.rejected");
+        failedCounter = meterRegistry.counter("bot.updates.failed");
+        processingTimer = meterRegistry.timer("bot.updates.processing");
+    }
+
+    /**
+     * Ставит обработку обновления в очередь потока чата, не дожидаясь ее выполнения
+     *
+     * @param onOverflow выполняется в вызывающем потоке, если очередь потока чата заполнена
+     * @return false, если очередь заполнена и обновление не будет обработано
+     */
+    public boolean dispatch(Long chatId, Runnable update, Runnable onOverflow) {
+        int stripe = getStripe(chatId);
+        try {
+            stripes[stripe].execute(() -> process(chatId, update));
+            dispatchedCounter.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Очередь обработки обновлений " + stripe + " заполнена, обновление чата " + chatId + " пропущено");
+            onOverflow.run();
+            return false;
+        }
+    }
+
+    public int getStripe(Long chatId) {
+        return chatId == null ? 0 : Math.floorMod(chatId, stripes.length);
+    }
+
+    public int getQueueSize(int stripe) {
+        return stripes[stripe].getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ThreadPoolExecutor stripe : stripes) {
+            if (!stripe.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Не все обновления обработаны до остановки, в очереди осталось " + stripe.getQueue().size());
+                stripe.shutdownNow();
+            }
+        }
+    }
+
+    private void process(Long chatId, Runnable update) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            update.run();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("Ошибка обработки обновления чата " + chatId + ": " + e.getMessage(), e);
+        } finally {
+            sample.stop(processingTimer);
+        }
+    }
+}
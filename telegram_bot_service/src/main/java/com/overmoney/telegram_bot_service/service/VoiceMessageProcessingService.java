@@ -1,12 +1,18 @@
 package com.overmoney.telegram_bot_service.service;
 
-import com.override.dto.VoiceMessageDTO;
+import com.overmoney.telegram_bot_service.exception.VoiceProcessingException;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.objects.Voice;
 
+import java.io.IOException;
+
 @Service
+@Slf4j
 public class VoiceMessageProcessingService {
 
     @Value("${bot.voice.max_length}")
@@ -17,17 +23,26 @@ public class VoiceMessageProcessingService {
     private RecognizerRequestService recognizerRequestService;
     private final String VOICE_MESSAGE_TOO_LONG = "К сожалению, мы не можем распознать голосовое сообщение " +
             "длиннее %d секунд - попробуйте разбить его на части поменьше :^)";
+    private final String VOICE_MESSAGE_NOT_DOWNLOADED = "ошибка загрузки файла из телеграма";
 
+    /**
+     * Передает голосовое сообщение из ответа телеграма в распознаватель, не загружая его целиком в память
+     */
     public String processVoiceMessage(Voice voiceMessage, Long userId, Long chatId) {
         if (voiceMessage.getDuration() > voiceMessageMaxLength) {
             return String.format(VOICE_MESSAGE_TOO_LONG, voiceMessageMaxLength);
         }
-        byte[] voiceMessageBytes = telegramBotApiRequestService.getVoiceMessageBytes(voiceMessage.getFileId());
-
-        return recognizerRequestService.sendVoiceMessage(VoiceMessageDTO.builder()
-                .voiceMessageBytes(voiceMessageBytes)
-                .userId(userId)
-                .chatId(chatId)
-                .build());
+        try (Response voice = telegramBotApiRequestService.getVoiceMessage(voiceMessage.getFileId())) {
+            if (voice.status() != HttpStatus.OK.value() || voice.body() == null) {
+                log.error("Голосовое сообщение чата " + chatId + " не получено, статус " + voice.status());
+                throw new VoiceProcessingException(VOICE_MESSAGE_NOT_DOWNLOADED, null);
+            }
+            Integer length = voice.body().length();
+            return recognizerRequestService.sendVoiceMessage(voice.body().asInputStream(),
+                    length == null ? -1 : length, voiceMessage.getFileUniqueId());
+        } catch (IOException e) {
+            log.error("Голосовое сообщение чата " + chatId + " не получено: " + e.getMessage(), e);
+            throw new VoiceProcessingException(VOICE_MESSAGE_NOT_DOWNLOADED, e);
+        }
     }
 }
@@ -0,0 +1,66 @@
+package com.overmoney.telegram_bot_service.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты по алгоритму token bucket. Токены пополняются равномерно, в корзине помещается
+ * не больше секундного запаса. Вызывающий резервирует токен заранее и получает время ожидания,
+ * поэтому несколько потоков могут ждать каждый своего токена параллельно.
+ * Время передается в наносекундах {@link System#nanoTime()}
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    private final double nanosPerToken;
+
+    private double tokens;
+
+    /**
+     * Момент, до которого токены пополнены. При паузе он переносится в будущее
+     */
+    private long refilledAt;
+
+    public TokenBucket(double tokensPerSecond, long now) {
+        this.capacity = Math.max(1, tokensPerSecond);
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Резервирует токен
+     *
+     * @return сколько наносекунд нужно подождать до использования токена
+     */
+    public synchronized long reserve(long now) {
+        refill(now);
+        tokens -= 1;
+        long wait = Math.max(0, refilledAt - now);
+        if (tokens < 0) {
+            wait += (long) Math.ceil(-tokens * nanosPerToken);
+        }
+        return wait;
+    }
+
+    /**
+     * Приостанавливает выдачу токенов на указанное время, например по retry_after из ответа 429.
+     * Накопленный запас сгорает, по окончании паузы доступен один токен
+     */
+    public synchronized void pause(long now, long pauseNanos) {
+        long pausedUntil = now + pauseNanos;
+        if (pausedUntil <= refilledAt) {
+            return;
+        }
+        refill(now);
+        tokens = Math.min(tokens, 1);
+        refilledAt = pausedUntil;
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / nanosPerToken);
+            refilledAt = now;
+        }
+    }
+}
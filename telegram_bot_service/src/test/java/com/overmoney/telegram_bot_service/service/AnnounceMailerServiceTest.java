@@ -0,0 +1,187 @@
+package com.overmoney.telegram_bot_service.service;
+
+import com.overmoney.telegram_bot_service.config.AnnounceMailerProperties;
+import com.overmoney.telegram_bot_service.config.MaxMessagesInSecondProperties;
+import com.overmoney.telegram_bot_service.model.Announce;
+import com.overmoney.telegram_bot_service.model.Mail;
+import com.overmoney.telegram_bot_service.repository.AnnounceRepository;
+import com.overmoney.telegram_bot_service.repository.MailDeliveryRepository;
+import com.override.dto.constants.StatusMailing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AnnounceMailerServiceTest {
+
+    private static final Long ANNOUNCE_ID = 1L;
+    private static final int PAGE_SIZE = 3;
+
+    @InjectMocks
+    private AnnounceMailerService announceMailerService;
+
+    @Mock
+    private MailDeliveryRepository mailDeliveryRepository;
+
+    @Mock
+    private AnnounceRepository announceRepository;
+
+    @Mock
+    private AbsSender absSender;
+
+    @Spy
+    private AnnounceMailerProperties announceMailerProperties = new AnnounceMailerProperties();
+
+    @Spy
+    private MaxMessagesInSecondProperties maxMessagesInSecondProperties = new MaxMessagesInSecondProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void init() {
+        announceMailerProperties.setPageSize(PAGE_SIZE);
+        announceMailerProperties.setStatusBatchSize(2);
+        announceMailerProperties.setChatIntervalMillis(0);
+        announceMailerProperties.setGroupChatIntervalMillis(0);
+        maxMessagesInSecondProperties.setMaxMessagesOfAnnouncePerSecond(1000);
+        announceMailerService.init();
+    }
+
+    @AfterEach
+    public void shutdown() throws InterruptedException {
+        announceMailerService.shutdown();
+    }
+
+    @Test
+    public void deliverSendsPendingMailsPageByPageAndWritesStatusesInBatches() throws Exception {
+        when(announceRepository.findById(ANNOUNCE_ID)).thenReturn(Optional.of(createAnnounce()));
+        when(mailDeliveryRepository.findMailsPage(ANNOUNCE_ID, StatusMailing.PENDING, 0, PAGE_SIZE))
+                .thenReturn(List.of(createMail(1L, 101L), createMail(2L, 102L), createMail(3L, -103L)));
+        when(mailDeliveryRepository.findMailsPage(ANNOUNCE_ID, StatusMailing.PENDING, 3, PAGE_SIZE))
+                .thenReturn(List.of(createMail(4L, 104L)));
+        when(mailDeliveryRepository.findMailsPage(ANNOUNCE_ID, StatusMailing.PENDING, 4, PAGE_SIZE))
+                .thenReturn(List.of());
+        when(absSender.execute(any(SendMessage.class))).thenAnswer(invocation -> {
+            SendMessage message = invocation.getArgument(0);
+            if (message.getChatId().equals("-103")) {
+                throw new TelegramApiException("bot was kicked");
+            }
+            return new Message();
+        });
+
+        announceMailerService.deliver(ANNOUNCE_ID);
+
+        verify(absSender, times(4)).execute(any(SendMessage.class));
+        verify(mailDeliveryRepository).updateStatuses(eq(StatusMailing.SUCCESS), argThat(ids -> ids.size() == 2));
+        verify(mailDeliveryRepository).updateStatuses(StatusMailing.SUCCESS, List.of(4L));
+        verify(mailDeliveryRepository).updateStatuses(StatusMailing.ERROR, List.of(3L));
+        assertEquals(3.0, meterRegistry.counter("announce.mails.sent", "status", "SUCCESS").count());
+        assertEquals(1.0, meterRegistry.counter("announce.mails.sent", "status", "ERROR").count());
+    }
+
+    @Test
+    public void sendRetriesAfterTooManyRequests() throws Exception {
+        TelegramApiRequestException tooManyRequests = createTooManyRequests();
+        when(absSender.execute(any(SendMessage.class))).thenThrow(tooManyRequests).thenReturn(new Message());
+
+        assertEquals(StatusMailing.SUCCESS, announceMailerService.send(101L, "text"));
+
+        verify(absSender, times(2)).execute(any(SendMessage.class));
+        assertEquals(1.0, meterRegistry.counter("announce.mails.retried").count());
+    }
+
+    @Test
+    public void sendReturnsErrorAfterMaxAttempts() throws Exception {
+        announceMailerProperties.setMaxAttempts(2);
+        TelegramApiRequestException tooManyRequests = createTooManyRequests();
+        when(absSender.execute(any(SendMessage.class))).thenThrow(tooManyRequests);
+
+        assertEquals(StatusMailing.ERROR, announceMailerService.send(101L, "text"));
+
+        verify(absSender, times(2)).execute(any(SendMessage.class));
+    }
+
+    @Test
+    public void resumePendingStartsAnnouncesWithPendingMails() {
+        when(mailDeliveryRepository.findAnnounceIdsByStatusCreatedAfter(eq(StatusMailing.PENDING), any(LocalDateTime.class)))
+                .thenReturn(List.of(ANNOUNCE_ID));
+        when(announceRepository.findById(ANNOUNCE_ID)).thenReturn(Optional.of(createAnnounce()));
+        when(mailDeliveryRepository.findMailsPage(ANNOUNCE_ID, StatusMailing.PENDING, 0, PAGE_SIZE))
+                .thenReturn(List.of());
+
+        announceMailerService.resumePending();
+
+        verify(mailDeliveryRepository, timeout(5000)).findMailsPage(ANNOUNCE_ID, StatusMailing.PENDING, 0, PAGE_SIZE);
+    }
+
+    @Test
+    public void resumePendingStartsOnlyAnnouncesNewerThanResumeMaxAge() {
+        announceMailerProperties.setResumeMaxAgeHours(12);
+        LocalDateTime before = LocalDateTime.now().minusHours(12);
+
+        announceMailerService.resumePending();
+
+        ArgumentCaptor<LocalDateTime> createdAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mailDeliveryRepository).findAnnounceIdsByStatusCreatedAfter(eq(StatusMailing.PENDING), createdAfter.capture());
+        assertFalse(createdAfter.getValue().isBefore(before));
+        assertTrue(createdAfter.getValue().isBefore(LocalDateTime.now().minusHours(11)));
+    }
+
+    @Test
+    public void addRecipientsInsertsChunksOfPageSize() {
+        announceMailerService.addRecipients(ANNOUNCE_ID, List.of(1L, 2L, 3L, 4L));
+
+        verify(mailDeliveryRepository).insertRecipients(ANNOUNCE_ID, List.of(1L, 2L, 3L), StatusMailing.PENDING);
+        verify(mailDeliveryRepository).insertRecipients(ANNOUNCE_ID, List.of(4L), StatusMailing.PENDING);
+        assertTrue(meterRegistry.get("announce.active").gauge().value() >= 0);
+    }
+
+    private TelegramApiRequestException createTooManyRequests() {
+        TelegramApiRequestException exception = mock(TelegramApiRequestException.class);
+        ResponseParameters parameters = new ResponseParameters();
+        parameters.setRetryAfter(0);
+        when(exception.getErrorCode()).thenReturn(429);
+        when(exception.getParameters()).thenReturn(parameters);
+        return exception;
+    }
+
+    private Announce createAnnounce() {
+        return Announce.builder()
+                .id(ANNOUNCE_ID)
+                .textAnnounce("text")
+                .build();
+    }
+
+    private Mail createMail(Long id, Long userTgId) {
+        return Mail.builder()
+                .id(id)
+                .userTgId(userTgId)
+                .statusMailing(StatusMailing.PENDING)
+                .build();
+    }
+}
@@ -1,30 +1,76 @@
 package com.overmoney.telegram_bot_service.service;
 
-import com.overmoney.telegram_bot_service.feign.RecognizerFeign;
-import com.override.dto.VoiceMessageDTO;
+import com.overmoney.telegram_bot_service.exception.VoiceProcessingException;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
 
-@ExtendWith(MockitoExtension.class)
 public class RecognizerRequestServiceTest {
-    @InjectMocks
-    private RecognizerRequestService recognizerRequestService;
 
-    @Mock
-    private RecognizerFeign recognizerFeign;
+    private static final String RECOGNIZER_URL = "http://recognizer";
 
     @Test
-    public void sendVoiceMessageTest() {
-        VoiceMessageDTO voiceMessageDTO = VoiceMessageDTO.builder().build();
+    public void sendVoiceMessageStreamsBytesAsOctetStream() throws Exception {
+        byte[] voiceMessage = {1, 2, 3, -1};
+        AtomicReference<Request> sentRequest = new AtomicReference<>();
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+        RecognizerRequestService recognizerRequestService = createService(chain -> {
+            Buffer body = new Buffer();
+            chain.request().body().writeTo(body);
+            sentRequest.set(chain.request());
+            sentBody.set(body.readByteArray());
+            return createResponse(chain.request(), 200, "пиво 200");
+        });
+
+        String text = recognizerRequestService.sendVoiceMessage(new ByteArrayInputStream(voiceMessage),
+                voiceMessage.length, "unique");
 
-        recognizerRequestService.sendVoiceMessage(voiceMessageDTO);
+        assertEquals("пиво 200", text);
+        assertEquals(RECOGNIZER_URL + "/voice", sentRequest.get().url().toString());
+        assertEquals("key", sentRequest.get().header("X-INTERNAL-KEY"));
+        assertEquals("unique", sentRequest.get().header("X-Voice-File-Unique-Id"));
+        assertEquals("application/octet-stream", sentRequest.get().body().contentType().toString());
+        assertEquals(voiceMessage.length, sentRequest.get().body().contentLength());
+        assertArrayEquals(voiceMessage, sentBody.get());
+    }
+
+    @Test
+    public void sendVoiceMessageThrowsVoiceProcessingExceptionOnErrorStatus() {
+        RecognizerRequestService recognizerRequestService = createService(chain ->
+                createResponse(chain.request(), 500, "error"));
+
+        assertThrows(VoiceProcessingException.class,
+                () -> recognizerRequestService.sendVoiceMessage(new ByteArrayInputStream(new byte[]{1}), -1, null));
+    }
+
+    private RecognizerRequestService createService(Interceptor recognizer) {
+        RecognizerRequestService recognizerRequestService = new RecognizerRequestService();
+        ReflectionTestUtils.setField(recognizerRequestService, "recognizerUrl", RECOGNIZER_URL);
+        ReflectionTestUtils.setField(recognizerRequestService, "headerValue", "key");
+        ReflectionTestUtils.setField(recognizerRequestService, "okHttpClient",
+                new OkHttpClient.Builder().addInterceptor(recognizer).build());
+        return recognizerRequestService;
+    }
 
-        verify(recognizerFeign, times(1)).sendVoiceMessage(voiceMessageDTO);
+    private Response createResponse(Request request, int code, String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(body, MediaType.get("text/plain;charset=UTF-8")))
+                .build();
     }
 }
@@ -1,6 +1,8 @@
 package com.overmoney.telegram_bot_service.service;
 
 import com.overmoney.telegram_bot_service.feign.TelegramBotApiFeign;
+import feign.Request;
+import feign.Response;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -10,7 +12,11 @@ import org.springframework.http.ResponseEntity;
 import org.telegram.telegrambots.meta.api.objects.ApiResponse;
 import org.telegram.telegrambots.meta.api.objects.File;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 import static com.overmoney.telegram_bot_service.utils.TestFieldsUtil.generateTelegramFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,19 +30,24 @@ public class TelegramBotApiOrchestratorRequestServiceTest {
 
 
     @Test
-    public void getVoiceMessageBytesTest() {
+    public void getVoiceMessageTest() {
         String fileId = "12345";
         String filePath = "path";
         ResponseEntity<ApiResponse<File>> apiResponseResponseEntity = mock(ResponseEntity.class);
-        ResponseEntity<byte[]> byteArrayResponseEntity = mock(ResponseEntity.class);
+        Response voiceMessage = Response.builder()
+                .status(200)
+                .request(Request.create(Request.HttpMethod.GET, filePath, Map.of(), null, StandardCharsets.UTF_8, null))
+                .body(new byte[]{1, 2, 3})
+                .build();
         ApiResponse<File> apiResponse = mock(ApiResponse.class);
         File file = generateTelegramFile();
 
         when(telegramBotApiFeign.getTelegramFileData(fileId)).thenReturn(apiResponseResponseEntity);
         when(apiResponseResponseEntity.getBody()).thenReturn(apiResponse);
         when(apiResponse.getResult()).thenReturn(file);
-        when(telegramBotApiFeign.getVoiceMessage(filePath)).thenReturn(byteArrayResponseEntity);
-        telegramBotApiRequestService.getVoiceMessageBytes(fileId);
+        when(telegramBotApiFeign.getVoiceMessage(filePath)).thenReturn(voiceMessage);
+
+        assertEquals(voiceMessage, telegramBotApiRequestService.getVoiceMessage(fileId));
 
         verify(telegramBotApiFeign, times(1)).getVoiceMessage(filePath);
         verify(telegramBotApiFeign, times(1)).getTelegramFileData(fileId);
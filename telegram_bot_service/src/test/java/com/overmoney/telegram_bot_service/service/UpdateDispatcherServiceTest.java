@@ -0,0 +1,137 @@
+package com.overmoney.telegram_bot_service.service;
+
+import com.overmoney.telegram_bot_service.config.UpdateDispatcherProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UpdateDispatcherServiceTest {
+
+    private static final int STRIPES = 4;
+    private static final int QUEUE_CAPACITY = 2;
+
+    @InjectMocks
+    private UpdateDispatcherService updateDispatcherService;
+
+    @Spy
+    private UpdateDispatcherProperties updateDispatcherProperties = new UpdateDispatcherProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void init() {
+        updateDispatcherProperties.setStripes(STRIPES);
+        updateDispatcherProperties.setQueueCapacity(QUEUE_CAPACITY);
+        updateDispatcherService.init();
+    }
+
+    @AfterEach
+    public void shutdown() throws InterruptedException {
+        updateDispatcherService.shutdown();
+    }
+
+    @Test
+    public void dispatchKeepsOrderOfUpdatesInChat() throws InterruptedException {
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(QUEUE_CAPACITY + 1);
+
+        for (int i = 0; i <= QUEUE_CAPACITY; i++) {
+            int update = i;
+            assertTrue(updateDispatcherService.dispatch(-100L, () -> {
+                processed.add(update);
+                done.countDown();
+            }, () -> fail("очередь не должна переполниться")));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.rangeClosed(0, QUEUE_CAPACITY).boxed().collect(Collectors.toList()), processed);
+    }
+
+    @Test
+    public void dispatchProcessesOtherChatWhileChatIsBusy() throws InterruptedException {
+        CountDownLatch slowUpdateRelease = new CountDownLatch(1);
+        CountDownLatch otherChatProcessed = new CountDownLatch(1);
+        long slowChatId = 1L;
+        long otherChatId = 2L;
+        assertNotEquals(updateDispatcherService.getStripe(slowChatId), updateDispatcherService.getStripe(otherChatId));
+
+        updateDispatcherService.dispatch(slowChatId, () -> awaitQuietly(slowUpdateRelease), () -> { });
+        updateDispatcherService.dispatch(otherChatId, otherChatProcessed::countDown, () -> { });
+
+        assertTrue(otherChatProcessed.await(5, TimeUnit.SECONDS));
+        slowUpdateRelease.countDown();
+    }
+
+    @Test
+    public void dispatchRunsOverflowHandlerWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean overflowHandled = new AtomicBoolean();
+        long chatId = 3L;
+        int stripe = updateDispatcherService.getStripe(chatId);
+        updateDispatcherService.dispatch(chatId, () -> {
+            started.countDown();
+            awaitQuietly(release);
+        }, () -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            assertTrue(updateDispatcherService.dispatch(chatId, () -> { }, () -> { }));
+        }
+
+        boolean dispatched = updateDispatcherService.dispatch(chatId, () -> { }, () -> overflowHandled.set(true));
+
+        assertFalse(dispatched);
+        assertTrue(overflowHandled.get());
+        assertEquals(QUEUE_CAPACITY, updateDispatcherService.getQueueSize(stripe));
+        assertEquals(QUEUE_CAPACITY, meterRegistry.get("bot.updates.stripe.queue.size")
+                .tag("stripe", String.valueOf(stripe)).gauge().value());
+        assertEquals(1.0, meterRegistry.counter("bot.updates.rejected").count());
+        release.countDown();
+    }
+
+    @Test
+    public void dispatchContinuesAfterFailedUpdate() throws InterruptedException {
+        CountDownLatch processed = new CountDownLatch(1);
+
+        updateDispatcherService.dispatch(5L, () -> {
+            throw new IllegalStateException("ошибка обработки");
+        }, () -> { });
+        updateDispatcherService.dispatch(5L, processed::countDown, () -> { });
+
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.counter("bot.updates.failed").count());
+    }
+
+    @Test
+    public void getStripeSpreadsNegativeGroupChatIds() {
+        assertEquals(0, updateDispatcherService.getStripe(null));
+        assertTrue(updateDispatcherService.getStripe(-1001234567890L) >= 0);
+        assertTrue(updateDispatcherService.getStripe(-1001234567890L) < STRIPES);
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.overmoney.telegram_bot_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void reserveReturnsWaitWhenBurstIsSpent() {
+        TokenBucket tokenBucket = new TokenBucket(2, 0);
+
+        assertEquals(0, tokenBucket.reserve(0));
+        assertEquals(0, tokenBucket.reserve(0));
+        assertEquals(SECOND / 2, tokenBucket.reserve(0));
+        assertEquals(SECOND, tokenBucket.reserve(0));
+    }
+
+    @Test
+    public void reserveRefillsTokensOverTime() {
+        TokenBucket tokenBucket = new TokenBucket(2, 0);
+        tokenBucket.reserve(0);
+        tokenBucket.reserve(0);
+
+        assertEquals(0, tokenBucket.reserve(SECOND / 2));
+        assertEquals(SECOND / 2, tokenBucket.reserve(SECOND / 2));
+    }
+
+    @Test
+    public void pauseDelaysTokensAndDropsBurst() {
+        TokenBucket tokenBucket = new TokenBucket(2, 0);
+
+        tokenBucket.pause(0, 3 * SECOND);
+
+        assertEquals(3 * SECOND, tokenBucket.reserve(0));
+        assertEquals(3 * SECOND + SECOND / 2, tokenBucket.reserve(0));
+        assertEquals(SECOND, tokenBucket.reserve(3 * SECOND));
+    }
+
+    @Test
+    public void pauseShorterThanCurrentPauseIsIgnored() {
+        TokenBucket tokenBucket = new TokenBucket(2, 0);
+        tokenBucket.pause(0, 3 * SECOND);
+
+        tokenBucket.pause(SECOND, SECOND);
+
+        assertEquals(2 * SECOND, tokenBucket.reserve(SECOND));
+    }
+}